@@ -0,0 +1,99 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright 2013 - 2021 Aurelian Tutuianu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package rapaio;
+
+import rapaio.core.RandomSource;
+import rapaio.core.distributions.Normal;
+import rapaio.data.Frame;
+import rapaio.data.SolidFrame;
+import rapaio.data.Var;
+import rapaio.data.VarDouble;
+import rapaio.data.VarNominal;
+
+/**
+ * Synthetic data sets used by benchmarks. All data sets are generated from a fixed seed,
+ * thus repeated runs measure the same workload.
+ *
+ * @author <a href="mailto:padreati@yahoo.com">Aurelian Tutuianu</a>
+ */
+public final class BenchmarkData {
+
+    public static final long SEED = 42;
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Builds a frame with numeric variables named x1, x2, .. and a nominal target
+     * named y which depends on the first two variables.
+     */
+    public static Frame classification(int rows, int cols, int classes) {
+        RandomSource.setSeed(SEED);
+        Var[] vars = numeric(rows, cols);
+        String[] levels = new String[classes];
+        for (int i = 0; i < classes; i++) {
+            levels[i] = "c" + (i + 1);
+        }
+        VarNominal y = VarNominal.from(rows, row -> {
+            double score = vars[0].getDouble(row) + (cols > 1 ? vars[1].getDouble(row) : 0);
+            int level = (int) Math.floor(Math.abs(score) * classes / 4) % classes;
+            return levels[level];
+        }, levels).name("y");
+        return SolidFrame.byVars(vars).bindVars(y).copy();
+    }
+
+    /**
+     * Builds a frame with numeric variables named x1, x2, .. and a numeric target
+     * named y which is a noisy linear combination of the first variables.
+     */
+    public static Frame regression(int rows, int cols) {
+        RandomSource.setSeed(SEED);
+        Var[] vars = numeric(rows, cols);
+        Normal noise = Normal.of(0, 0.1);
+        VarDouble y = VarDouble.from(rows, row -> {
+            double value = 0;
+            for (int j = 0; j < Math.min(3, cols); j++) {
+                value += (j + 1) * vars[j].getDouble(row);
+            }
+            return value + noise.sampleNext();
+        }).name("y");
+        return SolidFrame.byVars(vars).bindVars(y).copy();
+    }
+
+    /**
+     * Builds a frame with numeric variables named x1, x2, .. sampled from a standard normal.
+     */
+    public static Frame numeric(int rows, int cols, long seed) {
+        RandomSource.setSeed(seed);
+        return SolidFrame.byVars(numeric(rows, cols));
+    }
+
+    private static Var[] numeric(int rows, int cols) {
+        Normal normal = Normal.std();
+        Var[] vars = new Var[cols];
+        for (int j = 0; j < cols; j++) {
+            vars[j] = VarDouble.from(rows, normal::sampleNext).name("x" + (j + 1));
+        }
+        return vars;
+    }
+}
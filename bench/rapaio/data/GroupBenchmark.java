@@ -0,0 +1,78 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright 2013 - 2021 Aurelian Tutuianu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package rapaio.data;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import rapaio.BenchmarkData;
+import rapaio.core.RandomSource;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for grouping a frame by one nominal and one integer key and aggregating numeric variables.
+ *
+ * @author <a href="mailto:padreati@yahoo.com">Aurelian Tutuianu</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class GroupBenchmark {
+
+    @Param({"10000", "1000000"})
+    private int rows;
+
+    @Param({"10", "1000"})
+    private int cardinality;
+
+    private Frame df;
+
+    @Setup
+    public void setup() {
+        Frame numeric = BenchmarkData.numeric(rows, 2, BenchmarkData.SEED);
+        String[] levels = new String[cardinality];
+        for (int i = 0; i < cardinality; i++) {
+            levels[i] = "k" + i;
+        }
+        RandomSource.setSeed(BenchmarkData.SEED);
+        VarNominal nom = VarNominal.from(rows, row -> levels[RandomSource.nextInt(cardinality)], levels).name("nom");
+        VarInt id = VarInt.from(rows, row -> RandomSource.nextInt(10)).name("id");
+        df = numeric.bindVars(nom, id).copy();
+    }
+
+    @Benchmark
+    public Group group() {
+        return Group.from(df, "nom", "id");
+    }
+
+    @Benchmark
+    public Group.Aggregate aggregate() {
+        return Group.from(df, "nom", "id").aggregate(Group.count("x1"), Group.sum("x1"), Group.mean("x1", "x2"));
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright 2013 - 2021 Aurelian Tutuianu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package rapaio.math.linear;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import rapaio.core.RandomSource;
+import rapaio.math.linear.decomposition.MatrixMultiplication;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the matrix multiplication algorithms on square dense matrices.
+ *
+ * @author <a href="mailto:padreati@yahoo.com">Aurelian Tutuianu</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DMatrixDotBenchmark {
+
+    @Param({"128", "512"})
+    private int n;
+
+    @Param({"RDENSE", "CDENSE"})
+    private MType type;
+
+    @Param({"dot", "jama", "ikjParallel", "tiledAlgorithm", "strassen", "blocked"})
+    private String algorithm;
+
+    private DMatrix a;
+    private DMatrix b;
+
+    @Setup
+    public void setup() {
+        RandomSource.setSeed(42);
+        a = DMatrix.random(type, n, n);
+        b = DMatrix.random(type, n, n);
+    }
+
+    @Benchmark
+    public DMatrix dot() {
+        return switch (algorithm) {
+            case "dot" -> a.dot(b);
+            case "jama" -> MatrixMultiplication.jama(a, b);
+            case "ikjParallel" -> MatrixMultiplication.ikjParallel(a, b);
+            case "tiledAlgorithm" -> MatrixMultiplication.tiledAlgorithm(a, b);
+            case "strassen" -> MatrixMultiplication.strassen(a, b, 64);
+            case "blocked" -> MatrixMultiplication.blocked(a, b);
+            default -> throw new IllegalArgumentException("Unknown algorithm: " + algorithm);
+        };
+    }
+}
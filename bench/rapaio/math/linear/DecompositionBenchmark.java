@@ -0,0 +1,93 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright 2013 - 2021 Aurelian Tutuianu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package rapaio.math.linear;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import rapaio.core.RandomSource;
+import rapaio.math.linear.decomposition.CholeskyDecomposition;
+import rapaio.math.linear.decomposition.EigenDecomposition;
+import rapaio.math.linear.decomposition.LUDecomposition;
+import rapaio.math.linear.decomposition.QRDecomposition;
+import rapaio.math.linear.decomposition.SVDecomposition;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for matrix decompositions. Cholesky and eigen decompositions
+ * run on a symmetric positive definite matrix, the others on a random matrix.
+ *
+ * @author <a href="mailto:padreati@yahoo.com">Aurelian Tutuianu</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DecompositionBenchmark {
+
+    @Param({"64", "256"})
+    private int n;
+
+    private DMatrix a;
+    private DMatrix spd;
+
+    @Setup
+    public void setup() {
+        RandomSource.setSeed(42);
+        a = DMatrix.random(n, n);
+        spd = a.t().dot(a);
+        for (int i = 0; i < n; i++) {
+            spd.inc(i, i, n);
+        }
+    }
+
+    @Benchmark
+    public CholeskyDecomposition cholesky() {
+        return CholeskyDecomposition.from(spd);
+    }
+
+    @Benchmark
+    public LUDecomposition lu() {
+        return LUDecomposition.from(a);
+    }
+
+    @Benchmark
+    public QRDecomposition qr() {
+        return QRDecomposition.from(a);
+    }
+
+    @Benchmark
+    public SVDecomposition svd() {
+        return SVDecomposition.from(a);
+    }
+
+    @Benchmark
+    public EigenDecomposition evd() {
+        return EigenDecomposition.from(spd);
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright 2013 - 2021 Aurelian Tutuianu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package rapaio.ml.classifier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import rapaio.BenchmarkData;
+import rapaio.core.RandomSource;
+import rapaio.data.Frame;
+import rapaio.ml.classifier.ensemble.CForest;
+import rapaio.ml.classifier.svm.BinarySMO;
+import rapaio.ml.classifier.tree.CTree;
+import rapaio.ml.common.kernel.RBFKernel;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for fitting and prediction of classification models. Support vector
+ * machines are fitted on a binary target, the other models on a target with 5 classes.
+ *
+ * @author <a href="mailto:padreati@yahoo.com">Aurelian Tutuianu</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ClassifierBenchmark {
+
+    @Param({"2000", "20000"})
+    private int rows;
+
+    @Param({"CTree", "CForest", "BinarySMO"})
+    private String model;
+
+    private Frame df;
+    private ClassifierModel<?, ?, ?> fitted;
+
+    @Setup
+    public void setup() {
+        df = BenchmarkData.classification(rows, 10, model.equals("BinarySMO") ? 2 : 5);
+        fitted = fit();
+    }
+
+    private ClassifierModel<?, ?, ?> newModel() {
+        return switch (model) {
+            case "CTree" -> CTree.newCART();
+            case "CForest" -> CForest.newModel().runs.set(50);
+            case "BinarySMO" -> BinarySMO.newModel().kernel.set(new RBFKernel(1.0));
+            default -> throw new IllegalArgumentException("Unknown model: " + model);
+        };
+    }
+
+    @Benchmark
+    public ClassifierModel<?, ?, ?> fit() {
+        RandomSource.setSeed(BenchmarkData.SEED);
+        return newModel().fit(df, "y");
+    }
+
+    @Benchmark
+    public ClassifierResult predict() {
+        return fitted.predict(df);
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright 2013 - 2021 Aurelian Tutuianu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package rapaio.ml.clustering;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import rapaio.BenchmarkData;
+import rapaio.core.RandomSource;
+import rapaio.data.Frame;
+import rapaio.ml.clustering.kmeans.KMeans;
+import rapaio.ml.clustering.kmeans.KMeansInit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for KMeans clustering with a fixed number of iterations.
+ *
+ * @author <a href="mailto:padreati@yahoo.com">Aurelian Tutuianu</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class KMeansBenchmark {
+
+    @Param({"10000", "100000"})
+    private int rows;
+
+    @Param({"10", "100"})
+    private int k;
+
+    @Param({"Lloyd", "Hamerly"})
+    private KMeans.Method method;
+
+    @Param({"0", "-1"})
+    private int poolSize;
+
+    private Frame df;
+
+    @Setup
+    public void setup() {
+        df = BenchmarkData.numeric(rows, 10, BenchmarkData.SEED);
+    }
+
+    @Benchmark
+    public KMeans fit() {
+        RandomSource.setSeed(BenchmarkData.SEED);
+        return KMeans.newModel()
+                .k.set(k)
+                .init.set(KMeansInit.Forgy)
+                .method.set(method)
+                .poolSize.set(poolSize)
+                .runs.set(20)
+                .eps.set(0.0)
+                .fit(df);
+    }
+}
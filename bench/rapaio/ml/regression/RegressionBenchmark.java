@@ -0,0 +1,86 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright 2013 - 2021 Aurelian Tutuianu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package rapaio.ml.regression;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import rapaio.BenchmarkData;
+import rapaio.core.RandomSource;
+import rapaio.data.Frame;
+import rapaio.ml.regression.boost.GBTRegression;
+import rapaio.ml.regression.tree.RTree;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for fitting and prediction of regression models.
+ *
+ * @author <a href="mailto:padreati@yahoo.com">Aurelian Tutuianu</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RegressionBenchmark {
+
+    @Param({"2000", "20000"})
+    private int rows;
+
+    @Param({"RTree", "GBTRegression"})
+    private String model;
+
+    private Frame df;
+    private RegressionModel<?, ?, ?> fitted;
+
+    @Setup
+    public void setup() {
+        df = BenchmarkData.regression(rows, 10);
+        fitted = fit();
+    }
+
+    private RegressionModel<?, ?, ?> newModel() {
+        return switch (model) {
+            case "RTree" -> RTree.newCART();
+            case "GBTRegression" -> GBTRegression.newModel()
+                    .runs.set(50)
+                    .model.set(RTree.newCART().maxDepth.set(4));
+            default -> throw new IllegalArgumentException("Unknown model: " + model);
+        };
+    }
+
+    @Benchmark
+    public RegressionModel<?, ?, ?> fit() {
+        RandomSource.setSeed(BenchmarkData.SEED);
+        return newModel().fit(df, "y");
+    }
+
+    @Benchmark
+    public RegressionResult predict() {
+        return fitted.predict(df);
+    }
+}
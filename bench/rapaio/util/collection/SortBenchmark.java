@@ -0,0 +1,106 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright 2013 - 2021 Aurelian Tutuianu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package rapaio.util.collection;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import rapaio.BenchmarkData;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for sorting primitive arrays. The arrays are restored to the same
+ * unsorted content before each invocation.
+ *
+ * @author <a href="mailto:padreati@yahoo.com">Aurelian Tutuianu</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SortBenchmark {
+
+    @Param({"10000", "1000000"})
+    private int size;
+
+    private int[] intSource;
+    private double[] doubleSource;
+    private int[] ints;
+    private double[] doubles;
+    private int[] perm;
+
+    @Setup(Level.Trial)
+    public void setupTrial() {
+        Random random = new Random(BenchmarkData.SEED);
+        intSource = random.ints(size).toArray();
+        doubleSource = random.doubles(size).toArray();
+        perm = new int[size];
+    }
+
+    @Setup(Level.Invocation)
+    public void setupInvocation() {
+        ints = Arrays.copyOf(intSource, size);
+        doubles = Arrays.copyOf(doubleSource, size);
+        for (int i = 0; i < size; i++) {
+            perm[i] = i;
+        }
+    }
+
+    @Benchmark
+    public int[] intQuickSort() {
+        IntArrays.quickSort(ints);
+        return ints;
+    }
+
+    @Benchmark
+    public int[] intParallelQuickSort() {
+        IntArrays.parallelQuickSort(ints);
+        return ints;
+    }
+
+    @Benchmark
+    public int[] intQuickSortIndirect() {
+        IntArrays.quickSortIndirect(perm, intSource);
+        return perm;
+    }
+
+    @Benchmark
+    public double[] doubleQuickSort() {
+        DoubleArrays.quickSort(doubles);
+        return doubles;
+    }
+
+    @Benchmark
+    public int[] doubleIndirectSort() {
+        IntArrays.quickSort(perm, (i, j) -> Double.compare(doubleSource[i], doubleSource[j]));
+        return perm;
+    }
+}
@@ -24,12 +24,22 @@ package rapaio.core;
 import java.io.Serial;
 import java.io.Serializable;
 import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
 
 /**
  * Random number producer used by rapaio facilities. Currently the implementation is a wrapper
  * over standard Java {@link Random}.
  * <p>
  * In order to have a reproducible analysis you can use same seed in code ({@link #setSeed(long)}).
+ * <p>
+ * Parallel tasks should not share the same generator, since they contend on it and the order
+ * in which they draw numbers is not deterministic. Before starting the tasks the caller
+ * creates independent streams with {@link #split(int)}, one for each task, and each task
+ * runs bound to its own stream with {@link #withStream(Random, Supplier)}. While a stream is
+ * bound to a thread, all the static methods of this class draw numbers from that stream.
+ * Since the streams are derived from the seeded generator, the results does not depend on
+ * the number of threads or on the order in which tasks are executed.
  *
  * @author Aurelian Tutuianu
  */
@@ -39,17 +49,24 @@ public final class RandomSource implements Serializable {
     private static final long serialVersionUID = -1201316989986445607L;
 
     private static final Random rand = new Random();
+    private static final ThreadLocal<Random> bound = new ThreadLocal<>();
 
     private RandomSource() {
     }
 
+    private static Random current() {
+        Random stream = bound.get();
+        return stream != null ? stream : rand;
+    }
+
     /**
-     * Set seed of random number generator
+     * Set seed of random number generator. If a stream is bound to the current thread,
+     * the seed is set on that stream.
      *
      * @param seed seed
      */
     public static void setSeed(long seed) {
-        rand.setSeed(seed);
+        current().setSeed(seed);
     }
 
     /**
@@ -58,19 +75,116 @@ public final class RandomSource implements Serializable {
      * {@code 1.0} from this random number generator's sequence.
      */
     public static double nextDouble() {
-        return rand.nextDouble();
+        return current().nextDouble();
     }
 
     public static int nextInt() {
-        return rand.nextInt();
+        return current().nextInt();
     }
 
     public static int nextInt(int n) {
-        return rand.nextInt(n);
+        return current().nextInt(n);
     }
 
+    /**
+     * @return the stream bound to the current thread, if any, the shared generator otherwise
+     */
     public static Random getRandom() {
-        return rand;
+        return current();
+    }
+
+    /**
+     * Creates independent random streams, one for each parallel task. The streams
+     * are derived from a single number drawn from the current generator, thus
+     * the streams are reproducible when the seed is set.
+     *
+     * @param n number of streams
+     * @return array of independent random streams
+     */
+    public static Random[] split(int n) {
+        SplittableRandom root = new SplittableRandom(current().nextLong());
+        Random[] streams = new Random[n];
+        for (int i = 0; i < n; i++) {
+            streams[i] = new Stream(root.split());
+        }
+        return streams;
+    }
+
+    /**
+     * Runs the task with the given stream bound to the current thread. All the
+     * random numbers drawn through this class by the task on the current thread
+     * are taken from the given stream. The previously bound stream is restored
+     * when the task completes.
+     *
+     * @param stream random stream, usually created with {@link #split(int)}
+     * @param task   task to be executed
+     * @param <T>    type of the task result
+     * @return task result
+     */
+    public static <T> T withStream(Random stream, Supplier<T> task) {
+        Random previous = bound.get();
+        bound.set(stream);
+        try {
+            return task.get();
+        } finally {
+            if (previous == null) {
+                bound.remove();
+            } else {
+                bound.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Random stream which is not synchronized and which can be split into
+     * statistically independent streams.
+     */
+    private static final class Stream extends Random {
+
+        @Serial
+        private static final long serialVersionUID = 2872391876424532931L;
+
+        private transient SplittableRandom source;
+
+        private Stream(SplittableRandom source) {
+            this.source = source;
+        }
+
+        @Override
+        public void setSeed(long seed) {
+            // called also by the super constructor, before the source is assigned
+            source = new SplittableRandom(seed);
+        }
+
+        @Override
+        protected int next(int bits) {
+            return source.nextInt() >>> (32 - bits);
+        }
+
+        @Override
+        public int nextInt() {
+            return source.nextInt();
+        }
+
+        @Override
+        public int nextInt(int bound) {
+            return source.nextInt(bound);
+        }
+
+        @Override
+        public long nextLong() {
+            return source.nextLong();
+        }
+
+        @Override
+        public double nextDouble() {
+            return source.nextDouble();
+        }
+
+        @Override
+        public boolean nextBoolean() {
+            return source.nextBoolean();
+        }
     }
 }
 
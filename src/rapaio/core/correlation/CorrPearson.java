@@ -32,9 +32,13 @@ import java.util.Arrays;
 import java.util.stream.IntStream;
 
 /**
- * /**
  * Pearson product-moment correlation coefficient.
  * <p>
+ * Coefficients between variables without missing values are computed together as
+ * a blocked and parallel cross product of centered columns. Pairs which involves
+ * variables with missing values are computed separately on the rows where both
+ * values are present.
+ * <p>
  * See
  * http://en.wikipedia.org/wiki/Pearson_product-moment_correlation_coefficient
  * <p>
@@ -63,12 +67,38 @@ public class CorrPearson extends AbstractCorrelation {
 
     private CorrPearson(Var[] vars, String[] names) {
         super(vars, names);
-        for (int i = 0; i < vars.length; i++) {
+        boolean[] complete = new boolean[vars.length];
+        IntStream.range(0, vars.length).parallel().forEach(i -> complete[i] = isComplete(vars[i]));
+
+        int[] index = IntStream.range(0, vars.length).filter(i -> complete[i]).toArray();
+        double[][] columns = new double[index.length][];
+        IntStream.range(0, index.length).parallel().forEach(i -> {
+            Var var = vars[index[i]];
+            double[] column = new double[rowCount];
+            for (int row = 0; row < rowCount; row++) {
+                column[row] = var.getDouble(row);
+            }
+            columns[i] = column;
+        });
+        GramCorrelation.fill(d, index, columns);
+
+        IntStream.range(0, vars.length).parallel().forEach(i -> {
             d.set(i, i, 1);
             for (int j = i + 1; j < vars.length; j++) {
-                d.set(i, j, compute(vars[i], vars[j]));
+                if (!(complete[i] && complete[j])) {
+                    d.set(i, j, compute(vars[i], vars[j]));
+                }
+            }
+        });
+    }
+
+    private boolean isComplete(Var var) {
+        for (int i = 0; i < rowCount; i++) {
+            if (var.isMissing(i)) {
+                return false;
             }
         }
+        return true;
     }
 
     private double compute(Var x, Var y) {
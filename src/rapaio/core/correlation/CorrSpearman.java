@@ -21,14 +21,10 @@
 
 package rapaio.core.correlation;
 
-import rapaio.core.tools.DistanceMatrix;
 import rapaio.data.Frame;
-import rapaio.data.Mapping;
-import rapaio.data.RowComparators;
 import rapaio.data.Var;
 import rapaio.data.VarDouble;
-import rapaio.data.VarInt;
-import rapaio.data.filter.VRefSort;
+import rapaio.util.collection.DoubleArrays;
 
 import java.io.Serial;
 import java.util.Arrays;
@@ -39,6 +35,10 @@ import java.util.stream.IntStream;
  * <p>
  * You can compute coefficient for multiple vectors at the same time.
  * <p>
+ * Ranks of variables without missing values are correlated together as a blocked and parallel
+ * cross product. Pairs which involves variables with missing values are ranked and correlated
+ * separately on the rows where both values are present.
+ * <p>
  * See: http://en.wikipedia.org/wiki/Spearman%27s_rank_correlation_coefficient
  * <p>
  * User: <a href="mailto:padreati@yahoo.com">Aurelian Tutuianu</a>
@@ -58,56 +58,66 @@ public class CorrSpearman extends AbstractCorrelation {
 
     private CorrSpearman(Var[] vars, String[] names) {
         super(vars, names);
-        Mapping map = Mapping.wrap(IntStream.range(0, rowCount)
-                .filter(row -> {
-                    for (Var var : vars) {
-                        if (var.isMissing(row))
-                            return false;
-                    }
-                    return true;
-                })
-                .toArray());
-
-        Var[] variables = new Var[vars.length];
-        for (int i = 0; i < vars.length; i++) {
-            variables[i] = vars[i].mapRows(map);
-        }
-        compute(variables);
-    }
+        boolean[] complete = new boolean[vars.length];
+        IntStream.range(0, vars.length).parallel().forEach(i -> complete[i] = isComplete(vars[i]));
 
-    private void compute(Var[] vars) {
-        Var[] sorted = new Var[vars.length];
-        Var[] ranks = new Var[vars.length];
-        for (int i = 0; i < sorted.length; i++) {
-            VarInt index = VarInt.seq(vars[i].size());
-            sorted[i] = new VRefSort(RowComparators.doubleComparator(vars[i], true)).fapply(index);
-            ranks[i] = VarDouble.fill(vars[i].size());
-        }
+        // compute Pearson on ranks
+        int[] index = IntStream.range(0, vars.length).filter(i -> complete[i]).toArray();
+        double[][] ranks = new double[index.length][];
+        IntStream.range(0, index.length).parallel().forEach(i -> {
+            Var var = vars[index[i]];
+            double[] values = new double[rowCount];
+            for (int row = 0; row < rowCount; row++) {
+                values[row] = var.getDouble(row);
+            }
+            ranks[i] = ranks(values);
+        });
+        GramCorrelation.fill(d, index, ranks);
 
-        // compute ranks
-        for (int i = 0; i < sorted.length; i++) {
-            int start = 0;
-            while (start < sorted[i].size()) {
-                int end = start;
-                while (end < sorted[i].size() - 1 &&
-                        vars[i].getDouble(sorted[i].getInt(end)) == vars[i].getDouble(sorted[i].getInt(end + 1))) {
-                    end++;
-                }
-                double value = 1 + (start + end) / 2.;
-                for (int j = start; j <= end; j++) {
-                    ranks[i].setDouble(sorted[i].getInt(j), value);
+        IntStream.range(0, vars.length).parallel().forEach(i -> {
+            d.set(i, i, 1);
+            for (int j = i + 1; j < vars.length; j++) {
+                if (!(complete[i] && complete[j])) {
+                    d.set(i, j, compute(vars[i], vars[j]));
                 }
-                start = end + 1;
             }
-        }
+        });
+    }
 
-        // compute Pearson on ranks
-        DistanceMatrix dp = CorrPearson.of(ranks).matrix();
-        for (int i = 0; i < dp.length(); i++) {
-            for (int j = 0; j < dp.length(); j++) {
-                d.set(i, j, dp.get(i, j));
+    private boolean isComplete(Var var) {
+        for (int i = 0; i < rowCount; i++) {
+            if (var.isMissing(i)) {
+                return false;
             }
         }
+        return true;
+    }
+
+    private double compute(Var x, Var y) {
+        int[] rows = IntStream.range(0, rowCount).filter(i -> !(x.isMissing(i) || y.isMissing(i))).toArray();
+        double[] xs = new double[rows.length];
+        double[] ys = new double[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            xs[i] = x.getDouble(rows[i]);
+            ys[i] = y.getDouble(rows[i]);
+        }
+        return CorrPearson.of(VarDouble.wrap(ranks(xs)), VarDouble.wrap(ranks(ys))).singleValue();
+    }
+
+    /**
+     * Computes ranks from a primitive sorted copy of values, tied values receive the average of their ranks.
+     */
+    private double[] ranks(double[] values) {
+        double[] sorted = Arrays.copyOf(values, values.length);
+        Arrays.parallelSort(sorted);
+
+        double[] ranks = new double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            int start = DoubleArrays.lowerBound(sorted, values[i]);
+            int end = DoubleArrays.upperBound(sorted, values[i]) - 1;
+            ranks[i] = 1 + (start + end) / 2.;
+        }
+        return ranks;
     }
 
     @Override
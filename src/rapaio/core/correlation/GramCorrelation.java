@@ -0,0 +1,113 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright 2013 - 2021 Aurelian Tutuianu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package rapaio.core.correlation;
+
+import rapaio.core.stat.Mean;
+import rapaio.core.stat.Variance;
+import rapaio.core.tools.DistanceMatrix;
+import rapaio.data.VarDouble;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Computes Pearson correlations between many dense columns without missing values
+ * as a single cross product {@code X^T X} of the centered columns.
+ * <p>
+ * Column pairs are split into square blocks of columns which are computed in parallel,
+ * and each block traverses rows in chunks, so that the columns of a block are
+ * reused from cache. Each pair keeps a single accumulator updated in row order,
+ * thus results are identical with the ones computed pair by pair.
+ *
+ * @author <a href="mailto:padreati@yahoo.com">Aurelian Tutuianu</a>
+ */
+final class GramCorrelation {
+
+    private static final int COL_BLOCK = 64;
+    private static final int ROW_BLOCK = 1024;
+
+    private GramCorrelation() {
+    }
+
+    /**
+     * Fills in the correlation matrix the values for all pairs of given columns. The columns
+     * are centered in place.
+     *
+     * @param d       correlation matrix
+     * @param index   position in correlation matrix for each column
+     * @param columns column values, all of the same length and without missing values
+     */
+    static void fill(DistanceMatrix d, int[] index, double[][] columns) {
+        int k = columns.length;
+        int n = k == 0 ? 0 : columns[0].length;
+
+        double[] sd = new double[k];
+        IntStream.range(0, k).parallel().forEach(i -> {
+            VarDouble var = VarDouble.wrap(columns[i]);
+            double mean = Mean.of(var).value();
+            sd[i] = Variance.of(var).sdValue();
+            double[] column = columns[i];
+            for (int r = 0; r < n; r++) {
+                column[r] -= mean;
+            }
+        });
+
+        int blocks = (k + COL_BLOCK - 1) / COL_BLOCK;
+        List<int[]> tasks = new ArrayList<>();
+        for (int bi = 0; bi < blocks; bi++) {
+            for (int bj = bi; bj < blocks; bj++) {
+                tasks.add(new int[]{bi, bj});
+            }
+        }
+        tasks.parallelStream().forEach(task -> {
+            int iStart = task[0] * COL_BLOCK;
+            int iEnd = Math.min(k, iStart + COL_BLOCK);
+            int jStart = task[1] * COL_BLOCK;
+            int jEnd = Math.min(k, jStart + COL_BLOCK);
+
+            double[][] sums = new double[iEnd - iStart][jEnd - jStart];
+            for (int rStart = 0; rStart < n; rStart += ROW_BLOCK) {
+                int rEnd = Math.min(n, rStart + ROW_BLOCK);
+                for (int i = iStart; i < iEnd; i++) {
+                    double[] x = columns[i];
+                    double[] s = sums[i - iStart];
+                    for (int j = Math.max(jStart, i + 1); j < jEnd; j++) {
+                        double[] y = columns[j];
+                        double sum = s[j - jStart];
+                        for (int r = rStart; r < rEnd; r++) {
+                            sum += x[r] * y[r];
+                        }
+                        s[j - jStart] = sum;
+                    }
+                }
+            }
+            for (int i = iStart; i < iEnd; i++) {
+                for (int j = Math.max(jStart, i + 1); j < jEnd; j++) {
+                    double sdp = sd[i] * sd[j];
+                    d.set(index[i], index[j], sdp == 0 ? Double.NaN : sums[i - iStart][j - jStart] / (sdp * (n - 1)));
+                }
+            }
+        });
+    }
+}
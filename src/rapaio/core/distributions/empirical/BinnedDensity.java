@@ -0,0 +1,149 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright 2013 - 2021 Aurelian Tutuianu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package rapaio.core.distributions.empirical;
+
+/**
+ * Binned approximation of a kernel density estimator.
+ * <p>
+ * Sample values are linearly binned on an equally spaced grid, which replaces the
+ * sample with grid counts. The density on the grid points is the discrete
+ * convolution between grid counts and kernel weights evaluated at grid offsets,
+ * which is computed with a zero padded fast Fourier transform. The cost is
+ * {@code O(n + m log m)} for a sample of size {@code n} and a grid of size {@code m},
+ * instead of {@code O(n m)} for exact evaluation.
+ *
+ * @author <a href="mailto:padreati@yahoo.com">Aurelian Tutuianu</a>
+ */
+final class BinnedDensity {
+
+    private BinnedDensity() {
+    }
+
+    /**
+     * Computes density estimates on grid points {@code min + i * step} for {@code i} in {@code [0, m)}.
+     *
+     * @param values    sample values, all of them must be inside the grid
+     * @param kernel    kernel function
+     * @param bandwidth kernel bandwidth
+     * @param min       first grid point
+     * @param step      distance between consecutive grid points
+     * @param m         number of grid points
+     * @return density estimates on grid points
+     */
+    static double[] estimate(double[] values, KFunc kernel, double bandwidth, double min, double step, int m) {
+
+        double[] counts = new double[m];
+        for (double value : values) {
+            double pos = (value - min) / step;
+            int j = Math.min(Math.max((int) Math.floor(pos), 0), m - 2);
+            double frac = Math.min(Math.max(pos - j, 0), 1);
+            counts[j] += 1 - frac;
+            counts[j + 1] += frac;
+        }
+
+        // kernel weights are needed only for offsets inside kernel support
+        double radius = kernel.maxValue(0, bandwidth);
+        int len = (int) Math.min(m - 1, Math.floor(radius / step));
+
+        int size = Integer.highestOneBit(m + len - 1);
+        if (size < m + len) {
+            size <<= 1;
+        }
+
+        double[] cre = new double[size];
+        double[] cim = new double[size];
+        System.arraycopy(counts, 0, cre, 0, m);
+
+        double[] kre = new double[size];
+        double[] kim = new double[size];
+        kre[0] = kernel.pdf(0, 0, bandwidth);
+        for (int l = 1; l <= len; l++) {
+            double w = kernel.pdf(l * step, 0, bandwidth);
+            kre[l] = w;
+            kre[size - l] = w;
+        }
+
+        fft(cre, cim, false);
+        fft(kre, kim, false);
+        for (int i = 0; i < size; i++) {
+            double re = cre[i] * kre[i] - cim[i] * kim[i];
+            double im = cre[i] * kim[i] + cim[i] * kre[i];
+            cre[i] = re;
+            cim[i] = im;
+        }
+        fft(cre, cim, true);
+
+        double[] density = new double[m];
+        double scale = 1.0 / (size * values.length * bandwidth);
+        for (int i = 0; i < m; i++) {
+            // round off errors can produce tiny negative values where the density is zero
+            density[i] = Math.max(0, cre[i] * scale);
+        }
+        return density;
+    }
+
+    /**
+     * In place iterative radix 2 fast Fourier transform. The inverse transform is not scaled.
+     */
+    static void fft(double[] re, double[] im, boolean inverse) {
+        int n = re.length;
+        for (int i = 1, j = 0; i < n; i++) {
+            int bit = n >> 1;
+            for (; (j & bit) != 0; bit >>= 1) {
+                j ^= bit;
+            }
+            j ^= bit;
+            if (i < j) {
+                double t = re[i];
+                re[i] = re[j];
+                re[j] = t;
+                t = im[i];
+                im[i] = im[j];
+                im[j] = t;
+            }
+        }
+        for (int len = 2; len <= n; len <<= 1) {
+            double angle = 2 * Math.PI / len * (inverse ? 1 : -1);
+            double wre = Math.cos(angle);
+            double wim = Math.sin(angle);
+            int half = len >> 1;
+            for (int i = 0; i < n; i += len) {
+                double ure = 1;
+                double uim = 0;
+                for (int k = 0; k < half; k++) {
+                    int a = i + k;
+                    int b = a + half;
+                    double vre = re[b] * ure - im[b] * uim;
+                    double vim = re[b] * uim + im[b] * ure;
+                    re[b] = re[a] - vre;
+                    im[b] = im[a] - vim;
+                    re[a] += vre;
+                    im[a] += vim;
+                    double t = ure * wre - uim * wim;
+                    uim = ure * wim + uim * wre;
+                    ure = t;
+                }
+            }
+        }
+    }
+}
@@ -24,15 +24,22 @@ package rapaio.core.distributions.empirical;
 import rapaio.core.stat.Variance;
 import rapaio.data.Var;
 import rapaio.data.filter.VSort;
+import rapaio.util.collection.DoubleArrays;
 
 import java.io.Serial;
 import java.io.Serializable;
-import java.util.Arrays;
 
 /**
  * Kernel density estimator.
  * Given a sample of values, based on a given kernel and bandwidth it creates
  * an estimation of a density function.
+ * <p>
+ * By default the estimator is exact: each evaluation visits only the sorted sample values
+ * which falls inside the kernel support around the query point, which is cheap for kernels
+ * with compact support. For large samples or many evaluations a binned estimator can be
+ * obtained with {@link #binned()}; it computes the density once on a regular grid using
+ * linear binning and a fast Fourier transform convolution and answers queries by linear
+ * interpolation between grid points.
  *
  * @author <a href="mailto:padreati@yahoo.com">Aurelian Tutuianu</a>
  */
@@ -82,25 +89,86 @@ public class KDE implements Serializable {
         return new KDE(values, kernel, bandwidth);
     }
 
+    /**
+     * Default number of grid points used by binned estimators.
+     */
+    public static final int DEFAULT_GRID_SIZE = 1024;
+
     @Serial
     private static final long serialVersionUID = -9221394390068126299L;
     private final double[] values;
     private final KFunc kernel;
     private final double bandwidth;
 
+    // grid estimates, available only for binned estimators
+    private final double gridMin;
+    private final double gridStep;
+    private final double[] grid;
+
     private KDE(Var values, KFunc kernel, double bandwidth) {
         this.values = VSort.asc().fapply(values).stream().filter(s -> !s.isMissing()).mapToDouble().toArray();
         this.kernel = kernel;
         this.bandwidth = bandwidth;
+        this.gridMin = Double.NaN;
+        this.gridStep = Double.NaN;
+        this.grid = null;
+    }
+
+    private KDE(KDE exact, int gridSize) {
+        this.values = exact.values;
+        this.kernel = exact.kernel;
+        this.bandwidth = exact.bandwidth;
+        this.gridMin = kernel.minValue(values[0], bandwidth);
+        this.gridStep = (kernel.maxValue(values[values.length - 1], bandwidth) - gridMin) / (gridSize - 1);
+        this.grid = BinnedDensity.estimate(values, kernel, bandwidth, gridMin, gridStep, gridSize);
+    }
+
+    /**
+     * Builds a binned estimator with {@link #DEFAULT_GRID_SIZE} grid points.
+     *
+     * @return binned kernel density estimator
+     * @see #binned(int)
+     */
+    public KDE binned() {
+        return binned(DEFAULT_GRID_SIZE);
+    }
+
+    /**
+     * Builds a binned estimator with the same sample, kernel and bandwidth as this estimator.
+     * The density is computed on a regular grid of {@code gridSize} points which spans the
+     * sample range extended with the kernel support. The estimates on the grid are computed
+     * in {@code O(n + gridSize log gridSize)} time and any subsequent evaluation takes constant time.
+     * <p>
+     * The approximation error decreases when the grid step is small relative to bandwidth.
+     *
+     * @param gridSize number of grid points, at least 16
+     * @return binned kernel density estimator
+     */
+    public KDE binned(int gridSize) {
+        if (gridSize < 16) {
+            throw new IllegalArgumentException("Grid size must be at least 16.");
+        }
+        if (values.length == 0 || !(bandwidth > 0)) {
+            throw new IllegalArgumentException("Binned estimator requires a non empty sample and a positive bandwidth.");
+        }
+        return new KDE(this, gridSize);
+    }
+
+    /**
+     * @return true if the estimator is binned, false if it is exact
+     */
+    public boolean isBinned() {
+        return grid != null;
     }
 
     public double pdf(double x) {
-        // to optimize the computation, we find all sample values which have positive weights
-        int from = Arrays.binarySearch(values, kernel.minValue(x, bandwidth));
-        if (from < 0) from = -from - 1;
+        return (grid == null) ? exactPdf(x) : binnedPdf(x);
+    }
 
-        int to = Arrays.binarySearch(values, kernel.maxValue(x, bandwidth));
-        if (to < 0) to = -to - 1;
+    private double exactPdf(double x) {
+        // to optimize the computation, we find all sample values which have positive weights
+        int from = DoubleArrays.lowerBound(values, kernel.minValue(x, bandwidth));
+        int to = DoubleArrays.upperBound(values, kernel.maxValue(x, bandwidth));
 
         // compute the pdf kernel estimator as \frac{1}{nh} sum_{i=1}^{n} k(\frac{x-x_i}{h})
         double sum = 0;
@@ -110,6 +178,16 @@ public class KDE implements Serializable {
         return sum / (values.length * bandwidth);
     }
 
+    private double binnedPdf(double x) {
+        double pos = (x - gridMin) / gridStep;
+        if (!(pos >= 0 && pos <= grid.length - 1)) {
+            return 0;
+        }
+        int j = Math.min((int) pos, grid.length - 2);
+        double frac = pos - j;
+        return grid[j] * (1 - frac) + grid[j + 1] * frac;
+    }
+
     public KFunc kernel() {
         return kernel;
     }
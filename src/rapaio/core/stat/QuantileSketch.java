@@ -0,0 +1,368 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright 2013 - 2021 Aurelian Tutuianu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package rapaio.core.stat;
+
+import rapaio.data.Var;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Streaming and mergeable quantile sketch with bounded memory.
+ * <p>
+ * The implementation is a merging t-digest (Dunning and Ertl, "Computing extremely accurate
+ * quantiles using t-digests"). Values are buffered and periodically merged into a sorted list of
+ * centroids, where each centroid is a mean and a weight. The size of the centroids is limited by
+ * the arcsine scale function, such that centroids near the tails are small and quantiles near
+ * the tails are estimated with good relative accuracy. The number of retained centroids is
+ * bounded by the compression parameter, larger values give more accurate estimates with
+ * more memory.
+ * <p>
+ * Sketches built over separate partitions of the data can be combined with
+ * {@link #merge(QuantileSketch)}. While the number of values does not exceed compression,
+ * the sketch keeps all values and the estimates are identical with the R-7 exact quantiles.
+ *
+ * @author <a href="mailto:padreati@yahoo.com">Aurelian Tutuianu</a>
+ */
+public final class QuantileSketch implements Serializable {
+
+    public static final double DEFAULT_COMPRESSION = 200;
+
+    // number of rows of a partition when a sketch is built in parallel from a variable
+    private static final int PARTITION_ROWS = 1 << 16;
+
+    public static QuantileSketch empty() {
+        return new QuantileSketch(DEFAULT_COMPRESSION);
+    }
+
+    public static QuantileSketch empty(double compression) {
+        return new QuantileSketch(compression);
+    }
+
+    public static QuantileSketch of(Var var) {
+        return of(var, DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Builds a sketch from the non missing values of a variable. Large variables are split in
+     * partitions of fixed size which are sketched in parallel and merged in order, thus the result
+     * does not depend on the number of threads.
+     *
+     * @param var         source of values
+     * @param compression compression parameter
+     * @return new sketch
+     */
+    public static QuantileSketch of(Var var, double compression) {
+        int partitions = (var.size() + PARTITION_ROWS - 1) / PARTITION_ROWS;
+        if (partitions <= 1) {
+            return empty(compression).update(var, 0, var.size());
+        }
+        return IntStream.range(0, partitions).parallel()
+                .mapToObj(p -> empty(compression).update(var, p * PARTITION_ROWS, Math.min(var.size(), (p + 1) * PARTITION_ROWS)))
+                .reduce(QuantileSketch::merge)
+                .orElseThrow();
+    }
+
+    @Serial
+    private static final long serialVersionUID = 2613476290316087349L;
+
+    private final double compression;
+
+    // merged centroids sorted by mean
+    private double[] means;
+    private double[] weights;
+    private int size;
+
+    // values not merged yet
+    private final double[] buffer;
+    private int bufferSize;
+
+    private double count;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+
+    private QuantileSketch(double compression) {
+        if (!(compression >= 10)) {
+            throw new IllegalArgumentException("Compression must be at least 10.");
+        }
+        this.compression = compression;
+        int capacity = 2 * (int) Math.ceil(compression) + 16;
+        this.means = new double[capacity];
+        this.weights = new double[capacity];
+        this.buffer = new double[5 * (int) Math.ceil(compression)];
+    }
+
+    public double compression() {
+        return compression;
+    }
+
+    /**
+     * @return number of values added to the sketch
+     */
+    public double count() {
+        return count;
+    }
+
+    public double min() {
+        return min;
+    }
+
+    public double max() {
+        return max;
+    }
+
+    /**
+     * @return number of centroids retained after merging the buffered values
+     */
+    public int centroidCount() {
+        flush();
+        return size;
+    }
+
+    /**
+     * Adds a value to the sketch. Missing values are ignored.
+     *
+     * @param x value to be added
+     * @return sketch instance
+     */
+    public QuantileSketch update(double x) {
+        if (Double.isNaN(x)) {
+            return this;
+        }
+        if (bufferSize == buffer.length) {
+            flush();
+        }
+        buffer[bufferSize++] = x;
+        count++;
+        min = count == 1 ? x : Math.min(min, x);
+        max = count == 1 ? x : Math.max(max, x);
+        return this;
+    }
+
+    private QuantileSketch update(Var var, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!var.isMissing(i)) {
+                update(var.getDouble(i));
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Merges the values of another sketch into this sketch. The other
+     * sketch is not changed.
+     *
+     * @param other sketch to be merged
+     * @return this sketch instance
+     */
+    public QuantileSketch merge(QuantileSketch other) {
+        if (other.count == 0) {
+            return this;
+        }
+        // snapshot of the other sketch, its buffered values are merged from a sorted copy
+        double[] otherMeans = other.means;
+        double[] otherWeights = other.weights;
+        int otherSize = other.size;
+        double[] otherBuffer = Arrays.copyOf(other.buffer, other.bufferSize);
+        Arrays.sort(otherBuffer);
+        double otherCount = other.count;
+        double otherMin = other.min;
+        double otherMax = other.max;
+
+        flush();
+        min = count == 0 ? otherMin : Math.min(min, otherMin);
+        max = count == 0 ? otherMax : Math.max(max, otherMax);
+        count += otherCount;
+        if (otherSize > 0) {
+            compress(otherMeans, otherWeights, otherSize);
+        }
+        if (otherBuffer.length > 0) {
+            compress(otherBuffer, null, otherBuffer.length);
+        }
+        return this;
+    }
+
+    private void flush() {
+        if (bufferSize == 0) {
+            return;
+        }
+        Arrays.sort(buffer, 0, bufferSize);
+        int len = bufferSize;
+        bufferSize = 0;
+        compress(buffer, null, len);
+    }
+
+    /**
+     * Merges the current centroids with the given sorted centroids and merges neighbours
+     * as long as the size of the merged centroid does not exceed one unit of the scale function.
+     *
+     * @param m   sorted means of the added centroids
+     * @param w   weights of the added centroids, null if all weights are 1
+     * @param len number of added centroids
+     */
+    private void compress(double[] m, double[] w, int len) {
+        double[] m1 = means;
+        double[] w1 = weights;
+        int len1 = size;
+
+        double total = 0;
+        for (int i = 0; i < len1; i++) {
+            total += w1[i];
+        }
+        for (int i = 0; i < len; i++) {
+            total += (w == null) ? 1 : w[i];
+        }
+        means = new double[m1.length];
+        weights = new double[m1.length];
+
+        // while all values fit, keep them as they are
+        boolean exact = total <= compression;
+
+        size = 0;
+        double curMean = 0;
+        double curWeight = 0;
+        double soFar = 0;
+        double qLimit = exact ? 0 : qLimit(0);
+        int i1 = 0;
+        int i2 = 0;
+        while (i1 < len1 || i2 < len) {
+            double mean;
+            double weight;
+            if (i2 == len || (i1 < len1 && m1[i1] <= m[i2])) {
+                mean = m1[i1];
+                weight = w1[i1];
+                i1++;
+            } else {
+                mean = m[i2];
+                weight = (w == null) ? 1 : w[i2];
+                i2++;
+            }
+            if (curWeight == 0) {
+                curMean = mean;
+                curWeight = weight;
+                continue;
+            }
+            if (!exact && (soFar + curWeight + weight) / total <= qLimit) {
+                curWeight += weight;
+                curMean += (mean - curMean) * weight / curWeight;
+                continue;
+            }
+            append(curMean, curWeight);
+            soFar += curWeight;
+            if (!exact) {
+                qLimit = qLimit(soFar / total);
+            }
+            curMean = mean;
+            curWeight = weight;
+        }
+        append(curMean, curWeight);
+    }
+
+    private void append(double mean, double weight) {
+        if (size == means.length) {
+            means = Arrays.copyOf(means, 2 * size);
+            weights = Arrays.copyOf(weights, 2 * size);
+        }
+        means[size] = mean;
+        weights[size] = weight;
+        size++;
+    }
+
+    /**
+     * Largest quantile which can be covered by a centroid which starts at quantile q,
+     * given by the arcsine scale function {@code k(q) = compression / (2 pi) asin(2q - 1)}.
+     */
+    private double qLimit(double q) {
+        double k = compression / (2 * Math.PI) * Math.asin(2 * q - 1) + 1;
+        if (k >= compression / 4) {
+            return 1;
+        }
+        return (Math.sin(k * 2 * Math.PI / compression) + 1) / 2;
+    }
+
+    /**
+     * Estimates the quantile for a given probability. Each centroid is considered to have
+     * its mean at the middle of its weight and the values are interpolated linearly between
+     * the centroid means, and between the extreme centroids and the minimum and maximum.
+     *
+     * @param p probability in [0,1]
+     * @return estimated quantile, NaN if the sketch is empty
+     */
+    public double quantile(double p) {
+        if (p < 0 || p > 1) {
+            throw new IllegalArgumentException("Probability must be in interval [0,1].");
+        }
+        flush();
+        if (count == 0) {
+            return Double.NaN;
+        }
+        if (size == 1) {
+            return means[0];
+        }
+        // position in the coordinates of centroid centers, for singletons it matches R-7 index
+        double index = p * (count - 1) + 0.5;
+
+        double left = weights[0] / 2;
+        if (index < left) {
+            return interpolate(min, means[0], (index - 0.5) / (left - 0.5));
+        }
+        for (int i = 0; i < size - 1; i++) {
+            double step = (weights[i] + weights[i + 1]) / 2;
+            if (index < left + step) {
+                return interpolate(means[i], means[i + 1], (index - left) / step);
+            }
+            left += step;
+        }
+        double right = weights[size - 1] / 2;
+        return interpolate(means[size - 1], max, Math.min(1, (index - left) / (right - 0.5)));
+    }
+
+    private static double interpolate(double a, double b, double t) {
+        if (!Double.isFinite(t) || t <= 0) {
+            return a;
+        }
+        return a + (b - a) * Math.min(1, t);
+    }
+
+    /**
+     * Estimates quantiles for multiple probabilities.
+     *
+     * @param p probabilities in [0,1]
+     * @return estimated quantiles
+     */
+    public double[] quantiles(double... p) {
+        double[] values = new double[p.length];
+        for (int i = 0; i < p.length; i++) {
+            values[i] = quantile(p[i]);
+        }
+        return values;
+    }
+
+    @Override
+    public String toString() {
+        flush();
+        return "QuantileSketch{compression=" + compression + ", count=" + count + ", centroids=" + size + "}";
+    }
+}
@@ -41,6 +41,9 @@ import static rapaio.printer.Format.floatFlex;
  * <p>
  * Default type is R-7, but is can be changed.
  * <p>
+ * Type {@link Type#SKETCH} computes approximate quantiles from a {@link QuantileSketch}
+ * with default compression, without copying and sorting the values. Quantiles can be
+ * computed also from a sketch built separately, eventually merged from partial sketches.
  * <p>
  * For further reference see:
  * http://en.wikipedia.org/wiki/Quantile
@@ -57,6 +60,10 @@ public class Quantiles implements Printable {
         return new Quantiles(var, type, percentiles);
     }
 
+    public static Quantiles of(QuantileSketch sketch, double... percentiles) {
+        return new Quantiles(sketch, percentiles);
+    }
+
     private final String varName;
     private final double[] percentiles;
     private final double[] quantiles;
@@ -68,7 +75,22 @@ public class Quantiles implements Printable {
         this.varName = var.name();
         this.percentiles = percentiles;
         this.type = type;
-        this.quantiles = compute(var);
+        this.quantiles = (type == Type.SKETCH) ? compute(var, QuantileSketch.of(var)) : compute(var);
+    }
+
+    private Quantiles(QuantileSketch sketch, double... percentiles) {
+        this.varName = "?";
+        this.percentiles = percentiles;
+        this.type = Type.SKETCH;
+        this.completeCount = (int) sketch.count();
+        this.missingCount = 0;
+        this.quantiles = sketch.quantiles(percentiles);
+    }
+
+    private double[] compute(final Var var, QuantileSketch sketch) {
+        completeCount = (int) sketch.count();
+        missingCount = var.size() - completeCount;
+        return sketch.quantiles(percentiles);
     }
 
     private double[] compute(final Var var) {
@@ -162,6 +184,10 @@ public class Quantiles implements Printable {
 
     public enum Type {
         R7,
-        R8
+        R8,
+        /**
+         * Approximate quantiles estimated with {@link QuantileSketch}.
+         */
+        SKETCH
     }
 }
@@ -0,0 +1,107 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright 2013 - 2021 Aurelian Tutuianu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package rapaio.data;
+
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * Base class for numeric variables which keep their values outside of the Java heap,
+ * in direct memory or in a memory mapped file. It manages the storage and the row count,
+ * the typed access is implemented by subclasses.
+ *
+ * @author <a href="mailto:padreati@yahoo.com">Aurelian Tutuianu</a>
+ */
+abstract class AbstractOffHeapVar extends AbstractVar {
+
+    protected transient OffHeapStorage storage;
+    protected int rows;
+
+    AbstractOffHeapVar(OffHeapStorage storage, int rows) {
+        this.storage = storage;
+        this.rows = rows;
+    }
+
+    /**
+     * @return true if the values are stored in a memory mapped file
+     */
+    public boolean isMapped() {
+        return storage.isMapped();
+    }
+
+    /**
+     * @return path of the mapped file, or null if values are stored in direct memory
+     */
+    public Path path() {
+        return storage.path();
+    }
+
+    /**
+     * Writes the changes of a mapped variable to the file. Has no effect for direct memory storage.
+     */
+    public void force() {
+        storage.force();
+    }
+
+    @Override
+    public int size() {
+        return rows;
+    }
+
+    protected void resize(int newRows) {
+        rows = newRows;
+        storage.storeSize(newRows);
+    }
+
+    /**
+     * Appends a row and returns its index.
+     */
+    protected int nextRow() {
+        storage.ensureCapacity(rows + 1L);
+        int row = rows;
+        resize(rows + 1);
+        return row;
+    }
+
+    @Override
+    public void addRows(int rowCount) {
+        storage.ensureCapacity((long) rows + rowCount);
+        int start = rows;
+        resize(rows + rowCount);
+        for (int i = start; i < rows; i++) {
+            setMissing(i);
+        }
+    }
+
+    @Override
+    public void removeRow(int row) {
+        Objects.checkIndex(row, rows);
+        storage.moveDown(row + 1L, row, rows - row - 1L);
+        resize(rows - 1);
+    }
+
+    @Override
+    public void clearRows() {
+        resize(0);
+    }
+}
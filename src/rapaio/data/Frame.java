@@ -23,6 +23,8 @@ package rapaio.data;
 
 import rapaio.data.filter.FFilter;
 import rapaio.data.filter.FRefSort;
+import rapaio.data.join.HashJoin;
+import rapaio.data.join.JoinType;
 import rapaio.data.stream.FSpot;
 import rapaio.data.stream.FSpots;
 import rapaio.printer.Printable;
@@ -549,6 +551,45 @@ public interface Frame extends Serializable, Printable {
         return this.fapply(FRefSort.by(comparators));
     }
 
+    /**
+     * Joins this frame with another frame using as keys the variables with the same names.
+     *
+     * @param right right frame
+     * @param type  join type
+     * @return joined frame
+     * @see HashJoin
+     */
+    default Frame join(Frame right, JoinType type) {
+        return HashJoin.join(this, right, type);
+    }
+
+    /**
+     * Joins this frame with another frame on key variables with the same names in both frames.
+     *
+     * @param right right frame
+     * @param type  join type
+     * @param keys  key variables
+     * @return joined frame
+     * @see HashJoin
+     */
+    default Frame join(Frame right, JoinType type, VarRange keys) {
+        return HashJoin.join(this, right, keys, keys, type);
+    }
+
+    /**
+     * Joins this frame with another frame on key variables.
+     *
+     * @param right     right frame
+     * @param type      join type
+     * @param leftKeys  key variables from this frame
+     * @param rightKeys key variables from right frame, in the order of left keys
+     * @return joined frame
+     * @see HashJoin
+     */
+    default Frame join(Frame right, JoinType type, VarRange leftKeys, VarRange rightKeys) {
+        return HashJoin.join(this, right, leftKeys, rightKeys, type);
+    }
+
     String head();
 
     String head(int lines);
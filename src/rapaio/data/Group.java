@@ -21,28 +21,34 @@
 
 package rapaio.data;
 
+import rapaio.core.stat.QuantileSketch;
 import rapaio.data.group.GroupFun;
+import rapaio.data.group.GroupStats;
 import rapaio.data.group.function.GroupFunCount;
 import rapaio.data.group.function.GroupFunKurtosis;
 import rapaio.data.group.function.GroupFunMax;
 import rapaio.data.group.function.GroupFunMean;
 import rapaio.data.group.function.GroupFunMin;
 import rapaio.data.group.function.GroupFunNUnique;
+import rapaio.data.group.function.GroupFunQuantile;
 import rapaio.data.group.function.GroupFunSkewness;
 import rapaio.data.group.function.GroupFunStd;
 import rapaio.data.group.function.GroupFunSum;
+import rapaio.data.mapping.ArrayMapping;
 import rapaio.printer.Printable;
 import rapaio.printer.Printer;
 import rapaio.printer.TextTable;
 import rapaio.printer.opt.POption;
-import rapaio.util.collection.Int2IntOpenHashMap;
+import rapaio.util.collection.IntArrays;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
@@ -139,6 +145,14 @@ public class Group implements Printable {
         return new GroupFunNUnique(normalizeLevel, Arrays.asList(varNames));
     }
 
+    public static GroupFun quantile(double p, String... varNames) {
+        return quantile(-1, p, varNames);
+    }
+
+    public static GroupFun quantile(int normalizeLevel, double p, String... varNames) {
+        return new GroupFunQuantile(normalizeLevel, p, QuantileSketch.DEFAULT_COMPRESSION, Arrays.asList(varNames));
+    }
+
     ///// AGGREGATE /////
 
     public Aggregate aggregate(GroupFun... functions) {
@@ -148,8 +162,19 @@ public class Group implements Printable {
 
     /**
      * IMPLEMENTATION
+     * <p>
+     * Each key variable is encoded with the ids of its {@link Unique} values. Composite
+     * keys are encoded one key at a time: the dense id of the prefix of the previous keys
+     * is combined with the unique id of the next key into a long code, which receives
+     * a dense id from a primitive open addressing table. The dense ids of the full key
+     * are the group ids, assigned in the order of the first row of each group.
+     * <p>
+     * Rows are kept contiguously by group id, in increasing row order within each group.
      */
 
+    // minimum number of rows for which the aggregations are computed in parallel
+    private static final int PARALLEL_ROWS = 1 << 16;
+
     // frame on which grouping is realized
     private final Frame df;
 
@@ -159,21 +184,37 @@ public class Group implements Printable {
     // other than pk var names from source frame
     private final List<String> featureNamesList;
 
-    // maps rows to group ids
-    private final Int2IntOpenHashMap rowToGroupId = new Int2IntOpenHashMap();
+    // group id for each row
+    private final int[] rowToGroupId;
+
+    // number of groups
+    private final int groupCount;
+
+    // rows of group g are stored between groupOffsets[g] inclusive and groupOffsets[g+1] exclusive
+    private final int[] groupOffsets;
 
-    // map group ids to indexes from the last level of the tree
-    private final HashMap<Integer, IndexNode> groupIdToLastLevelIndex = new HashMap<>();
+    // rows ordered by group id
+    private final int[] groupRows;
+
+    // unique id of each key variable for each group, indexed by key position and group id
+    private final int[][] groupKeyIds;
+
+    // dense id of the group key prefix, indexed by prefix length and group id
+    private final int[][] groupPrefixIds;
 
     // sorted group ids
-    private VarInt sortedGroupIds = VarInt.empty();
+    private final VarInt sortedGroupIds;
+
+    // cached statistics for aggregated variables
+    private final Map<String, GroupStats> statsCache = new ConcurrentHashMap<>();
+
+    // lazy built prefix tree of groups
+    private HashMap<Integer, IndexNode> groupIdToLastLevelIndex;
 
     private Group(Frame df, List<String> groupVarNames) {
         this.df = df;
         this.pkNamesList = groupVarNames;
         HashSet<String> pkVarNamesSet = new HashSet<>(pkNamesList);
-        List<Unique> groupByUniques =
-                this.pkNamesList.stream().map(varName -> Unique.of(df.rvar(varName), true)).collect(Collectors.toList());
         this.featureNamesList = new ArrayList<>();
         for (String varName : df.varNames()) {
             if (pkVarNamesSet.contains(varName)) {
@@ -181,56 +222,77 @@ public class Group implements Printable {
             }
             featureNamesList.add(varName);
         }
-        IndexNode root = new IndexNode(null, "", "", -1, -1);
 
-        //populate rows
-        int groupId = 0;
-        for (int i = 0; i < df.rowCount(); i++) {
-            IndexNode node = root;
-            for (int j = 0; j < pkNamesList.size(); j++) {
-                String levelName = pkNamesList.get(j);
-                String levelValue = df.getLabel(i, levelName);
-                int levelUniqueId = groupByUniques.get(j).idByRow(i);
-                IndexNode child = node.getChildNode(levelUniqueId);
-                if (child == null) {
-                    if (j != pkNamesList.size() - 1) {
-                        child = new IndexNode(node, levelName, levelValue, levelUniqueId, -1);
-                    } else {
-                        child = new IndexNode(node, levelName, levelValue, levelUniqueId, groupId);
-                        child.addRow(i);
-                        rowToGroupId.put(i, groupId);
-                        groupIdToLastLevelIndex.put(groupId, child);
-                        groupId++;
-                    }
-                    node.addNode(child);
-                    node = child;
-                } else {
-                    node = child;
-                    if (j == pkNamesList.size() - 1) {
-                        child.addRow(i);
-                        rowToGroupId.put(i, child.getGroupId());
-                    }
-                }
+        int rows = df.rowCount();
+        int keys = pkNamesList.size();
+
+        // encode keys one at a time, code of the empty prefix is 0 for all rows
+
+        int[] prefix = new int[rows];
+        int prefixCount = 1;
+        List<Unique> uniques = new ArrayList<>();
+        for (int j = 0; j < keys; j++) {
+            Unique unique = Unique.of(df.rvar(pkNamesList.get(j)), true);
+            uniques.add(unique);
+            long uniqueCount = unique.uniqueCount();
+            LongIdTable table = new LongIdTable(Math.min(rows, prefixCount * uniqueCount));
+            for (int i = 0; i < rows; i++) {
+                prefix[i] = table.id(prefix[i] * uniqueCount + unique.idByRow(i));
+            }
+            prefixCount = table.size();
+        }
+        this.rowToGroupId = prefix;
+        this.groupCount = rows == 0 ? 0 : prefixCount;
+
+        // counting sort of rows by group id, stable in row order
+
+        groupOffsets = new int[groupCount + 1];
+        for (int i = 0; i < rows; i++) {
+            groupOffsets[rowToGroupId[i] + 1]++;
+        }
+        for (int g = 0; g < groupCount; g++) {
+            groupOffsets[g + 1] += groupOffsets[g];
+        }
+        groupRows = new int[rows];
+        int[] positions = Arrays.copyOf(groupOffsets, groupCount);
+        for (int i = 0; i < rows; i++) {
+            groupRows[positions[rowToGroupId[i]]++] = i;
+        }
+
+        // key ids for each group, taken from the first row of the group
+
+        groupKeyIds = new int[keys][groupCount];
+        for (int g = 0; g < groupCount; g++) {
+            int row = groupRows[groupOffsets[g]];
+            for (int j = 0; j < keys; j++) {
+                groupKeyIds[j][g] = uniques.get(j).idByRow(row);
             }
         }
 
-        // sort group ids
-        List<int[]> groupUniqueIds = new ArrayList<>();
-        for (int i = 0; i < getGroupCount(); i++) {
-            groupUniqueIds.add(groupIdToLastLevelIndex.get(i).getLevelIds(new int[pkNamesList.size() + 1]));
-            sortedGroupIds.addInt(i);
+        // prefix ids for each group are encoded again from group key ids; since groups are
+        // visited in the order of their first rows, the ids are the same as the row encoding ones
+
+        groupPrefixIds = new int[keys + 1][groupCount];
+        for (int j = 0; j < keys; j++) {
+            long uniqueCount = uniques.get(j).uniqueCount();
+            LongIdTable table = new LongIdTable(groupCount);
+            for (int g = 0; g < groupCount; g++) {
+                groupPrefixIds[j + 1][g] = table.id(groupPrefixIds[j][g] * uniqueCount + groupKeyIds[j][g]);
+            }
         }
-        sortedGroupIds = (VarInt) sortedGroupIds.op().sort((i1, i2) -> {
-            int[] gui1 = groupUniqueIds.get(i1);
-            int[] gui2 = groupUniqueIds.get(i2);
-            for (int i = 0; i < gui1.length; i++) {
-                int comp = Integer.compare(gui1[i], gui2[i]);
+
+        // sort group ids by the unique ids of the keys
+        int[] sorted = IntArrays.newSeq(0, groupCount);
+        IntArrays.quickSort(sorted, 0, groupCount, (g1, g2) -> {
+            for (int[] ids : groupKeyIds) {
+                int comp = Integer.compare(ids[g1], ids[g2]);
                 if (comp != 0) {
                     return comp;
                 }
             }
             return 0;
         });
+        sortedGroupIds = VarInt.wrap(sorted);
     }
 
     /**
@@ -247,7 +309,36 @@ public class Group implements Printable {
         return featureNamesList;
     }
 
+    /**
+     * Builds on first call a prefix tree of the groups, where each level corresponds
+     * to a key variable and the nodes from the last level corresponds to groups.
+     *
+     * @return map from group ids to nodes from the last level of the prefix tree
+     */
     public HashMap<Integer, IndexNode> getGroupIdToLastLevelIndex() {
+        if (groupIdToLastLevelIndex == null) {
+            HashMap<Integer, IndexNode> index = new HashMap<>();
+            IndexNode root = new IndexNode(null, "", "", -1, -1);
+            for (int g = 0; g < groupCount; g++) {
+                int row = getFirstRow(g);
+                IndexNode node = root;
+                for (int j = 0; j < pkNamesList.size(); j++) {
+                    IndexNode child = node.getChildNode(groupKeyIds[j][g]);
+                    if (child == null) {
+                        String levelName = pkNamesList.get(j);
+                        child = new IndexNode(node, levelName, df.getLabel(row, levelName), groupKeyIds[j][g],
+                                j == pkNamesList.size() - 1 ? g : -1);
+                        node.addNode(child);
+                    }
+                    node = child;
+                }
+                for (int pos = groupOffsets[g]; pos < groupOffsets[g + 1]; pos++) {
+                    node.addRow(groupRows[pos]);
+                }
+                index.put(g, node);
+            }
+            groupIdToLastLevelIndex = index;
+        }
         return groupIdToLastLevelIndex;
     }
 
@@ -263,14 +354,76 @@ public class Group implements Printable {
      * @return list of rows from that group
      */
     public Mapping getRowsForGroupId(int groupId) {
-        return groupIdToLastLevelIndex.get(groupId).rows;
+        return new ArrayMapping(groupRows, groupOffsets[groupId], groupOffsets[groupId + 1]);
+    }
+
+    /**
+     * @param row row number from source frame
+     * @return group id of the given row
+     */
+    public int getGroupId(int row) {
+        return rowToGroupId[row];
+    }
+
+    /**
+     * @param groupId group identifier
+     * @return first row of the given group
+     */
+    public int getFirstRow(int groupId) {
+        return groupRows[groupOffsets[groupId]];
+    }
+
+    /**
+     * Rows of all groups are stored contiguously by group id. Rows of group {@code g} are found
+     * in {@link #getGroupRows()} between positions {@code offsets[g]} inclusive and {@code offsets[g+1]}
+     * exclusive. The returned array must not be modified.
+     *
+     * @return group offsets, having group count plus one elements
+     */
+    public int[] getGroupOffsets() {
+        return groupOffsets;
+    }
+
+    /**
+     * Rows ordered by group id and by row number within each group. The returned array must not be modified.
+     *
+     * @return rows ordered by group
+     * @see #getGroupOffsets()
+     */
+    public int[] getGroupRows() {
+        return groupRows;
+    }
+
+    /**
+     * @param groupId group identifier
+     * @return labels of the key variables for the given group
+     */
+    public List<String> getGroupLabels(int groupId) {
+        int row = getFirstRow(groupId);
+        List<String> labels = new ArrayList<>(pkNamesList.size());
+        for (String pkName : pkNamesList) {
+            labels.add(df.getLabel(row, pkName));
+        }
+        return labels;
+    }
+
+    /**
+     * Identifies the group obtained using only the first key variables. All groups which
+     * have identical values for the first key variables have the same prefix id.
+     *
+     * @param groupId      group identifier
+     * @param prefixLength number of key variables used, between 0 and the number of key variables
+     * @return dense identifier of the group prefix, a value smaller than the number of groups
+     */
+    public int getPrefixGroupId(int groupId, int prefixLength) {
+        return groupPrefixIds[prefixLength][groupId];
     }
 
     /**
      * @return count of groups
      */
     public int getGroupCount() {
-        return groupIdToLastLevelIndex.size();
+        return groupCount;
     }
 
     /**
@@ -280,6 +433,82 @@ public class Group implements Printable {
         return sortedGroupIds;
     }
 
+    /**
+     * Statistics of a variable for each group, computed on first request in one pass
+     * over the variable and cached for the following aggregations.
+     *
+     * @param varName variable name
+     * @return statistics for each group
+     */
+    public GroupStats getStats(String varName) {
+        return statsCache.computeIfAbsent(varName, name -> GroupStats.of(this, name, df.rowCount() >= PARALLEL_ROWS));
+    }
+
+    /**
+     * Open addressing table which assigns dense ids to long codes, in the order
+     * in which the codes are encountered.
+     */
+    private static final class LongIdTable {
+
+        private long[] keys;
+        private int[] ids;
+        private int mask;
+        private int size = 0;
+
+        private LongIdTable(long expected) {
+            // start small and grow, the expected size is only an upper bound
+            int capacity = Integer.highestOneBit((int) Math.max(4, Math.min(1 << 16, expected * 2)) - 1) << 1;
+            keys = new long[capacity];
+            ids = new int[capacity];
+            Arrays.fill(ids, -1);
+            mask = capacity - 1;
+        }
+
+        private int size() {
+            return size;
+        }
+
+        private int id(long key) {
+            int pos = hash(key) & mask;
+            while (ids[pos] != -1) {
+                if (keys[pos] == key) {
+                    return ids[pos];
+                }
+                pos = (pos + 1) & mask;
+            }
+            keys[pos] = key;
+            ids[pos] = size;
+            if (++size * 2 > keys.length) {
+                rehash();
+            }
+            return size - 1;
+        }
+
+        private void rehash() {
+            long[] oldKeys = keys;
+            int[] oldIds = ids;
+            keys = new long[oldKeys.length * 2];
+            ids = new int[oldKeys.length * 2];
+            Arrays.fill(ids, -1);
+            mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldIds[i] != -1) {
+                    int pos = hash(oldKeys[i]) & mask;
+                    while (ids[pos] != -1) {
+                        pos = (pos + 1) & mask;
+                    }
+                    keys[pos] = oldKeys[i];
+                    ids[pos] = oldIds[i];
+                }
+            }
+        }
+
+        private static int hash(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+
     /**
      * Node of the prefix tree for groups
      */
@@ -373,7 +602,7 @@ public class Group implements Printable {
         StringBuilder sb = new StringBuilder();
         sb.append("GroupBy{");
         sb.append("keys:[").append(String.join(",", pkNamesList)).append("], ");
-        sb.append("group count:").append(groupIdToLastLevelIndex.size()).append(", ");
+        sb.append("group count:").append(groupCount).append(", ");
         sb.append("row count:").append(df.rowCount());
         sb.append("}");
         return sb.toString();
@@ -387,7 +616,7 @@ public class Group implements Printable {
         StringBuilder sb = new StringBuilder();
 
         sb.append("group by: ").append(String.join(", ", pkNamesList)).append("\n");
-        sb.append("group count: ").append(groupIdToLastLevelIndex.size()).append("\n\n");
+        sb.append("group count: ").append(groupCount).append("\n\n");
 
         TextTable tt = TextTable.empty(40 + 1, pkNamesList.size() + featureNamesList.size() + 2, 1, pkNamesList.size() + 2);
 
@@ -411,20 +640,20 @@ public class Group implements Printable {
         // populate rows
         Mapping rows = Mapping.empty();
         for (int groupId : sortedGroupIds) {
-            rows.addAll(groupIdToLastLevelIndex.get(groupId).rows.iterator());
+            for (int pos = groupOffsets[groupId]; pos < groupOffsets[groupId + 1]; pos++) {
+                rows.add(groupRows[pos]);
+            }
         }
 
         for (int i = 0; i < 30; i++) {
             int r = rows.get(i);
             fillRowData(tt, i, r);
         }
-        IndexNode _node = groupIdToLastLevelIndex.get(0);
-        List<String> _groupValues = _node.getLevelValues();
-        for (int j = 0; j < _groupValues.size(); j++) {
+        for (int j = 0; j < pkNamesList.size(); j++) {
             tt.textLeft(31, j + 1, "...");
         }
         for (int j = 0; j < featureNamesList.size(); j++) {
-            tt.textLeft(31, j + _groupValues.size() + 2, "...");
+            tt.textLeft(31, j + pkNamesList.size() + 2, "...");
         }
         for (int i = 31; i < 40; i++) {
             int r = rows.get(df.rowCount() - 40 + i);
@@ -435,9 +664,7 @@ public class Group implements Printable {
     }
 
     private void fillRowData(TextTable tt, int i, int r) {
-        int groupId = rowToGroupId.get(r);
-        IndexNode node = groupIdToLastLevelIndex.get(groupId);
-        List<String> groupValues = node.getLevelValues();
+        List<String> groupValues = getGroupLabels(rowToGroupId[r]);
         for (int j = 0; j < groupValues.size(); j++) {
             tt.textLeft(i + 1, j + 1, groupValues.get(j));
         }
@@ -452,7 +679,7 @@ public class Group implements Printable {
         StringBuilder sb = new StringBuilder();
 
         sb.append("group by: ").append(String.join(", ", pkNamesList)).append("\n");
-        sb.append("group count: ").append(groupIdToLastLevelIndex.size()).append("\n\n");
+        sb.append("group count: ").append(groupCount).append("\n\n");
 
         TextTable tt = TextTable.empty(df.rowCount() + 1, pkNamesList.size() + featureNamesList.size() + 2, 1, pkNamesList.size() + 2);
 
@@ -473,9 +700,9 @@ public class Group implements Printable {
         int pos = 1;
         for (int groupId : sortedGroupIds) {
 
-            IndexNode node = groupIdToLastLevelIndex.get(groupId);
-            List<String> groupValues = node.getLevelValues();
-            for (int row : node.rows) {
+            List<String> groupValues = getGroupLabels(groupId);
+            for (int p = groupOffsets[groupId]; p < groupOffsets[groupId + 1]; p++) {
+                int row = groupRows[p];
 
                 // write group values
                 for (int i = 0; i < groupValues.size(); i++) {
@@ -535,9 +762,8 @@ public class Group implements Printable {
             Frame df = group.getFrame();
             Mapping rows = Mapping.empty();
             VarInt sortedGroupIds = group.getSortedGroupIds();
-            var groupIndex = group.getGroupIdToLastLevelIndex();
             for (int sortedGroupId : sortedGroupIds) {
-                rows.add(groupIndex.get(sortedGroupId).getRows().get(0));
+                rows.add(group.getFirstRow(sortedGroupId));
             }
             Frame result = df.mapRows(rows).mapVars(group.getGroupByNameList()).copy();
             result = result.bindVars(aggregateDf.mapRows(Mapping.wrap(sortedGroupIds))).copy();
@@ -720,8 +946,7 @@ public class Group implements Printable {
             int pos = 1;
             for (int groupId : selectedGroupIds) {
 
-                IndexNode node = group.getGroupIdToLastLevelIndex().get(groupId);
-                List<String> groupValues = node.getLevelValues();
+                List<String> groupValues = group.getGroupLabels(groupId);
 
                 // write group values
                 for (int i = 0; i < groupValues.size(); i++) {
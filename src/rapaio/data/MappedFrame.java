@@ -88,6 +88,14 @@ public class MappedFrame extends AbstractFrame {
         }
     }
 
+    public Frame getSource() {
+        return source;
+    }
+
+    public Mapping getMapping() {
+        return mapping;
+    }
+
     @Override
     public int rowCount() {
         return mapping.size();
@@ -0,0 +1,240 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright 2013 - 2021 Aurelian Tutuianu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package rapaio.data;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Storage of fixed width primitive values outside of the Java heap.
+ * <p>
+ * Values are stored in chunks of 2^24 elements, each chunk being a direct
+ * or a memory mapped byte buffer. Chunks allows storage larger than the 2GB limit of a single
+ * buffer and growth without copying the whole content: only the last chunk is reallocated while
+ * it is smaller than the full chunk size.
+ * <p>
+ * Mapped storage uses a file with a header of {@link #HEADER} bytes which keeps the number of
+ * stored elements, followed by the values in little endian order. The file grows when the
+ * capacity is increased. Direct memory is released when the storage becomes unreachable,
+ * mapped regions are released when the buffers are garbage collected.
+ *
+ * @author <a href="mailto:padreati@yahoo.com">Aurelian Tutuianu</a>
+ */
+final class OffHeapStorage {
+
+    static final int HEADER = 8;
+    static final int CHUNK_SHIFT = 24;
+    private static final int MIN_CAPACITY = 1 << 10;
+
+    /**
+     * Creates a storage in direct memory.
+     *
+     * @param width    number of bytes of an element
+     * @param capacity initial capacity in elements
+     */
+    static OffHeapStorage direct(int width, long capacity) {
+        return direct(width, capacity, CHUNK_SHIFT);
+    }
+
+    static OffHeapStorage direct(int width, long capacity, int chunkShift) {
+        OffHeapStorage storage = new OffHeapStorage(width, null, chunkShift);
+        storage.ensureCapacity(capacity);
+        return storage;
+    }
+
+    /**
+     * Opens or creates a storage mapped on a file.
+     *
+     * @param width number of bytes of an element
+     * @param path  file which contains the values
+     */
+    static OffHeapStorage mapped(int width, Path path) {
+        return mapped(width, path, CHUNK_SHIFT);
+    }
+
+    static OffHeapStorage mapped(int width, Path path, int chunkShift) {
+        OffHeapStorage storage = new OffHeapStorage(width, path, chunkShift);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long fileSize = channel.size();
+            storage.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER);
+            storage.header.order(ByteOrder.LITTLE_ENDIAN);
+            long available = Math.max(0, fileSize - HEADER) / width;
+            long stored = fileSize >= HEADER ? storage.header.getLong(0) : 0;
+            if (stored < 0 || stored > available) {
+                throw new IllegalArgumentException("File " + path + " is not a valid off heap storage.");
+            }
+            if (available > 0) {
+                storage.grow(channel, available);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return storage;
+    }
+
+    private final int width;
+    private final Path path;
+    private final int chunkShift;
+    private final int chunkMask;
+    private MappedByteBuffer header;
+    private ByteBuffer[] chunks = new ByteBuffer[0];
+    private long capacity;
+
+    private OffHeapStorage(int width, Path path, int chunkShift) {
+        this.width = width;
+        this.path = path;
+        this.chunkShift = chunkShift;
+        this.chunkMask = (1 << chunkShift) - 1;
+    }
+
+    boolean isMapped() {
+        return path != null;
+    }
+
+    Path path() {
+        return path;
+    }
+
+    long capacity() {
+        return capacity;
+    }
+
+    /**
+     * @return number of elements stored in the header of a mapped file, 0 for direct storage
+     */
+    long storedSize() {
+        return header == null ? 0 : header.getLong(0);
+    }
+
+    void storeSize(long size) {
+        if (header != null) {
+            header.putLong(0, size);
+        }
+    }
+
+    /**
+     * Flushes the content of a mapped storage to the file.
+     */
+    void force() {
+        if (header == null) {
+            return;
+        }
+        header.force();
+        for (ByteBuffer chunk : chunks) {
+            ((MappedByteBuffer) chunk).force();
+        }
+    }
+
+    void ensureCapacity(long minCapacity) {
+        if (minCapacity <= capacity) {
+            return;
+        }
+        long newCapacity = Math.max(Math.max(minCapacity, capacity + (capacity >> 1)), MIN_CAPACITY);
+        if (path == null) {
+            grow(null, newCapacity);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            grow(channel, newCapacity);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void grow(FileChannel channel, long newCapacity) {
+        int count = (int) ((newCapacity + chunkMask) >>> chunkShift);
+        ByteBuffer[] next = Arrays.copyOf(chunks, count);
+        for (int i = Math.max(0, chunks.length - 1); i < count; i++) {
+            long start = (long) i << chunkShift;
+            int elements = (int) Math.min(1L << chunkShift, newCapacity - start);
+            ByteBuffer old = i < chunks.length ? chunks[i] : null;
+            if (old != null && old.capacity() == elements * width) {
+                continue;
+            }
+            next[i] = allocate(channel, start, elements);
+            if (old != null && channel == null) {
+                next[i].put(0, old, 0, old.capacity());
+            }
+        }
+        chunks = next;
+        capacity = newCapacity;
+    }
+
+    private ByteBuffer allocate(FileChannel channel, long start, int elements) {
+        ByteBuffer buffer;
+        if (channel == null) {
+            buffer = ByteBuffer.allocateDirect(elements * width);
+        } else {
+            try {
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, HEADER + start * width, (long) elements * width);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return buffer.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    double getDouble(long i) {
+        return chunks[(int) (i >>> chunkShift)].getDouble((int) (i & chunkMask) * width);
+    }
+
+    void putDouble(long i, double value) {
+        chunks[(int) (i >>> chunkShift)].putDouble((int) (i & chunkMask) * width, value);
+    }
+
+    int getInt(long i) {
+        return chunks[(int) (i >>> chunkShift)].getInt((int) (i & chunkMask) * width);
+    }
+
+    void putInt(long i, int value) {
+        chunks[(int) (i >>> chunkShift)].putInt((int) (i & chunkMask) * width, value);
+    }
+
+    long getLong(long i) {
+        return chunks[(int) (i >>> chunkShift)].getLong((int) (i & chunkMask) * width);
+    }
+
+    void putLong(long i, long value) {
+        chunks[(int) (i >>> chunkShift)].putLong((int) (i & chunkMask) * width, value);
+    }
+
+    /**
+     * Moves a range of elements to a lower position, the ranges can overlap.
+     */
+    void moveDown(long from, long to, long len) {
+        for (long i = 0; i < len; i++) {
+            if (width == Long.BYTES) {
+                putLong(to + i, getLong(from + i));
+            } else {
+                putInt(to + i, getInt(from + i));
+            }
+        }
+    }
+}
@@ -0,0 +1,304 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright 2013 - 2021 Aurelian Tutuianu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package rapaio.data;
+
+import rapaio.printer.Printer;
+import rapaio.printer.TextTable;
+import rapaio.printer.opt.POption;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serial;
+import java.nio.file.Path;
+import java.text.DecimalFormat;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Double variable which stores its values outside of the Java heap.
+ * <p>
+ * The values are kept in direct memory or in a memory mapped file, which allows variables
+ * larger than the heap and does not put pressure on the garbage collector. The variable has
+ * type {@link VarType#DOUBLE} and behaves like {@link VarDouble} through the {@link Var}
+ * interface, thus it can be used in frames, filters and models. Operations which work on
+ * the backing array of {@link VarDouble} are replaced by generic implementations.
+ * <p>
+ * A mapped variable is persisted in its file and can be reopened with {@link #mapped(Path)}.
+ * Serialization writes the values, a deserialized variable is stored in direct memory.
+ * <p>
+ * The placeholder for missing value is Double.NaN.
+ *
+ * @author <a href="mailto:padreati@yahoo.com">Aurelian Tutuianu</a>
+ */
+public final class VarDoubleOffHeap extends AbstractOffHeapVar {
+
+    /**
+     * @return new empty off heap double variable of size 0
+     */
+    public static VarDoubleOffHeap empty() {
+        return new VarDoubleOffHeap(OffHeapStorage.direct(Double.BYTES, 0), 0);
+    }
+
+    /**
+     * Builds an off heap double variable with all values missing.
+     *
+     * @param rows size of the variable
+     * @return new instance of off heap double variable
+     */
+    public static VarDoubleOffHeap empty(int rows) {
+        return fill(rows, VarDouble.MISSING_VALUE);
+    }
+
+    /**
+     * Builds an off heap double variable filled with a given value.
+     *
+     * @param rows size of the variable
+     * @param fill fill value
+     * @return new instance of off heap double variable
+     */
+    public static VarDoubleOffHeap fill(int rows, double fill) {
+        VarDoubleOffHeap var = new VarDoubleOffHeap(OffHeapStorage.direct(Double.BYTES, rows), rows);
+        for (int i = 0; i < rows; i++) {
+            var.storage.putDouble(i, fill);
+        }
+        return var;
+    }
+
+    /**
+     * Builds an off heap double variable with values copied from another variable.
+     *
+     * @param source source variable
+     * @return new instance of off heap double variable
+     */
+    public static VarDoubleOffHeap copy(Var source) {
+        VarDoubleOffHeap var = new VarDoubleOffHeap(OffHeapStorage.direct(Double.BYTES, source.size()), source.size());
+        for (int i = 0; i < source.size(); i++) {
+            var.storage.putDouble(i, source.getDouble(i));
+        }
+        return var.name(source.name());
+    }
+
+    /**
+     * Opens a double variable stored in a memory mapped file. If the file does not exist
+     * an empty variable is created.
+     *
+     * @param path path of the file
+     * @return variable backed by the mapped file
+     */
+    public static VarDoubleOffHeap mapped(Path path) {
+        OffHeapStorage storage = OffHeapStorage.mapped(Double.BYTES, path);
+        return new VarDoubleOffHeap(storage, (int) storage.storedSize());
+    }
+
+    @Serial
+    private static final long serialVersionUID = 3584051929573260216L;
+
+    private VarDoubleOffHeap(OffHeapStorage storage, int rows) {
+        super(storage, rows);
+    }
+
+    @Override
+    public VarDoubleOffHeap name(String name) {
+        return (VarDoubleOffHeap) super.name(name);
+    }
+
+    @Override
+    public VarType type() {
+        return VarType.DOUBLE;
+    }
+
+    @Override
+    public boolean isMissing(int row) {
+        return Double.isNaN(storage.getDouble(row));
+    }
+
+    @Override
+    public void setMissing(int row) {
+        storage.putDouble(row, VarDouble.MISSING_VALUE);
+    }
+
+    @Override
+    public void addMissing() {
+        addDouble(VarDouble.MISSING_VALUE);
+    }
+
+    @Override
+    public double getDouble(int row) {
+        return storage.getDouble(row);
+    }
+
+    @Override
+    public void setDouble(int row, double value) {
+        storage.putDouble(row, value);
+    }
+
+    @Override
+    public void addDouble(double value) {
+        storage.putDouble(nextRow(), value);
+    }
+
+    @Override
+    public int getInt(int row) {
+        return (int) Math.rint(getDouble(row));
+    }
+
+    @Override
+    public void setInt(int row, int value) {
+        setDouble(row, value);
+    }
+
+    @Override
+    public void addInt(int value) {
+        addDouble(value);
+    }
+
+    @Override
+    public long getLong(int row) {
+        return (long) Math.rint(getDouble(row));
+    }
+
+    @Override
+    public void setLong(int row, long value) {
+        setDouble(row, value);
+    }
+
+    @Override
+    public void addLong(long value) {
+        addDouble(value);
+    }
+
+    @Override
+    public String getLabel(int row) {
+        return isMissing(row) ? VarNominal.MISSING_VALUE : String.valueOf(getDouble(row));
+    }
+
+    @Override
+    public void setLabel(int row, String value) {
+        setDouble(row, parse(value));
+    }
+
+    @Override
+    public void addLabel(String value) {
+        addDouble(parse(value));
+    }
+
+    private static double parse(String value) {
+        if (VarNominal.MISSING_VALUE.equals(value)) {
+            return VarDouble.MISSING_VALUE;
+        }
+        if ("Inf".equals(value)) {
+            return Double.POSITIVE_INFINITY;
+        }
+        if ("-Inf".equals(value)) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        return Double.parseDouble(value);
+    }
+
+    @Override
+    public List<String> levels() {
+        throw new RuntimeException("Operation not available for double vectors.");
+    }
+
+    @Override
+    public void setLevels(String... dict) {
+        throw new RuntimeException("Operation not available for double vectors.");
+    }
+
+    @Override
+    public void addInstant(Instant value) {
+        if (value == VarInstant.MISSING_VALUE) {
+            addMissing();
+        } else {
+            addDouble(value.toEpochMilli());
+        }
+    }
+
+    @Override
+    public void setInstant(int row, Instant value) {
+        if (value == VarInstant.MISSING_VALUE) {
+            setMissing(row);
+        } else {
+            setDouble(row, value.toEpochMilli());
+        }
+    }
+
+    @Override
+    public Instant getInstant(int row) {
+        if (isMissing(row)) {
+            return VarInstant.MISSING_VALUE;
+        }
+        return Instant.ofEpochMilli((long) getDouble(row));
+    }
+
+    @Override
+    public Var newInstance(int rows) {
+        return VarDoubleOffHeap.empty(rows);
+    }
+
+    /**
+     * @return a copy of the variable stored in direct memory
+     */
+    @Override
+    public VarDoubleOffHeap copy() {
+        return VarDoubleOffHeap.copy(this);
+    }
+
+    @Serial
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        for (int i = 0; i < rows; i++) {
+            out.writeDouble(storage.getDouble(i));
+        }
+    }
+
+    @Serial
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        storage = OffHeapStorage.direct(Double.BYTES, rows);
+        for (int i = 0; i < rows; i++) {
+            storage.putDouble(i, in.readDouble());
+        }
+    }
+
+    @Override
+    protected String toStringClassName() {
+        return "VarDoubleOffHeap";
+    }
+
+    @Override
+    protected int toStringDisplayValueCount() {
+        return 12;
+    }
+
+    @Override
+    protected void textTablePutValue(TextTable tt, int i, int j, int row, Printer printer, POption<?>[] options) {
+        if (isMissing(row)) {
+            tt.textCenter(i, j, "?");
+        } else {
+            DecimalFormat format = printer.getOptions().bind(options).floatFormat();
+            tt.floatString(i, j, format.format(getDouble(row)));
+        }
+    }
+}
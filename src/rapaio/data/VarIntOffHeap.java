@@ -0,0 +1,293 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright 2013 - 2021 Aurelian Tutuianu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package rapaio.data;
+
+import rapaio.printer.Printer;
+import rapaio.printer.TextTable;
+import rapaio.printer.opt.POption;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serial;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Integer variable which stores its values outside of the Java heap, in direct memory
+ * or in a memory mapped file.
+ * <p>
+ * The variable has type {@link VarType#INT} and behaves like {@link VarInt} through the
+ * {@link Var} interface. A mapped variable is persisted in its file and can be reopened
+ * with {@link #mapped(Path)}. The placeholder for missing value is {@link VarInt#MISSING_VALUE}.
+ *
+ * @author <a href="mailto:padreati@yahoo.com">Aurelian Tutuianu</a>
+ */
+public final class VarIntOffHeap extends AbstractOffHeapVar {
+
+    /**
+     * @return new empty off heap integer variable of size 0
+     */
+    public static VarIntOffHeap empty() {
+        return new VarIntOffHeap(OffHeapStorage.direct(Integer.BYTES, 0), 0);
+    }
+
+    /**
+     * Builds an off heap integer variable with all values missing.
+     *
+     * @param rows size of the variable
+     * @return new instance of off heap integer variable
+     */
+    public static VarIntOffHeap empty(int rows) {
+        return fill(rows, VarInt.MISSING_VALUE);
+    }
+
+    /**
+     * Builds an off heap integer variable filled with a given value.
+     *
+     * @param rows size of the variable
+     * @param fill fill value
+     * @return new instance of off heap integer variable
+     */
+    public static VarIntOffHeap fill(int rows, int fill) {
+        VarIntOffHeap var = new VarIntOffHeap(OffHeapStorage.direct(Integer.BYTES, rows), rows);
+        for (int i = 0; i < rows; i++) {
+            var.storage.putInt(i, fill);
+        }
+        return var;
+    }
+
+    /**
+     * Builds an off heap integer variable with values copied from another variable.
+     *
+     * @param source source variable
+     * @return new instance of off heap integer variable
+     */
+    public static VarIntOffHeap copy(Var source) {
+        VarIntOffHeap var = new VarIntOffHeap(OffHeapStorage.direct(Integer.BYTES, source.size()), source.size());
+        for (int i = 0; i < source.size(); i++) {
+            var.storage.putInt(i, source.isMissing(i) ? VarInt.MISSING_VALUE : source.getInt(i));
+        }
+        return var.name(source.name());
+    }
+
+    /**
+     * Opens an integer variable stored in a memory mapped file. If the file does not exist
+     * an empty variable is created.
+     *
+     * @param path path of the file
+     * @return variable backed by the mapped file
+     */
+    public static VarIntOffHeap mapped(Path path) {
+        OffHeapStorage storage = OffHeapStorage.mapped(Integer.BYTES, path);
+        return new VarIntOffHeap(storage, (int) storage.storedSize());
+    }
+
+    @Serial
+    private static final long serialVersionUID = -2240614986227457193L;
+
+    private VarIntOffHeap(OffHeapStorage storage, int rows) {
+        super(storage, rows);
+    }
+
+    @Override
+    public VarIntOffHeap name(String name) {
+        return (VarIntOffHeap) super.name(name);
+    }
+
+    @Override
+    public VarType type() {
+        return VarType.INT;
+    }
+
+    @Override
+    public boolean isMissing(int row) {
+        return storage.getInt(row) == VarInt.MISSING_VALUE;
+    }
+
+    @Override
+    public void setMissing(int row) {
+        storage.putInt(row, VarInt.MISSING_VALUE);
+    }
+
+    @Override
+    public void addMissing() {
+        addInt(VarInt.MISSING_VALUE);
+    }
+
+    @Override
+    public int getInt(int row) {
+        return storage.getInt(row);
+    }
+
+    @Override
+    public void setInt(int row, int value) {
+        storage.putInt(row, value);
+    }
+
+    @Override
+    public void addInt(int value) {
+        storage.putInt(nextRow(), value);
+    }
+
+    @Override
+    public double getDouble(int row) {
+        if (isMissing(row)) {
+            return VarDouble.MISSING_VALUE;
+        }
+        return getInt(row);
+    }
+
+    @Override
+    public void setDouble(int row, double value) {
+        setInt(row, Double.isNaN(value) ? VarInt.MISSING_VALUE : (int) Math.rint(value));
+    }
+
+    @Override
+    public void addDouble(double value) {
+        addInt(Double.isNaN(value) ? VarInt.MISSING_VALUE : (int) Math.rint(value));
+    }
+
+    @Override
+    public long getLong(int row) {
+        return getInt(row);
+    }
+
+    @Override
+    public void setLong(int row, long value) {
+        setInt(row, Math.toIntExact(value));
+    }
+
+    @Override
+    public void addLong(long value) {
+        addInt(Math.toIntExact(value));
+    }
+
+    @Override
+    public String getLabel(int row) {
+        if (isMissing(row)) {
+            return "?";
+        }
+        return String.valueOf(getInt(row));
+    }
+
+    @Override
+    public void setLabel(int row, String value) {
+        if ("?".equals(value)) {
+            setMissing(row);
+            return;
+        }
+        setInt(row, Integer.parseInt(value));
+    }
+
+    @Override
+    public void addLabel(String value) {
+        if ("?".equals(value)) {
+            addMissing();
+            return;
+        }
+        addInt(Integer.parseInt(value));
+    }
+
+    @Override
+    public List<String> levels() {
+        throw new IllegalStateException("Operation not available for integer variables.");
+    }
+
+    @Override
+    public void setLevels(String... dict) {
+        throw new IllegalStateException("Operation not available for integer variables.");
+    }
+
+    @Override
+    public void addInstant(Instant value) {
+        if (value == VarInstant.MISSING_VALUE) {
+            addMissing();
+        } else {
+            addInt((int) value.toEpochMilli());
+        }
+    }
+
+    @Override
+    public void setInstant(int row, Instant value) {
+        if (value == VarInstant.MISSING_VALUE) {
+            setMissing(row);
+        } else {
+            setInt(row, (int) value.toEpochMilli());
+        }
+    }
+
+    @Override
+    public Instant getInstant(int row) {
+        if (isMissing(row)) {
+            return VarInstant.MISSING_VALUE;
+        }
+        return Instant.ofEpochMilli(getInt(row));
+    }
+
+    @Override
+    public Var newInstance(int rows) {
+        return VarIntOffHeap.empty(rows);
+    }
+
+    /**
+     * @return a copy of the variable stored in direct memory
+     */
+    @Override
+    public VarIntOffHeap copy() {
+        return VarIntOffHeap.copy(this);
+    }
+
+    @Serial
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        for (int i = 0; i < rows; i++) {
+            out.writeInt(storage.getInt(i));
+        }
+    }
+
+    @Serial
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        storage = OffHeapStorage.direct(Integer.BYTES, rows);
+        for (int i = 0; i < rows; i++) {
+            storage.putInt(i, in.readInt());
+        }
+    }
+
+    @Override
+    protected String toStringClassName() {
+        return "VarIntOffHeap";
+    }
+
+    @Override
+    protected int toStringDisplayValueCount() {
+        return 14;
+    }
+
+    @Override
+    protected void textTablePutValue(TextTable tt, int i, int j, int row, Printer printer, POption<?>[] options) {
+        tt.textRight(i, j, getLabel(row));
+    }
+}
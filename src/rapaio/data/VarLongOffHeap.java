@@ -0,0 +1,290 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright 2013 - 2021 Aurelian Tutuianu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package rapaio.data;
+
+import rapaio.printer.Printer;
+import rapaio.printer.TextTable;
+import rapaio.printer.opt.POption;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serial;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Long variable which stores its values outside of the Java heap, in direct memory
+ * or in a memory mapped file.
+ * <p>
+ * The variable has type {@link VarType#LONG} and behaves like {@link VarLong} through the
+ * {@link Var} interface. A mapped variable is persisted in its file and can be reopened
+ * with {@link #mapped(Path)}. The placeholder for missing value is {@link VarLong#MISSING_VALUE}.
+ *
+ * @author <a href="mailto:padreati@yahoo.com">Aurelian Tutuianu</a>
+ */
+public final class VarLongOffHeap extends AbstractOffHeapVar {
+
+    /**
+     * @return new empty off heap long variable of size 0
+     */
+    public static VarLongOffHeap empty() {
+        return new VarLongOffHeap(OffHeapStorage.direct(Long.BYTES, 0), 0);
+    }
+
+    /**
+     * Builds an off heap long variable with all values missing.
+     *
+     * @param rows size of the variable
+     * @return new instance of off heap long variable
+     */
+    public static VarLongOffHeap empty(int rows) {
+        return fill(rows, VarLong.MISSING_VALUE);
+    }
+
+    /**
+     * Builds an off heap long variable filled with a given value.
+     *
+     * @param rows size of the variable
+     * @param fill fill value
+     * @return new instance of off heap long variable
+     */
+    public static VarLongOffHeap fill(int rows, long fill) {
+        VarLongOffHeap var = new VarLongOffHeap(OffHeapStorage.direct(Long.BYTES, rows), rows);
+        for (int i = 0; i < rows; i++) {
+            var.storage.putLong(i, fill);
+        }
+        return var;
+    }
+
+    /**
+     * Builds an off heap long variable with values copied from another variable.
+     *
+     * @param source source variable
+     * @return new instance of off heap long variable
+     */
+    public static VarLongOffHeap copy(Var source) {
+        VarLongOffHeap var = new VarLongOffHeap(OffHeapStorage.direct(Long.BYTES, source.size()), source.size());
+        for (int i = 0; i < source.size(); i++) {
+            var.storage.putLong(i, source.isMissing(i) ? VarLong.MISSING_VALUE : source.getLong(i));
+        }
+        return var.name(source.name());
+    }
+
+    /**
+     * Opens a long variable stored in a memory mapped file. If the file does not exist
+     * an empty variable is created.
+     *
+     * @param path path of the file
+     * @return variable backed by the mapped file
+     */
+    public static VarLongOffHeap mapped(Path path) {
+        OffHeapStorage storage = OffHeapStorage.mapped(Long.BYTES, path);
+        return new VarLongOffHeap(storage, (int) storage.storedSize());
+    }
+
+    @Serial
+    private static final long serialVersionUID = 6125370832167794505L;
+
+    private VarLongOffHeap(OffHeapStorage storage, int rows) {
+        super(storage, rows);
+    }
+
+    @Override
+    public VarLongOffHeap name(String name) {
+        return (VarLongOffHeap) super.name(name);
+    }
+
+    @Override
+    public VarType type() {
+        return VarType.LONG;
+    }
+
+    @Override
+    public boolean isMissing(int row) {
+        return storage.getLong(row) == VarLong.MISSING_VALUE;
+    }
+
+    @Override
+    public void setMissing(int row) {
+        storage.putLong(row, VarLong.MISSING_VALUE);
+    }
+
+    @Override
+    public void addMissing() {
+        addLong(VarLong.MISSING_VALUE);
+    }
+
+    @Override
+    public long getLong(int row) {
+        return storage.getLong(row);
+    }
+
+    @Override
+    public void setLong(int row, long value) {
+        storage.putLong(row, value);
+    }
+
+    @Override
+    public void addLong(long value) {
+        storage.putLong(nextRow(), value);
+    }
+
+    @Override
+    public int getInt(int row) {
+        return (int) getLong(row);
+    }
+
+    @Override
+    public void setInt(int row, int value) {
+        setLong(row, value);
+    }
+
+    @Override
+    public void addInt(int value) {
+        addLong(value);
+    }
+
+    @Override
+    public double getDouble(int row) {
+        return getLong(row);
+    }
+
+    @Override
+    public void setDouble(int row, double value) {
+        setLong(row, (long) Math.rint(value));
+    }
+
+    @Override
+    public void addDouble(double value) {
+        addLong((long) Math.rint(value));
+    }
+
+    @Override
+    public String getLabel(int row) {
+        if (isMissing(row)) {
+            return "?";
+        }
+        return String.valueOf(getLong(row));
+    }
+
+    @Override
+    public void setLabel(int row, String value) {
+        if ("?".equals(value)) {
+            setMissing(row);
+            return;
+        }
+        setLong(row, Long.parseLong(value));
+    }
+
+    @Override
+    public void addLabel(String value) {
+        if ("?".equals(value)) {
+            addMissing();
+            return;
+        }
+        addLong(Long.parseLong(value));
+    }
+
+    @Override
+    public List<String> levels() {
+        throw new IllegalArgumentException("Operation not available for long variable");
+    }
+
+    @Override
+    public void setLevels(String... dict) {
+        throw new IllegalArgumentException("Operation not available for long variable");
+    }
+
+    @Override
+    public void addInstant(Instant value) {
+        if (value == VarInstant.MISSING_VALUE) {
+            addMissing();
+        } else {
+            addLong(value.toEpochMilli());
+        }
+    }
+
+    @Override
+    public void setInstant(int row, Instant value) {
+        if (value == VarInstant.MISSING_VALUE) {
+            setMissing(row);
+        } else {
+            setLong(row, value.toEpochMilli());
+        }
+    }
+
+    @Override
+    public Instant getInstant(int row) {
+        if (isMissing(row)) {
+            return VarInstant.MISSING_VALUE;
+        }
+        return Instant.ofEpochMilli(getLong(row));
+    }
+
+    @Override
+    public Var newInstance(int rows) {
+        return VarLongOffHeap.empty(rows);
+    }
+
+    /**
+     * @return a copy of the variable stored in direct memory
+     */
+    @Override
+    public VarLongOffHeap copy() {
+        return VarLongOffHeap.copy(this);
+    }
+
+    @Serial
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        for (int i = 0; i < rows; i++) {
+            out.writeLong(storage.getLong(i));
+        }
+    }
+
+    @Serial
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        storage = OffHeapStorage.direct(Long.BYTES, rows);
+        for (int i = 0; i < rows; i++) {
+            storage.putLong(i, in.readLong());
+        }
+    }
+
+    @Override
+    protected String toStringClassName() {
+        return "VarLongOffHeap";
+    }
+
+    @Override
+    protected int toStringDisplayValueCount() {
+        return 12;
+    }
+
+    @Override
+    protected void textTablePutValue(TextTable tt, int i, int j, int row, Printer printer, POption<?>[] options) {
+        tt.textRight(i, j, String.valueOf(getLong(row)));
+    }
+}
@@ -43,7 +43,7 @@ import java.util.function.Supplier;
 import java.util.stream.Collector;
 
 /**
- * Categorical variable type. The nominal variable type is represented as a string label and/or as an short
+ * Categorical variable type. The nominal variable type is represented as a string label and/or as an unsigned short
  * index value, assigned to each string label. Nominal variable contains values for categorical observations
  * where order of labels is not important.
  * <p>
@@ -57,7 +57,7 @@ import java.util.stream.Collector;
  * representation, where the actual label value does not matter. Even if index values is a short number the
  * order of the indexes for nominal variables is irrelevant.
  * <p>
- * Additionally the nominal variable is limited to 32767 levels, including missing label index.
+ * Additionally the nominal variable is limited to 65535 levels, including missing label index.
  *
  * @author <a href="mailto:padreati@yahoo.com">Aurelian Tutuianu</a>
  */
@@ -97,10 +97,11 @@ public final class VarNominal extends AbstractVar {
         for (String next : dict) {
             if (used.contains(next)) continue;
             used.add(next);
+            checkLevelCount(nominal.dict.size());
             nominal.dict.add(next);
-            nominal.reverse.put(next, (short) nominal.reverse.size());
+            nominal.reverse.put(next, nominal.reverse.size());
         }
-        nominal.data = new short[rows];
+        nominal.data = new char[rows];
         nominal.rows = rows;
         return nominal;
     }
@@ -131,18 +132,25 @@ public final class VarNominal extends AbstractVar {
     private static final long serialVersionUID = -7541719735879481349L;
     public static final String MISSING_VALUE = "?";
     private static final int missingIndex = 0;
+    private static final int MAX_LEVELS = Character.MAX_VALUE;
+
+    private static void checkLevelCount(int size) {
+        if (size == MAX_LEVELS) {
+            throw new IllegalStateException("Cannot add new label since dictionary achieved it's maximum size.");
+        }
+    }
 
     private int rows;
     private ArrayList<String> dict;
-    private short[] data;
-    private HashMap<String, Short> reverse;
+    private char[] data;
+    private HashMap<String, Integer> reverse;
 
     private VarNominal() {
         this.reverse = new HashMap<>();
-        this.reverse.put("?", (short) 0);
+        this.reverse.put("?", 0);
         this.dict = new ArrayList<>();
         this.dict.add("?");
-        data = new short[0];
+        data = new char[0];
         rows = 0;
     }
 
@@ -233,7 +241,7 @@ public final class VarNominal extends AbstractVar {
         if (value > 128 || value < 0) {
             throw new IllegalArgumentException("Invalid value for nominal index.");
         }
-        data[row] = (short) value;
+        data[row] = (char) value;
     }
 
     @Override
@@ -268,26 +276,22 @@ public final class VarNominal extends AbstractVar {
             return;
         }
         if (!reverse.containsKey(value)) {
-            if (dict.size() == Short.MAX_VALUE - 1) {
-                throw new IllegalStateException("Cannot add new label since dictionary achieved it's maximum size.");
-            }
+            checkLevelCount(dict.size());
             dict.add(value);
-            reverse.put(value, (short) reverse.size());
+            reverse.put(value, reverse.size());
         }
-        data[row] = reverse.get(value);
+        data[row] = (char) (int) reverse.get(value);
     }
 
     @Override
     public void addLabel(String label) {
         grow(rows + 1);
         if (!reverse.containsKey(label)) {
-            if (dict.size() == Short.MAX_VALUE - 1) {
-                throw new IllegalStateException("Cannot add new label since dictionary achieved it's maximum size.");
-            }
+            checkLevelCount(dict.size());
             dict.add(label);
-            reverse.put(label, (short) reverse.size());
+            reverse.put(label, reverse.size());
         }
-        data[rows++] = reverse.get(label);
+        data[rows++] = (char) (int) reverse.get(label);
     }
 
     @Override
@@ -312,17 +316,18 @@ public final class VarNominal extends AbstractVar {
         this.dict = new ArrayList<>();
         this.reverse = new HashMap<>(dict.length);
         this.dict.add("?");
-        this.reverse.put("?", (short) 0);
+        this.reverse.put("?", 0);
 
-        short[] pos = new short[oldDict.size()];
+        char[] pos = new char[oldDict.size()];
         for (int i = 0; i < dict.length; i++) {
             String term = dict[i];
             if (!reverse.containsKey(term)) {
+                checkLevelCount(this.dict.size());
                 this.dict.add(term);
-                this.reverse.put(term, (short) this.reverse.size());
+                this.reverse.put(term, this.reverse.size());
             }
             if (i < oldDict.size())
-                pos[i] = this.reverse.get(term);
+                pos[i] = (char) (int) this.reverse.get(term);
         }
 
         for (int i = 0; i < rows; i++) {
@@ -393,7 +398,7 @@ public final class VarNominal extends AbstractVar {
             out.writeUTF(factor);
         }
         for (int i = 0; i < size(); i++) {
-            out.writeShort(data[i]);
+            out.writeChar(data[i]);
         }
     }
 
@@ -405,11 +410,11 @@ public final class VarNominal extends AbstractVar {
         int len = in.readInt();
         for (int i = 0; i < len; i++) {
             dict.add(in.readUTF());
-            reverse.put(dict.get(i), (short) i);
+            reverse.put(dict.get(i), i);
         }
-        data = new short[rows];
+        data = new char[rows];
         for (int i = 0; i < rows; i++) {
-            data[i] = in.readShort();
+            data[i] = in.readChar();
         }
     }
 
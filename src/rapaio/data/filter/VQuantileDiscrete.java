@@ -39,11 +39,18 @@ import java.util.function.Predicate;
 /**
  * Make a numerical variable a nominal one with intervals specified by quantiles.
  * <p>
+ * Quantiles are estimated with R-7 by default. For large variables the quantile type
+ * {@link Quantiles.Type#SKETCH} estimates approximate quantiles with bounded memory.
+ * <p>
  * Created by <a href="mailto:padreati@yahoo.com">Aurelian Tutuianu</a> on 1/18/16.
  */
 public class VQuantileDiscrete implements VFilter {
 
     public static VQuantileDiscrete split(int k) {
+        return split(k, Quantiles.Type.R7);
+    }
+
+    public static VQuantileDiscrete split(int k, Quantiles.Type type) {
         if (k <= 1) {
             throw new IllegalArgumentException("Number of parts k: " + k + " of the split " +
                     "must be greater than 1.");
@@ -53,14 +60,18 @@ public class VQuantileDiscrete implements VFilter {
         for (int i = 0; i < qp.length; i++) {
             qp[i] = step * (i + 1);
         }
-        return new VQuantileDiscrete(qp);
+        return new VQuantileDiscrete(type, qp);
     }
 
     public static VQuantileDiscrete with(double... qp) {
+        return with(Quantiles.Type.R7, qp);
+    }
+
+    public static VQuantileDiscrete with(Quantiles.Type type, double... qp) {
         if (qp.length < 1) {
             throw new IllegalArgumentException("Number of quantiles must be positive.");
         }
-        return new VQuantileDiscrete(qp);
+        return new VQuantileDiscrete(type, qp);
     }
 
 
@@ -69,10 +80,12 @@ public class VQuantileDiscrete implements VFilter {
 
     private final List<String> dict = new ArrayList<>();
     private final Map<String, Predicate<Double>> predicates = new HashMap<>();
+    private final Quantiles.Type type;
     private final double[] qp;
     private double[] qv;
 
-    private VQuantileDiscrete(double... qp) {
+    private VQuantileDiscrete(Quantiles.Type type, double... qp) {
+        this.type = type;
         this.qp = qp;
     }
 
@@ -81,7 +94,7 @@ public class VQuantileDiscrete implements VFilter {
         if (!var.type().isNumeric()) {
             return this;
         }
-        qv = Quantiles.of(var, qp).values();
+        qv = Quantiles.of(var, type, qp).values();
 
         // first interval
 
@@ -130,6 +143,10 @@ public class VQuantileDiscrete implements VFilter {
 
     @Override
     public String toString() {
-        return "VQuantileDiscrete(q=[" + String.join(",", Arrays.stream(qp).mapToObj(Format::floatFlex).toArray(String[]::new)) + "])";
+        String q = String.join(",", Arrays.stream(qp).mapToObj(Format::floatFlex).toArray(String[]::new));
+        if (type == Quantiles.Type.R7) {
+            return "VQuantileDiscrete(q=[" + q + "])";
+        }
+        return "VQuantileDiscrete(q=[" + q + "],type=" + type.name() + ")";
     }
 }
@@ -0,0 +1,193 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright 2013 - 2021 Aurelian Tutuianu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package rapaio.data.group;
+
+import rapaio.data.Group;
+import rapaio.data.Var;
+
+import java.util.stream.IntStream;
+
+/**
+ * Statistics of a variable computed for each group of a {@link Group}. All statistics
+ * are computed in a single pass over the rows of each group into primitive accumulators,
+ * using the same online updates as {@link rapaio.core.stat.OnlineStat}. Missing values
+ * are ignored. Minimum and maximum are NaN for groups without non missing values.
+ * <p>
+ * Groups are independent, thus the computation can be partitioned on groups across threads,
+ * the result being identical with the sequential one.
+ *
+ * @author <a href="mailto:padreati@yahoo.com">Aurelian Tutuianu</a>
+ */
+public final class GroupStats {
+
+    // minimum number of rows in a partition of groups processed by a thread
+    private static final int PARTITION_ROWS = 1 << 14;
+
+    public static GroupStats of(Group group, String varName, boolean parallel) {
+        return new GroupStats(group, varName, parallel);
+    }
+
+    private final double[] count;
+    private final double[] sum;
+    private final double[] min;
+    private final double[] max;
+    private final double[] m1;
+    private final double[] m2;
+    private final double[] m3;
+    private final double[] m4;
+
+    private GroupStats(Group group, String varName, boolean parallel) {
+        int groups = group.getGroupCount();
+        count = new double[groups];
+        sum = new double[groups];
+        min = new double[groups];
+        max = new double[groups];
+        m1 = new double[groups];
+        m2 = new double[groups];
+        m3 = new double[groups];
+        m4 = new double[groups];
+
+        Var var = group.getFrame().rvar(varName);
+        int[] offsets = group.getGroupOffsets();
+        int[] rows = group.getGroupRows();
+
+        // partitions of consecutive groups with roughly the same number of rows
+        int partitions = parallel ? Math.max(1, Math.min(groups, rows.length / PARTITION_ROWS)) : 1;
+        int[] bounds = new int[partitions + 1];
+        int g = 0;
+        for (int p = 1; p < partitions; p++) {
+            long target = (long) rows.length * p / partitions;
+            while (g < groups && offsets[g] < target) {
+                g++;
+            }
+            bounds[p] = g;
+        }
+        bounds[partitions] = groups;
+
+        IntStream stream = IntStream.range(0, partitions);
+        if (partitions > 1) {
+            stream = stream.parallel();
+        }
+        stream.forEach(p -> update(var, offsets, rows, bounds[p], bounds[p + 1]));
+    }
+
+    private void update(Var var, int[] offsets, int[] rows, int groupStart, int groupEnd) {
+        for (int g = groupStart; g < groupEnd; g++) {
+            double n = 0;
+            double s = 0;
+            double mn = Double.NaN;
+            double mx = Double.NaN;
+            double a1 = 0;
+            double a2 = 0;
+            double a3 = 0;
+            double a4 = 0;
+            for (int pos = offsets[g]; pos < offsets[g + 1]; pos++) {
+                int row = rows[pos];
+                if (var.isMissing(row)) {
+                    continue;
+                }
+                double x = var.getDouble(row);
+                double n1 = n;
+                n++;
+                double delta = x - a1;
+                double delta_n = delta / n;
+                double delta_n2 = delta_n * delta_n;
+                double term1 = delta * delta_n * n1;
+                a1 += delta_n;
+                a4 += term1 * delta_n2 * (n * n - 3 * n + 3) + 6 * delta_n2 * a2 - 4 * delta_n * a3;
+                a3 += term1 * delta_n * (n - 2) - 3 * delta_n * a2;
+                a2 += term1;
+                if (Double.isNaN(mn) || mn > x) {
+                    mn = x;
+                }
+                if (Double.isNaN(mx) || mx < x) {
+                    mx = x;
+                }
+                s += x;
+            }
+            count[g] = n;
+            sum[g] = s;
+            min[g] = mn;
+            max[g] = mx;
+            m1[g] = a1;
+            m2[g] = a2;
+            m3[g] = a3;
+            m4[g] = a4;
+        }
+    }
+
+    /**
+     * @return number of groups
+     */
+    public int size() {
+        return count.length;
+    }
+
+    /**
+     * @return number of non missing values of the group
+     */
+    public double count(int groupId) {
+        return count[groupId];
+    }
+
+    /**
+     * @return sum of non missing values of the group, NaN if there are no such values
+     */
+    public double sum(int groupId) {
+        return count[groupId] == 0 ? Double.NaN : sum[groupId];
+    }
+
+    /**
+     * @return minimum of non missing values of the group
+     */
+    public double min(int groupId) {
+        return min[groupId];
+    }
+
+    /**
+     * @return maximum of non missing values of the group
+     */
+    public double max(int groupId) {
+        return max[groupId];
+    }
+
+    public double mean(int groupId) {
+        return m1[groupId];
+    }
+
+    public double variance(int groupId) {
+        return m2[groupId] / count[groupId];
+    }
+
+    public double sd(int groupId) {
+        return Math.sqrt(variance(groupId));
+    }
+
+    public double skewness(int groupId) {
+        return Math.sqrt(count[groupId]) * m3[groupId] / Math.pow(m2[groupId], 1.5);
+    }
+
+    public double kurtosis(int groupId) {
+        return count[groupId] * m4[groupId] / (m2[groupId] * m2[groupId]) - 3.0;
+    }
+}
@@ -27,10 +27,9 @@ import rapaio.data.Mapping;
 import rapaio.data.Var;
 import rapaio.data.VarBinary;
 import rapaio.data.VarDouble;
-import rapaio.data.VarInt;
+import rapaio.data.group.GroupStats;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 
 /**
@@ -51,17 +50,29 @@ public abstract class DefaultSingleGroupFun extends DefaultGroupFun {
 
     public abstract void updateSingle(Var aggregate, int aggregateRow, Frame df, int varIndex, Mapping rows);
 
+    /**
+     * Computes the aggregated values for all groups. The default implementation calls
+     * {@link #updateSingle(Var, int, Frame, int, Mapping)} for each group. Functions which
+     * can be computed from {@link GroupStats} overrides this method to use the statistics
+     * cached by the group, computed in a single pass over the variable.
+     *
+     * @param group     group by data structure
+     * @param aggregate aggregate variable with one row for each group
+     * @param varName   name of the aggregated variable
+     */
+    public void updateAll(Group group, Var aggregate, String varName) {
+        int index = group.getFrame().varIndex(varName);
+        for (int groupId = 0; groupId < group.getGroupCount(); groupId++) {
+            updateSingle(aggregate, groupId, group.getFrame(), index, group.getRowsForGroupId(groupId));
+        }
+    }
+
     @Override
     public List<Var> compute(Group group) {
         List<Var> result = new ArrayList<>();
-        VarInt ids = group.getSortedGroupIds();
         for (String varName : varNames) {
             Var aggregate = buildVar(group, varName);
-            int index = group.getFrame().varIndex(varName);
-            for (int i = 0; i < ids.size(); i++) {
-                int groupId = ids.getInt(i);
-                updateSingle(aggregate, groupId, group.getFrame(), index, group.getRowsForGroupId(groupId));
-            }
+            updateAll(group, aggregate, varName);
             if (normalizeLevel < 0) {
                 result.add(aggregate);
                 continue;
@@ -77,41 +88,28 @@ public abstract class DefaultSingleGroupFun extends DefaultGroupFun {
 
     private Var normalize(Group group, Var agg) {
         int count = group.getGroupCount();
-
-        var groupIndex = group.getGroupIdToLastLevelIndex();
-
-        HashMap<Integer, Group.IndexNode> reducedGroup = new HashMap<>();
-        HashMap<Group.IndexNode, Double> sum = new HashMap<>();
-        for (int i = 0; i < count; i++) {
-            Group.IndexNode node = groupIndex.get(i);
-            for (int j = 0; j < normalizeLevel; j++) {
-                node = node.getParent();
-            }
-            reducedGroup.put(i, node);
-            sum.put(node, 0d);
-        }
+        int prefixLength = Math.max(0, group.getGroupByNameList().size() - normalizeLevel);
 
         // accumulate at higher group
 
-        for (int i = 0; i < group.getGroupCount(); i++) {
+        double[] sum = new double[count];
+        for (int i = 0; i < count; i++) {
             double value = agg.getDouble(i);
             if (Double.isNaN(value) || Double.isInfinite(value)) {
                 continue;
             }
-            Group.IndexNode node = reducedGroup.get(i);
-            sum.put(node, sum.get(node) + value);
+            sum[group.getPrefixGroupId(i, prefixLength)] += value;
         }
 
         // normalize
 
         VarDouble normalized = VarDouble.empty(count).name(agg.name() + "_N" + normalizeLevel);
-        for (int i = 0; i < group.getGroupCount(); i++) {
+        for (int i = 0; i < count; i++) {
             double value = agg.getDouble(i);
             if (Double.isNaN(value) || Double.isInfinite(value)) {
                 continue;
             }
-            Group.IndexNode node = reducedGroup.get(i);
-            double groupSum = sum.get(node);
+            double groupSum = sum[group.getPrefixGroupId(i, prefixLength)];
             if (Double.isNaN(groupSum) || Double.isInfinite(groupSum) || groupSum == 0) {
                 continue;
             }
@@ -53,4 +53,20 @@ public class GroupFunCount extends DefaultSingleGroupFun {
         }
         aggregate.setInt(aggregateRow, count);
     }
+
+    @Override
+    public void updateAll(Group group, Var aggregate, String varName) {
+        Var var = group.getFrame().rvar(varName);
+        int[] offsets = group.getGroupOffsets();
+        int[] rows = group.getGroupRows();
+        for (int i = 0; i < group.getGroupCount(); i++) {
+            int count = 0;
+            for (int pos = offsets[i]; pos < offsets[i + 1]; pos++) {
+                if (!var.isMissing(rows[pos])) {
+                    count++;
+                }
+            }
+            aggregate.setInt(i, count);
+        }
+    }
 }
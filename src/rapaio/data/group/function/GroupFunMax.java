@@ -25,6 +25,8 @@ import rapaio.data.Frame;
 import rapaio.data.Group;
 import rapaio.data.Mapping;
 import rapaio.data.Var;
+import rapaio.data.VarType;
+import rapaio.data.group.GroupStats;
 
 import java.util.List;
 
@@ -92,5 +94,17 @@ public class GroupFunMax extends DefaultSingleGroupFun {
             }
         }
     }
+
+    @Override
+    public void updateAll(Group group, Var aggregate, String varName) {
+        if (aggregate.type() != VarType.DOUBLE) {
+            super.updateAll(group, aggregate, varName);
+            return;
+        }
+        GroupStats stats = group.getStats(varName);
+        for (int i = 0; i < stats.size(); i++) {
+            aggregate.setDouble(i, stats.max(i));
+        }
+    }
 }
 
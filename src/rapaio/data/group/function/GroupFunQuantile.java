@@ -0,0 +1,96 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright 2013 - 2021 Aurelian Tutuianu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package rapaio.data.group.function;
+
+import rapaio.core.stat.QuantileSketch;
+import rapaio.data.Frame;
+import rapaio.data.Group;
+import rapaio.data.Mapping;
+import rapaio.data.Var;
+import rapaio.data.VarDouble;
+import rapaio.printer.Format;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Approximate quantile of a numeric variable for each group, estimated with
+ * a {@link QuantileSketch}. The memory used for a group is bounded by the compression
+ * of the sketch, and the groups are processed in parallel.
+ *
+ * @author <a href="mailto:padreati@yahoo.com">Aurelian Tutuianu</a>
+ */
+public class GroupFunQuantile extends DefaultSingleGroupFun {
+
+    private final double p;
+    private final double compression;
+
+    public GroupFunQuantile(int normalizeLevel, double p, double compression, List<String> varNames) {
+        super("q" + Format.floatFlexShort(p), normalizeLevel, varNames);
+        if (p < 0 || p > 1) {
+            throw new IllegalArgumentException("Probability must be in interval [0,1].");
+        }
+        this.p = p;
+        this.compression = compression;
+    }
+
+    @Override
+    public Var buildVar(Group group, String varName) {
+        return VarDouble.empty(group.getGroupCount()).name(varName + SEPARATOR + name);
+    }
+
+    @Override
+    public void updateSingle(Var aggregate, int aggregateRow, Frame df, int varIndex, Mapping rows) {
+        QuantileSketch sketch = QuantileSketch.empty(compression);
+        for (int row : rows) {
+            if (!df.isMissing(row, varIndex)) {
+                sketch.update(df.getDouble(row, varIndex));
+            }
+        }
+        if (sketch.count() > 0) {
+            aggregate.setDouble(aggregateRow, sketch.quantile(p));
+        }
+    }
+
+    @Override
+    public void updateAll(Group group, Var aggregate, String varName) {
+        Var var = group.getFrame().rvar(varName);
+        int[] offsets = group.getGroupOffsets();
+        int[] rows = group.getGroupRows();
+        double[] values = new double[group.getGroupCount()];
+        IntStream.range(0, values.length).parallel().forEach(g -> {
+            QuantileSketch sketch = QuantileSketch.empty(compression);
+            for (int pos = offsets[g]; pos < offsets[g + 1]; pos++) {
+                if (!var.isMissing(rows[pos])) {
+                    sketch.update(var.getDouble(rows[pos]));
+                }
+            }
+            values[g] = sketch.quantile(p);
+        });
+        for (int g = 0; g < values.length; g++) {
+            if (!Double.isNaN(values[g])) {
+                aggregate.setDouble(g, values[g]);
+            }
+        }
+    }
+}
@@ -27,6 +27,7 @@ import rapaio.data.Group;
 import rapaio.data.Mapping;
 import rapaio.data.Var;
 import rapaio.data.VarDouble;
+import rapaio.data.group.GroupStats;
 
 import java.util.List;
 
@@ -55,5 +56,13 @@ public class GroupFunStd extends DefaultSingleGroupFun {
         }
         aggregate.setDouble(aggregateRow, os.sd());
     }
+
+    @Override
+    public void updateAll(Group group, Var aggregate, String varName) {
+        GroupStats stats = group.getStats(varName);
+        for (int i = 0; i < stats.size(); i++) {
+            aggregate.setDouble(i, stats.sd(i));
+        }
+    }
 }
 
@@ -27,6 +27,7 @@ import rapaio.data.Group;
 import rapaio.data.Mapping;
 import rapaio.data.Var;
 import rapaio.data.VarDouble;
+import rapaio.data.group.GroupStats;
 
 import java.util.List;
 
@@ -57,5 +58,15 @@ public class GroupFunSum extends DefaultSingleGroupFun {
             return;
         aggregate.setDouble(aggregateRow, os.sum());
     }
+
+    @Override
+    public void updateAll(Group group, Var aggregate, String varName) {
+        GroupStats stats = group.getStats(varName);
+        for (int i = 0; i < stats.size(); i++) {
+            if (stats.count(i) > 0) {
+                aggregate.setDouble(i, stats.sum(i));
+            }
+        }
+    }
 }
 
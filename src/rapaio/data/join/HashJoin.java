@@ -0,0 +1,418 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright 2013 - 2021 Aurelian Tutuianu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package rapaio.data.join;
+
+import rapaio.data.BoundFrame;
+import rapaio.data.Frame;
+import rapaio.data.MappedFrame;
+import rapaio.data.MappedVar;
+import rapaio.data.Mapping;
+import rapaio.data.SolidFrame;
+import rapaio.data.Var;
+import rapaio.data.VarDouble;
+import rapaio.data.VarLong;
+import rapaio.data.VarRange;
+import rapaio.data.VarString;
+import rapaio.data.VarType;
+import rapaio.util.collection.IntArrayList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * Hash join of two frames on equality of key variables.
+ * <p>
+ * Key variables are compared by value: integer variables (int, binary, long, instant) by their long
+ * values, other numeric variables by their double values and all other variables by their labels.
+ * Rows with missing values in any key variable never match, but are kept as unmatched rows
+ * by left, right and outer joins.
+ * <p>
+ * The hash table is built on the frame with fewer rows and the rows of the other frame are probed
+ * in parallel partitions. The result is a bound frame of views: key variables first, named
+ * as the left keys, followed by the non key variables of the left frame and the non key variables of
+ * the right frame. Non key variables are mapped views over the joined frames, thus they are not copied.
+ * Variables of the rows without match from the other frame contains missing values. Key variables
+ * are copied only for outer joins, where they are combined from both frames. If key types differ,
+ * combined keys are stored in long, double or string variables, as required by values from both frames.
+ * <p>
+ * Rows of right joins are ordered by the right rows and then by left rows. Rows of all other joins
+ * are ordered by left rows and then by right rows, and for outer joins the right rows without match
+ * follows at the end in their original order.
+ *
+ * @author <a href="mailto:padreati@yahoo.com">Aurelian Tutuianu</a>
+ */
+public final class HashJoin {
+
+    public static Frame join(Frame left, Frame right, VarRange leftKeys, VarRange rightKeys, JoinType type) {
+        return new HashJoin(left, right, leftKeys.parseVarNames(left), rightKeys.parseVarNames(right), type).join();
+    }
+
+    /**
+     * Joins two frames using as keys the variables with the same names from both frames.
+     */
+    public static Frame join(Frame left, Frame right, JoinType type) {
+        Set<String> rightNames = new HashSet<>(Arrays.asList(right.varNames()));
+        List<String> keys = new ArrayList<>();
+        for (String varName : left.varNames()) {
+            if (rightNames.contains(varName)) {
+                keys.add(varName);
+            }
+        }
+        return join(left, right, VarRange.of(keys), VarRange.of(keys), type);
+    }
+
+    // minimum number of probed rows for a parallel partition
+    private static final int PARTITION_ROWS = 1 << 15;
+
+    private final Frame left;
+    private final Frame right;
+    private final List<String> leftKeys;
+    private final List<String> rightKeys;
+    private final JoinType type;
+
+    private HashJoin(Frame left, Frame right, List<String> leftKeys, List<String> rightKeys, JoinType type) {
+        if (leftKeys.isEmpty() || leftKeys.size() != rightKeys.size()) {
+            throw new IllegalArgumentException("Join requires the same positive number of key variables for both frames.");
+        }
+        this.left = left;
+        this.right = right;
+        this.leftKeys = leftKeys;
+        this.rightKeys = rightKeys;
+        this.type = type;
+    }
+
+    private Frame join() {
+        List<String> leftOthers = others(left, leftKeys);
+        List<String> rightOthers = others(right, rightKeys);
+        Set<String> names = new HashSet<>(leftKeys);
+        names.addAll(leftOthers);
+        for (String name : rightOthers) {
+            if (names.contains(name)) {
+                throw new IllegalArgumentException("Joined frames have non key variables with the same name: " + name);
+            }
+        }
+
+        KeyColumn[] keys = new KeyColumn[leftKeys.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = KeyColumn.of(left.rvar(leftKeys.get(i)), right.rvar(rightKeys.get(i)));
+        }
+
+        // build on the smaller frame, probe the larger one
+
+        boolean buildLeft = left.rowCount() <= right.rowCount();
+        int[][] pairs = matches(keys, buildLeft);
+        int[][] rows = arrange(pairs[0], pairs[1], !buildLeft);
+
+        return assemble(rows[0], rows[1], leftOthers, rightOthers);
+    }
+
+    private static List<String> others(Frame df, List<String> keys) {
+        Set<String> keySet = new HashSet<>(keys);
+        List<String> others = new ArrayList<>();
+        for (String varName : df.varNames()) {
+            if (!keySet.contains(varName)) {
+                others.add(varName);
+            }
+        }
+        return others;
+    }
+
+    /**
+     * Finds all pairs of matching rows.
+     *
+     * @return left rows and right rows of matched pairs, in the order of probed rows
+     * and then in the order of build rows
+     */
+    private int[][] matches(KeyColumn[] keys, boolean buildLeft) {
+        int buildRows = buildLeft ? left.rowCount() : right.rowCount();
+        int probeRows = buildLeft ? right.rowCount() : left.rowCount();
+
+        long[] buildHashes = new long[buildRows];
+        boolean[] buildValid = new boolean[buildRows];
+        for (int i = 0; i < buildRows; i++) {
+            buildValid[i] = valid(keys, buildLeft, i);
+            buildHashes[i] = buildValid[i] ? hash(keys, buildLeft, i) : 0;
+        }
+
+        int capacity = Integer.highestOneBit(Math.max(2, buildRows * 2) - 1) << 1;
+        int mask = capacity - 1;
+        int[] heads = new int[capacity];
+        Arrays.fill(heads, -1);
+        int[] next = new int[buildRows];
+        // insert in reverse order such that chains contains rows in increasing order
+        for (int i = buildRows - 1; i >= 0; i--) {
+            if (!buildValid[i]) {
+                continue;
+            }
+            int slot = (int) buildHashes[i] & mask;
+            next[i] = heads[slot];
+            heads[slot] = i;
+        }
+
+        int partitions = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors() * 4, probeRows / PARTITION_ROWS));
+        IntArrayList[] partLeft = new IntArrayList[partitions];
+        IntArrayList[] partRight = new IntArrayList[partitions];
+        IntStream stream = IntStream.range(0, partitions);
+        if (partitions > 1) {
+            stream = stream.parallel();
+        }
+        stream.forEach(p -> {
+            IntArrayList ls = new IntArrayList();
+            IntArrayList rs = new IntArrayList();
+            int start = (int) ((long) probeRows * p / partitions);
+            int end = (int) ((long) probeRows * (p + 1) / partitions);
+            for (int row = start; row < end; row++) {
+                if (!valid(keys, !buildLeft, row)) {
+                    continue;
+                }
+                long h = hash(keys, !buildLeft, row);
+                for (int b = heads[(int) h & mask]; b != -1; b = next[b]) {
+                    if (buildHashes[b] != h) {
+                        continue;
+                    }
+                    int l = buildLeft ? b : row;
+                    int r = buildLeft ? row : b;
+                    if (equal(keys, l, r)) {
+                        ls.add(l);
+                        rs.add(r);
+                    }
+                }
+            }
+            partLeft[p] = ls;
+            partRight[p] = rs;
+        });
+
+        int size = 0;
+        for (IntArrayList part : partLeft) {
+            size += part.size();
+        }
+        int[] ls = new int[size];
+        int[] rs = new int[size];
+        int pos = 0;
+        for (int p = 0; p < partitions; p++) {
+            partLeft[p].getElements(0, ls, pos, partLeft[p].size());
+            partRight[p].getElements(0, rs, pos, partRight[p].size());
+            pos += partLeft[p].size();
+        }
+        return new int[][] {ls, rs};
+    }
+
+    /**
+     * Orders matched pairs and adds the unmatched rows required by join type. Unmatched
+     * rows are paired with the row count of the other frame, which is a missing row.
+     */
+    private int[][] arrange(int[] ls, int[] rs, boolean probedLeft) {
+        boolean byRight = type == JoinType.RIGHT;
+        int[] primary = byRight ? rs : ls;
+        int[] secondary = byRight ? ls : rs;
+        if (byRight == probedLeft) {
+            // pairs are not in the order of primary rows
+            long[] packed = new long[primary.length];
+            for (int i = 0; i < packed.length; i++) {
+                packed[i] = ((long) primary[i] << 32) | secondary[i];
+            }
+            Arrays.sort(packed);
+            for (int i = 0; i < packed.length; i++) {
+                primary[i] = (int) (packed[i] >>> 32);
+                secondary[i] = (int) packed[i];
+            }
+        }
+        if (type == JoinType.INNER) {
+            return new int[][] {ls, rs};
+        }
+
+        int primaryRows = byRight ? right.rowCount() : left.rowCount();
+        int secondaryRows = byRight ? left.rowCount() : right.rowCount();
+        IntArrayList outPrimary = new IntArrayList(Math.max(primary.length, primaryRows));
+        IntArrayList outSecondary = new IntArrayList(Math.max(primary.length, primaryRows));
+        int pos = 0;
+        for (int row = 0; row < primaryRows; row++) {
+            if (pos < primary.length && primary[pos] == row) {
+                while (pos < primary.length && primary[pos] == row) {
+                    outPrimary.add(row);
+                    outSecondary.add(secondary[pos++]);
+                }
+            } else {
+                outPrimary.add(row);
+                outSecondary.add(secondaryRows);
+            }
+        }
+        if (type == JoinType.OUTER) {
+            boolean[] matched = new boolean[secondaryRows];
+            for (int row : secondary) {
+                matched[row] = true;
+            }
+            for (int row = 0; row < secondaryRows; row++) {
+                if (!matched[row]) {
+                    outPrimary.add(primaryRows);
+                    outSecondary.add(row);
+                }
+            }
+        }
+        int[] p = Arrays.copyOf(outPrimary.elements(), outPrimary.size());
+        int[] s = Arrays.copyOf(outSecondary.elements(), outSecondary.size());
+        return byRight ? new int[][] {s, p} : new int[][] {p, s};
+    }
+
+    private Frame assemble(int[] leftRows, int[] rightRows, List<String> leftOthers, List<String> rightOthers) {
+        Frame leftSource = type == JoinType.RIGHT || type == JoinType.OUTER ? withMissingRow(left) : left;
+        Frame rightSource = type == JoinType.LEFT || type == JoinType.OUTER ? withMissingRow(right) : right;
+        Mapping leftMapping = Mapping.wrap(leftRows);
+        Mapping rightMapping = Mapping.wrap(rightRows);
+
+        List<Var> keyVars = new ArrayList<>();
+        for (int i = 0; i < leftKeys.size(); i++) {
+            String name = leftKeys.get(i);
+            Var var = switch (type) {
+                case INNER, LEFT -> MappedVar.byRows(left.rvar(name), leftMapping);
+                case RIGHT -> MappedVar.byRows(right.rvar(rightKeys.get(i)), rightMapping);
+                case OUTER -> combineKeys(left.rvar(name), right.rvar(rightKeys.get(i)), leftRows, rightRows);
+            };
+            keyVars.add(var.name(name));
+        }
+        return BoundFrame.byVars(
+                BoundFrame.byVars(keyVars),
+                MappedFrame.byRow(leftSource, leftMapping, VarRange.of(leftOthers)),
+                MappedFrame.byRow(rightSource, rightMapping, VarRange.of(rightOthers)));
+    }
+
+    private static Frame withMissingRow(Frame df) {
+        List<Var> vars = new ArrayList<>();
+        for (int i = 0; i < df.varCount(); i++) {
+            Var var = df.rvar(i).newInstance(1).name(df.varName(i));
+            var.setMissing(0);
+            vars.add(var);
+        }
+        return BoundFrame.byRows(df, SolidFrame.byVars(1, vars));
+    }
+
+    private static Var combineKeys(Var leftVar, Var rightVar, int[] leftRows, int[] rightRows) {
+        int leftCount = leftVar.size();
+        Var result = combinedKeyInstance(leftVar, rightVar, leftRows.length);
+        for (int i = 0; i < leftRows.length; i++) {
+            boolean fromLeft = leftRows[i] < leftCount;
+            Var src = fromLeft ? leftVar : rightVar;
+            int row = fromLeft ? leftRows[i] : rightRows[i];
+            if (src.isMissing(row)) {
+                result.setMissing(i);
+                continue;
+            }
+            switch (result.type()) {
+                case DOUBLE -> result.setDouble(i, src.getDouble(row));
+                case INT, BINARY -> result.setInt(i, src.getInt(row));
+                case LONG, INSTANT -> result.setLong(i, src.getLong(row));
+                default -> result.setLabel(i, src.getLabel(row));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Builds the variable which holds outer join keys from both sides. When the key types
+     * differ, the widest type able to hold values from both sides is used.
+     */
+    private static Var combinedKeyInstance(Var leftVar, Var rightVar, int rows) {
+        if (leftVar.type() == rightVar.type()) {
+            return leftVar.newInstance(rows);
+        }
+        return switch (KeyColumn.of(leftVar, rightVar).mode) {
+            case LONG -> VarLong.empty(rows);
+            case DOUBLE -> VarDouble.empty(rows);
+            case LABEL -> leftVar.type() == VarType.NOMINAL ? leftVar.newInstance(rows) : VarString.empty(rows);
+        };
+    }
+
+    private boolean valid(KeyColumn[] keys, boolean leftSide, int row) {
+        for (KeyColumn key : keys) {
+            if ((leftSide ? key.left : key.right).isMissing(row)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long hash(KeyColumn[] keys, boolean leftSide, int row) {
+        long h = 0;
+        for (KeyColumn key : keys) {
+            h = h * 0x9E3779B97F4A7C15L + key.hash(leftSide, row);
+        }
+        return h ^ (h >>> 29);
+    }
+
+    private static boolean equal(KeyColumn[] keys, int leftRow, int rightRow) {
+        for (KeyColumn key : keys) {
+            if (!key.equal(leftRow, rightRow)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Typed access to a pair of key variables.
+     */
+    private record KeyColumn(Var left, Var right, Mode mode) {
+
+        private enum Mode {
+            LONG, DOUBLE, LABEL
+        }
+
+        private static final Set<VarType> INTEGRAL = Set.of(VarType.INT, VarType.BINARY, VarType.LONG, VarType.INSTANT);
+        private static final Set<VarType> NUMERIC = Set.of(VarType.INT, VarType.BINARY, VarType.LONG, VarType.DOUBLE);
+
+        static KeyColumn of(Var left, Var right) {
+            if (INTEGRAL.contains(left.type()) && INTEGRAL.contains(right.type())) {
+                return new KeyColumn(left, right, Mode.LONG);
+            }
+            if (NUMERIC.contains(left.type()) && NUMERIC.contains(right.type())) {
+                return new KeyColumn(left, right, Mode.DOUBLE);
+            }
+            return new KeyColumn(left, right, Mode.LABEL);
+        }
+
+        long hash(boolean leftSide, int row) {
+            Var var = leftSide ? left : right;
+            return switch (mode) {
+                case LONG -> var.getLong(row);
+                case DOUBLE -> {
+                    double value = var.getDouble(row);
+                    // 0.0 and -0.0 are equal keys
+                    yield value == 0 ? 0 : Double.doubleToLongBits(value);
+                }
+                case LABEL -> var.getLabel(row).hashCode();
+            };
+        }
+
+        boolean equal(int leftRow, int rightRow) {
+            return switch (mode) {
+                case LONG -> left.getLong(leftRow) == right.getLong(rightRow);
+                case DOUBLE -> left.getDouble(leftRow) == right.getDouble(rightRow);
+                case LABEL -> left.getLabel(leftRow).equals(right.getLabel(rightRow));
+            };
+        }
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright 2013 - 2021 Aurelian Tutuianu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package rapaio.data.join;
+
+/**
+ * Type of join between two frames.
+ *
+ * @author <a href="mailto:padreati@yahoo.com">Aurelian Tutuianu</a>
+ */
+public enum JoinType {
+    /**
+     * Keeps only the pairs of rows with equal keys.
+     */
+    INNER,
+    /**
+     * Keeps the pairs of rows with equal keys and the rows of the left frame without match.
+     */
+    LEFT,
+    /**
+     * Keeps the pairs of rows with equal keys and the rows of the right frame without match.
+     */
+    RIGHT,
+    /**
+     * Keeps the pairs of rows with equal keys and the rows of both frames without match.
+     */
+    OUTER
+}
@@ -66,28 +66,13 @@ public final class DoubleDVarOp implements DVarOp<VarDouble> {
 
     @Override
     public double nansum() {
-        double sum = 0.0;
-        for (int i = 0; i < rowCount; i++) {
-            if (Double.isNaN(data[i])) {
-                continue;
-            }
-            sum += data[i];
-        }
-        return sum;
+        return DoubleArrays.nanSum(data, 0, rowCount);
     }
 
     @Override
     public double nanmean() {
-        double count = 0.0;
-        double sum = 0.0;
-        for (int i = 0; i < rowCount; i++) {
-            if (Double.isNaN(data[i])) {
-                continue;
-            }
-            sum += data[i];
-            count += 1;
-        }
-        return count > 0 ? sum / count : 0.0;
+        int count = DoubleArrays.nanCount(data, 0, rowCount);
+        return count > 0 ? DoubleArrays.nanSum(data, 0, rowCount) / count : 0.0;
     }
 
     @Override
@@ -100,19 +85,14 @@ public final class DoubleDVarOp implements DVarOp<VarDouble> {
 
     @Override
     public VarDouble plus(double a) {
-        for (int i = 0; i < rowCount; i++) {
-            data[i] += a;
-        }
+        DoubleArrays.add(data, 0, a, rowCount);
         return source;
     }
 
     @Override
     public VarDouble plus(Var x) {
         if (x instanceof VarDouble xd) {
-            double[] xdarray = xd.elements();
-            for (int i = 0; i < rowCount; i++) {
-                data[i] += xdarray[i];
-            }
+            DoubleArrays.add(data, 0, xd.elements(), 0, rowCount);
         } else if (x instanceof VarInt xi) {
             int[] xiarray = xi.elements();
             for (int i = 0; i < rowCount; i++) {
@@ -132,19 +112,14 @@ public final class DoubleDVarOp implements DVarOp<VarDouble> {
 
     @Override
     public VarDouble minus(double a) {
-        for (int i = 0; i < rowCount; i++) {
-            data[i] -= a;
-        }
+        DoubleArrays.sub(data, 0, a, rowCount);
         return source;
     }
 
     @Override
     public VarDouble minus(Var x) {
         if (x instanceof VarDouble xd) {
-            double[] xdarray = xd.elements();
-            for (int i = 0; i < rowCount; i++) {
-                data[i] -= xdarray[i];
-            }
+            DoubleArrays.sub(data, 0, xd.elements(), 0, rowCount);
         } else if (x instanceof VarInt xi) {
             int[] xiarray = xi.elements();
             for (int i = 0; i < rowCount; i++) {
@@ -164,19 +139,14 @@ public final class DoubleDVarOp implements DVarOp<VarDouble> {
 
     @Override
     public VarDouble mult(double a) {
-        for (int i = 0; i < rowCount; i++) {
-            data[i] *= a;
-        }
+        DoubleArrays.mult(data, 0, a, rowCount);
         return source;
     }
 
     @Override
     public VarDouble mult(Var x) {
         if (x instanceof VarDouble xd) {
-            double[] xdarray = xd.elements();
-            for (int i = 0; i < rowCount; i++) {
-                data[i] *= xdarray[i];
-            }
+            DoubleArrays.mult(data, 0, xd.elements(), 0, rowCount);
         } else if (x instanceof VarInt xi) {
             int[] xiarray = xi.elements();
             for (int i = 0; i < rowCount; i++) {
@@ -205,10 +175,7 @@ public final class DoubleDVarOp implements DVarOp<VarDouble> {
     @Override
     public VarDouble divide(Var x) {
         if (x instanceof VarDouble xd) {
-            double[] xdarray = xd.elements();
-            for (int i = 0; i < rowCount; i++) {
-                data[i] /= xdarray[i];
-            }
+            DoubleArrays.div(data, 0, xd.elements(), 0, rowCount);
         } else if (x instanceof VarInt xi) {
             int[] xiarray = xi.elements();
             for (int i = 0; i < rowCount; i++) {
@@ -75,16 +75,16 @@ public interface RowSampler extends Serializable {
         public Mapping getComplementMapping() {
             boolean[] in = new boolean[originalRowCount];
             int[] elements = mapping.elements();
-            int len = 0;
+            int len = originalRowCount;
             for (int i = 0; i < mapping.size(); i++) {
                 if (!in[elements[i]]) {
-                    len++;
+                    len--;
                 }
                 in[elements[i]] = true;
             }
             int pos = 0;
             int[] complement = new int[len];
-            for (int i = 0; i < df.rowCount(); i++) {
+            for (int i = 0; i < originalRowCount; i++) {
                 if (!in[i]) {
                     complement[pos++] = i;
                 }
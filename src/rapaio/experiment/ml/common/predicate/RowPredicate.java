@@ -42,6 +42,42 @@ public interface RowPredicate extends Serializable {
      */
     boolean test(int row, Frame df);
 
+    /**
+     * Kinds of simple tests on a single variable.
+     */
+    enum Kind {
+        ALL,
+        NUM_LESS_EQUAL,
+        NUM_LESS,
+        NUM_GREATER_EQUAL,
+        NUM_GREATER,
+        BIN_EQUAL,
+        BIN_NOT_EQUAL,
+        NOM_EQUAL,
+        NOM_NOT_EQUAL
+    }
+
+    /**
+     * Description of a predicate as a simple test on a single variable.
+     *
+     * @param kind     kind of the test
+     * @param testName name of the tested variable, null for {@link Kind#ALL}
+     * @param value    numeric threshold for numeric tests, 1 or 0 for binary tests
+     * @param label    label for nominal tests
+     */
+    record Condition(Kind kind, String testName, double value, String label) {
+    }
+
+    /**
+     * Describes the predicate as a simple test, used to build compiled representations
+     * of models. Predicates which are not simple tests returns null.
+     *
+     * @return condition which describes the predicate or null
+     */
+    default Condition condition() {
+        return null;
+    }
+
     static RowPredicate all() {
         return new All();
     }
@@ -89,6 +125,11 @@ final class All implements RowPredicate {
         return true;
     }
 
+    @Override
+    public Condition condition() {
+        return new Condition(Kind.ALL, null, Double.NaN, null);
+    }
+
     @Override
     public String toString() {
         return "all";
@@ -105,6 +146,11 @@ record NumLessEqual(String testName, double testValue) implements RowPredicate {
         return df.getDouble(row, testName) <= testValue;
     }
 
+    @Override
+    public Condition condition() {
+        return new Condition(Kind.NUM_LESS_EQUAL, testName, testValue, null);
+    }
+
     @Override
     public String toString() {
         return testName + "<=" + Format.floatFlex(testValue);
@@ -123,6 +169,11 @@ record NumGreaterEqual(String testName, double testValue) implements RowPredicat
         return df.getDouble(row, testName) >= testValue;
     }
 
+    @Override
+    public Condition condition() {
+        return new Condition(Kind.NUM_GREATER_EQUAL, testName, testValue, null);
+    }
+
     @Override
     public String toString() {
         return testName + ">=" + Format.floatFlex(testValue);
@@ -142,6 +193,11 @@ record NumLess(String testName, double testValue) implements RowPredicate {
         return value < testValue;
     }
 
+    @Override
+    public Condition condition() {
+        return new Condition(Kind.NUM_LESS, testName, testValue, null);
+    }
+
     @Override
     public String toString() {
         return testName + "<" + Format.floatFlex(testValue);
@@ -161,6 +217,11 @@ record NumGreater(String testName, double testValue) implements RowPredicate {
         return value > testValue;
     }
 
+    @Override
+    public Condition condition() {
+        return new Condition(Kind.NUM_GREATER, testName, testValue, null);
+    }
+
     @Override
     public String toString() {
         return testName + ">" + Format.floatFlex(testValue);
@@ -179,6 +240,11 @@ record BinaryEqual(String testName, boolean testValue) implements RowPredicate {
         return df.getInt(row, testName) == (testValue ? 1 : 0);
     }
 
+    @Override
+    public Condition condition() {
+        return new Condition(Kind.BIN_EQUAL, testName, testValue ? 1 : 0, null);
+    }
+
     @Override
     public String toString() {
         return testName + "=" + (testValue ? 1 : 0);
@@ -197,6 +263,11 @@ record BinaryNotEqual(String testName, boolean testValue) implements RowPredicat
         return df.getInt(row, testName) != (testValue ? 1 : 0);
     }
 
+    @Override
+    public Condition condition() {
+        return new Condition(Kind.BIN_NOT_EQUAL, testName, testValue ? 1 : 0, null);
+    }
+
     @Override
     public String toString() {
         return testName + "!=" + (testValue ? 1 : 0);
@@ -215,6 +286,11 @@ record NominalEqual(String testName, String testValue) implements RowPredicate {
         return df.getLabel(row, testName).equals(testValue);
     }
 
+    @Override
+    public Condition condition() {
+        return new Condition(Kind.NOM_EQUAL, testName, Double.NaN, testValue);
+    }
+
     @Override
     public String toString() {
         return testName + "='" + testValue + "'";
@@ -233,6 +309,11 @@ record NominalNotEqual(String testName, String testValue) implements RowPredicat
         return !df.getLabel(row, testName).equals(testValue);
     }
 
+    @Override
+    public Condition condition() {
+        return new Condition(Kind.NOM_NOT_EQUAL, testName, Double.NaN, testValue);
+    }
+
     @Override
     public String toString() {
         return testName + "!='" + testValue + "'";
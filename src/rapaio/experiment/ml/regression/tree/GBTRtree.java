@@ -22,6 +22,7 @@
 package rapaio.experiment.ml.regression.tree;
 
 import rapaio.data.Frame;
+import rapaio.data.Mapping;
 import rapaio.data.Var;
 import rapaio.ml.loss.Loss;
 import rapaio.ml.regression.RegressionModel;
@@ -33,4 +34,27 @@ import rapaio.ml.regression.RegressionResult;
 public abstract class GBTRtree<M extends RegressionModel<M, R, H>, R extends RegressionResult, H> extends RegressionModel<M, R, H> {
 
     public abstract void boostUpdate(Frame x, Var y, Var fx, Loss lossFunction);
+
+    /**
+     * Fits the tree for a boosting round and writes the tree predictions for all rows of the
+     * given frame into a buffer. The tree is fitted on the sampled rows and the leaf values are
+     * updated with {@link #boostUpdate(Frame, Var, Var, Loss)}.
+     *
+     * @param df          frame with input variables and target, for all training rows
+     * @param sample      rows of the frame used to fit the tree
+     * @param targetName  name of the target variable
+     * @param y           true target values for all training rows
+     * @param fx          current fitted values for all training rows
+     * @param loss        loss function
+     * @param predictions buffer which receives the tree predictions for all training rows
+     */
+    public void boostFit(Frame df, Mapping sample, String targetName, Var y, Var fx, Loss loss, double[] predictions) {
+        Frame learn = df.mapRows(sample);
+        fit(learn, targetName);
+        boostUpdate(learn, y.mapRows(sample), fx.mapRows(sample), loss);
+        Var prediction = predict(df, false).firstPrediction();
+        for (int i = 0; i < predictions.length; i++) {
+            predictions[i] = prediction.getDouble(i);
+        }
+    }
 }
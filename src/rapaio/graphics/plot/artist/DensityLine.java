@@ -63,7 +63,9 @@ public class DensityLine extends Artist {
     public DensityLine(Var var, KFunc kfunc, double bandwidth, GOption<?>... opts) {
         this.var = var;
         this.bandwidth = bandwidth;
-        this.kde = KDE.of(var, kfunc, bandwidth);
+        // large samples are drawn from the binned estimator since evaluations on data and plot points dominate
+        KDE exact = KDE.of(var, kfunc, bandwidth);
+        this.kde = var.stream().complete().count() > KDE.DEFAULT_GRID_SIZE && Double.isFinite(bandwidth) && bandwidth > 0 ? exact.binned() : exact;
         this.options.bind(opts);
     }
 
@@ -0,0 +1,525 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright 2013 - 2021 Aurelian Tutuianu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package rapaio.io;
+
+import rapaio.data.Frame;
+import rapaio.data.SolidFrame;
+import rapaio.data.Var;
+import rapaio.data.VarBinary;
+import rapaio.data.VarDouble;
+import rapaio.data.VarInstant;
+import rapaio.data.VarInt;
+import rapaio.data.VarLong;
+import rapaio.data.VarNominal;
+import rapaio.data.VarString;
+import rapaio.data.VarType;
+import rapaio.ml.common.ParamSet;
+import rapaio.ml.common.ValueParam;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.Serial;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Binary columnar file format for frames.
+ * <p>
+ * Each variable is stored as a sequence of blocks of at most {@link #blockRows} rows, values
+ * being stored in their primitive representation. Blocks can be optionally compressed.
+ * The file ends with a header which describes the frame schema, the row count and the
+ * position of each block. Reading a subset of variables maps into memory only the
+ * blocks of the requested variables.
+ * <p>
+ * All solid variable types are supported, values are read into {@link VarDouble}, {@link VarInt},
+ * {@link VarLong}, {@link VarBinary}, {@link VarNominal}, {@link VarString} and {@link VarInstant}
+ * variables, and the result is always a {@link SolidFrame}.
+ *
+ * @author <a href="mailto:padreati@yahoo.com">Aurelian Tutuianu</a>
+ */
+public class Columnar extends ParamSet<Columnar> {
+
+    @Serial
+    private static final long serialVersionUID = 2617563620396722147L;
+
+    private static final int MAGIC = 0x52504346;
+    private static final int VERSION = 1;
+    private static final int FOOTER_SIZE = Long.BYTES + Integer.BYTES;
+
+    /**
+     * @return new instance of columnar format utility with default parameter values
+     */
+    public static Columnar instance() {
+        return new Columnar();
+    }
+
+    private Columnar() {
+    }
+
+    /**
+     * Maximum number of rows stored in a block.
+     */
+    public final ValueParam<Integer, Columnar> blockRows = new ValueParam<>(this, 1 << 20,
+            "blockRows", "Maximum number of rows stored in a block", value -> value != null && value > 0);
+    /**
+     * If true, blocks are compressed at write time. Reading detects compressed blocks automatically.
+     */
+    public final ValueParam<Boolean, Columnar> compress = new ValueParam<>(this, false,
+            "compress", "If true the blocks are compressed at write");
+    /**
+     * Compression level used when blocks are compressed, from 1 (fastest) to 9 (best compression).
+     */
+    public final ValueParam<Integer, Columnar> compressLevel = new ValueParam<>(this, Deflater.BEST_SPEED,
+            "compressLevel", "Compression level", value -> value != null && value >= 1 && value <= 9);
+
+    public void write(Frame df, String fileName) throws IOException {
+        write(df, new File(fileName));
+    }
+
+    public void write(Frame df, File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            writeFully(channel, ByteBuffer.allocate(2 * Integer.BYTES).putInt(MAGIC).putInt(VERSION).flip());
+
+            int rows = df.rowCount();
+            int blockSize = blockRows.get();
+            List<Column> columns = new ArrayList<>();
+            for (int i = 0; i < df.varCount(); i++) {
+                Var var = df.rvar(i);
+                Column column = new Column(var.name(), var.type(), var.type() == VarType.NOMINAL ? new ArrayList<>(var.levels()) : null);
+                for (int start = 0; start < rows; start += blockSize) {
+                    int end = Math.min(rows, start + blockSize);
+                    byte[] raw = encode(var, start, end);
+                    byte[] stored = compress.get() ? deflate(raw) : raw;
+                    boolean compressed = stored != raw;
+                    column.blocks.add(new Block(channel.position(), stored.length, raw.length, compressed));
+                    writeFully(channel, ByteBuffer.wrap(stored));
+                }
+                columns.add(column);
+            }
+
+            long headerOffset = channel.position();
+            writeFully(channel, ByteBuffer.wrap(writeHeader(rows, blockSize, columns)));
+            writeFully(channel, ByteBuffer.allocate(FOOTER_SIZE).putLong(headerOffset).putInt(MAGIC).flip());
+        }
+    }
+
+    /**
+     * Reads a frame from a file in columnar format.
+     *
+     * @param fileName file name
+     * @param varNames names of the variables to be read, if no names are given all variables are read
+     * @return new solid frame
+     */
+    public Frame read(String fileName, String... varNames) throws IOException {
+        return read(new File(fileName), varNames);
+    }
+
+    /**
+     * Reads a frame from a file in columnar format.
+     *
+     * @param file     file to read from
+     * @param varNames names of the variables to be read, if no names are given all variables are read
+     * @return new solid frame
+     */
+    public Frame read(File file, String... varNames) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            Header header = readHeader(channel);
+            List<Column> selection = new ArrayList<>();
+            if (varNames.length == 0) {
+                selection.addAll(header.columns);
+            } else {
+                for (String varName : varNames) {
+                    selection.add(header.columns.stream()
+                            .filter(column -> column.name.equals(varName))
+                            .findAny()
+                            .orElseThrow(() -> new IllegalArgumentException("Variable " + varName + " does not exists in file.")));
+                }
+            }
+            List<Var> vars = new ArrayList<>();
+            for (Column column : selection) {
+                vars.add(readColumn(channel, header, column));
+            }
+            return SolidFrame.byVars(header.rows, vars);
+        }
+    }
+
+    /**
+     * Reads only the header of the file and builds an empty frame with the same variables.
+     * This is useful to inspect the schema of the frame stored in file.
+     *
+     * @param file file to read from
+     * @return frame with no rows and the variables stored in file
+     */
+    public Frame readSchema(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            Header header = readHeader(channel);
+            List<Var> vars = new ArrayList<>();
+            for (Column column : header.columns) {
+                Var var = column.type == VarType.NOMINAL ? VarNominal.empty(0, column.levels) : column.type.newInstance();
+                vars.add(var.name(column.name));
+            }
+            return SolidFrame.byVars(0, vars);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private byte[] encode(Var var, int start, int end) {
+        int len = end - start;
+        ByteBuffer buffer;
+        switch (var.type()) {
+            case DOUBLE -> {
+                buffer = allocate(len * Double.BYTES);
+                for (int i = start; i < end; i++) {
+                    buffer.putDouble(var.getDouble(i));
+                }
+            }
+            case INT -> {
+                buffer = allocate(len * Integer.BYTES);
+                for (int i = start; i < end; i++) {
+                    buffer.putInt(var.getInt(i));
+                }
+            }
+            case LONG -> {
+                buffer = allocate(len * Long.BYTES);
+                for (int i = start; i < end; i++) {
+                    buffer.putLong(var.getLong(i));
+                }
+            }
+            case NOMINAL -> {
+                if (wideIndex(var.levels().size())) {
+                    buffer = allocate(len * Integer.BYTES);
+                    for (int i = start; i < end; i++) {
+                        buffer.putInt(var.getInt(i));
+                    }
+                } else {
+                    buffer = allocate(len * Short.BYTES);
+                    for (int i = start; i < end; i++) {
+                        buffer.putShort((short) var.getInt(i));
+                    }
+                }
+            }
+            case BINARY -> {
+                // missing bits followed by value bits
+                int bytes = (len + 7) / 8;
+                byte[] raw = new byte[2 * bytes];
+                for (int i = 0; i < len; i++) {
+                    if (var.isMissing(start + i)) {
+                        raw[i >>> 3] |= 1 << (i & 7);
+                    } else if (var.getInt(start + i) == 1) {
+                        raw[bytes + (i >>> 3)] |= 1 << (i & 7);
+                    }
+                }
+                return raw;
+            }
+            case INSTANT -> {
+                buffer = allocate(len * (Long.BYTES + Integer.BYTES));
+                for (int i = start; i < end; i++) {
+                    Instant instant = var.getInstant(i);
+                    buffer.putLong(instant == null ? Long.MIN_VALUE : instant.getEpochSecond());
+                    buffer.putInt(instant == null ? 0 : instant.getNano());
+                }
+            }
+            case STRING -> {
+                // lengths of the values followed by utf-8 content, missing values have length -1
+                byte[][] values = new byte[len][];
+                long size = (long) len * Integer.BYTES;
+                for (int i = 0; i < len; i++) {
+                    if (!var.isMissing(start + i)) {
+                        values[i] = var.getLabel(start + i).getBytes(StandardCharsets.UTF_8);
+                        size += values[i].length;
+                    }
+                }
+                if (size > Integer.MAX_VALUE) {
+                    throw new IllegalArgumentException("String block is too large, use a smaller value for block rows.");
+                }
+                buffer = allocate((int) size);
+                for (byte[] value : values) {
+                    buffer.putInt(value == null ? -1 : value.length);
+                }
+                for (byte[] value : values) {
+                    if (value != null) {
+                        buffer.put(value);
+                    }
+                }
+            }
+            default -> throw new IllegalArgumentException("Variable type " + var.type() + " is not supported.");
+        }
+        return buffer.array();
+    }
+
+    private static ByteBuffer allocate(int size) {
+        return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(compressLevel.get());
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 4));
+            byte[] buff = new byte[64 * 1024];
+            while (!deflater.finished()) {
+                int len = deflater.deflate(buff);
+                out.write(buff, 0, len);
+            }
+            byte[] stored = out.toByteArray();
+            // keep blocks which does not benefit from compression in raw form
+            return stored.length < raw.length ? stored : raw;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private byte[] writeHeader(int rows, int blockSize, List<Column> columns) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(rows);
+            out.writeInt(blockSize);
+            out.writeInt(columns.size());
+            for (Column column : columns) {
+                out.writeUTF(column.name);
+                out.writeUTF(column.type.code());
+                if (column.type == VarType.NOMINAL) {
+                    out.writeInt(column.levels.size());
+                    for (String level : column.levels) {
+                        out.writeUTF(level);
+                    }
+                }
+                out.writeInt(column.blocks.size());
+                for (Block block : column.blocks) {
+                    out.writeLong(block.offset);
+                    out.writeInt(block.length);
+                    out.writeInt(block.rawLength);
+                    out.writeBoolean(block.compressed);
+                }
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private Header readHeader(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size < 2 * Integer.BYTES + FOOTER_SIZE) {
+            throw new IOException("File is not in columnar format.");
+        }
+        ByteBuffer start = readFully(channel, 0, 2 * Integer.BYTES);
+        ByteBuffer footer = readFully(channel, size - FOOTER_SIZE, FOOTER_SIZE);
+        long headerOffset = footer.getLong();
+        if (start.getInt() != MAGIC || footer.getInt() != MAGIC) {
+            throw new IOException("File is not in columnar format.");
+        }
+        int version = start.getInt();
+        if (version != VERSION) {
+            throw new IOException("Columnar format version " + version + " is not supported.");
+        }
+        ByteBuffer buffer = readFully(channel, headerOffset, (int) (size - FOOTER_SIZE - headerOffset));
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(buffer.array()))) {
+            int rows = in.readInt();
+            int blockSize = in.readInt();
+            int count = in.readInt();
+            List<Column> columns = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                String name = in.readUTF();
+                VarType type = typeFromCode(in.readUTF());
+                List<String> levels = null;
+                if (type == VarType.NOMINAL) {
+                    int levelCount = in.readInt();
+                    levels = new ArrayList<>();
+                    for (int j = 0; j < levelCount; j++) {
+                        levels.add(in.readUTF());
+                    }
+                }
+                Column column = new Column(name, type, levels);
+                int blockCount = in.readInt();
+                for (int j = 0; j < blockCount; j++) {
+                    column.blocks.add(new Block(in.readLong(), in.readInt(), in.readInt(), in.readBoolean()));
+                }
+                columns.add(column);
+            }
+            return new Header(rows, blockSize, columns);
+        }
+    }
+
+    private static VarType typeFromCode(String code) throws IOException {
+        for (VarType type : VarType.values()) {
+            if (type.code().equals(code)) {
+                return type;
+            }
+        }
+        throw new IOException("Unknown variable type code: " + code);
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int len) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(len);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of file.");
+            }
+        }
+        return buffer.flip();
+    }
+
+    private Var readColumn(FileChannel channel, Header header, Column column) throws IOException {
+        Var var = switch (column.type) {
+            case NOMINAL -> VarNominal.empty(header.rows, column.levels);
+            default -> column.type.newInstance(header.rows);
+        };
+        String[] levels = column.type == VarType.NOMINAL ? column.levels.toArray(String[]::new) : null;
+        for (int b = 0; b < column.blocks.size(); b++) {
+            Block block = column.blocks.get(b);
+            int start = b * header.blockRows;
+            int len = Math.min(header.rows, start + header.blockRows) - start;
+            decode(var, levels, blockBuffer(channel, block), start, len);
+        }
+        return var.name(column.name);
+    }
+
+    private ByteBuffer blockBuffer(FileChannel channel, Block block) throws IOException {
+        if (!block.compressed) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, block.offset, block.length).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        ByteBuffer stored = channel.map(FileChannel.MapMode.READ_ONLY, block.offset, block.length);
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(stored);
+            byte[] raw = new byte[block.rawLength];
+            int len = 0;
+            while (len < raw.length) {
+                int count = inflater.inflate(raw, len, raw.length - len);
+                if (count == 0 && (inflater.finished() || inflater.needsInput())) {
+                    throw new IOException("Compressed block is corrupted.");
+                }
+                len += count;
+            }
+            return ByteBuffer.wrap(raw).order(ByteOrder.LITTLE_ENDIAN);
+        } catch (DataFormatException e) {
+            throw new IOException("Compressed block is corrupted.", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private void decode(Var var, String[] levels, ByteBuffer buffer, int start, int len) {
+        switch (var.type()) {
+            case DOUBLE -> buffer.asDoubleBuffer().get(((VarDouble) var).elements(), start, len);
+            case INT -> buffer.asIntBuffer().get(((VarInt) var).elements(), start, len);
+            case LONG -> {
+                for (int i = 0; i < len; i++) {
+                    var.setLong(start + i, buffer.getLong());
+                }
+            }
+            case NOMINAL -> {
+                if (wideIndex(levels.length)) {
+                    for (int i = 0; i < len; i++) {
+                        var.setLabel(start + i, levels[buffer.getInt()]);
+                    }
+                } else {
+                    for (int i = 0; i < len; i++) {
+                        var.setLabel(start + i, levels[Short.toUnsignedInt(buffer.getShort())]);
+                    }
+                }
+            }
+            case BINARY -> {
+                int bytes = (len + 7) / 8;
+                for (int i = 0; i < len; i++) {
+                    if ((buffer.get(i >>> 3) & (1 << (i & 7))) != 0) {
+                        var.setMissing(start + i);
+                    } else {
+                        var.setInt(start + i, (buffer.get(bytes + (i >>> 3)) >>> (i & 7)) & 1);
+                    }
+                }
+            }
+            case INSTANT -> {
+                for (int i = 0; i < len; i++) {
+                    long seconds = buffer.getLong();
+                    int nanos = buffer.getInt();
+                    var.setInstant(start + i, seconds == Long.MIN_VALUE ? null : Instant.ofEpochSecond(seconds, nanos));
+                }
+            }
+            case STRING -> {
+                int[] lengths = new int[len];
+                for (int i = 0; i < len; i++) {
+                    lengths[i] = buffer.getInt();
+                }
+                byte[] bytes = new byte[Arrays.stream(lengths).max().orElse(0) + 1];
+                for (int i = 0; i < len; i++) {
+                    if (lengths[i] < 0) {
+                        var.setMissing(start + i);
+                        continue;
+                    }
+                    buffer.get(bytes, 0, lengths[i]);
+                    var.setLabel(start + i, new String(bytes, 0, lengths[i], StandardCharsets.UTF_8));
+                }
+            }
+            default -> throw new IllegalArgumentException("Variable type " + var.type() + " is not supported.");
+        }
+    }
+
+    /**
+     * Nominal indexes are stored as unsigned shorts, unless there are too many levels
+     * to fit in, in which case they are stored as ints. The width follows from the
+     * level count stored in header.
+     */
+    private static boolean wideIndex(int levelCount) {
+        return levelCount > (1 << Short.SIZE);
+    }
+
+    private record Header(int rows, int blockRows, List<Column> columns) {
+    }
+
+    private record Block(long offset, int length, int rawLength, boolean compressed) {
+    }
+
+    private static final class Column {
+        private final String name;
+        private final VarType type;
+        private final List<String> levels;
+        private final List<Block> blocks = new ArrayList<>();
+
+        private Column(String name, VarType type, List<String> levels) {
+            this.name = name;
+            this.type = type;
+            this.levels = levels;
+        }
+    }
+}
@@ -51,6 +51,10 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import java.util.zip.GZIPInputStream;
 
 /**
@@ -127,9 +131,47 @@ public class Csv extends ParamSet<Csv> {
             "skipCols", "Skip rows predicate used to filter columns to be read");
     public final ValueParam<Frame, Csv> template = new ValueParam<>(this, null,
             "template", "Optional frame templated used to define variable names and type for reading", obj -> true);
+    /**
+     * Number of worker threads used to read a file. If the value is greater than 1 the file is split
+     * in chunks on line boundaries and the chunks are parsed in parallel. Input streams are always
+     * read on a single thread.
+     */
+    public final ValueParam<Integer, Csv> threads = new ValueParam<>(this, 1,
+            "threads", "Number of worker threads used to read a file", value -> value != null && value > 0);
+    /**
+     * Size in bytes of the chunks parsed in parallel, used only when {@link #threads} is greater than 1.
+     */
+    public final ValueParam<Integer, Csv> chunkSize = new ValueParam<>(this, 64 * 1024 * 1024,
+            "chunkSize", "Size in bytes of the file chunks parsed in parallel", value -> value != null && value > 0);
+    /**
+     * Number of rows read from the start of the file to detect column types, before the
+     * file is parsed in parallel. Used only when {@link #threads} is greater than 1.
+     */
+    public final ValueParam<Integer, Csv> sampleRows = new ValueParam<>(this, 10_000,
+            "sampleRows", "Number of rows used to detect types before parallel parsing", value -> value != null && value > 0);
+
+    /**
+     * If enabled, files are read through memory mapped buffers and the values are parsed directly
+     * from bytes, numeric values being stored without creating strings and nominal or string values
+     * being interned, also when a single thread is used. Files read with more than one thread are
+     * always parsed in this way, if the file encoding is compatible with ASCII.
+     */
+    public final ValueParam<Boolean, Csv> memoryMapped = new ValueParam<>(this, false,
+            "memoryMapped", "If true files are memory mapped and values are parsed directly from bytes");
+
+    /**
+     * If enabled, the variables of a batch read through {@link #readBatches(InputStream, int)} are
+     * reused to read the batch after the next one. This avoids allocations for each batch, however
+     * a batch frame remains valid only until the next batch is read.
+     */
+    public final ValueParam<Boolean, Csv> batchReuse = new ValueParam<>(this, false,
+            "batchReuse", "If true, variables of batches are reused when reading in batches");
 
     public Frame read(File file) {
         try {
+            if (threads.get() > 1 || memoryMapped.get()) {
+                return new CsvParallelReader(this, file).read();
+            }
             return read(new FileInputStream(file));
         } catch (IOException e) {
             throw new RuntimeException("error at reading file: " + file.getAbsolutePath(), e);
@@ -146,6 +188,9 @@ public class Csv extends ParamSet<Csv> {
 
     public Frame read(String fileName) {
         try {
+            if (threads.get() > 1 || memoryMapped.get()) {
+                return new CsvParallelReader(this, new File(fileName)).read();
+            }
             return read(new FileInputStream(fileName));
         } catch (IOException e) {
             throw new RuntimeException("error at reading file", e);
@@ -214,27 +259,7 @@ public class Csv extends ParamSet<Csv> {
                         names.add("V" + (i + 1));
                     }
                     for (String colName : names) {
-                        if (template.get() != null) {
-                            String[] vn = template.get().varNames();
-                            boolean found = false;
-                            for (String name : vn) {
-                                if (name.equals(colName)) {
-                                    found = true;
-                                    break;
-                                }
-                            }
-                            if (found) {
-                                varSlots.add(new VarSlot(this, template.get().rvar(colName), 0));
-                                continue;
-                            }
-                        }
-                        VarType type = types.getReverseKey(colName);
-                        if (type != null) {
-                            varSlots.add(new VarSlot(this, type, 0));
-                        } else {
-                            // default type
-                            varSlots.add(new VarSlot(this, 0));
-                        }
+                        varSlots.add(newVarSlot(colName));
                     }
                 }
 
@@ -271,6 +296,63 @@ public class Csv extends ParamSet<Csv> {
         return SolidFrame.byVars(rows - startRow.get(), variables);
     }
 
+    /**
+     * Builds a variable slot for the given column name. The type of the slot is taken from
+     * the template frame, if the template contains the column, after that from the specified
+     * types and, if none of those is available, it is automatically detected.
+     */
+    VarSlot newVarSlot(String colName) {
+        if (template.get() != null) {
+            String[] vn = template.get().varNames();
+            for (String name : vn) {
+                if (name.equals(colName)) {
+                    return new VarSlot(this, template.get().rvar(colName), 0);
+                }
+            }
+        }
+        VarType type = types.getReverseKey(colName);
+        if (type != null) {
+            return new VarSlot(this, type, 0);
+        }
+        // default type
+        return new VarSlot(this, 0);
+    }
+
+    /**
+     * Reads the file in frame batches with at most {@code batchSize} rows.
+     *
+     * @param file      input file
+     * @param batchSize maximum number of rows in a batch
+     * @return stream of batches, which has to be closed if it is not entirely consumed
+     * @see #readBatches(InputStream, int)
+     */
+    public Stream<Frame> readBatches(File file, int batchSize) {
+        try {
+            return readBatches(new FileInputStream(file), batchSize);
+        } catch (IOException e) {
+            throw new RuntimeException("error at reading file: " + file.getAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * Reads the input stream in frame batches with at most {@code batchSize} rows, which allows
+     * processing inputs larger than available memory, for example by calling predict on
+     * a model for each batch. The input is read lazily, while the stream is consumed.
+     * <p>
+     * All batches have the same variables, with names and types established by the first batch
+     * or by {@link #template} and {@link #types}. Row and column filters, missing values and
+     * the other parsing parameters work in the same way as for {@link #read(InputStream)}.
+     *
+     * @param inputStream input stream
+     * @param batchSize   maximum number of rows in a batch
+     * @return stream of batches, which has to be closed if it is not entirely consumed
+     */
+    public Stream<Frame> readBatches(InputStream inputStream, int batchSize) throws IOException {
+        CsvBatchIterator it = new CsvBatchIterator(this, inputStream, batchSize);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(it, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(it::close);
+    }
+
     public List<String> parseLine(String line) {
         List<String> data = new ArrayList<>();
         int start = 0;
@@ -450,6 +532,16 @@ public class Csv extends ParamSet<Csv> {
             this.text = null;
         }
 
+        /**
+         * Constructor for slot which appends values to the given variable.
+         */
+        VarSlot(Csv parent, Var var) {
+            this.parent = parent;
+            this.type = var.type();
+            this.var = var;
+            this.text = null;
+        }
+
         public void addValue(String value) {
             if (parent.naValues.get().contains(value)) {
                 value = "?";
@@ -520,6 +612,13 @@ public class Csv extends ParamSet<Csv> {
         public Var rvar() {
             return var;
         }
+
+        /**
+         * @return true if the type of the slot is automatically detected, false otherwise
+         */
+        boolean isDetected() {
+            return type == null;
+        }
     }
 }
 
@@ -0,0 +1,199 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright 2013 - 2021 Aurelian Tutuianu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package rapaio.io;
+
+import rapaio.data.Frame;
+import rapaio.data.SolidFrame;
+import rapaio.data.Var;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterator over a csv input which reads the rows in frame batches of bounded size.
+ * <p>
+ * The schema of the batches is fixed by the first batch: variable names, types and
+ * the nominal levels found in the first batch. Values which does not fit the schema
+ * raise an {@link IllegalArgumentException}, in which case a template or explicit
+ * types could be used. Values found after the last column of the schema are ignored.
+ * <p>
+ * If {@link Csv#batchReuse} is enabled the variables of a batch are reused to read
+ * the batch after the next one, thus a batch frame remains valid while the next batch
+ * is read, but not after that.
+ *
+ * @author <a href="mailto:padreati@yahoo.com">Aurelian Tutuianu</a>
+ */
+final class CsvBatchIterator implements Iterator<Frame>, Closeable {
+
+    private final Csv csv;
+    private final BufferedReader reader;
+    private final int batchSize;
+    private final boolean reuse;
+
+    private List<String> names = new ArrayList<>();
+    private List<Csv.VarSlot> slots;
+    private Var[] prototypes;
+    private Var[] lastVars;
+    private Var[] spareVars;
+
+    private int lineIndex = 0;
+    private int rows = 0;
+    private boolean finished = false;
+    private Frame nextBatch;
+
+    CsvBatchIterator(Csv csv, InputStream inputStream, int batchSize) throws IOException {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive.");
+        }
+        this.csv = csv;
+        this.reader = new BufferedReader(new InputStreamReader(inputStream));
+        this.batchSize = batchSize;
+        this.reuse = csv.batchReuse.get();
+        if (csv.header.get()) {
+            String line = reader.readLine();
+            if (line == null) {
+                finish();
+                return;
+            }
+            names = csv.parseLine(line);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (nextBatch == null && !finished) {
+            try {
+                nextBatch = readBatch();
+            } catch (IOException e) {
+                finish();
+                throw new UncheckedIOException(e);
+            }
+        }
+        return nextBatch != null;
+    }
+
+    @Override
+    public Frame next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Frame batch = nextBatch;
+        nextBatch = null;
+        return batch;
+    }
+
+    private Frame readBatch() throws IOException {
+        if (slots != null) {
+            prepareSlots();
+        }
+        int batchRows = 0;
+        while (batchRows < batchSize) {
+            String line = reader.readLine();
+            if (line == null) {
+                finish();
+                break;
+            }
+            if (csv.skipRows.get().test(lineIndex++)) {
+                continue;
+            }
+            if (slots == null) {
+                List<String> row = csv.parseLine(line);
+                for (int i = names.size(); i < row.size(); i++) {
+                    names.add("V" + (i + 1));
+                }
+                slots = new ArrayList<>();
+                for (String name : names) {
+                    slots.add(csv.newVarSlot(name));
+                }
+            }
+            if (rows < csv.startRow.get()) {
+                rows++;
+                continue;
+            }
+            if (rows == csv.endRow.get()) {
+                finish();
+                break;
+            }
+            rows++;
+            List<String> row = csv.parseLine(line);
+            for (int i = 0; i < slots.size(); i++) {
+                slots.get(i).addValue(i < row.size() ? row.get(i) : "?");
+            }
+            batchRows++;
+        }
+        if (batchRows == 0) {
+            return null;
+        }
+        Var[] vars = new Var[slots.size()];
+        for (int i = 0; i < vars.length; i++) {
+            vars[i] = slots.get(i).rvar().name(names.get(i));
+        }
+        if (prototypes == null) {
+            // schema is fixed by the first batch
+            prototypes = new Var[vars.length];
+            for (int i = 0; i < vars.length; i++) {
+                prototypes[i] = vars[i].newInstance(0);
+            }
+        }
+        spareVars = lastVars;
+        lastVars = vars;
+        return SolidFrame.byVars(batchRows, vars);
+    }
+
+    private void prepareSlots() {
+        for (int i = 0; i < prototypes.length; i++) {
+            Var var;
+            if (reuse && spareVars != null) {
+                var = spareVars[i];
+                var.clearRows();
+            } else {
+                var = prototypes[i].newInstance(0);
+            }
+            slots.set(i, new Csv.VarSlot(csv, var));
+        }
+        spareVars = null;
+    }
+
+    private void finish() {
+        finished = true;
+        try {
+            reader.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (!finished) {
+            finish();
+        }
+    }
+}
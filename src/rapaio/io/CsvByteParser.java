@@ -0,0 +1,523 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright 2013 - 2021 Aurelian Tutuianu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package rapaio.io;
+
+import rapaio.data.Var;
+import rapaio.util.IntRule;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tokenizer which parses csv lines directly from a byte buffer, without creating strings
+ * for line and field values. Numeric values are parsed from bytes into the storage of the
+ * variables. Strings are created only for nominal and string variables and those are interned
+ * through a dictionary for each column, such that the same label is materialized only once.
+ * <p>
+ * Fields which needs unescaping are rare and those are delegated to {@link Csv#clean(String)},
+ * in the same way values which cannot be parsed from bytes are delegated to {@link Csv.VarSlot}.
+ * Thus, the values are identical with the values obtained by parsing lines as strings.
+ * <p>
+ * The separator and escape characters must be ASCII characters and the file encoding
+ * must be compatible with ASCII.
+ * <p>
+ * An instance is not thread safe, each worker must use its own instance.
+ *
+ * @author <a href="mailto:padreati@yahoo.com">Aurelian Tutuianu</a>
+ */
+final class CsvByteParser {
+
+    /**
+     * Maximum number of labels interned for a column. After that size labels are still
+     * materialized, but they are not stored anymore in the dictionary.
+     */
+    private static final int MAX_DICTIONARY_SIZE = 1 << 16;
+    private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /**
+     * @return true if the csv configuration and the file encoding can be handled by byte parsing
+     */
+    static boolean isSupported(Csv csv, Charset charset) {
+        return csv.separatorChar.get() < 128 && csv.escapeChar.get() < 128 && isAsciiCompatible(charset);
+    }
+
+    /**
+     * @return true if all ASCII characters are encoded as single bytes with the same value
+     */
+    private static boolean isAsciiCompatible(Charset charset) {
+        if (!charset.canEncode()) {
+            return false;
+        }
+        byte[] ascii = new byte[128];
+        for (int i = 0; i < ascii.length; i++) {
+            ascii[i] = (byte) i;
+        }
+        return Arrays.equals(ascii, new String(ascii, StandardCharsets.US_ASCII).getBytes(charset));
+    }
+
+    private final Csv csv;
+    private final Charset charset;
+    private final byte separator;
+    private final byte escape;
+    private final boolean quotes;
+    private final boolean strip;
+    private final IntRule skipCols;
+    private final byte[][] naValues;
+
+    private final int cols;
+    private final int[] fieldStart;
+    private final int[] fieldEnd;
+    private final int[] rawStart;
+    private final int[] rawEnd;
+    private final boolean[] complex;
+    private final Dictionary[] dictionaries;
+    private ByteBuffer buffer;
+
+    private double doubleValue;
+    private long longValue;
+
+    CsvByteParser(Csv csv, Charset charset, int cols) {
+        this.csv = csv;
+        this.charset = charset;
+        this.separator = (byte) csv.separatorChar.get().charValue();
+        this.escape = (byte) csv.escapeChar.get().charValue();
+        this.quotes = csv.quotes.get();
+        this.strip = csv.stripSpaces.get();
+        this.skipCols = csv.skipCols.get();
+
+        List<String> na = csv.naValues.get();
+        this.naValues = new byte[na.size() + 1][];
+        for (int i = 0; i < na.size(); i++) {
+            naValues[i] = na.get(i).getBytes(charset);
+        }
+        naValues[na.size()] = "?".getBytes(charset);
+
+        this.cols = cols;
+        this.fieldStart = new int[cols];
+        this.fieldEnd = new int[cols];
+        this.rawStart = new int[cols];
+        this.rawEnd = new int[cols];
+        this.complex = new boolean[cols];
+        this.dictionaries = new Dictionary[cols];
+        for (int i = 0; i < cols; i++) {
+            dictionaries[i] = new Dictionary();
+        }
+    }
+
+    /**
+     * Splits the line from the buffer, delimited by {@code start} inclusive and {@code end} exclusive,
+     * into fields. The field positions are stored internally until the next call.
+     *
+     * @return number of fields found in line, if there are more fields than columns the returned value is {@code cols + 1}
+     */
+    int tokenize(ByteBuffer buffer, int start, int end) {
+        this.buffer = buffer;
+        int fields = 0;
+        int colNum = 0;
+        int pos = start;
+        while (pos < end) {
+            int next = pos;
+            boolean inQuotas = false;
+            while (next < end) {
+                byte ch = buffer.get(next++);
+                if (!inQuotas && ch == '"') {
+                    inQuotas = true;
+                    continue;
+                }
+                if (inQuotas && ch == escape && next < end && buffer.get(next) == '"') {
+                    next++;
+                    continue;
+                }
+                if (inQuotas && ch == '"') {
+                    if (escape == '"' && next < end && buffer.get(next) == '"') {
+                        next++;
+                        continue;
+                    }
+                    inQuotas = false;
+                    continue;
+                }
+                if (!inQuotas && ch == separator) {
+                    next--;
+                    break;
+                }
+            }
+            if (!skipCols.test(colNum)) {
+                if (fields == cols) {
+                    return cols + 1;
+                }
+                clean(fields, pos, next);
+                fields++;
+            }
+            pos = next + 1;
+            colNum++;
+        }
+        return fields;
+    }
+
+    /**
+     * Computes the cleaned field boundaries in the same way {@link Csv#clean(String)} does. Fields which
+     * contains escape characters or non ASCII characters at boundaries are marked as complex.
+     */
+    private void clean(int field, int start, int end) {
+        rawStart[field] = start;
+        rawEnd[field] = end;
+        complex[field] = false;
+        if (strip) {
+            while (start < end && isWhitespace(buffer.get(start))) {
+                start++;
+            }
+            while (start < end && isWhitespace(buffer.get(end - 1))) {
+                end--;
+            }
+        }
+        if (quotes && start < end) {
+            if (buffer.get(start) == '"') {
+                start++;
+            }
+            if (start < end && buffer.get(end - 1) == '"') {
+                end--;
+            }
+            for (int i = start; i < end; i++) {
+                if (buffer.get(i) == escape) {
+                    complex[field] = true;
+                    break;
+                }
+            }
+        }
+        if (strip) {
+            while (start < end && isWhitespace(buffer.get(start))) {
+                start++;
+            }
+            while (start < end && isWhitespace(buffer.get(end - 1))) {
+                end--;
+            }
+            if (start < end && (buffer.get(start) < 0 || buffer.get(end - 1) < 0)) {
+                complex[field] = true;
+            }
+        }
+        fieldStart[field] = start;
+        fieldEnd[field] = end;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b >= 0 && Character.isWhitespace((char) b);
+    }
+
+    /**
+     * Adds the value of the given field to the variable from slot. Numeric values are parsed
+     * directly from bytes, nominal and string values are interned. Values which cannot be
+     * handled in that way are materialized and added through slot.
+     */
+    void addValue(Csv.VarSlot slot, int field) {
+        Var var = slot.rvar();
+        if (complex[field]) {
+            slot.addValue(string(field));
+            return;
+        }
+        if (isNaValue(field)) {
+            var.addMissing();
+            return;
+        }
+        switch (var.type()) {
+            case DOUBLE -> {
+                if (parseDouble(field)) {
+                    var.addDouble(doubleValue);
+                    return;
+                }
+            }
+            case INT -> {
+                if (parseLong(field) && longValue >= Integer.MIN_VALUE && longValue <= Integer.MAX_VALUE) {
+                    var.addInt((int) longValue);
+                    return;
+                }
+            }
+            case LONG -> {
+                if (parseLong(field)) {
+                    var.addLong(longValue);
+                    return;
+                }
+            }
+            case BINARY -> {
+                int value = parseBinary(field);
+                if (value >= 0) {
+                    var.addInt(value);
+                    return;
+                }
+            }
+            case NOMINAL, STRING -> {
+                var.addLabel(dictionaries[field].intern(fieldStart[field], fieldEnd[field]));
+                return;
+            }
+            default -> {
+            }
+        }
+        slot.addValue(string(field));
+    }
+
+    /**
+     * @return cleaned string value of the given field
+     */
+    String string(int field) {
+        if (complex[field]) {
+            return csv.clean(decode(rawStart[field], rawEnd[field]));
+        }
+        return decode(fieldStart[field], fieldEnd[field]);
+    }
+
+    private String decode(int start, int end) {
+        byte[] bytes = new byte[end - start];
+        buffer.get(start, bytes);
+        return new String(bytes, charset);
+    }
+
+    private boolean isNaValue(int field) {
+        int start = fieldStart[field];
+        int len = fieldEnd[field] - start;
+        for (byte[] na : naValues) {
+            if (na.length != len) {
+                continue;
+            }
+            boolean equal = true;
+            for (int i = 0; i < len; i++) {
+                if (buffer.get(start + i) != na[i]) {
+                    equal = false;
+                    break;
+                }
+            }
+            if (equal) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Parses a decimal number with optional fraction and exponent. The value is computed
+     * only when it can be represented exactly by a single floating point operation, which
+     * gives the same result as {@link Double#parseDouble(String)}. Other values are left
+     * for the string parsing.
+     */
+    private boolean parseDouble(int field) {
+        int pos = fieldStart[field];
+        int end = fieldEnd[field];
+        boolean negative = false;
+        if (pos < end && (buffer.get(pos) == '-' || buffer.get(pos) == '+')) {
+            negative = buffer.get(pos) == '-';
+            pos++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int significant = 0;
+        int exp10 = 0;
+        while (pos < end && isDigit(buffer.get(pos))) {
+            mantissa = mantissa * 10 + (buffer.get(pos++) - '0');
+            digits++;
+            if (mantissa != 0) {
+                significant++;
+            }
+        }
+        if (pos < end && buffer.get(pos) == '.') {
+            pos++;
+            while (pos < end && isDigit(buffer.get(pos))) {
+                mantissa = mantissa * 10 + (buffer.get(pos++) - '0');
+                digits++;
+                if (mantissa != 0) {
+                    significant++;
+                }
+                exp10--;
+            }
+        }
+        if (digits == 0 || significant > 15) {
+            return false;
+        }
+        if (pos < end && (buffer.get(pos) == 'e' || buffer.get(pos) == 'E')) {
+            pos++;
+            boolean negativeExp = false;
+            if (pos < end && (buffer.get(pos) == '-' || buffer.get(pos) == '+')) {
+                negativeExp = buffer.get(pos) == '-';
+                pos++;
+            }
+            int exp = 0;
+            int expDigits = 0;
+            while (pos < end && isDigit(buffer.get(pos)) && expDigits < 4) {
+                exp = exp * 10 + (buffer.get(pos++) - '0');
+                expDigits++;
+            }
+            if (expDigits == 0) {
+                return false;
+            }
+            exp10 += negativeExp ? -exp : exp;
+        }
+        if (pos != end || exp10 < -22 || exp10 > 22) {
+            return false;
+        }
+        double value = exp10 >= 0 ? mantissa * POW10[exp10] : mantissa / POW10[-exp10];
+        doubleValue = negative ? -value : value;
+        return true;
+    }
+
+    /**
+     * Parses an integer value with at most 18 digits.
+     */
+    private boolean parseLong(int field) {
+        int pos = fieldStart[field];
+        int end = fieldEnd[field];
+        boolean negative = false;
+        if (pos < end && (buffer.get(pos) == '-' || buffer.get(pos) == '+')) {
+            negative = buffer.get(pos) == '-';
+            pos++;
+        }
+        if (pos == end || end - pos > 18) {
+            return false;
+        }
+        long value = 0;
+        while (pos < end) {
+            byte b = buffer.get(pos++);
+            if (!isDigit(b)) {
+                return false;
+            }
+            value = value * 10 + (b - '0');
+        }
+        longValue = negative ? -value : value;
+        return true;
+    }
+
+    /**
+     * @return 1 for {@code 1} or {@code true}, 0 for {@code 0} or {@code false}, ignoring case, -1 otherwise
+     */
+    private int parseBinary(int field) {
+        int start = fieldStart[field];
+        int len = fieldEnd[field] - start;
+        if (len == 1) {
+            byte b = buffer.get(start);
+            return b == '1' ? 1 : b == '0' ? 0 : -1;
+        }
+        if (equalsIgnoreCase(start, len, "true")) {
+            return 1;
+        }
+        if (equalsIgnoreCase(start, len, "false")) {
+            return 0;
+        }
+        return -1;
+    }
+
+    private boolean equalsIgnoreCase(int start, int len, String value) {
+        if (len != value.length()) {
+            return false;
+        }
+        for (int i = 0; i < len; i++) {
+            if (Character.toLowerCase((char) buffer.get(start + i)) != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    /**
+     * Open addressing dictionary which maps byte sequences from buffer to strings.
+     */
+    private final class Dictionary {
+
+        private byte[][] keys = new byte[64][];
+        private String[] values = new String[64];
+        private int[] hashes = new int[64];
+        private int size = 0;
+
+        String intern(int start, int end) {
+            int hash = 1;
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + buffer.get(i);
+            }
+            int mask = keys.length - 1;
+            int pos = mix(hash) & mask;
+            while (keys[pos] != null) {
+                if (hashes[pos] == hash && equalBytes(keys[pos], start, end)) {
+                    return values[pos];
+                }
+                pos = (pos + 1) & mask;
+            }
+            String value = decode(start, end);
+            if (size >= MAX_DICTIONARY_SIZE) {
+                return value;
+            }
+            byte[] key = new byte[end - start];
+            buffer.get(start, key);
+            keys[pos] = key;
+            values[pos] = value;
+            hashes[pos] = hash;
+            size++;
+            if (2 * size > keys.length) {
+                rehash();
+            }
+            return value;
+        }
+
+        private boolean equalBytes(byte[] key, int start, int end) {
+            if (key.length != end - start) {
+                return false;
+            }
+            for (int i = 0; i < key.length; i++) {
+                if (key[i] != buffer.get(start + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void rehash() {
+            byte[][] oldKeys = keys;
+            String[] oldValues = values;
+            int[] oldHashes = hashes;
+            keys = new byte[oldKeys.length * 2][];
+            values = new String[oldKeys.length * 2];
+            hashes = new int[oldKeys.length * 2];
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] == null) {
+                    continue;
+                }
+                int pos = mix(oldHashes[i]) & mask;
+                while (keys[pos] != null) {
+                    pos = (pos + 1) & mask;
+                }
+                keys[pos] = oldKeys[i];
+                values[pos] = oldValues[i];
+                hashes[pos] = oldHashes[i];
+            }
+        }
+
+        private int mix(int hash) {
+            int h = hash * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
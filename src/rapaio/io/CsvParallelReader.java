@@ -0,0 +1,556 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright 2013 - 2021 Aurelian Tutuianu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package rapaio.io;
+
+import rapaio.data.Frame;
+import rapaio.data.SolidFrame;
+import rapaio.data.Var;
+import rapaio.data.VarDouble;
+import rapaio.data.VarInt;
+import rapaio.data.VarType;
+import rapaio.util.IntRule;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Parallel reader for csv files. The file is split in chunks of bytes on line boundaries
+ * and each chunk is parsed by a worker thread directly into variables of the final type.
+ * <p>
+ * Column types are detected once, from a sample of rows read from the start of the file.
+ * If a chunk contains a value which does not fit the type detected from the sample, the column
+ * type is upgraded following the default types and the chunks are parsed again. Files which fits
+ * entirely in the sample and files with rows having more values than the detected columns
+ * are read sequentially, thus the result is always the same as the one of {@link Csv#read(InputStream)}.
+ * <p>
+ * Chunks are read through memory mapped buffers and the lines are tokenized directly from the
+ * mapped bytes by {@link CsvByteParser}, numeric values being parsed into the primitive storage of
+ * the chunk variables. Only when the separator or escape characters are not ASCII or the file encoding
+ * is not compatible with ASCII, each line is decoded into a string and parsed with {@link Csv#parseLine(String)}.
+ * <p>
+ * Lines are delimited by {@code '\n'}, an eventual trailing {@code '\r'} being removed.
+ *
+ * @author <a href="mailto:padreati@yahoo.com">Aurelian Tutuianu</a>
+ */
+final class CsvParallelReader {
+
+    private final Csv csv;
+    private final File file;
+    private final Charset charset = Charset.defaultCharset();
+    private final boolean filterRows;
+    private final boolean byteParsing;
+
+    CsvParallelReader(Csv csv, File file) {
+        this.csv = csv;
+        this.file = file;
+        this.byteParsing = CsvByteParser.isSupported(csv, charset);
+        this.filterRows = !csv.skipRows.hasDefaultValue() || csv.startRow.get() > 0 || csv.endRow.get() < Integer.MAX_VALUE;
+    }
+
+    /**
+     * @return true if lines are tokenized from bytes, false if lines are decoded into strings
+     */
+    boolean isByteParsing() {
+        return byteParsing;
+    }
+
+    Frame read() throws IOException {
+        Sample sample = readSample();
+        if (sample == null) {
+            return csv.read(new FileInputStream(file));
+        }
+
+        int cols = sample.slots.size();
+        Var[] prototypes = new Var[cols];
+        boolean[] detected = new boolean[cols];
+        for (int i = 0; i < cols; i++) {
+            prototypes[i] = sample.slots.get(i).rvar().newInstance(0);
+            detected[i] = sample.slots.get(i).isDetected();
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(csv.threads.get());
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            List<Chunk> chunks = splitChunks(channel, sample.dataStart);
+            if (filterRows) {
+                countRows(executor, channel, chunks);
+            }
+            while (true) {
+                Run run = new Run(channel, prototypes, detected);
+                List<ChunkResult> results = parseChunks(executor, run, chunks);
+                if (run.overflow) {
+                    // rows with more values than detected columns are handled only by sequential reading
+                    return csv.read(new FileInputStream(file));
+                }
+                Mismatch mismatch = run.mismatch.get();
+                if (mismatch != null) {
+                    prototypes[mismatch.col] = upgradeType(prototypes[mismatch.col].type(), mismatch.value);
+                    continue;
+                }
+                return buildFrame(sample.names, prototypes, results);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Reads header and a sample of rows from the start of the file in the same way sequential
+     * reading does and detects column types from it.
+     *
+     * @return sample information or null if the file has to be read sequentially
+     */
+    private Sample readSample() throws IOException {
+        try (LineReader reader = new LineReader(new BufferedInputStream(new FileInputStream(file)))) {
+            List<String> names = new ArrayList<>();
+            if (csv.header.get()) {
+                String line = reader.readLine();
+                if (line == null) {
+                    return null;
+                }
+                names = csv.parseLine(line);
+            }
+            long dataStart = reader.position();
+
+            IntRule skipRows = csv.skipRows.get();
+            List<Csv.VarSlot> slots = new ArrayList<>();
+            int lineIndex = 0;
+            int rows = 0;
+            int sampled = 0;
+            while (sampled < csv.sampleRows.get()) {
+                String line = reader.readLine();
+                if (line == null) {
+                    return null;
+                }
+                if (skipRows.test(lineIndex++)) {
+                    continue;
+                }
+                if (slots.isEmpty()) {
+                    List<String> row = csv.parseLine(line);
+                    for (int i = names.size(); i < row.size(); i++) {
+                        names.add("V" + (i + 1));
+                    }
+                    for (String name : names) {
+                        slots.add(csv.newVarSlot(name));
+                    }
+                }
+                if (rows < csv.startRow.get()) {
+                    rows++;
+                    continue;
+                }
+                if (rows == csv.endRow.get()) {
+                    return null;
+                }
+                rows++;
+                List<String> row = csv.parseLine(line);
+                if (row.size() > slots.size()) {
+                    return null;
+                }
+                for (int i = 0; i < slots.size(); i++) {
+                    slots.get(i).addValue(i < row.size() ? row.get(i) : "?");
+                }
+                sampled++;
+            }
+            return new Sample(names, slots, dataStart);
+        }
+    }
+
+    private List<Chunk> splitChunks(FileChannel channel, long dataStart) throws IOException {
+        long size = channel.size();
+        List<Chunk> chunks = new ArrayList<>();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            byte[] buff = new byte[8 * 1024];
+            long start = dataStart;
+            while (start < size) {
+                long end = Math.min(size, start + csv.chunkSize.get());
+                // move the end of the chunk after the next line delimiter
+                raf.seek(end - 1);
+                boolean found = false;
+                while (!found && end < size) {
+                    int len = raf.read(buff);
+                    if (len <= 0) {
+                        end = size;
+                        break;
+                    }
+                    for (int i = 0; i < len; i++) {
+                        if (buff[i] == '\n') {
+                            end += i;
+                            found = true;
+                            break;
+                        }
+                    }
+                    if (!found) {
+                        end = Math.min(size, end + len);
+                    }
+                }
+                chunks.add(new Chunk(start, end));
+                start = end;
+            }
+        }
+        return chunks;
+    }
+
+    /**
+     * Computes for each chunk the index of the first line and the number of rows which
+     * passed the skip rows filter before the chunk. This is needed only if rows are filtered.
+     */
+    private void countRows(ExecutorService executor, FileChannel channel, List<Chunk> chunks) throws IOException {
+        List<Callable<Integer>> lineTasks = new ArrayList<>();
+        for (Chunk chunk : chunks) {
+            lineTasks.add(() -> {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, chunk.start, chunk.end - chunk.start);
+                int len = buffer.limit();
+                int count = 0;
+                for (int i = 0; i < len; i++) {
+                    if (buffer.get(i) == '\n') {
+                        count++;
+                    }
+                }
+                if (len > 0 && buffer.get(len - 1) != '\n') {
+                    count++;
+                }
+                return count;
+            });
+        }
+        List<Integer> lineCounts = invokeAll(executor, lineTasks);
+        int firstLine = 0;
+        for (int i = 0; i < chunks.size(); i++) {
+            chunks.get(i).firstLine = firstLine;
+            chunks.get(i).lines = lineCounts.get(i);
+            firstLine += lineCounts.get(i);
+        }
+
+        IntRule skipRows = csv.skipRows.get();
+        List<Callable<Integer>> rowTasks = new ArrayList<>();
+        for (Chunk chunk : chunks) {
+            rowTasks.add(() -> {
+                int count = 0;
+                for (int i = chunk.firstLine; i < chunk.firstLine + chunk.lines; i++) {
+                    if (!skipRows.test(i)) {
+                        count++;
+                    }
+                }
+                return count;
+            });
+        }
+        List<Integer> rowCounts = invokeAll(executor, rowTasks);
+        int firstRow = 0;
+        for (int i = 0; i < chunks.size(); i++) {
+            chunks.get(i).firstRow = firstRow;
+            firstRow += rowCounts.get(i);
+        }
+    }
+
+    private List<ChunkResult> parseChunks(ExecutorService executor, Run run, List<Chunk> chunks) throws IOException {
+        List<Callable<ChunkResult>> tasks = new ArrayList<>();
+        for (Chunk chunk : chunks) {
+            if (filterRows && chunk.firstRow >= csv.endRow.get()) {
+                break;
+            }
+            tasks.add(() -> parseChunk(run, chunk));
+        }
+        return invokeAll(executor, tasks);
+    }
+
+    private ChunkResult parseChunk(Run run, Chunk chunk) throws IOException {
+        int cols = run.prototypes.length;
+        Csv.VarSlot[] slots = new Csv.VarSlot[cols];
+        for (int i = 0; i < cols; i++) {
+            slots[i] = new Csv.VarSlot(csv, run.prototypes[i], 0);
+        }
+        IntRule skipRows = csv.skipRows.get();
+        int startRow = csv.startRow.get();
+        int endRow = csv.endRow.get();
+
+        CsvByteParser parser = byteParsing ? new CsvByteParser(csv, charset, cols) : null;
+        MappedByteBuffer buffer = run.channel.map(FileChannel.MapMode.READ_ONLY, chunk.start, chunk.end - chunk.start);
+        int len = buffer.limit();
+        byte[] bytes = new byte[256];
+        int lineIndex = chunk.firstLine;
+        int rowIndex = chunk.firstRow;
+        int rows = 0;
+        int pos = 0;
+        while (pos < len) {
+            if (run.stop) {
+                return null;
+            }
+            int next = pos;
+            while (next < len && buffer.get(next) != '\n') {
+                next++;
+            }
+            int lineEnd = (next > pos && buffer.get(next - 1) == '\r') ? next - 1 : next;
+            int lineStart = pos;
+            pos = next + 1;
+
+            if (filterRows) {
+                if (skipRows.test(lineIndex++)) {
+                    continue;
+                }
+                if (rowIndex < startRow) {
+                    rowIndex++;
+                    continue;
+                }
+                if (rowIndex >= endRow) {
+                    break;
+                }
+                rowIndex++;
+            }
+
+            if (parser != null) {
+                int fields = parser.tokenize(buffer, lineStart, lineEnd);
+                if (fields > cols) {
+                    run.overflow = true;
+                    run.stop = true;
+                    return null;
+                }
+                for (int i = 0; i < cols; i++) {
+                    try {
+                        if (i < fields) {
+                            parser.addValue(slots[i], i);
+                        } else {
+                            slots[i].addValue("?");
+                        }
+                    } catch (IllegalArgumentException ex) {
+                        if (!run.detected[i]) {
+                            throw ex;
+                        }
+                        run.mismatch.compareAndSet(null, new Mismatch(i, parser.string(i)));
+                        run.stop = true;
+                        return null;
+                    }
+                }
+                rows++;
+                continue;
+            }
+
+            if (bytes.length < lineEnd - lineStart) {
+                bytes = new byte[Math.max(lineEnd - lineStart, bytes.length * 2)];
+            }
+            buffer.get(lineStart, bytes, 0, lineEnd - lineStart);
+            List<String> row = csv.parseLine(new String(bytes, 0, lineEnd - lineStart, charset));
+            if (row.size() > cols) {
+                run.overflow = true;
+                run.stop = true;
+                return null;
+            }
+            for (int i = 0; i < cols; i++) {
+                String value = i < row.size() ? row.get(i) : "?";
+                try {
+                    slots[i].addValue(value);
+                } catch (IllegalArgumentException ex) {
+                    if (!run.detected[i]) {
+                        throw ex;
+                    }
+                    run.mismatch.compareAndSet(null, new Mismatch(i, value));
+                    run.stop = true;
+                    return null;
+                }
+            }
+            rows++;
+        }
+        Var[] vars = new Var[cols];
+        for (int i = 0; i < cols; i++) {
+            vars[i] = slots[i].rvar();
+        }
+        return new ChunkResult(vars, rows);
+    }
+
+    /**
+     * Finds the first default type after the current one which is able to parse the given value.
+     */
+    private Var upgradeType(VarType current, String value) {
+        List<VarType> defaultTypes = csv.defaultTypes.get();
+        for (int i = defaultTypes.indexOf(current) + 1; i < defaultTypes.size(); i++) {
+            Var var = defaultTypes.get(i).newInstance();
+            try {
+                var.addLabel(value);
+                return var;
+            } catch (IllegalArgumentException ex) {
+                // try next default type
+            }
+        }
+        throw new IllegalArgumentException(String.format("Could not parse value %s in type %s.", value, current));
+    }
+
+    private Frame buildFrame(List<String> names, Var[] prototypes, List<ChunkResult> results) {
+        int rows = 0;
+        for (ChunkResult result : results) {
+            rows += result.rows;
+        }
+        List<Var> vars = new ArrayList<>();
+        for (int i = 0; i < prototypes.length; i++) {
+            Var var = prototypes[i].newInstance(rows);
+            int offset = 0;
+            for (ChunkResult result : results) {
+                copyRows(result.vars[i], var, offset, result.rows);
+                offset += result.rows;
+            }
+            String name = names.size() > i ? names.get(i) : "V" + (i + 1);
+            vars.add(var.name(name));
+        }
+        return SolidFrame.byVars(rows, vars);
+    }
+
+    private void copyRows(Var src, Var dst, int offset, int len) {
+        if (src instanceof VarDouble s && dst instanceof VarDouble d) {
+            System.arraycopy(s.elements(), 0, d.elements(), offset, len);
+            return;
+        }
+        if (src instanceof VarInt s && dst instanceof VarInt d) {
+            System.arraycopy(s.elements(), 0, d.elements(), offset, len);
+            return;
+        }
+        for (int i = 0; i < len; i++) {
+            if (src.isMissing(i)) {
+                dst.setMissing(offset + i);
+                continue;
+            }
+            switch (dst.type()) {
+                case DOUBLE -> dst.setDouble(offset + i, src.getDouble(i));
+                case INT, BINARY -> dst.setInt(offset + i, src.getInt(i));
+                case LONG -> dst.setLong(offset + i, src.getLong(i));
+                case INSTANT -> dst.setInstant(offset + i, src.getInstant(i));
+                default -> dst.setLabel(offset + i, src.getLabel(i));
+            }
+        }
+    }
+
+    private static <T> List<T> invokeAll(ExecutorService executor, List<Callable<T>> tasks) throws IOException {
+        try {
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : executor.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while reading csv file", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            if (e.getCause() instanceof IOException ioe) {
+                throw ioe;
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private record Sample(List<String> names, List<Csv.VarSlot> slots, long dataStart) {
+    }
+
+    private record Mismatch(int col, String value) {
+    }
+
+    private record ChunkResult(Var[] vars, int rows) {
+    }
+
+    private static final class Chunk {
+        private final long start;
+        private final long end;
+        private int firstLine;
+        private int lines;
+        private int firstRow;
+
+        private Chunk(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    /**
+     * State shared by workers during one parallel parsing attempt.
+     */
+    private static final class Run {
+        private final FileChannel channel;
+        private final Var[] prototypes;
+        private final boolean[] detected;
+        private final AtomicReference<Mismatch> mismatch = new AtomicReference<>();
+        private volatile boolean overflow = false;
+        private volatile boolean stop = false;
+
+        private Run(FileChannel channel, Var[] prototypes, boolean[] detected) {
+            this.channel = channel;
+            this.prototypes = prototypes;
+            this.detected = detected;
+        }
+    }
+
+    /**
+     * Reads lines delimited by {@code '\n'} from an input stream and keeps track of the number of bytes consumed.
+     */
+    private final class LineReader implements AutoCloseable {
+
+        private final InputStream in;
+        private byte[] bytes = new byte[256];
+        private long position = 0;
+
+        private LineReader(InputStream in) {
+            this.in = in;
+        }
+
+        String readLine() throws IOException {
+            int len = 0;
+            int b = in.read();
+            if (b == -1) {
+                return null;
+            }
+            while (b != -1 && b != '\n') {
+                if (len == bytes.length) {
+                    bytes = Arrays.copyOf(bytes, bytes.length * 2);
+                }
+                bytes[len++] = (byte) b;
+                b = in.read();
+            }
+            position += len + (b == -1 ? 0 : 1);
+            if (len > 0 && bytes[len - 1] == '\r') {
+                len--;
+            }
+            return new String(bytes, 0, len, charset);
+        }
+
+        long position() {
+            return position;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -29,6 +29,10 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 
 /**
+ * Utility which stores and restores objects through java serialization.
+ * <p>
+ * For frames, {@link Columnar} provides a more compact and much faster binary format.
+ *
  * @author <a href="mailto:padreati@yahoo.com">Aurelian Tutuianu</a>
  */
 public final class JavaIO {
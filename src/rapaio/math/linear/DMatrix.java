@@ -26,10 +26,13 @@ import rapaio.core.distributions.Normal;
 import rapaio.data.Frame;
 import rapaio.data.Var;
 import rapaio.math.linear.base.DMatrixBase;
-import rapaio.math.linear.dense.DMatrixDense;
 import rapaio.math.linear.dense.DMatrixDenseC;
 import rapaio.math.linear.dense.DMatrixDenseR;
+import rapaio.math.linear.dense.DMatrixStride;
 import rapaio.math.linear.dense.DVectorDense;
+import rapaio.math.linear.sparse.DMatrixCSC;
+import rapaio.math.linear.sparse.DMatrixCSR;
+import rapaio.math.linear.sparse.DMatrixSparse;
 import rapaio.printer.Printable;
 import rapaio.util.NotImplementedException;
 import rapaio.util.function.Double2DoubleFunction;
@@ -40,7 +43,7 @@ import java.util.Arrays;
 import java.util.stream.DoubleStream;
 
 /**
- * Dense matrix with double precision floating point values
+ * Matrix with double precision floating point values, with dense or sparse storage.
  * <p>
  * Created by <a href="mailto:padreati@yahoo.com">Aurelian Tutuianu</a> on 2/3/16.
  */
@@ -53,8 +56,9 @@ public interface DMatrix extends Serializable, Printable {
     static DMatrix empty(MType type, int rows, int cols) {
         return switch (type) {
             case BASE -> new DMatrixBase(rows, cols);
-            case RDENSE -> new DMatrixDenseR(rows, cols);
-            case CDENSE -> new DMatrixDenseC(rows, cols);
+            case RDENSE, CDENSE -> new DMatrixStride(type, rows, cols);
+            case CSR -> new DMatrixCSR(rows, cols);
+            case CSC -> new DMatrixCSC(rows, cols);
             default -> throw new NotImplementedException();
         };
     }
@@ -97,6 +101,8 @@ public interface DMatrix extends Serializable, Printable {
         DMatrix m = empty(type, rows, cols);
         switch (type) {
             case BASE:
+            case CSR:
+            case CSC:
                 if (fill != 0) {
                     for (int i = 0; i < m.rowCount(); i++) {
                         for (int j = 0; j < m.colCount(); j++) {
@@ -107,10 +113,7 @@ public interface DMatrix extends Serializable, Printable {
                 break;
             case RDENSE:
             case CDENSE:
-                double[][] elements = ((DMatrixDense) m).getElements();
-                for (double[] v : elements) {
-                    Arrays.fill(v, fill);
-                }
+                Arrays.fill(((DMatrixStride) m).getArray(), fill);
                 break;
             default:
                 throw new NotImplementedException();
@@ -175,6 +178,27 @@ public interface DMatrix extends Serializable, Printable {
         return wrap(byRows, values);
     }
 
+    /**
+     * Wraps an array of values as a dense matrix, without copying the values.
+     *
+     * @param byRows if true the values are stored in row major order, otherwise in column major order
+     * @param rows   number of rows
+     * @param cols   number of columns
+     * @param values array of values
+     * @return new dense matrix which uses the array as storage
+     */
+    static DMatrix wrap(boolean byRows, int rows, int cols, double[] values) {
+        if (values.length < (long) rows * cols) {
+            throw new IllegalArgumentException("Array does not contain enough values for matrix shape.");
+        }
+        return new DMatrixStride(byRows ? MType.RDENSE : MType.CDENSE, rows, cols, values);
+    }
+
+    /**
+     * Wraps arrays of values as a matrix. Dense matrices wrapped from arrays of arrays
+     * keep the given arrays as storage, thus they use the arrays of arrays layout
+     * instead of the single contiguous array used by new dense matrices.
+     */
     static DMatrix wrap(MType type, boolean byRows, double[][] values) {
         if (byRows) {
             switch (type) {
@@ -259,6 +283,9 @@ public interface DMatrix extends Serializable, Printable {
     static DMatrix copy(MType type, Frame df) {
         int rows = df.rowCount();
         int cols = df.varCount();
+        if (type == MType.CSR || type == MType.CSC) {
+            return DMatrixSparse.copy(type, rows, cols, df::getDouble);
+        }
         DMatrix m = empty(type, rows, cols);
         for (int i = 0; i < rows; i++) {
             for (int j = 0; j < cols; j++) {
@@ -275,6 +302,9 @@ public interface DMatrix extends Serializable, Printable {
     static DMatrix copy(MType type, Var... vars) {
         int rows = vars[0].size();
         int cols = vars.length;
+        if (type == MType.CSR || type == MType.CSC) {
+            return DMatrixSparse.copy(type, rows, cols, (i, j) -> vars[j].getDouble(i));
+        }
         DMatrix m = empty(type, rows, cols);
         for (int i = 0; i < rows; i++) {
             for (int j = 0; j < cols; j++) {
@@ -25,6 +25,7 @@ import rapaio.data.Var;
 import rapaio.data.VarDouble;
 import rapaio.math.linear.dense.DVectorDense;
 import rapaio.math.linear.dense.DVectorMap;
+import rapaio.math.linear.sparse.DVectorSparse;
 import rapaio.printer.Printable;
 import rapaio.util.collection.DoubleArrays;
 import rapaio.util.function.Double2DoubleFunction;
@@ -101,12 +102,16 @@ public interface DVector extends Serializable, Printable {
      * @param type implementation type of the vector
      * @param n    size of the vector
      * @param fill fill value
-     * @return new dense vector of given type
+     * @return new vector of given type
      */
     static DVector fill(VType type, int n, double fill) {
         if (type == VType.DENSE) {
             return new DVectorDense(n, DoubleArrays.newFill(n, fill));
         }
+        if (type == VType.SPARSE) {
+            DVectorSparse v = new DVectorSparse(n);
+            return fill == 0 ? v : v.add(fill);
+        }
         throw new IllegalArgumentException();
     }
 
@@ -233,7 +238,7 @@ public interface DVector extends Serializable, Printable {
      *
      * @return a new solid copy of the vector
      */
-    DVectorDense copy();
+    DVector copy();
 
     /**
      * Gets value from zero-based position index
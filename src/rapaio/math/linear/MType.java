@@ -28,5 +28,13 @@ public enum MType {
     BASE,
     RDENSE,
     CDENSE,
-    MAP
+    MAP,
+    /**
+     * Compressed sparse row storage
+     */
+    CSR,
+    /**
+     * Compressed sparse column storage
+     */
+    CSC
 }
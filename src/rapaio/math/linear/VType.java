@@ -26,5 +26,10 @@ package rapaio.math.linear;
  */
 public enum VType {
     DENSE,
-    MAP
+    MAP,
+    SPARSE,
+    /**
+     * Values stored at equally spaced positions of an array, usually a row or a column of a dense matrix
+     */
+    STRIDE
 }
@@ -0,0 +1,435 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright 2013 - 2021 Aurelian Tutuianu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package rapaio.math.linear.decomposition;
+
+import rapaio.math.linear.DMatrix;
+import rapaio.math.linear.MType;
+import rapaio.math.linear.dense.DMatrixStride;
+
+import java.util.stream.IntStream;
+
+/**
+ * Right looking blocked variants of the Cholesky, LU and QR factorizations.
+ * <p>
+ * All methods work in place on row major arrays. Each step factors a panel of {@link #NB} columns
+ * with the classic unblocked algorithm, after which the trailing sub matrix is updated with
+ * {@link MatrixMultiplication#gemm(double, DMatrix, DMatrix, DMatrixStride)}, which carries most
+ * of the floating point work and runs in parallel. Triangular solves of panels are split
+ * between threads by rows or by columns.
+ * <p>
+ * The results are the same as the ones of the unblocked algorithms up to rounding errors.
+ *
+ * @author <a href="mailto:padreati@yahoo.com">Aurelian Tutuianu</a>
+ */
+final class BlockedFactorizations {
+
+    /**
+     * Matrices with at least this number of columns are factored with blocked algorithms.
+     */
+    static final int THRESHOLD = 128;
+
+    /**
+     * Width of the panels.
+     */
+    static final int NB = 64;
+
+    /**
+     * Minimum number of rows or columns processed by a single task in panel updates.
+     */
+    private static final int CHUNK = 32;
+
+    private BlockedFactorizations() {
+    }
+
+    /**
+     * Copies a matrix into a new row major array.
+     */
+    static double[] rowMajor(DMatrix m) {
+        int rows = m.rowCount();
+        int cols = m.colCount();
+        double[] array = new double[rows * cols];
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                array[i * cols + j] = m.get(i, j);
+            }
+        }
+        return array;
+    }
+
+    /**
+     * Builds a strided view over a block of a row major array with leading dimension {@code ld}.
+     */
+    static DMatrixStride view(double[] a, int ld, int row, int col, int rows, int cols) {
+        return new DMatrixStride(MType.RDENSE, rows, cols, row * ld + col, ld, 1, a);
+    }
+
+    /**
+     * Cholesky factorization of a symmetric matrix stored in a row major array of size n x n.
+     * Only the lower triangle is read. On return the lower triangle contains the factor L,
+     * the upper triangle is left in an unspecified state.
+     *
+     * @return false if a non positive pivot was found
+     */
+    static boolean cholesky(double[] a, int n) {
+        boolean spd = true;
+        for (int k = 0; k < n; k += NB) {
+            int k0 = k;
+            int b = Math.min(NB, n - k);
+            int end = k + b;
+
+            // factor the diagonal block
+            for (int j = k; j < end; j++) {
+                int rj = j * n;
+                double d = 0.0;
+                for (int p = k; p < j; p++) {
+                    int rp = p * n;
+                    double s = 0.0;
+                    for (int i = k; i < p; i++) {
+                        s += a[rp + i] * a[rj + i];
+                    }
+                    s = (a[rj + p] - s) / a[rp + p];
+                    a[rj + p] = s;
+                    d = d + s * s;
+                }
+                d = a[rj + j] - d;
+                if (d <= 0.0) {
+                    spd = false;
+                }
+                a[rj + j] = Math.sqrt(Math.max(d, 0.0));
+            }
+            if (end == n) {
+                break;
+            }
+
+            // panel L21 = A21 * inv(L11)', rows are independent
+            forChunks(end, n, (from, to) -> choleskyPanel(a, n, k0, end, from, to));
+
+            // trailing update A22 = A22 - L21 * L21', only blocks on and below diagonal
+            for (int j = end; j < n; j += NB) {
+                int jb = Math.min(NB, n - j);
+                DMatrixStride l21 = view(a, n, j, k, n - j, b);
+                DMatrix l21t = view(a, n, j, k, jb, b).t();
+                MatrixMultiplication.gemm(-1.0, l21, l21t, view(a, n, j, j, n - j, jb));
+            }
+        }
+        return spd;
+    }
+
+    private static void choleskyPanel(double[] a, int n, int k, int end, int from, int to) {
+        for (int r = from; r < to; r++) {
+            int rr = r * n;
+            for (int p = k; p < end; p++) {
+                int rp = p * n;
+                double s = 0.0;
+                for (int i = k; i < p; i++) {
+                    s += a[rr + i] * a[rp + i];
+                }
+                a[rr + p] = (a[rr + p] - s) / a[rp + p];
+            }
+        }
+    }
+
+    /**
+     * LU factorization with partial pivoting of a row major array of size m x n, with m >= n.
+     * On return the strict lower part contains the multipliers of L, the upper part contains U.
+     *
+     * @param piv row permutation, updated with the row exchanges
+     * @return sign of the permutation
+     */
+    static int lu(double[] a, int m, int n, int[] piv) {
+        int pivSign = 1;
+        double[] tmp = new double[n];
+        for (int k = 0; k < n; k += NB) {
+            int k0 = k;
+            int b = Math.min(NB, n - k);
+            int end = k + b;
+
+            // factor the panel with row exchanges applied to entire rows
+            for (int j = k; j < end; j++) {
+                int p = j;
+                for (int i = j + 1; i < m; i++) {
+                    if (Math.abs(a[i * n + j]) > Math.abs(a[p * n + j])) {
+                        p = i;
+                    }
+                }
+                if (p != j) {
+                    System.arraycopy(a, p * n, tmp, 0, n);
+                    System.arraycopy(a, j * n, a, p * n, n);
+                    System.arraycopy(tmp, 0, a, j * n, n);
+                    int t = piv[p];
+                    piv[p] = piv[j];
+                    piv[j] = t;
+                    pivSign = -pivSign;
+                }
+                double pivot = a[j * n + j];
+                if (pivot != 0.0) {
+                    int rj = j * n;
+                    for (int i = j + 1; i < m; i++) {
+                        int ri = i * n;
+                        double f = a[ri + j] / pivot;
+                        a[ri + j] = f;
+                        for (int c = j + 1; c < end; c++) {
+                            a[ri + c] -= f * a[rj + c];
+                        }
+                    }
+                }
+            }
+            if (end == n) {
+                break;
+            }
+
+            // U12 = inv(L11) * A12, columns are independent
+            forChunks(end, n, (from, to) -> luPanel(a, n, k0, end, from, to));
+
+            // trailing update A22 = A22 - L21 * U12
+            if (end < m) {
+                MatrixMultiplication.gemm(-1.0,
+                        view(a, n, end, k, m - end, b),
+                        view(a, n, k, end, b, n - end),
+                        view(a, n, end, end, m - end, n - end));
+            }
+        }
+        return pivSign;
+    }
+
+    private static void luPanel(double[] a, int n, int k, int end, int from, int to) {
+        for (int j = k; j < end; j++) {
+            int rj = j * n;
+            for (int i = j + 1; i < end; i++) {
+                int ri = i * n;
+                double f = a[ri + j];
+                for (int c = from; c < to; c++) {
+                    a[ri + c] -= f * a[rj + c];
+                }
+            }
+        }
+    }
+
+    /**
+     * Householder QR factorization of a row major array of size m x n. The storage follows
+     * {@link QRDecomposition}: Householder vectors are stored on and below the diagonal,
+     * the strict upper part contains R and the diagonal of R is stored in {@code rdiag}.
+     * <p>
+     * The reflections of a panel are accumulated in the compact WY form
+     * {@code H(0) * ... * H(b-1) = I - V * T * V'} and applied together to the trailing columns.
+     */
+    static void qr(double[] a, int m, int n, double[] rdiag) {
+        int kmax = Math.min(m, n);
+        for (int k = 0; k < n; k += NB) {
+            int b = Math.min(NB, n - k);
+            int end = k + b;
+
+            // factor the panel
+            for (int j = k; j < end; j++) {
+                double nrm = 0;
+                for (int i = j; i < m; i++) {
+                    nrm = StrictMath.hypot(nrm, a[i * n + j]);
+                }
+                if (nrm != 0.0) {
+                    if (a[j * n + j] < 0) {
+                        nrm = -nrm;
+                    }
+                    for (int i = j; i < m; i++) {
+                        a[i * n + j] /= nrm;
+                    }
+                    a[j * n + j] += 1.0;
+
+                    for (int c = j + 1; c < end; c++) {
+                        double s = 0.0;
+                        for (int i = j; i < m; i++) {
+                            s += a[i * n + j] * a[i * n + c];
+                        }
+                        s = -s / a[j * n + j];
+                        for (int i = j; i < m; i++) {
+                            a[i * n + c] += s * a[i * n + j];
+                        }
+                    }
+                }
+                rdiag[j] -= nrm;
+            }
+            if (end == n || k >= kmax) {
+                continue;
+            }
+
+            // explicit Householder vectors, zero above the diagonal
+            int mv = m - k;
+            double[] v = new double[mv * b];
+            double[] tau = new double[b];
+            for (int j = 0; j < b; j++) {
+                int col = k + j;
+                if (col >= m) {
+                    continue;
+                }
+                double head = a[col * n + col];
+                tau[j] = head == 0.0 ? 0.0 : 1.0 / head;
+                for (int i = j; i < mv; i++) {
+                    v[i * b + j] = a[(k + i) * n + col];
+                }
+            }
+
+            // upper triangular factor T of the compact WY form
+            double[] t = new double[b * b];
+            double[] w = new double[b];
+            for (int j = 0; j < b; j++) {
+                t[j * b + j] = tau[j];
+                if (tau[j] == 0.0) {
+                    continue;
+                }
+                for (int p = 0; p < j; p++) {
+                    double s = 0.0;
+                    for (int i = j; i < mv; i++) {
+                        s += v[i * b + p] * v[i * b + j];
+                    }
+                    w[p] = s;
+                }
+                for (int p = 0; p < j; p++) {
+                    double s = 0.0;
+                    for (int q = p; q < j; q++) {
+                        s += t[p * b + q] * w[q];
+                    }
+                    t[p * b + j] = -tau[j] * s;
+                }
+            }
+
+            // A2 = A2 - V * T' * (V' * A2)
+            DMatrixStride vm = view(v, b, 0, 0, mv, b);
+            DMatrixStride a2 = view(a, n, k, end, mv, n - end);
+            DMatrixStride vta = (DMatrixStride) MatrixMultiplication.blocked(vm.t(), a2);
+            DMatrix tt = view(t, b, 0, 0, b, b).t();
+            DMatrixStride w2 = (DMatrixStride) MatrixMultiplication.blocked(tt, vta);
+            MatrixMultiplication.gemm(-1.0, vm, w2, a2);
+        }
+    }
+
+    /**
+     * Solves {@code T * X = B} in place for a lower triangular matrix T of size n x n.
+     *
+     * @param t    triangular matrix, only the lower triangle is used
+     * @param unit if true the diagonal of T is assumed to contain ones
+     * @param x    row major array of size n x nx with the right hand side, replaced by the solution
+     */
+    static void solveLower(DMatrixStride t, boolean unit, double[] x, int nx) {
+        int n = t.rowCount();
+        double[] ta = t.getArray();
+        int off = t.getOffset();
+        int rs = t.getRowStride();
+        int cs = t.getColStride();
+        for (int k = 0; k < n; k += NB) {
+            int k0 = k;
+            int b = Math.min(NB, n - k);
+            int end = k + b;
+            forChunks(0, nx, (from, to) -> {
+                for (int i = k0; i < end; i++) {
+                    int ri = i * nx;
+                    for (int p = k0; p < i; p++) {
+                        double f = ta[off + i * rs + p * cs];
+                        int rp = p * nx;
+                        for (int c = from; c < to; c++) {
+                            x[ri + c] -= f * x[rp + c];
+                        }
+                    }
+                    if (!unit) {
+                        double d = ta[off + i * rs + i * cs];
+                        for (int c = from; c < to; c++) {
+                            x[ri + c] /= d;
+                        }
+                    }
+                }
+            });
+            if (end < n) {
+                MatrixMultiplication.gemm(-1.0,
+                        (DMatrixStride) t.rangeRows(end, n).rangeCols(k, end),
+                        view(x, nx, k, 0, b, nx),
+                        view(x, nx, end, 0, n - end, nx));
+            }
+        }
+    }
+
+    /**
+     * Solves {@code T * X = B} in place for an upper triangular matrix T of size n x n.
+     *
+     * @param t    triangular matrix, only the upper triangle is used
+     * @param unit if true the diagonal of T is assumed to contain ones
+     * @param x    row major array of size n x nx with the right hand side, replaced by the solution
+     */
+    static void solveUpper(DMatrixStride t, boolean unit, double[] x, int nx) {
+        int n = t.rowCount();
+        double[] ta = t.getArray();
+        int off = t.getOffset();
+        int rs = t.getRowStride();
+        int cs = t.getColStride();
+        for (int end = n; end > 0; end -= NB) {
+            int k = Math.max(0, end - NB);
+            int blockEnd = end;
+            forChunks(0, nx, (from, to) -> {
+                for (int i = blockEnd - 1; i >= k; i--) {
+                    int ri = i * nx;
+                    for (int p = i + 1; p < blockEnd; p++) {
+                        double f = ta[off + i * rs + p * cs];
+                        int rp = p * nx;
+                        for (int c = from; c < to; c++) {
+                            x[ri + c] -= f * x[rp + c];
+                        }
+                    }
+                    if (!unit) {
+                        double d = ta[off + i * rs + i * cs];
+                        for (int c = from; c < to; c++) {
+                            x[ri + c] /= d;
+                        }
+                    }
+                }
+            });
+            if (k > 0) {
+                MatrixMultiplication.gemm(-1.0,
+                        (DMatrixStride) t.rangeRows(0, k).rangeCols(k, blockEnd),
+                        view(x, nx, k, 0, blockEnd - k, nx),
+                        view(x, nx, 0, 0, k, nx));
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface RangeTask {
+        void run(int from, int to);
+    }
+
+    /**
+     * Runs a task over the range {@code [start, end)} split in chunks processed in parallel.
+     */
+    private static void forChunks(int start, int end, RangeTask task) {
+        int len = end - start;
+        if (len <= CHUNK) {
+            task.run(start, end);
+            return;
+        }
+        int chunks = Math.min((len + CHUNK - 1) / CHUNK, Runtime.getRuntime().availableProcessors() * 4);
+        int size = (len + chunks - 1) / chunks;
+        IntStream.range(0, chunks).parallel().forEach(i -> {
+            int from = start + i * size;
+            int to = Math.min(end, from + size);
+            if (from < to) {
+                task.run(from, to);
+            }
+        });
+    }
+}
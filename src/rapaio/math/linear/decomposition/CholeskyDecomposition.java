@@ -24,6 +24,7 @@ package rapaio.math.linear.decomposition;
 
 import rapaio.math.linear.DMatrix;
 import rapaio.math.linear.MType;
+import rapaio.math.linear.dense.DMatrixStride;
 
 import java.io.Serial;
 import java.io.Serializable;
@@ -35,6 +36,9 @@ import java.io.Serializable;
  * <p>
  * If the matrix is not symmetric or positive definite, the constructor returns a partial decomposition and sets an internal
  * flag that may be queried by the {@link #isSPD()} method.
+ * <p>
+ * Matrices with at least {@value BlockedFactorizations#THRESHOLD} rows are factored and solved
+ * with blocked algorithms which update trailing sub matrices in parallel.
  */
 public class CholeskyDecomposition implements Serializable {
 
@@ -72,6 +76,11 @@ public class CholeskyDecomposition implements Serializable {
         l = new double[n][n];
         isspd = (A.colCount() == n);
 
+        if (isspd && n >= BlockedFactorizations.THRESHOLD) {
+            blocked(A);
+            return;
+        }
+
         // Main loop.
         for (int j = 0; j < n; j++) {
             double[] Lrowj = l[j];
@@ -99,6 +108,24 @@ public class CholeskyDecomposition implements Serializable {
     }
 
 
+    private void blocked(DMatrix A) {
+        for (int j = 0; j < n && isspd; j++) {
+            for (int k = 0; k < j; k++) {
+                if (A.get(k, j) != A.get(j, k)) {
+                    isspd = false;
+                    break;
+                }
+            }
+        }
+        double[] a = BlockedFactorizations.rowMajor(A);
+        if (!BlockedFactorizations.cholesky(a, n)) {
+            isspd = false;
+        }
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(a, i * n, l[i], 0, i + 1);
+        }
+    }
+
 //    /**
 //     * Array for internal storage of right triangular decomposition.
 //     **/
@@ -180,9 +207,21 @@ public class CholeskyDecomposition implements Serializable {
             throw new IllegalArgumentException("Matrix is not symmetric positive definite.");
         }
 
+        int nx = B.colCount();
+        if (n >= BlockedFactorizations.THRESHOLD) {
+            double[] a = new double[n * n];
+            for (int i = 0; i < n; i++) {
+                System.arraycopy(l[i], 0, a, i * n, i + 1);
+            }
+            DMatrixStride L = new DMatrixStride(MType.RDENSE, n, n, a);
+            double[] x = BlockedFactorizations.rowMajor(B);
+            BlockedFactorizations.solveLower(L, false, x, nx);
+            BlockedFactorizations.solveUpper((DMatrixStride) L.t(), false, x, nx);
+            return new DMatrixStride(MType.RDENSE, n, nx, x);
+        }
+
         // Copy right hand side.
         DMatrix x = B.copy();
-        int nx = B.colCount();
 
         x = forwardSubstitution(n, nx, x, l);
         x = backwardSubstitution(n, nx, x, l);
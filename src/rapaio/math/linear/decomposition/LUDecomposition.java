@@ -22,6 +22,8 @@
 package rapaio.math.linear.decomposition;
 
 import rapaio.math.linear.DMatrix;
+import rapaio.math.linear.MType;
+import rapaio.math.linear.dense.DMatrixStride;
 import rapaio.printer.Printable;
 import rapaio.printer.Printer;
 import rapaio.printer.opt.POption;
@@ -43,6 +45,9 @@ import java.util.function.BiConsumer;
  * singular, so the constructor will never fail. The primary use of the LU
  * decomposition is in the solution of square systems of simultaneous linear
  * equations. This will fail if isNonSingular() returns false.
+ * <p>
+ * The default method is {@link Method#BLOCKED} for matrices with at least
+ * {@value BlockedFactorizations#THRESHOLD} columns and {@link Method#GAUSSIAN_ELIMINATION} otherwise.
  */
 public class LUDecomposition implements Serializable, Printable {
 
@@ -66,7 +71,8 @@ public class LUDecomposition implements Serializable, Printable {
     public static LUDecomposition from(DMatrix A) {
         if (A.rowCount() < A.colCount())
             throw new IllegalArgumentException("for LU decomposition, rows must be greater or equal with cols.");
-        return new LUDecomposition(A, Method.GAUSSIAN_ELIMINATION);
+        Method method = A.colCount() >= BlockedFactorizations.THRESHOLD ? Method.BLOCKED : Method.GAUSSIAN_ELIMINATION;
+        return new LUDecomposition(A, method);
     }
 
     public static LUDecomposition from(DMatrix A, Method method) {
@@ -99,7 +105,7 @@ public class LUDecomposition implements Serializable, Printable {
     public DMatrix getL() {
         DMatrix X = DMatrix.empty(rowCount, colCount);
         for (int i = 0; i < rowCount; i++) {
-            for (int j = 0; j <= i; j++) {
+            for (int j = 0; j <= Math.min(i, colCount - 1); j++) {
                 if (i > j) {
                     X.set(i, j, LU.get(i, j));
                 } else {
@@ -169,6 +175,14 @@ public class LUDecomposition implements Serializable, Printable {
 
         // Copy right hand side with pivoting
         int nx = B.colCount();
+        if (LU instanceof DMatrixStride lu && colCount >= BlockedFactorizations.THRESHOLD) {
+            // the first colCount rows of the row major copy are solved in place
+            double[] x = BlockedFactorizations.rowMajor(B.mapRows(piv));
+            DMatrixStride square = (DMatrixStride) lu.rangeRows(0, colCount);
+            BlockedFactorizations.solveLower(square, true, x, nx);
+            BlockedFactorizations.solveUpper(square, false, x, nx);
+            return new DMatrixStride(MType.RDENSE, rowCount, nx, x);
+        }
         DMatrix X = B.mapRows(piv).copy();
 
         // Solve L*Y = B(piv,:)
@@ -333,6 +347,28 @@ public class LUDecomposition implements Serializable, Printable {
                     }
                 };
             }
+        },
+
+        /**
+         * Right looking blocked Gaussian elimination with partial pivoting. Panels of columns are
+         * factored one at a time and the trailing sub matrix is updated with a parallel matrix
+         * multiplication.
+         */
+        BLOCKED {
+            @Override
+            BiConsumer<LUDecomposition, DMatrix> method() {
+                return (lu, A) -> {
+                    lu.rowCount = A.rowCount();
+                    lu.colCount = A.colCount();
+                    lu.piv = new int[lu.rowCount];
+                    for (int i = 0; i < lu.rowCount; i++) {
+                        lu.piv[i] = i;
+                    }
+                    double[] a = BlockedFactorizations.rowMajor(A);
+                    lu.pivSign = BlockedFactorizations.lu(a, lu.rowCount, lu.colCount, lu.piv);
+                    lu.LU = new DMatrixStride(MType.RDENSE, lu.rowCount, lu.colCount, a);
+                };
+            }
         };
 
         abstract BiConsumer<LUDecomposition, DMatrix> method();
@@ -0,0 +1,229 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright 2013 - 2021 Aurelian Tutuianu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package rapaio.math.linear.decomposition;
+
+import rapaio.core.distributions.Normal;
+import rapaio.math.linear.DMatrix;
+import rapaio.math.linear.DVector;
+import rapaio.math.linear.EigenPair;
+import rapaio.math.linear.MType;
+import rapaio.math.linear.dense.DMatrixStride;
+import rapaio.util.collection.DoubleArrays;
+import rapaio.util.collection.IntArrays;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.function.UnaryOperator;
+
+/**
+ * Lanczos solver for the largest eigenvalues of a symmetric matrix.
+ * <p>
+ * The matrix is accessed only through products with vectors, which allows one to work with
+ * implicit operators, for example {@code x -> X'(X x)} instead of an explicit scatter matrix.
+ * A Krylov basis is grown with full reorthogonalization and the eigenpairs of the projected
+ * tridiagonal matrix are checked periodically. The iteration stops when the residual norm
+ * of each of the k largest Ritz pairs is below the tolerance relative to the largest eigenvalue,
+ * or when the basis spans the whole space.
+ * <p>
+ * The start vector is drawn from {@link rapaio.core.RandomSource}.
+ *
+ * @author <a href="mailto:padreati@yahoo.com">Aurelian Tutuianu</a>
+ */
+public class LanczosEigen implements Serializable {
+
+    public static LanczosEigen from(DMatrix a, int k) {
+        return from(a, k, DEFAULT_TOL);
+    }
+
+    public static LanczosEigen from(DMatrix a, int k, double tol) {
+        if (a.rowCount() != a.colCount()) {
+            throw new IllegalArgumentException("Lanczos eigen solver requires a square matrix.");
+        }
+        return new LanczosEigen(a.rowCount(), a::dot, k, tol);
+    }
+
+    public static LanczosEigen from(int n, UnaryOperator<DVector> operator, int k) {
+        return new LanczosEigen(n, operator, k, DEFAULT_TOL);
+    }
+
+    /**
+     * Builds the decomposition of an implicit symmetric operator.
+     *
+     * @param n        dimension of the operator
+     * @param operator function which computes the product of the operator with a vector
+     * @param k        number of eigenvalues
+     * @param tol      relative tolerance of residuals
+     * @return decomposition with the largest k eigenvalues
+     */
+    public static LanczosEigen from(int n, UnaryOperator<DVector> operator, int k, double tol) {
+        return new LanczosEigen(n, operator, k, tol);
+    }
+
+    @Serial
+    private static final long serialVersionUID = -3915720447327853012L;
+
+    private static final double DEFAULT_TOL = 1e-10;
+    private static final int CHECK_STEP = 10;
+
+    private final double[] values;
+    private final DMatrix vectors;
+    private final int steps;
+
+    private LanczosEigen(int n, UnaryOperator<DVector> operator, int k, double tol) {
+        if (k < 1 || k > n) {
+            throw new IllegalArgumentException("Number of eigenvalues must be positive and at most the dimension.");
+        }
+        double[][] q = new double[n][];
+        double[] alpha = new double[n];
+        double[] beta = new double[n];
+
+        q[0] = randomUnit(n, q, 0);
+        int m = 0;
+        double[] ritzValues = null;
+        DMatrix ritzVectors = null;
+        int[] order = null;
+        while (m < n) {
+            double[] w = operator.apply(DVector.wrap(q[m])).valueStream().toArray();
+            alpha[m] = DoubleArrays.dot(w, 0, q[m], 0, n);
+            DoubleArrays.axpyTo(-alpha[m], q[m], w, w, 0, n);
+            if (m > 0) {
+                DoubleArrays.axpyTo(-beta[m - 1], q[m - 1], w, w, 0, n);
+            }
+            // full reorthogonalization, applied twice to keep the basis orthogonal to working precision
+            orthogonalize(w, q, m + 1);
+            orthogonalize(w, q, m + 1);
+            double b = Math.sqrt(DoubleArrays.dot(w, 0, w, 0, n));
+            m++;
+
+            if (m == n || (m >= k && (m % CHECK_STEP == 0 || b == 0))) {
+                EigenDecomposition evd = EigenDecomposition.from(tridiagonal(alpha, beta, m));
+                ritzValues = evd.getRealEigenvalues();
+                ritzVectors = evd.getV();
+                order = IntArrays.newSeq(0, m);
+                DoubleArrays.quickSortIndirect(order, ritzValues, 0, m);
+                IntArrays.reverse(order);
+                if (m == n || converged(ritzValues, ritzVectors, order, k, m, b, tol)) {
+                    break;
+                }
+            }
+            if (b <= 0 || b < 1e-14 * Math.abs(alpha[m - 1])) {
+                // invariant subspace found, continue with a new direction orthogonal to the basis
+                beta[m - 1] = 0;
+                q[m] = randomUnit(n, q, m);
+            } else {
+                beta[m - 1] = b;
+                DoubleArrays.mult(w, 0, 1.0 / b, n);
+                q[m] = w;
+            }
+        }
+        steps = m;
+
+        // Ritz vectors are combinations of the basis vectors, stored column major
+        double[] basis = new double[n * m];
+        for (int i = 0; i < m; i++) {
+            System.arraycopy(q[i], 0, basis, i * n, n);
+        }
+        int[] top = new int[k];
+        values = new double[k];
+        for (int j = 0; j < k; j++) {
+            top[j] = order[j];
+            values[j] = ritzValues[order[j]];
+        }
+        vectors = MatrixMultiplication.blocked(new DMatrixStride(MType.CDENSE, n, m, basis), ritzVectors.mapCols(top));
+    }
+
+    private static boolean converged(double[] ritzValues, DMatrix ritzVectors, int[] order, int k, int m, double b, double tol) {
+        double scale = Math.max(Math.abs(ritzValues[order[0]]), Double.MIN_NORMAL);
+        for (int j = 0; j < k; j++) {
+            double residual = Math.abs(b * ritzVectors.get(m - 1, order[j]));
+            if (residual > tol * scale) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static DMatrix tridiagonal(double[] alpha, double[] beta, int m) {
+        DMatrix t = DMatrix.empty(MType.RDENSE, m, m);
+        for (int i = 0; i < m; i++) {
+            t.set(i, i, alpha[i]);
+            if (i + 1 < m) {
+                t.set(i, i + 1, beta[i]);
+                t.set(i + 1, i, beta[i]);
+            }
+        }
+        return t;
+    }
+
+    private static void orthogonalize(double[] w, double[][] q, int len) {
+        for (int i = 0; i < len; i++) {
+            double s = DoubleArrays.dot(w, 0, q[i], 0, w.length);
+            DoubleArrays.axpyTo(-s, q[i], w, w, 0, w.length);
+        }
+    }
+
+    private static double[] randomUnit(int n, double[][] q, int len) {
+        Normal normal = Normal.std();
+        while (true) {
+            double[] w = new double[n];
+            for (int i = 0; i < n; i++) {
+                w[i] = normal.sampleNext();
+            }
+            orthogonalize(w, q, len);
+            orthogonalize(w, q, len);
+            double norm = Math.sqrt(DoubleArrays.dot(w, 0, w, 0, n));
+            if (norm > 1e-8) {
+                DoubleArrays.mult(w, 0, 1.0 / norm, n);
+                return w;
+            }
+        }
+    }
+
+    /**
+     * @return largest k eigenvalues in decreasing order
+     */
+    public DVector getValues() {
+        return DVector.wrap(values);
+    }
+
+    /**
+     * @return n-by-k matrix with the eigenvectors of the largest eigenvalues on columns
+     */
+    public DMatrix getVectors() {
+        return vectors;
+    }
+
+    /**
+     * @return eigenvalues and eigenvectors as a pair
+     */
+    public EigenPair eigenPair() {
+        return EigenPair.from(getValues(), getVectors());
+    }
+
+    /**
+     * @return number of Lanczos steps, which is the size of the Krylov basis
+     */
+    public int steps() {
+        return steps;
+    }
+}
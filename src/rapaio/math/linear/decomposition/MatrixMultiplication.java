@@ -24,7 +24,12 @@ package rapaio.math.linear.decomposition;
 
 import rapaio.math.linear.DMatrix;
 import rapaio.math.linear.DVector;
+import rapaio.math.linear.MType;
+import rapaio.math.linear.dense.DMatrixDense;
+import rapaio.math.linear.dense.DMatrixStride;
 
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.stream.IntStream;
 
 /**
@@ -333,6 +338,341 @@ public class MatrixMultiplication {
         }
     }
 
+    /**
+     * Block sizes of the packed multiplication. A packed panel of A has {@link #MC} x {@link #KC}
+     * values and should fit in L2 cache, a packed panel of B has {@link #KC} x {@link #NC} values.
+     * The micro kernel computes blocks of {@link #MR} x {@link #NR} values kept in registers.
+     */
+    private static final int MC = 64;
+    private static final int KC = 256;
+    private static final int NC = 256;
+    private static final int MR = 4;
+    private static final int NR = 4;
+
+    /**
+     * Cache blocked multiplication of dense matrices which works directly on the backing arrays.
+     * <p>
+     * Panels of both operands are packed into contiguous arrays, which makes the storage layout
+     * (row or column major, strided views) of the operands irrelevant for the inner kernel. The result
+     * matrix is split into tiles of {@link #MC} x {@link #NC} values which are computed in parallel using
+     * fork/join tasks, each tile being written by a single task. Operands which are not dense are
+     * packed element by element.
+     *
+     * @param A left matrix
+     * @param B right matrix
+     * @return row major dense matrix with the result
+     */
+    public static DMatrix blocked(DMatrix A, DMatrix B) {
+        if (B.rowCount() != A.colCount()) {
+            throw new IllegalArgumentException("Matrix inner dimensions must agree.");
+        }
+        DMatrixStride C = new DMatrixStride(MType.RDENSE, A.rowCount(), B.colCount());
+        gemm(1.0, A, B, C);
+        return C;
+    }
+
+    /**
+     * Computes {@code C = C + alpha * A * B} in place, using the same packed kernel as
+     * {@link #blocked(DMatrix, DMatrix)}. The result matrix can be any strided view, which
+     * allows factorizations to update trailing sub matrices of their working storage.
+     *
+     * @param alpha scalar factor of the product
+     * @param A     left matrix
+     * @param B     right matrix
+     * @param C     strided matrix which is updated
+     */
+    static void gemm(double alpha, DMatrix A, DMatrix B, DMatrixStride C) {
+        if (B.rowCount() != A.colCount() || C.rowCount() != A.rowCount() || C.colCount() != B.colCount()) {
+            throw new IllegalArgumentException("Matrix dimensions must agree.");
+        }
+        if (C.rowCount() == 0 || C.colCount() == 0 || A.colCount() == 0) {
+            return;
+        }
+        GemmTask task = new GemmTask(alpha, A, B, C, 0, tileCount(A.rowCount(), MC) * tileCount(B.colCount(), NC));
+        if (task.to - task.from == 1) {
+            task.compute();
+        } else {
+            ForkJoinPool.commonPool().invoke(task);
+        }
+    }
+
+    private static int tileCount(int len, int size) {
+        return (len + size - 1) / size;
+    }
+
+    private static final class GemmTask extends RecursiveAction {
+
+        private final double alpha;
+        private final DMatrix A;
+        private final DMatrix B;
+        private final DMatrixStride C;
+        private final double[] c;
+        private final int cOffset;
+        private final int ldc;
+        private final int cs;
+        private final int from;
+        private final int to;
+
+        GemmTask(double alpha, DMatrix A, DMatrix B, DMatrixStride C, int from, int to) {
+            this.alpha = alpha;
+            this.A = A;
+            this.B = B;
+            this.C = C;
+            this.c = C.getArray();
+            this.cOffset = C.getOffset();
+            this.ldc = C.getRowStride();
+            this.cs = C.getColStride();
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new GemmTask(alpha, A, B, C, from, mid), new GemmTask(alpha, A, B, C, mid, to));
+                return;
+            }
+            int m = A.rowCount();
+            int n = B.colCount();
+            int k = A.colCount();
+            int colTiles = tileCount(n, NC);
+            int ic = (from / colTiles) * MC;
+            int jc = (from % colTiles) * NC;
+            int mc = Math.min(MC, m - ic);
+            int nc = Math.min(NC, n - jc);
+
+            int kcMax = Math.min(KC, k);
+            double[] packA = new double[tileCount(mc, MR) * MR * kcMax];
+            double[] packB = new double[tileCount(nc, NR) * NR * kcMax];
+
+            for (int pc = 0; pc < k; pc += KC) {
+                int kc = Math.min(KC, k - pc);
+                packA(packA, ic, mc, pc, kc);
+                packB(packB, pc, kc, jc, nc);
+                for (int jr = 0; jr < nc; jr += NR) {
+                    for (int ir = 0; ir < mc; ir += MR) {
+                        kernel(kc, packA, ir * kc, packB, jr * kc,
+                                ic + ir, jc + jr, Math.min(MR, mc - ir), Math.min(NR, nc - jr));
+                    }
+                }
+            }
+        }
+
+        /**
+         * Packs A[ic:ic+mc, pc:pc+kc] into slivers of {@link #MR} rows, each sliver
+         * stored column by column and padded with zeros.
+         */
+        private void packA(double[] pack, int ic, int mc, int pc, int kc) {
+            if (!(A instanceof DMatrixDense dense)) {
+                packA(pack, ic, mc, pc, kc, strideArray(A), strideOffset(A), strideStep(A, true), strideStep(A, false));
+                return;
+            }
+            double[][] a = dense.getElements();
+            boolean rowMajor = A.type() == MType.RDENSE;
+            for (int ir = 0; ir < mc; ir += MR) {
+                int offset = ir * kc;
+                int mr = Math.min(MR, mc - ir);
+                for (int i = 0; i < MR; i++) {
+                    if (i >= mr) {
+                        for (int p = 0; p < kc; p++) {
+                            pack[offset + p * MR + i] = 0;
+                        }
+                        continue;
+                    }
+                    int row = ic + ir + i;
+                    if (rowMajor) {
+                        double[] arow = a[row];
+                        for (int p = 0; p < kc; p++) {
+                            pack[offset + p * MR + i] = arow[pc + p];
+                        }
+                    } else {
+                        for (int p = 0; p < kc; p++) {
+                            pack[offset + p * MR + i] = a[pc + p][row];
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Packs B[pc:pc+kc, jc:jc+nc] into slivers of {@link #NR} columns, each sliver
+         * stored row by row and padded with zeros.
+         */
+        private void packB(double[] pack, int pc, int kc, int jc, int nc) {
+            if (!(B instanceof DMatrixDense dense)) {
+                packB(pack, pc, kc, jc, nc, strideArray(B), strideOffset(B), strideStep(B, true), strideStep(B, false));
+                return;
+            }
+            double[][] b = dense.getElements();
+            boolean rowMajor = B.type() == MType.RDENSE;
+            for (int jr = 0; jr < nc; jr += NR) {
+                int offset = jr * kc;
+                int nr = Math.min(NR, nc - jr);
+                for (int j = 0; j < NR; j++) {
+                    if (j >= nr) {
+                        for (int p = 0; p < kc; p++) {
+                            pack[offset + p * NR + j] = 0;
+                        }
+                        continue;
+                    }
+                    int col = jc + jr + j;
+                    if (rowMajor) {
+                        for (int p = 0; p < kc; p++) {
+                            pack[offset + p * NR + j] = b[pc + p][col];
+                        }
+                    } else {
+                        double[] bcol = b[col];
+                        for (int p = 0; p < kc; p++) {
+                            pack[offset + p * NR + j] = bcol[pc + p];
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Packs A[ic:ic+mc, pc:pc+kc] from a strided array, or element by element if
+         * the array is null.
+         */
+        private void packA(double[] pack, int ic, int mc, int pc, int kc, double[] a, int off, int rs, int cs) {
+            for (int ir = 0; ir < mc; ir += MR) {
+                int offset = ir * kc;
+                int mr = Math.min(MR, mc - ir);
+                for (int i = 0; i < MR; i++) {
+                    int row = ic + ir + i;
+                    for (int p = 0; p < kc; p++) {
+                        double value;
+                        if (i >= mr) {
+                            value = 0;
+                        } else if (a != null) {
+                            value = a[off + row * rs + (pc + p) * cs];
+                        } else {
+                            value = A.get(row, pc + p);
+                        }
+                        pack[offset + p * MR + i] = value;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Packs B[pc:pc+kc, jc:jc+nc] from a strided array, or element by element if
+         * the array is null.
+         */
+        private void packB(double[] pack, int pc, int kc, int jc, int nc, double[] b, int off, int rs, int cs) {
+            for (int jr = 0; jr < nc; jr += NR) {
+                int offset = jr * kc;
+                int nr = Math.min(NR, nc - jr);
+                for (int j = 0; j < NR; j++) {
+                    int col = jc + jr + j;
+                    for (int p = 0; p < kc; p++) {
+                        double value;
+                        if (j >= nr) {
+                            value = 0;
+                        } else if (b != null) {
+                            value = b[off + (pc + p) * rs + col * cs];
+                        } else {
+                            value = B.get(pc + p, col);
+                        }
+                        pack[offset + p * NR + j] = value;
+                    }
+                }
+            }
+        }
+
+        private static double[] strideArray(DMatrix m) {
+            return m instanceof DMatrixStride s ? s.getArray() : null;
+        }
+
+        private static int strideOffset(DMatrix m) {
+            return m instanceof DMatrixStride s ? s.getOffset() : 0;
+        }
+
+        private static int strideStep(DMatrix m, boolean rows) {
+            if (m instanceof DMatrixStride s) {
+                return rows ? s.getRowStride() : s.getColStride();
+            }
+            return 0;
+        }
+
+        /**
+         * Computes a block of {@link #MR} x {@link #NR} values from packed slivers
+         * and adds it to the result.
+         */
+        private void kernel(int kc, double[] pa, int aOff, double[] pb, int bOff, int row, int col, int mr, int nr) {
+            double c00 = 0, c01 = 0, c02 = 0, c03 = 0;
+            double c10 = 0, c11 = 0, c12 = 0, c13 = 0;
+            double c20 = 0, c21 = 0, c22 = 0, c23 = 0;
+            double c30 = 0, c31 = 0, c32 = 0, c33 = 0;
+            int ap = aOff;
+            int bp = bOff;
+            for (int p = 0; p < kc; p++) {
+                double a0 = pa[ap];
+                double a1 = pa[ap + 1];
+                double a2 = pa[ap + 2];
+                double a3 = pa[ap + 3];
+                double b0 = pb[bp];
+                double b1 = pb[bp + 1];
+                double b2 = pb[bp + 2];
+                double b3 = pb[bp + 3];
+                c00 = Math.fma(a0, b0, c00);
+                c01 = Math.fma(a0, b1, c01);
+                c02 = Math.fma(a0, b2, c02);
+                c03 = Math.fma(a0, b3, c03);
+                c10 = Math.fma(a1, b0, c10);
+                c11 = Math.fma(a1, b1, c11);
+                c12 = Math.fma(a1, b2, c12);
+                c13 = Math.fma(a1, b3, c13);
+                c20 = Math.fma(a2, b0, c20);
+                c21 = Math.fma(a2, b1, c21);
+                c22 = Math.fma(a2, b2, c22);
+                c23 = Math.fma(a2, b3, c23);
+                c30 = Math.fma(a3, b0, c30);
+                c31 = Math.fma(a3, b1, c31);
+                c32 = Math.fma(a3, b2, c32);
+                c33 = Math.fma(a3, b3, c33);
+                ap += MR;
+                bp += NR;
+            }
+            if (mr == MR && nr == NR && cs == 1) {
+                int r0 = cOffset + row * ldc + col;
+                int r1 = r0 + ldc;
+                int r2 = r1 + ldc;
+                int r3 = r2 + ldc;
+                c[r0] += alpha * c00;
+                c[r0 + 1] += alpha * c01;
+                c[r0 + 2] += alpha * c02;
+                c[r0 + 3] += alpha * c03;
+                c[r1] += alpha * c10;
+                c[r1 + 1] += alpha * c11;
+                c[r1 + 2] += alpha * c12;
+                c[r1 + 3] += alpha * c13;
+                c[r2] += alpha * c20;
+                c[r2 + 1] += alpha * c21;
+                c[r2 + 2] += alpha * c22;
+                c[r2 + 3] += alpha * c23;
+                c[r3] += alpha * c30;
+                c[r3 + 1] += alpha * c31;
+                c[r3 + 2] += alpha * c32;
+                c[r3 + 3] += alpha * c33;
+                return;
+            }
+            double[] block = {
+                    c00, c01, c02, c03,
+                    c10, c11, c12, c13,
+                    c20, c21, c22, c23,
+                    c30, c31, c32, c33
+            };
+            for (int i = 0; i < mr; i++) {
+                int r = cOffset + (row + i) * ldc + col * cs;
+                for (int j = 0; j < nr; j++) {
+                    c[r + j * cs] += alpha * block[i * NR + j];
+                }
+            }
+        }
+    }
+
     public static DMatrix mul(DMatrix A, double scalar) {
         DMatrix X = DMatrix.empty(A.rowCount(), A.colCount());
         for (int i = 0; i < A.rowCount(); i++) {
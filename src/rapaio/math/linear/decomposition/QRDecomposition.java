@@ -23,6 +23,8 @@ package rapaio.math.linear.decomposition;
 
 import rapaio.math.linear.DMatrix;
 import rapaio.math.linear.DVector;
+import rapaio.math.linear.MType;
+import rapaio.math.linear.dense.DMatrixStride;
 
 import java.io.Serial;
 import java.io.Serializable;
@@ -36,6 +38,9 @@ import java.io.Serializable;
  * The QR decomposition always exists, even if the matrix does not have
  * full rank.  The primary use of the QR decomposition is in the least squares solution
  * of non square systems of simultaneous linear equations. This will fail if A is not of full rank.
+ * <p>
+ * Matrices with at least {@value BlockedFactorizations#THRESHOLD} columns are factored with a blocked
+ * algorithm which applies the reflections of a panel to the trailing columns all at once.
  */
 public class QRDecomposition implements Serializable {
 
@@ -50,6 +55,14 @@ public class QRDecomposition implements Serializable {
     private final DVector Rdiag;
 
     private QRDecomposition(DMatrix A) {
+        if (A.colCount() >= BlockedFactorizations.THRESHOLD) {
+            double[] a = BlockedFactorizations.rowMajor(A);
+            double[] rdiag = new double[A.colCount()];
+            BlockedFactorizations.qr(a, A.rowCount(), A.colCount(), rdiag);
+            QR = new DMatrixStride(MType.RDENSE, A.rowCount(), A.colCount(), a);
+            Rdiag = DVector.wrap(rdiag);
+            return;
+        }
         // Initialize.
         QR = A.copy();
         Rdiag = DVector.zeros(QR.colCount());
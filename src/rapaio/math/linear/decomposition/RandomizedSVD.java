@@ -0,0 +1,150 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright 2013 - 2021 Aurelian Tutuianu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package rapaio.math.linear.decomposition;
+
+import rapaio.math.linear.DMatrix;
+import rapaio.math.linear.MType;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * Truncated singular value decomposition computed with randomized range finder.
+ * <p>
+ * For an m-by-n matrix A the decomposition approximates the first k singular values and vectors,
+ * so that A ~ U*S*V', where U is m-by-k, S is k-by-k diagonal and V is n-by-k.
+ * <p>
+ * The algorithm follows Halko, Martinsson and Tropp, <i>Finding structure with randomness</i>.
+ * The range of A is sampled with a Gaussian random matrix with k + oversampling columns,
+ * optionally refined with power iterations, and orthonormalized into Q. The exact singular value
+ * decomposition of the small matrix Q'*A gives then the singular triplets. The cost is dominated by
+ * a few products of A with tall and thin matrices, the matrices A*A' or A'*A are never built.
+ * <p>
+ * Random numbers are drawn from {@link rapaio.core.RandomSource}.
+ *
+ * @author <a href="mailto:padreati@yahoo.com">Aurelian Tutuianu</a>
+ */
+public class RandomizedSVD implements Serializable {
+
+    public static RandomizedSVD from(DMatrix A, int k) {
+        return new RandomizedSVD(A, k, 10, 2);
+    }
+
+    /**
+     * Builds a randomized truncated decomposition.
+     *
+     * @param A               input matrix
+     * @param k               number of singular values
+     * @param oversampling    number of additional random samples of the range
+     * @param powerIterations number of power iterations used to sharpen the sampled range
+     * @return truncated decomposition
+     */
+    public static RandomizedSVD from(DMatrix A, int k, int oversampling, int powerIterations) {
+        return new RandomizedSVD(A, k, oversampling, powerIterations);
+    }
+
+    @Serial
+    private static final long serialVersionUID = 1932417530212406212L;
+
+    private final int k;
+    private final DMatrix u;
+    private final DMatrix v;
+    private final double[] s;
+
+    private RandomizedSVD(DMatrix A, int k, int oversampling, int powerIterations) {
+        int m = A.rowCount();
+        int n = A.colCount();
+        if (k < 1 || k > Math.min(m, n)) {
+            throw new IllegalArgumentException("Number of singular values must be positive and at most min(rows, cols).");
+        }
+        if (oversampling < 0 || powerIterations < 0) {
+            throw new IllegalArgumentException("Oversampling and power iterations must not be negative.");
+        }
+        this.k = k;
+        int l = Math.min(k + oversampling, Math.min(m, n));
+
+        // sample the range of A and orthonormalize
+        DMatrix omega = DMatrix.random(n, l);
+        DMatrix q = orthonormal(A.dot(omega));
+        for (int i = 0; i < powerIterations; i++) {
+            DMatrix z = orthonormal(A.t().dot(q));
+            q = orthonormal(A.dot(z));
+        }
+
+        // small problem B = Q'A, decomposed through its transpose since SVD needs rows >= cols
+        DMatrix bt = A.t().dot(q);
+        SVDecomposition svd = SVDecomposition.from(bt);
+
+        double[] values = svd.getSingularValues();
+        s = new double[k];
+        System.arraycopy(values, 0, s, 0, k);
+        v = svd.getU().rangeCols(0, k).copy();
+        u = q.dot(svd.getV().rangeCols(0, k));
+    }
+
+    /**
+     * Orthonormal basis of the columns of a tall matrix.
+     */
+    private static DMatrix orthonormal(DMatrix y) {
+        return QRDecomposition.from(y).getQ();
+    }
+
+    /**
+     * @return number of computed singular values
+     */
+    public int k() {
+        return k;
+    }
+
+    /**
+     * @return left singular vectors, m-by-k matrix
+     */
+    public DMatrix getU() {
+        return u;
+    }
+
+    /**
+     * @return right singular vectors, n-by-k matrix
+     */
+    public DMatrix getV() {
+        return v;
+    }
+
+    /**
+     * @return singular values in decreasing order
+     */
+    public double[] getSingularValues() {
+        return s;
+    }
+
+    /**
+     * @return k-by-k diagonal matrix with singular values
+     */
+    public DMatrix getS() {
+        DMatrix S = DMatrix.empty(MType.RDENSE, k, k);
+        for (int i = 0; i < k; i++) {
+            S.set(i, i, s[i]);
+        }
+        return S;
+    }
+}
@@ -24,6 +24,8 @@ package rapaio.math.linear.dense;
 import rapaio.math.linear.DMatrix;
 import rapaio.math.linear.MType;
 import rapaio.math.linear.base.AbstractDMatrix;
+import rapaio.math.linear.decomposition.MatrixMultiplication;
+import rapaio.math.linear.sparse.DMatrixSparse;
 import rapaio.util.function.Double2DoubleFunction;
 
 import java.io.Serial;
@@ -89,6 +91,17 @@ public abstract class DMatrixDense extends AbstractDMatrix {
         return values;
     }
 
+    @Override
+    public DMatrix dot(DMatrix B) {
+        if (B instanceof DMatrixSparse sparse && colCount == sparse.rowCount()) {
+            return sparse.leftDot(this);
+        }
+        if ((B instanceof DMatrixDense || B instanceof DMatrixStride) && colCount == B.rowCount()) {
+            return MatrixMultiplication.blocked(this, B);
+        }
+        return super.dot(B);
+    }
+
     @Override
     public DMatrix apply(Double2DoubleFunction fun) {
         for (int i = 0; i < values.length; i++) {
@@ -130,10 +130,10 @@ public class DMatrixDenseC extends DMatrixDense {
     @Override
     public DMatrix dotDiagT(DVector v) {
         if (v.isDense()) {
+            // each row is scaled, thus each column is multiplied element wise with the vector
             var array = v.asDense().elements();
-            var len = v.size();
-            for (int i = 0; i < rowCount; i++) {
-                DoubleArrays.mult(values[i], 0, array[i], colCount);
+            for (int i = 0; i < colCount; i++) {
+                DoubleArrays.mult(values[i], 0, array, 0, rowCount);
             }
             return this;
         }
@@ -111,11 +111,7 @@ public class DMatrixDenseR extends DMatrixDense {
     }
 
     private double prodSum(double[] a, double[] b) {
-        double sum = 0;
-        for (int i = 0; i < a.length; i++) {
-            sum += a[i] * b[i];
-        }
-        return sum;
+        return DoubleArrays.dot(a, 0, b, 0, a.length);
     }
 
     @Override
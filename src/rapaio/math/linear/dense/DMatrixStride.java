@@ -0,0 +1,456 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright 2013 - 2021 Aurelian Tutuianu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package rapaio.math.linear.dense;
+
+import rapaio.math.linear.DMatrix;
+import rapaio.math.linear.DVector;
+import rapaio.math.linear.MType;
+import rapaio.math.linear.base.AbstractDMatrix;
+import rapaio.math.linear.decomposition.MatrixMultiplication;
+import rapaio.math.linear.sparse.DMatrixSparse;
+import rapaio.util.collection.DoubleArrays;
+import rapaio.util.function.Double2DoubleFunction;
+
+import java.io.Serial;
+import java.util.Objects;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+
+/**
+ * Dense matrix which stores all its values in a single contiguous array.
+ * <p>
+ * The value from row {@code i} and column {@code j} is stored at position
+ * {@code offset + i * rowStride + j * colStride} of the array. A new matrix of type
+ * {@link MType#RDENSE} stores values in row major order and a new matrix of type
+ * {@link MType#CDENSE} stores values in column major order.
+ * <p>
+ * Since the layout is described only by offset and strides, transposed matrices,
+ * ranges of rows or columns and rows or columns mapped with a constant step are
+ * views which share the array with the original matrix, without copying values.
+ * The array and the layout are available through accessors, thus kernels can
+ * work directly on the array.
+ *
+ * @author <a href="mailto:padreati@yahoo.com">Aurelian Tutuianu</a>
+ */
+public class DMatrixStride extends AbstractDMatrix {
+
+    @Serial
+    private static final long serialVersionUID = 3185301541738946172L;
+
+    /**
+     * Minimum number of values of a matrix vector product computed in parallel.
+     */
+    private static final int PARALLEL_WORK = 1 << 16;
+
+    private final MType type;
+    private final int rowCount;
+    private final int colCount;
+    private final int offset;
+    private final int rowStride;
+    private final int colStride;
+    private final double[] array;
+
+    public DMatrixStride(MType type, int rowCount, int colCount) {
+        this(type, rowCount, colCount, new double[checkedSize(rowCount, colCount)]);
+    }
+
+    /**
+     * Wraps an array of values stored in the order given by the matrix type.
+     */
+    public DMatrixStride(MType type, int rowCount, int colCount, double[] array) {
+        this(type, rowCount, colCount, 0,
+                type == MType.CDENSE ? 1 : colCount,
+                type == MType.CDENSE ? rowCount : 1,
+                array);
+    }
+
+    public DMatrixStride(MType type, int rowCount, int colCount, int offset, int rowStride, int colStride, double[] array) {
+        if (type != MType.RDENSE && type != MType.CDENSE) {
+            throw new IllegalArgumentException("Stride matrix type must be RDENSE or CDENSE.");
+        }
+        if (rowCount < 0 || colCount < 0 || offset < 0 || rowStride < 0 || colStride < 0) {
+            throw new IllegalArgumentException("Invalid stride matrix layout.");
+        }
+        if (rowCount > 0 && colCount > 0
+                && offset + (long) (rowCount - 1) * rowStride + (long) (colCount - 1) * colStride >= array.length) {
+            throw new IllegalArgumentException("Stride matrix layout exceeds the array length.");
+        }
+        this.type = type;
+        this.rowCount = rowCount;
+        this.colCount = colCount;
+        this.offset = offset;
+        this.rowStride = rowStride;
+        this.colStride = colStride;
+        this.array = array;
+    }
+
+    private static int checkedSize(int rowCount, int colCount) {
+        long size = (long) rowCount * colCount;
+        if (rowCount < 0 || colCount < 0 || size > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Matrix size does not fit into a single array.");
+        }
+        return (int) size;
+    }
+
+    @Override
+    public MType type() {
+        return type;
+    }
+
+    @Override
+    public MType innerType() {
+        return type;
+    }
+
+    @Override
+    public int rowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int colCount() {
+        return colCount;
+    }
+
+    public double[] getArray() {
+        return array;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getRowStride() {
+        return rowStride;
+    }
+
+    public int getColStride() {
+        return colStride;
+    }
+
+    /**
+     * @return true if the values are stored without gaps in the storage order of
+     * the matrix type, starting from offset
+     */
+    public boolean isPacked() {
+        return type == MType.RDENSE
+                ? (colStride == 1 || colCount <= 1) && (rowStride == colCount || rowCount <= 1)
+                : (rowStride == 1 || rowCount <= 1) && (colStride == rowCount || colCount <= 1);
+    }
+
+    private int majorCount() {
+        return type == MType.RDENSE ? rowCount : colCount;
+    }
+
+    private int minorCount() {
+        return type == MType.RDENSE ? colCount : rowCount;
+    }
+
+    private int majorStride() {
+        return type == MType.RDENSE ? rowStride : colStride;
+    }
+
+    private int minorStride() {
+        return type == MType.RDENSE ? colStride : rowStride;
+    }
+
+    @Override
+    public double get(int row, int col) {
+        return array[offset + row * rowStride + col * colStride];
+    }
+
+    @Override
+    public void set(int row, int col, double value) {
+        array[offset + row * rowStride + col * colStride] = value;
+    }
+
+    @Override
+    public void inc(int row, int col, double value) {
+        array[offset + row * rowStride + col * colStride] += value;
+    }
+
+    @Override
+    public DVector mapRow(int row) {
+        Objects.checkIndex(row, rowCount);
+        return new DVectorStride(colCount, offset + row * rowStride, colStride, array);
+    }
+
+    @Override
+    public DVector mapCol(int col) {
+        Objects.checkIndex(col, colCount);
+        return new DVectorStride(rowCount, offset + col * colStride, rowStride, array);
+    }
+
+    @Override
+    public DMatrix mapRows(int... indexes) {
+        if (indexes.length == 0) {
+            throw new IllegalArgumentException("Cannot map rows with empty indexes.");
+        }
+        int step = constantStep(indexes, rowCount);
+        if (step < 0) {
+            return super.mapRows(indexes);
+        }
+        return new DMatrixStride(type, indexes.length, colCount,
+                offset + indexes[0] * rowStride, rowStride * step, colStride, array);
+    }
+
+    @Override
+    public DMatrix rangeRows(int start, int end) {
+        Objects.checkFromToIndex(start, end, rowCount);
+        return new DMatrixStride(type, end - start, colCount, offset + start * rowStride, rowStride, colStride, array);
+    }
+
+    @Override
+    public DMatrix mapCols(int... indexes) {
+        if (indexes.length == 0) {
+            throw new IllegalArgumentException("Cannot map columns with empty indexes.");
+        }
+        int step = constantStep(indexes, colCount);
+        if (step < 0) {
+            return super.mapCols(indexes);
+        }
+        return new DMatrixStride(type, rowCount, indexes.length,
+                offset + indexes[0] * colStride, rowStride, colStride * step, array);
+    }
+
+    @Override
+    public DMatrix rangeCols(int start, int end) {
+        Objects.checkFromToIndex(start, end, colCount);
+        return new DMatrixStride(type, rowCount, end - start, offset + start * colStride, rowStride, colStride, array);
+    }
+
+    /**
+     * Returns the positive constant step between consecutive indexes, or -1 if
+     * the indexes are not increasing with a constant step and the selection
+     * cannot be described with strides.
+     */
+    private static int constantStep(int[] indexes, int len) {
+        Objects.checkIndex(indexes[0], len);
+        if (indexes.length == 1) {
+            return 1;
+        }
+        int step = indexes[1] - indexes[0];
+        if (step < 1) {
+            return -1;
+        }
+        for (int i = 2; i < indexes.length; i++) {
+            if (indexes[i] - indexes[i - 1] != step) {
+                return -1;
+            }
+        }
+        Objects.checkIndex(indexes[indexes.length - 1], len);
+        return step;
+    }
+
+    @Override
+    public DMatrix add(double x) {
+        int majors = majorCount();
+        int minors = minorCount();
+        int majorStride = majorStride();
+        int minorStride = minorStride();
+        for (int i = 0; i < majors; i++) {
+            for (int j = 0, p = offset + i * majorStride; j < minors; j++, p += minorStride) {
+                array[p] += x;
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public DMatrix sub(double x) {
+        return add(-x);
+    }
+
+    @Override
+    public DMatrix mult(double x) {
+        int majors = majorCount();
+        int minors = minorCount();
+        int majorStride = majorStride();
+        int minorStride = minorStride();
+        for (int i = 0; i < majors; i++) {
+            for (int j = 0, p = offset + i * majorStride; j < minors; j++, p += minorStride) {
+                array[p] *= x;
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public DMatrix div(double x) {
+        int majors = majorCount();
+        int minors = minorCount();
+        int majorStride = majorStride();
+        int minorStride = minorStride();
+        for (int i = 0; i < majors; i++) {
+            for (int j = 0, p = offset + i * majorStride; j < minors; j++, p += minorStride) {
+                array[p] /= x;
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public DMatrix apply(Double2DoubleFunction fun) {
+        int majors = majorCount();
+        int minors = minorCount();
+        int majorStride = majorStride();
+        int minorStride = minorStride();
+        for (int i = 0; i < majors; i++) {
+            for (int j = 0, p = offset + i * majorStride; j < minors; j++, p += minorStride) {
+                array[p] = fun.applyAsDouble(array[p]);
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public DVector dot(DVector b) {
+        if (colCount != b.size()) {
+            throw new IllegalArgumentException(
+                    String.format("Matrices not conformant for multiplication: (%d,%d) x (%d,%d)",
+                            rowCount, colCount, b.size(), 1));
+        }
+        double[] v;
+        if (b instanceof DVectorDense dense) {
+            v = dense.elements();
+        } else {
+            v = new double[b.size()];
+            for (int i = 0; i < v.length; i++) {
+                v[i] = b.get(i);
+            }
+        }
+        double[] c = new double[rowCount];
+        if ((long) rowCount * colCount < PARALLEL_WORK) {
+            for (int i = 0; i < rowCount; i++) {
+                c[i] = rowDot(i, v);
+            }
+        } else {
+            IntStream.range(0, rowCount).parallel().forEach(i -> c[i] = rowDot(i, v));
+        }
+        return new DVectorDense(c.length, c);
+    }
+
+    private double rowDot(int row, double[] v) {
+        if (colStride == 1) {
+            return DoubleArrays.dot(array, offset + row * rowStride, v, 0, colCount);
+        }
+        double sum = 0;
+        for (int j = 0, p = offset + row * rowStride; j < colCount; j++, p += colStride) {
+            sum += array[p] * v[j];
+        }
+        return sum;
+    }
+
+    @Override
+    public DMatrix dot(DMatrix B) {
+        if (B instanceof DMatrixSparse sparse && colCount == sparse.rowCount()) {
+            return sparse.leftDot(this);
+        }
+        if ((B instanceof DMatrixStride || B instanceof DMatrixDense) && colCount == B.rowCount()) {
+            return MatrixMultiplication.blocked(this, B);
+        }
+        return super.dot(B);
+    }
+
+    @Override
+    public DMatrix dotDiag(DVector v) {
+        if (colCount != v.size()) {
+            throw new IllegalArgumentException("Matrix and diagonal vector are " +
+                    "not compatible for multiplication.");
+        }
+        for (int j = 0; j < colCount; j++) {
+            double value = v.get(j);
+            for (int i = 0, p = offset + j * colStride; i < rowCount; i++, p += rowStride) {
+                array[p] *= value;
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public DMatrix dotDiagT(DVector v) {
+        if (rowCount != v.size()) {
+            throw new IllegalArgumentException("Matrix and diagonal vector are " +
+                    "not compatible for multiplication.");
+        }
+        for (int i = 0; i < rowCount; i++) {
+            double value = v.get(i);
+            for (int j = 0, p = offset + i * rowStride; j < colCount; j++, p += colStride) {
+                array[p] *= value;
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public DMatrix t() {
+        MType transposed = type == MType.RDENSE ? MType.CDENSE : MType.RDENSE;
+        return new DMatrixStride(transposed, colCount, rowCount, offset, colStride, rowStride, array);
+    }
+
+    @Override
+    public double sum() {
+        int majors = majorCount();
+        int minors = minorCount();
+        int majorStride = majorStride();
+        int minorStride = minorStride();
+        double sum = 0;
+        for (int i = 0; i < majors; i++) {
+            for (int j = 0, p = offset + i * majorStride; j < minors; j++, p += minorStride) {
+                sum += array[p];
+            }
+        }
+        return sum;
+    }
+
+    @Override
+    public DoubleStream valueStream() {
+        int minors = minorCount();
+        if (minors == 0) {
+            return DoubleStream.empty();
+        }
+        int majorStride = majorStride();
+        int minorStride = minorStride();
+        return IntStream.range(0, rowCount * colCount)
+                .mapToDouble(k -> array[offset + (k / minors) * majorStride + (k % minors) * minorStride]);
+    }
+
+    @Override
+    public DMatrixStride copy() {
+        double[] copy = new double[checkedSize(rowCount, colCount)];
+        if (isPacked()) {
+            System.arraycopy(array, offset, copy, 0, copy.length);
+        } else {
+            int majors = majorCount();
+            int minors = minorCount();
+            int majorStride = majorStride();
+            int minorStride = minorStride();
+            int pos = 0;
+            for (int i = 0; i < majors; i++) {
+                for (int j = 0, p = offset + i * majorStride; j < minors; j++, p += minorStride) {
+                    copy[pos++] = array[p];
+                }
+            }
+        }
+        return new DMatrixStride(type, rowCount, colCount, copy);
+    }
+}
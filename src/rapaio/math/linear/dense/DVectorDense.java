@@ -27,6 +27,7 @@ import rapaio.math.linear.DVector;
 import rapaio.math.linear.MType;
 import rapaio.math.linear.VType;
 import rapaio.math.linear.base.AbstractDVector;
+import rapaio.math.linear.sparse.DVectorSparse;
 import rapaio.util.collection.DoubleArrays;
 import rapaio.util.function.Double2DoubleFunction;
 
@@ -214,13 +215,11 @@ public class DVectorDense extends AbstractDVector {
     @Override
     public double dot(DVector b) {
         checkConformance(b);
+        if (b instanceof DVectorSparse sparse) {
+            return sparse.dot(this);
+        }
         if (b instanceof DVectorDense) {
-            double s = 0;
-            double[] bvalues = ((DVectorDense) b).elements();
-            for (int i = 0; i < size; i++) {
-                s = Math.fma(values[i], bvalues[i], s);
-            }
-            return s;
+            return DoubleArrays.dot(values, 0, ((DVectorDense) b).elements(), 0, size);
         }
         double s = 0;
         for (int i = 0; i < size; i++) {
@@ -0,0 +1,435 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright 2013 - 2021 Aurelian Tutuianu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package rapaio.math.linear.dense;
+
+import rapaio.data.VarDouble;
+import rapaio.math.linear.DMatrix;
+import rapaio.math.linear.DVector;
+import rapaio.math.linear.MType;
+import rapaio.math.linear.VType;
+import rapaio.math.linear.base.AbstractDVector;
+import rapaio.math.linear.sparse.DVectorSparse;
+import rapaio.util.function.Double2DoubleFunction;
+
+import java.io.Serial;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+
+/**
+ * Dense vector which is a view over equally spaced values of an array. Element {@code i}
+ * of the vector is stored at position {@code offset + i * stride} of the array.
+ * <p>
+ * This is the vector type returned for rows and columns of {@link DMatrixStride}, all the
+ * operations are applied directly on the shared array of the matrix.
+ *
+ * @author <a href="mailto:padreati@yahoo.com">Aurelian Tutuianu</a>
+ */
+public class DVectorStride extends AbstractDVector {
+
+    @Serial
+    private static final long serialVersionUID = -3172946302381517210L;
+
+    private final int size;
+    private final int offset;
+    private final int stride;
+    private final double[] array;
+
+    public DVectorStride(int size, int offset, int stride, double[] array) {
+        if (size < 0 || offset < 0 || stride < 1) {
+            throw new IllegalArgumentException("Invalid stride vector layout.");
+        }
+        if (size > 0 && offset + (long) (size - 1) * stride >= array.length) {
+            throw new IllegalArgumentException("Stride vector layout exceeds the array length.");
+        }
+        this.size = size;
+        this.offset = offset;
+        this.stride = stride;
+        this.array = array;
+    }
+
+    @Override
+    public VType type() {
+        return VType.STRIDE;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    public double[] getArray() {
+        return array;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getStride() {
+        return stride;
+    }
+
+    @Override
+    public double get(int i) {
+        return array[offset + i * stride];
+    }
+
+    @Override
+    public void set(int i, double value) {
+        array[offset + i * stride] = value;
+    }
+
+    @Override
+    public void inc(int i, double value) {
+        array[offset + i * stride] += value;
+    }
+
+    @Override
+    public DVectorDense mapCopy(int... indexes) {
+        double[] copy = new double[indexes.length];
+        for (int i = 0; i < indexes.length; i++) {
+            copy[i] = array[offset + indexes[i] * stride];
+        }
+        return new DVectorDense(copy.length, copy);
+    }
+
+    @Override
+    public DVectorDense copy() {
+        double[] copy = new double[size];
+        if (stride == 1) {
+            System.arraycopy(array, offset, copy, 0, size);
+        } else {
+            for (int i = 0, p = offset; i < size; i++, p += stride) {
+                copy[i] = array[p];
+            }
+        }
+        return new DVectorDense(size, copy);
+    }
+
+    @Override
+    public DVector add(double x) {
+        for (int i = 0, p = offset; i < size; i++, p += stride) {
+            array[p] += x;
+        }
+        return this;
+    }
+
+    @Override
+    public DVector add(DVector b) {
+        checkConformance(b);
+        for (int i = 0, p = offset; i < size; i++, p += stride) {
+            array[p] += b.get(i);
+        }
+        return this;
+    }
+
+    @Override
+    public DVector sub(double x) {
+        for (int i = 0, p = offset; i < size; i++, p += stride) {
+            array[p] -= x;
+        }
+        return this;
+    }
+
+    @Override
+    public DVector sub(DVector b) {
+        checkConformance(b);
+        for (int i = 0, p = offset; i < size; i++, p += stride) {
+            array[p] -= b.get(i);
+        }
+        return this;
+    }
+
+    @Override
+    public DVector mult(double scalar) {
+        for (int i = 0, p = offset; i < size; i++, p += stride) {
+            array[p] *= scalar;
+        }
+        return this;
+    }
+
+    @Override
+    public DVector mult(DVector b) {
+        checkConformance(b);
+        for (int i = 0, p = offset; i < size; i++, p += stride) {
+            array[p] *= b.get(i);
+        }
+        return this;
+    }
+
+    @Override
+    public DVector div(double scalar) {
+        for (int i = 0, p = offset; i < size; i++, p += stride) {
+            array[p] /= scalar;
+        }
+        return this;
+    }
+
+    @Override
+    public DVector div(DVector b) {
+        checkConformance(b);
+        for (int i = 0, p = offset; i < size; i++, p += stride) {
+            array[p] /= b.get(i);
+        }
+        return this;
+    }
+
+    @Override
+    public DVector axpyCopy(double a, DVector y) {
+        checkConformance(y);
+        double[] copy = new double[size];
+        for (int i = 0, p = offset; i < size; i++, p += stride) {
+            copy[i] = a * array[p] + y.get(i);
+        }
+        return new DVectorDense(copy.length, copy);
+    }
+
+    @Override
+    public DMatrix diagDot(MType type, DMatrix m) {
+        if (size != m.rowCount()) {
+            throw new IllegalArgumentException("Matrix not conform for multiplication.");
+        }
+        DMatrix result = DMatrix.empty(type, size, m.colCount());
+        for (int i = 0; i < m.rowCount(); i++) {
+            double value = get(i);
+            for (int j = 0; j < m.colCount(); j++) {
+                result.set(i, j, m.get(i, j) * value);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public double dotBilinear(DMatrix m, DVector y) {
+        if (m.rowCount() != size || m.colCount() != y.size()) {
+            throw new IllegalArgumentException("Bilinear matrix and vector are not conform for multiplication.");
+        }
+        double sum = 0.0;
+        for (int i = 0; i < size; i++) {
+            double value = get(i);
+            for (int j = 0; j < y.size(); j++) {
+                sum += value * m.get(i, j) * y.get(j);
+            }
+        }
+        return sum;
+    }
+
+    @Override
+    public double dotBilinear(DMatrix m) {
+        if (m.rowCount() != size || m.colCount() != size) {
+            throw new IllegalArgumentException("Bilinear matrix is not conform for multiplication.");
+        }
+        double sum = 0.0;
+        for (int i = 0; i < size; i++) {
+            double value = get(i);
+            for (int j = 0; j < size; j++) {
+                sum += value * m.get(i, j) * get(j);
+            }
+        }
+        return sum;
+    }
+
+    @Override
+    public double dot(DVector b) {
+        checkConformance(b);
+        if (b instanceof DVectorSparse sparse) {
+            return sparse.dot(this);
+        }
+        double s = 0;
+        if (b instanceof DVectorDense dense) {
+            double[] bvalues = dense.elements();
+            for (int i = 0, p = offset; i < size; i++, p += stride) {
+                s = Math.fma(array[p], bvalues[i], s);
+            }
+            return s;
+        }
+        if (b instanceof DVectorStride bs) {
+            for (int i = 0, p = offset, q = bs.offset; i < size; i++, p += stride, q += bs.stride) {
+                s = Math.fma(array[p], bs.array[q], s);
+            }
+            return s;
+        }
+        for (int i = 0, p = offset; i < size; i++, p += stride) {
+            s = Math.fma(array[p], b.get(i), s);
+        }
+        return s;
+    }
+
+    @Override
+    public double norm(double p) {
+        if (p <= 0) {
+            return size;
+        }
+        if (p == Double.POSITIVE_INFINITY) {
+            double max = Double.NaN;
+            for (int i = 0; i < size; i++) {
+                double value = get(i);
+                if (Double.isNaN(max)) {
+                    max = value;
+                } else {
+                    max = Math.max(max, value);
+                }
+            }
+            return max;
+        }
+        double s = 0.0;
+        for (int i = 0; i < size; i++) {
+            s += Math.pow(Math.abs(get(i)), p);
+        }
+        return Math.pow(s, 1.0 / p);
+    }
+
+    @Override
+    public double sum() {
+        double sum = 0;
+        for (int i = 0, p = offset; i < size; i++, p += stride) {
+            sum += array[p];
+        }
+        return sum;
+    }
+
+    @Override
+    public double nansum() {
+        double nansum = 0;
+        for (int i = 0, p = offset; i < size; i++, p += stride) {
+            if (!Double.isNaN(array[p])) {
+                nansum += array[p];
+            }
+        }
+        return nansum;
+    }
+
+    @Override
+    public DVector cumsum() {
+        for (int i = 1, p = offset + stride; i < size; i++, p += stride) {
+            array[p] += array[p - stride];
+        }
+        return this;
+    }
+
+    @Override
+    public double prod() {
+        double prod = 1;
+        for (int i = 0, p = offset; i < size; i++, p += stride) {
+            prod *= array[p];
+        }
+        return prod;
+    }
+
+    @Override
+    public double nanprod() {
+        double nanprod = 1;
+        for (int i = 0, p = offset; i < size; i++, p += stride) {
+            if (!Double.isNaN(array[p])) {
+                nanprod *= array[p];
+            }
+        }
+        return nanprod;
+    }
+
+    @Override
+    public DVector cumprod() {
+        for (int i = 1, p = offset + stride; i < size; i++, p += stride) {
+            array[p] *= array[p - stride];
+        }
+        return this;
+    }
+
+    @Override
+    public int nancount() {
+        int nancount = 0;
+        for (int i = 0, p = offset; i < size; i++, p += stride) {
+            if (!Double.isNaN(array[p])) {
+                nancount++;
+            }
+        }
+        return nancount;
+    }
+
+    @Override
+    public double mean() {
+        return sum() / size;
+    }
+
+    @Override
+    public double nanmean() {
+        return nansum() / nancount();
+    }
+
+    @Override
+    public double variance() {
+        if (size == 0) {
+            return Double.NaN;
+        }
+        double mean = mean();
+        double sum2 = 0;
+        double sum3 = 0;
+        for (int i = 0, p = offset; i < size; i++, p += stride) {
+            double delta = array[p] - mean;
+            sum2 += delta * delta;
+            sum3 += delta;
+        }
+        return (sum2 - sum3 * sum3 / size) / (size - 1.0);
+    }
+
+    @Override
+    public double nanvariance() {
+        int completeCount = nancount();
+        if (completeCount == 0) {
+            return Double.NaN;
+        }
+        double mean = nanmean();
+        double sum2 = 0;
+        double sum3 = 0;
+        for (int i = 0, p = offset; i < size; i++, p += stride) {
+            if (Double.isNaN(array[p])) {
+                continue;
+            }
+            double delta = array[p] - mean;
+            sum2 += delta * delta;
+            sum3 += delta;
+        }
+        return (sum2 - sum3 * sum3 / completeCount) / (completeCount - 1.0);
+    }
+
+    @Override
+    public DVector apply(Double2DoubleFunction f) {
+        for (int i = 0, p = offset; i < size; i++, p += stride) {
+            array[p] = f.applyAsDouble(array[p]);
+        }
+        return this;
+    }
+
+    @Override
+    public DoubleStream valueStream() {
+        return IntStream.range(0, size).mapToDouble(i -> array[offset + i * stride]);
+    }
+
+    @Override
+    public VarDouble asVarDouble() {
+        if (offset == 0 && stride == 1) {
+            return VarDouble.wrapArray(size, array);
+        }
+        double[] copy = copy().elements();
+        return VarDouble.wrapArray(copy.length, copy);
+    }
+}
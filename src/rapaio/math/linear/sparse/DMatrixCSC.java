@@ -0,0 +1,69 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright 2013 - 2021 Aurelian Tutuianu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package rapaio.math.linear.sparse;
+
+import rapaio.math.linear.DMatrix;
+import rapaio.math.linear.MType;
+
+import java.io.Serial;
+
+/**
+ * Sparse matrix in compressed sparse column storage. For each column the pointers delimit
+ * the row indexes and the values of the non zero elements, sorted by row index.
+ * <p>
+ * This storage is appropriate for column access and it is the layout of a transposed
+ * compressed sparse row matrix.
+ *
+ * @author <a href="mailto:padreati@yahoo.com">Aurelian Tutuianu</a>
+ */
+public class DMatrixCSC extends DMatrixSparse {
+
+    @Serial
+    private static final long serialVersionUID = 4718851702386614357L;
+
+    public DMatrixCSC(int rowCount, int colCount) {
+        this(rowCount, colCount, new int[colCount + 1], new int[0], new double[0]);
+    }
+
+    /**
+     * Builds a matrix which wraps the given compressed sparse column arrays.
+     *
+     * @param rowCount number of rows
+     * @param colCount number of columns
+     * @param pointers start position of each column, followed by the number of non zero elements
+     * @param indexes  row indexes of non zero elements, sorted for each column
+     * @param values   values of non zero elements
+     */
+    public DMatrixCSC(int rowCount, int colCount, int[] pointers, int[] indexes, double[] values) {
+        this(rowCount, colCount, new Storage(pointers, indexes, values));
+    }
+
+    DMatrixCSC(int rowCount, int colCount, Storage storage) {
+        super(MType.CSC, rowCount, colCount, storage);
+    }
+
+    @Override
+    public DMatrix t() {
+        return new DMatrixCSR(colCount, rowCount, storage);
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright 2013 - 2021 Aurelian Tutuianu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package rapaio.math.linear.sparse;
+
+import rapaio.math.linear.DMatrix;
+import rapaio.math.linear.MType;
+
+import java.io.Serial;
+
+/**
+ * Sparse matrix in compressed sparse row storage. For each row the pointers delimit
+ * the column indexes and the values of the non zero elements, sorted by column index.
+ * <p>
+ * This storage is appropriate for row access and for products with a matrix or vector
+ * on the right side.
+ *
+ * @author <a href="mailto:padreati@yahoo.com">Aurelian Tutuianu</a>
+ */
+public class DMatrixCSR extends DMatrixSparse {
+
+    @Serial
+    private static final long serialVersionUID = -6317208413567291283L;
+
+    public DMatrixCSR(int rowCount, int colCount) {
+        this(rowCount, colCount, new int[rowCount + 1], new int[0], new double[0]);
+    }
+
+    /**
+     * Builds a matrix which wraps the given compressed sparse row arrays.
+     *
+     * @param rowCount number of rows
+     * @param colCount number of columns
+     * @param pointers start position of each row, followed by the number of non zero elements
+     * @param indexes  column indexes of non zero elements, sorted for each row
+     * @param values   values of non zero elements
+     */
+    public DMatrixCSR(int rowCount, int colCount, int[] pointers, int[] indexes, double[] values) {
+        this(rowCount, colCount, new Storage(pointers, indexes, values));
+    }
+
+    DMatrixCSR(int rowCount, int colCount, Storage storage) {
+        super(MType.CSR, rowCount, colCount, storage);
+    }
+
+    @Override
+    public DMatrix t() {
+        return new DMatrixCSC(colCount, rowCount, storage);
+    }
+}
@@ -0,0 +1,814 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright 2013 - 2021 Aurelian Tutuianu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package rapaio.math.linear.sparse;
+
+import rapaio.math.linear.DMatrix;
+import rapaio.math.linear.DVector;
+import rapaio.math.linear.MType;
+import rapaio.math.linear.base.AbstractDMatrix;
+import rapaio.math.linear.dense.DMatrixDenseR;
+import rapaio.math.linear.dense.DMatrixStride;
+import rapaio.math.linear.dense.DVectorDense;
+import rapaio.util.function.Double2DoubleFunction;
+import rapaio.util.function.IntInt2DoubleBiFunction;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoublePredicate;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+
+/**
+ * Sparse matrix which stores only the non zero elements in compressed form.
+ * <p>
+ * Elements are grouped in major lines, which are the rows for compressed sparse row
+ * storage ({@link MType#CSR}) and the columns for compressed sparse column storage
+ * ({@link MType#CSC}). The elements of a major line are stored sorted by their minor index
+ * in a slice of the index and value arrays, slice which is delimited by pointers.
+ * <p>
+ * Elements which are not stored are exact zeros. Setting a non zero value on a zero element
+ * inserts it into storage, which takes time linear in the number of stored elements, thus
+ * matrices are best built in major order or with {@link #copy(MType, int, int, IntInt2DoubleBiFunction)}.
+ * Operations which change the zero elements, like adding a non zero scalar, store all the elements
+ * of the matrix. Element wise products and products with diagonal matrices keep the zero elements.
+ * <p>
+ * Matrix products, scatter matrix, transposition and row or column copies use only the stored
+ * elements. Products build dense row matrices. The transposed matrix is a view which shares the
+ * storage with the original matrix. Mapped rows or columns are copies: sparse vectors along the
+ * major lines and dense vectors along the minor lines.
+ *
+ * @author <a href="mailto:padreati@yahoo.com">Aurelian Tutuianu</a>
+ */
+public abstract class DMatrixSparse extends AbstractDMatrix {
+
+    /**
+     * Builds a sparse matrix from the non zero values of a function.
+     *
+     * @param type sparse storage type, {@link MType#CSR} or {@link MType#CSC}
+     * @param rows number of rows
+     * @param cols number of columns
+     * @param fun  function which computes a value given row and column positions
+     * @return new sparse matrix
+     */
+    public static DMatrixSparse copy(MType type, int rows, int cols, IntInt2DoubleBiFunction fun) {
+        if (type != MType.CSR && type != MType.CSC) {
+            throw new IllegalArgumentException("Matrix type is not a sparse type: " + type.name());
+        }
+        boolean byRows = type == MType.CSR;
+        int majors = byRows ? rows : cols;
+        int minors = byRows ? cols : rows;
+        int[] pointers = new int[majors + 1];
+        int[] indexes = new int[16];
+        double[] values = new double[16];
+        int nnz = 0;
+        for (int i = 0; i < majors; i++) {
+            for (int j = 0; j < minors; j++) {
+                double value = byRows ? fun.applyIntIntAsDouble(i, j) : fun.applyIntIntAsDouble(j, i);
+                if (value == 0) {
+                    continue;
+                }
+                if (nnz == indexes.length) {
+                    indexes = Arrays.copyOf(indexes, nnz * 2);
+                    values = Arrays.copyOf(values, nnz * 2);
+                }
+                indexes[nnz] = j;
+                values[nnz] = value;
+                nnz++;
+            }
+            pointers[i + 1] = nnz;
+        }
+        return create(type, rows, cols, new Storage(pointers, indexes, values));
+    }
+
+    static DMatrixSparse create(MType type, int rows, int cols, Storage storage) {
+        return type == MType.CSR ? new DMatrixCSR(rows, cols, storage) : new DMatrixCSC(rows, cols, storage);
+    }
+
+    @Serial
+    private static final long serialVersionUID = 2958172468311856413L;
+
+    // minimum number of multiplications for parallel products
+    private static final int PARALLEL_WORK = 1 << 16;
+
+    /**
+     * Storage of a sparse matrix, shared by a matrix and its transposed view.
+     */
+    protected static final class Storage implements Serializable {
+
+        @Serial
+        private static final long serialVersionUID = -4153410985117592652L;
+
+        private final int[] pointers;
+        private int[] indexes;
+        private double[] values;
+
+        Storage(int[] pointers, int[] indexes, double[] values) {
+            if (indexes.length != values.length || indexes.length < pointers[pointers.length - 1]) {
+                throw new IllegalArgumentException("Sparse storage arrays are not consistent.");
+            }
+            this.pointers = pointers;
+            this.indexes = indexes;
+            this.values = values;
+        }
+
+        int nnz() {
+            return pointers[pointers.length - 1];
+        }
+    }
+
+    protected final MType type;
+    protected final int rowCount;
+    protected final int colCount;
+    protected final boolean byRows;
+    protected final Storage storage;
+
+    protected DMatrixSparse(MType type, int rowCount, int colCount, Storage storage) {
+        this.type = type;
+        this.rowCount = rowCount;
+        this.colCount = colCount;
+        this.byRows = type == MType.CSR;
+        this.storage = storage;
+        if (storage.pointers.length != majorCount() + 1) {
+            throw new IllegalArgumentException("Sparse storage pointers are not consistent with matrix size.");
+        }
+    }
+
+    @Override
+    public MType type() {
+        return type;
+    }
+
+    @Override
+    public MType innerType() {
+        return type;
+    }
+
+    @Override
+    public int rowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int colCount() {
+        return colCount;
+    }
+
+    /**
+     * @return number of stored elements
+     */
+    public int nnz() {
+        return storage.nnz();
+    }
+
+    /**
+     * @return start positions of major lines, followed by the number of stored elements
+     */
+    public int[] getPointers() {
+        return storage.pointers;
+    }
+
+    /**
+     * @return minor indexes of stored elements, valid up to {@link #nnz()}
+     */
+    public int[] getIndexes() {
+        return storage.indexes;
+    }
+
+    /**
+     * @return values of stored elements, valid up to {@link #nnz()}
+     */
+    public double[] getValues() {
+        return storage.values;
+    }
+
+    private int majorCount() {
+        return byRows ? rowCount : colCount;
+    }
+
+    private int minorCount() {
+        return byRows ? colCount : rowCount;
+    }
+
+    private int position(int major, int minor) {
+        return Arrays.binarySearch(storage.indexes, storage.pointers[major], storage.pointers[major + 1], minor);
+    }
+
+    @Override
+    public double get(int row, int col) {
+        int pos = byRows ? position(row, col) : position(col, row);
+        return pos >= 0 ? storage.values[pos] : 0;
+    }
+
+    @Override
+    public void set(int row, int col, double value) {
+        int major = byRows ? row : col;
+        int minor = byRows ? col : row;
+        int pos = position(major, minor);
+        if (pos >= 0) {
+            storage.values[pos] = value;
+        } else if (value != 0) {
+            insert(major, -pos - 1, minor, value);
+        }
+    }
+
+    @Override
+    public void inc(int row, int col, double value) {
+        int major = byRows ? row : col;
+        int minor = byRows ? col : row;
+        int pos = position(major, minor);
+        if (pos >= 0) {
+            storage.values[pos] += value;
+        } else if (value != 0) {
+            insert(major, -pos - 1, minor, value);
+        }
+    }
+
+    private void insert(int major, int pos, int minor, double value) {
+        int nnz = storage.nnz();
+        if (nnz == storage.indexes.length) {
+            int capacity = Math.max(8, nnz + (nnz >> 1));
+            storage.indexes = Arrays.copyOf(storage.indexes, capacity);
+            storage.values = Arrays.copyOf(storage.values, capacity);
+        }
+        System.arraycopy(storage.indexes, pos, storage.indexes, pos + 1, nnz - pos);
+        System.arraycopy(storage.values, pos, storage.values, pos + 1, nnz - pos);
+        storage.indexes[pos] = minor;
+        storage.values[pos] = value;
+        for (int i = major + 1; i < storage.pointers.length; i++) {
+            storage.pointers[i]++;
+        }
+    }
+
+    /**
+     * Stores explicitly all the elements of the matrix, before an operation which changes zero elements.
+     */
+    private void fillPattern() {
+        int majors = majorCount();
+        int minors = minorCount();
+        long size = (long) majors * minors;
+        if (storage.nnz() == size) {
+            return;
+        }
+        if (size > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("Matrix has too many elements to be stored explicitly.");
+        }
+        int[] pointers = storage.pointers;
+        int[] indexes = new int[(int) size];
+        double[] values = new double[(int) size];
+        for (int i = 0; i < majors; i++) {
+            int start = i * minors;
+            for (int j = 0; j < minors; j++) {
+                indexes[start + j] = j;
+            }
+            for (int q = pointers[i]; q < pointers[i + 1]; q++) {
+                values[start + storage.indexes[q]] = storage.values[q];
+            }
+        }
+        for (int i = 0; i <= majors; i++) {
+            pointers[i] = i * minors;
+        }
+        storage.indexes = indexes;
+        storage.values = values;
+    }
+
+    /**
+     * Builds the storage of the same matrix with the other compressed layout.
+     */
+    private Storage transposeStorage() {
+        int majors = majorCount();
+        int minors = minorCount();
+        int nnz = storage.nnz();
+        int[] pointers = new int[minors + 1];
+        for (int q = 0; q < nnz; q++) {
+            pointers[storage.indexes[q] + 1]++;
+        }
+        for (int i = 0; i < minors; i++) {
+            pointers[i + 1] += pointers[i];
+        }
+        int[] next = Arrays.copyOf(pointers, minors);
+        int[] indexes = new int[nnz];
+        double[] values = new double[nnz];
+        for (int i = 0; i < majors; i++) {
+            for (int q = storage.pointers[i]; q < storage.pointers[i + 1]; q++) {
+                int pos = next[storage.indexes[q]]++;
+                indexes[pos] = i;
+                values[pos] = storage.values[q];
+            }
+        }
+        return new Storage(pointers, indexes, values);
+    }
+
+    /**
+     * @return the same matrix in compressed sparse row storage
+     */
+    public DMatrixCSR toCSR() {
+        if (this instanceof DMatrixCSR csr) {
+            return csr;
+        }
+        return new DMatrixCSR(rowCount, colCount, transposeStorage());
+    }
+
+    /**
+     * @return the same matrix in compressed sparse column storage
+     */
+    public DMatrixCSC toCSC() {
+        if (this instanceof DMatrixCSC csc) {
+            return csc;
+        }
+        return new DMatrixCSC(rowCount, colCount, transposeStorage());
+    }
+
+    private DMatrixSparse selectMajors(int[] majors) {
+        int[] pointers = new int[majors.length + 1];
+        for (int i = 0; i < majors.length; i++) {
+            pointers[i + 1] = pointers[i] + storage.pointers[majors[i] + 1] - storage.pointers[majors[i]];
+        }
+        int[] indexes = new int[pointers[majors.length]];
+        double[] values = new double[pointers[majors.length]];
+        for (int i = 0; i < majors.length; i++) {
+            int start = storage.pointers[majors[i]];
+            int len = storage.pointers[majors[i] + 1] - start;
+            System.arraycopy(storage.indexes, start, indexes, pointers[i], len);
+            System.arraycopy(storage.values, start, values, pointers[i], len);
+        }
+        return byRows
+                ? new DMatrixCSR(majors.length, colCount, new Storage(pointers, indexes, values))
+                : new DMatrixCSC(rowCount, majors.length, new Storage(pointers, indexes, values));
+    }
+
+    private DVectorSparse majorVector(int major) {
+        int start = storage.pointers[major];
+        int end = storage.pointers[major + 1];
+        return new DVectorSparse(minorCount(),
+                Arrays.copyOfRange(storage.indexes, start, end),
+                Arrays.copyOfRange(storage.values, start, end));
+    }
+
+    private static int[] sequence(int start, int end) {
+        int[] seq = new int[end - start];
+        for (int i = start; i < end; i++) {
+            seq[i - start] = i;
+        }
+        return seq;
+    }
+
+    @Override
+    public DVector mapRow(int row) {
+        return byRows ? majorVector(row) : super.mapRow(row);
+    }
+
+    @Override
+    public DVector mapCol(int col) {
+        return byRows ? super.mapCol(col) : majorVector(col);
+    }
+
+    @Override
+    public DMatrix mapRowsCopy(int... rows) {
+        return byRows ? selectMajors(rows) : ((DMatrixSparse) toCSR()).selectMajors(rows);
+    }
+
+    @Override
+    public DMatrix rangeRowsCopy(int start, int end) {
+        return mapRowsCopy(sequence(start, end));
+    }
+
+    @Override
+    public DMatrix mapColsCopy(int... cols) {
+        return byRows ? ((DMatrixSparse) toCSC()).selectMajors(cols) : selectMajors(cols);
+    }
+
+    @Override
+    public DMatrix rangeColsCopy(int start, int end) {
+        return mapColsCopy(sequence(start, end));
+    }
+
+    @Override
+    public DMatrix add(double x) {
+        if (x != 0) {
+            fillPattern();
+            for (int q = 0; q < storage.nnz(); q++) {
+                storage.values[q] += x;
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public DMatrix mult(double x) {
+        if (!Double.isFinite(x)) {
+            fillPattern();
+        }
+        for (int q = 0; q < storage.nnz(); q++) {
+            storage.values[q] *= x;
+        }
+        return this;
+    }
+
+    @Override
+    public DMatrix div(double x) {
+        if (x == 0 || Double.isNaN(x)) {
+            fillPattern();
+        }
+        for (int q = 0; q < storage.nnz(); q++) {
+            storage.values[q] /= x;
+        }
+        return this;
+    }
+
+    @Override
+    public DMatrix add(DVector x, int axis) {
+        return updateAxis(x, axis, v -> v != 0, Double::sum);
+    }
+
+    @Override
+    public DMatrix sub(DVector x, int axis) {
+        return updateAxis(x, axis, v -> v != 0, (a, b) -> a - b);
+    }
+
+    @Override
+    public DMatrix mult(DVector x, int axis) {
+        return updateAxis(x, axis, v -> !Double.isFinite(v), (a, b) -> a * b);
+    }
+
+    @Override
+    public DMatrix div(DVector x, int axis) {
+        return updateAxis(x, axis, v -> v == 0 || Double.isNaN(v), (a, b) -> a / b);
+    }
+
+    private DMatrix updateAxis(DVector x, int axis, DoublePredicate changesZero, DoubleBinaryOperator op) {
+        if (axis == 0 && x.size() != colCount) {
+            throw new IllegalArgumentException("Vector has different size then the number of columns.");
+        }
+        if (axis != 0 && x.size() != rowCount) {
+            throw new IllegalArgumentException("Vector has different size than the number of rows.");
+        }
+        for (int i = 0; i < x.size(); i++) {
+            if (changesZero.test(x.get(i))) {
+                fillPattern();
+                break;
+            }
+        }
+        // vector values are aligned with major lines or with minor indexes
+        boolean onMajor = byRows == (axis != 0);
+        for (int i = 0; i < majorCount(); i++) {
+            for (int q = storage.pointers[i]; q < storage.pointers[i + 1]; q++) {
+                double value = x.get(onMajor ? i : storage.indexes[q]);
+                storage.values[q] = op.applyAsDouble(storage.values[q], value);
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public DMatrix add(DMatrix b) {
+        checkMatrixSameSize(b);
+        if (b instanceof DMatrixSparse sparse) {
+            return merge(sparse, Double::sum);
+        }
+        return super.add(b);
+    }
+
+    @Override
+    public DMatrix sub(DMatrix b) {
+        checkMatrixSameSize(b);
+        if (b instanceof DMatrixSparse sparse) {
+            return merge(sparse, (x, y) -> x - y);
+        }
+        return super.sub(b);
+    }
+
+    /**
+     * Combines stored elements of both matrices into this matrix. The stored elements
+     * of the result are the union of the stored elements.
+     */
+    private DMatrix merge(DMatrixSparse b, DoubleBinaryOperator op) {
+        Storage other = b.byRows == byRows ? b.storage : b.transposeStorage();
+        int majors = majorCount();
+        int[] pointers = new int[majors + 1];
+        int[] indexes = new int[storage.nnz() + other.nnz()];
+        double[] values = new double[indexes.length];
+        int pos = 0;
+        for (int i = 0; i < majors; i++) {
+            int p = storage.pointers[i];
+            int pEnd = storage.pointers[i + 1];
+            int q = other.pointers[i];
+            int qEnd = other.pointers[i + 1];
+            while (p < pEnd || q < qEnd) {
+                int pi = p < pEnd ? storage.indexes[p] : Integer.MAX_VALUE;
+                int qi = q < qEnd ? other.indexes[q] : Integer.MAX_VALUE;
+                if (pi == qi) {
+                    indexes[pos] = pi;
+                    values[pos++] = op.applyAsDouble(storage.values[p++], other.values[q++]);
+                } else if (pi < qi) {
+                    indexes[pos] = pi;
+                    values[pos++] = op.applyAsDouble(storage.values[p++], 0);
+                } else {
+                    indexes[pos] = qi;
+                    values[pos++] = op.applyAsDouble(0, other.values[q++]);
+                }
+            }
+            pointers[i + 1] = pos;
+        }
+        System.arraycopy(pointers, 0, storage.pointers, 0, pointers.length);
+        storage.indexes = indexes;
+        storage.values = values;
+        return this;
+    }
+
+    /**
+     * Multiplies element wise the stored elements, zero elements remain zero.
+     */
+    @Override
+    public DMatrix mult(DMatrix b) {
+        checkMatrixSameSize(b);
+        for (int i = 0; i < majorCount(); i++) {
+            for (int q = storage.pointers[i]; q < storage.pointers[i + 1]; q++) {
+                int j = storage.indexes[q];
+                storage.values[q] *= byRows ? b.get(i, j) : b.get(j, i);
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public DMatrix apply(Double2DoubleFunction fun) {
+        if (fun.applyAsDouble(0) != 0) {
+            fillPattern();
+        }
+        for (int q = 0; q < storage.nnz(); q++) {
+            storage.values[q] = fun.applyAsDouble(storage.values[q]);
+        }
+        return this;
+    }
+
+    @Override
+    public DVector dot(DVector b) {
+        if (colCount != b.size()) {
+            throw new IllegalArgumentException(
+                    String.format("Matrices not conformant for multiplication: (%d,%d) x (%d,%d)",
+                            rowCount, colCount, b.size(), 1));
+        }
+        double[] x = denseValues(b);
+        double[] c = new double[rowCount];
+        int[] pointers = storage.pointers;
+        int[] indexes = storage.indexes;
+        double[] values = storage.values;
+        if (byRows) {
+            IntStream rows = IntStream.range(0, rowCount);
+            if (storage.nnz() >= PARALLEL_WORK) {
+                rows = rows.parallel();
+            }
+            rows.forEach(i -> {
+                double sum = 0;
+                for (int q = pointers[i]; q < pointers[i + 1]; q++) {
+                    sum += values[q] * x[indexes[q]];
+                }
+                c[i] = sum;
+            });
+        } else {
+            for (int j = 0; j < colCount; j++) {
+                double xj = x[j];
+                for (int q = pointers[j]; q < pointers[j + 1]; q++) {
+                    c[indexes[q]] += values[q] * xj;
+                }
+            }
+        }
+        return DVector.wrap(c);
+    }
+
+    @Override
+    public DMatrix dot(DMatrix b) {
+        if (colCount != b.rowCount()) {
+            throw new IllegalArgumentException(
+                    String.format("Matrices not conformant for multiplication: (%d,%d) x (%d,%d)",
+                            rowCount, colCount, b.rowCount(), b.colCount()));
+        }
+        Storage left = byRows ? storage : transposeStorage();
+        int cols = b.colCount();
+        double[][] c = new double[rowCount][cols];
+        IntStream rows = IntStream.range(0, rowCount);
+        if (b instanceof DMatrixSparse sparse) {
+            Storage right = sparse.byRows ? sparse.storage : sparse.transposeStorage();
+            if ((long) left.nnz() * Math.max(1, right.nnz() / Math.max(1, b.rowCount())) >= PARALLEL_WORK) {
+                rows = rows.parallel();
+            }
+            rows.forEach(i -> {
+                double[] ci = c[i];
+                for (int p = left.pointers[i]; p < left.pointers[i + 1]; p++) {
+                    double a = left.values[p];
+                    int k = left.indexes[p];
+                    for (int q = right.pointers[k]; q < right.pointers[k + 1]; q++) {
+                        ci[right.indexes[q]] += a * right.values[q];
+                    }
+                }
+            });
+        } else {
+            DenseRows bRows = denseRows(b);
+            if ((long) left.nnz() * cols >= PARALLEL_WORK) {
+                rows = rows.parallel();
+            }
+            rows.forEach(i -> {
+                double[] ci = c[i];
+                for (int p = left.pointers[i]; p < left.pointers[i + 1]; p++) {
+                    double a = left.values[p];
+                    int k = left.indexes[p];
+                    double[] bk = bRows.array(k);
+                    int start = bRows.start(k);
+                    for (int j = 0; j < cols; j++) {
+                        ci[j] += a * bk[start + j];
+                    }
+                }
+            });
+        }
+        return new DMatrixDenseR(rowCount, cols, c);
+    }
+
+    /**
+     * Computes the matrix product between a matrix and this sparse matrix.
+     *
+     * @param a left matrix
+     * @return dense row matrix with the result of a * this
+     */
+    public DMatrix leftDot(DMatrix a) {
+        if (a.colCount() != rowCount) {
+            throw new IllegalArgumentException(
+                    String.format("Matrices not conformant for multiplication: (%d,%d) x (%d,%d)",
+                            a.rowCount(), a.colCount(), rowCount, colCount));
+        }
+        Storage right = byRows ? storage : transposeStorage();
+        DenseRows aRows = denseRows(a);
+        double[][] c = new double[a.rowCount()][colCount];
+        IntStream rows = IntStream.range(0, a.rowCount());
+        if ((long) a.rowCount() * right.nnz() >= PARALLEL_WORK) {
+            rows = rows.parallel();
+        }
+        rows.forEach(i -> {
+            double[] ai = aRows.array(i);
+            int start = aRows.start(i);
+            double[] ci = c[i];
+            for (int k = 0; k < rowCount; k++) {
+                double aik = ai[start + k];
+                if (aik == 0) {
+                    continue;
+                }
+                for (int q = right.pointers[k]; q < right.pointers[k + 1]; q++) {
+                    ci[right.indexes[q]] += aik * right.values[q];
+                }
+            }
+        });
+        return new DMatrixDenseR(a.rowCount(), colCount, c);
+    }
+
+    private static double[] denseValues(DVector v) {
+        if (v instanceof DVectorDense dense) {
+            return dense.elements();
+        }
+        double[] values = new double[v.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = v.get(i);
+        }
+        return values;
+    }
+
+    /**
+     * Gives access to the rows of a dense matrix. Dense row matrices and stride matrices
+     * with contiguous rows are read directly from their storage, other matrices are copied.
+     */
+    static DenseRows denseRows(DMatrix m) {
+        if (m instanceof DMatrixDenseR dense) {
+            return new DenseRows(dense.getElements(), null, 0, 0);
+        }
+        if (m instanceof DMatrixStride stride && (stride.getColStride() == 1 || m.colCount() <= 1)) {
+            return new DenseRows(null, stride.getArray(), stride.getOffset(), stride.getRowStride());
+        }
+        double[][] rows = new double[m.rowCount()][m.colCount()];
+        for (int i = 0; i < rows.length; i++) {
+            for (int j = 0; j < rows[i].length; j++) {
+                rows[i][j] = m.get(i, j);
+            }
+        }
+        return new DenseRows(rows, null, 0, 0);
+    }
+
+    /**
+     * Rows of a dense matrix, either as separate arrays or as a single array with row stride.
+     * Row {@code i} starts at position {@link #start(int)} of array {@link #array(int)}.
+     */
+    record DenseRows(double[][] rows, double[] values, int offset, int rowStride) {
+
+        double[] array(int i) {
+            return rows == null ? values : rows[i];
+        }
+
+        int start(int i) {
+            return rows == null ? offset + i * rowStride : 0;
+        }
+    }
+
+    @Override
+    public DMatrix dotDiag(DVector v) {
+        if (colCount != v.size()) {
+            throw new IllegalArgumentException("Matrix and diagonal vector are " +
+                    "not compatible for multiplication.");
+        }
+        return mult(v, 0);
+    }
+
+    @Override
+    public DMatrix dotDiagT(DVector v) {
+        if (rowCount != v.size()) {
+            throw new IllegalArgumentException("Matrix and diagonal vector are " +
+                    "not compatible for multiplication.");
+        }
+        return mult(v, 1);
+    }
+
+    /**
+     * Computes the scatter matrix from the sum of products of stored elements, centered with the column means.
+     */
+    @Override
+    public DMatrix scatter() {
+        Storage rows = byRows ? storage : transposeStorage();
+        double[] mean = new double[colCount];
+        for (int q = 0; q < rows.nnz(); q++) {
+            mean[rows.indexes[q]] += rows.values[q];
+        }
+        for (int j = 0; j < colCount; j++) {
+            mean[j] /= rowCount;
+        }
+        double[][] s = new double[colCount][colCount];
+        for (int i = 0; i < rowCount; i++) {
+            for (int p = rows.pointers[i]; p < rows.pointers[i + 1]; p++) {
+                double a = rows.values[p];
+                double[] sa = s[rows.indexes[p]];
+                for (int q = rows.pointers[i]; q < rows.pointers[i + 1]; q++) {
+                    sa[rows.indexes[q]] += a * rows.values[q];
+                }
+            }
+        }
+        for (int i = 0; i < colCount; i++) {
+            for (int j = 0; j < colCount; j++) {
+                s[i][j] -= rowCount * mean[i] * mean[j];
+            }
+        }
+        return new DMatrixDenseR(colCount, colCount, s);
+    }
+
+    @Override
+    public double sum() {
+        double sum = 0;
+        for (int q = 0; q < storage.nnz(); q++) {
+            sum += storage.values[q];
+        }
+        return sum;
+    }
+
+    @Override
+    public DVector sum(int axis) {
+        double[] sum = new double[axis == 0 ? colCount : rowCount];
+        boolean onMajor = byRows == (axis != 0);
+        for (int i = 0; i < majorCount(); i++) {
+            for (int q = storage.pointers[i]; q < storage.pointers[i + 1]; q++) {
+                sum[onMajor ? i : storage.indexes[q]] += storage.values[q];
+            }
+        }
+        return DVector.wrap(sum);
+    }
+
+    @Override
+    public DoubleStream valueStream() {
+        long zeros = (long) rowCount * colCount - storage.nnz();
+        return DoubleStream.concat(Arrays.stream(storage.values, 0, storage.nnz()),
+                DoubleStream.generate(() -> 0).limit(zeros));
+    }
+
+    @Override
+    public DMatrixSparse copy() {
+        int nnz = storage.nnz();
+        Storage copy = new Storage(storage.pointers.clone(),
+                Arrays.copyOf(storage.indexes, nnz), Arrays.copyOf(storage.values, nnz));
+        return create(type, rowCount, colCount, copy);
+    }
+}
@@ -0,0 +1,562 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright 2013 - 2021 Aurelian Tutuianu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package rapaio.math.linear.sparse;
+
+import rapaio.data.VarDouble;
+import rapaio.math.linear.DMatrix;
+import rapaio.math.linear.DVector;
+import rapaio.math.linear.MType;
+import rapaio.math.linear.VType;
+import rapaio.math.linear.base.AbstractDVector;
+import rapaio.math.linear.dense.DVectorDense;
+import rapaio.util.function.Double2DoubleFunction;
+
+import java.io.Serial;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.DoubleBinaryOperator;
+import java.util.stream.DoubleStream;
+
+/**
+ * Sparse vector which stores only the non zero elements, as sorted indexes and their values.
+ * <p>
+ * Elements which are not stored are exact zeros. Setting a non zero value on a zero element
+ * inserts it into storage. Operations which change the zero elements, like adding a non zero
+ * scalar, store all the elements of the vector, while element wise products keep the zero elements.
+ * Copies are sparse vectors with their own storage, while mapped copies are dense vectors.
+ *
+ * @author <a href="mailto:padreati@yahoo.com">Aurelian Tutuianu</a>
+ */
+public class DVectorSparse extends AbstractDVector {
+
+    @Serial
+    private static final long serialVersionUID = -3486412298104719617L;
+
+    private final int size;
+    private int[] indexes;
+    private double[] values;
+    private int nnz;
+
+    public DVectorSparse(int size) {
+        this(size, new int[0], new double[0]);
+    }
+
+    /**
+     * Builds a sparse vector which wraps the given arrays.
+     *
+     * @param size    size of the vector
+     * @param indexes strictly increasing indexes of stored elements
+     * @param values  values of stored elements
+     */
+    public DVectorSparse(int size, int[] indexes, double[] values) {
+        if (indexes.length != values.length) {
+            throw new IllegalArgumentException("Indexes and values must have the same length.");
+        }
+        for (int i = 0; i < indexes.length; i++) {
+            if (indexes[i] < 0 || indexes[i] >= size || (i > 0 && indexes[i] <= indexes[i - 1])) {
+                throw new IllegalArgumentException("Indexes must be strictly increasing and lower than size.");
+            }
+        }
+        this.size = size;
+        this.indexes = indexes;
+        this.values = values;
+        this.nnz = indexes.length;
+    }
+
+    @Override
+    public VType type() {
+        return VType.SPARSE;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return number of stored elements
+     */
+    public int nnz() {
+        return nnz;
+    }
+
+    /**
+     * @return indexes of stored elements, valid up to {@link #nnz()}
+     */
+    public int[] getIndexes() {
+        return indexes;
+    }
+
+    /**
+     * @return values of stored elements, valid up to {@link #nnz()}
+     */
+    public double[] getValues() {
+        return values;
+    }
+
+    @Override
+    public double get(int i) {
+        int pos = Arrays.binarySearch(indexes, 0, nnz, i);
+        return pos >= 0 ? values[pos] : 0;
+    }
+
+    @Override
+    public void set(int i, double value) {
+        int pos = Arrays.binarySearch(indexes, 0, nnz, i);
+        if (pos >= 0) {
+            values[pos] = value;
+        } else if (value != 0) {
+            insert(-pos - 1, Objects.checkIndex(i, size), value);
+        }
+    }
+
+    @Override
+    public void inc(int i, double value) {
+        int pos = Arrays.binarySearch(indexes, 0, nnz, i);
+        if (pos >= 0) {
+            values[pos] += value;
+        } else if (value != 0) {
+            insert(-pos - 1, Objects.checkIndex(i, size), value);
+        }
+    }
+
+    private void insert(int pos, int index, double value) {
+        if (nnz == indexes.length) {
+            int capacity = Math.max(8, nnz + (nnz >> 1));
+            indexes = Arrays.copyOf(indexes, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        System.arraycopy(indexes, pos, indexes, pos + 1, nnz - pos);
+        System.arraycopy(values, pos, values, pos + 1, nnz - pos);
+        indexes[pos] = index;
+        values[pos] = value;
+        nnz++;
+    }
+
+    /**
+     * Stores explicitly all the elements of the vector, before an operation which changes zero elements.
+     */
+    private void fillPattern() {
+        if (nnz == size) {
+            return;
+        }
+        double[] dense = denseArray();
+        indexes = new int[size];
+        for (int i = 0; i < size; i++) {
+            indexes[i] = i;
+        }
+        values = dense;
+        nnz = size;
+    }
+
+    private double[] denseArray() {
+        double[] dense = new double[size];
+        for (int k = 0; k < nnz; k++) {
+            dense[indexes[k]] = values[k];
+        }
+        return dense;
+    }
+
+    /**
+     * @return dense vector with the same values
+     */
+    public DVectorDense toDense() {
+        return new DVectorDense(size, denseArray());
+    }
+
+    @Override
+    public DVectorDense mapCopy(int... idxs) {
+        double[] copy = new double[idxs.length];
+        for (int i = 0; i < idxs.length; i++) {
+            copy[i] = get(idxs[i]);
+        }
+        return new DVectorDense(copy.length, copy);
+    }
+
+    @Override
+    public DVectorSparse copy() {
+        return new DVectorSparse(size, Arrays.copyOf(indexes, nnz), Arrays.copyOf(values, nnz));
+    }
+
+    @Override
+    public DVector add(double x) {
+        if (x != 0) {
+            fillPattern();
+            for (int k = 0; k < nnz; k++) {
+                values[k] += x;
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public DVector add(DVector y) {
+        return combine(y, Double::sum);
+    }
+
+    @Override
+    public DVector sub(double x) {
+        return add(-x);
+    }
+
+    @Override
+    public DVector sub(DVector y) {
+        return combine(y, (a, b) -> a - b);
+    }
+
+    /**
+     * Combines values with another vector, when the zero elements are changed only
+     * by the non zero elements of the other vector.
+     */
+    private DVector combine(DVector y, DoubleBinaryOperator op) {
+        checkConformance(y);
+        if (y instanceof DVectorSparse sparse) {
+            int[] newIndexes = new int[nnz + sparse.nnz];
+            double[] newValues = new double[newIndexes.length];
+            int pos = 0;
+            int p = 0;
+            int q = 0;
+            while (p < nnz || q < sparse.nnz) {
+                int pi = p < nnz ? indexes[p] : Integer.MAX_VALUE;
+                int qi = q < sparse.nnz ? sparse.indexes[q] : Integer.MAX_VALUE;
+                if (pi == qi) {
+                    newIndexes[pos] = pi;
+                    newValues[pos++] = op.applyAsDouble(values[p++], sparse.values[q++]);
+                } else if (pi < qi) {
+                    newIndexes[pos] = pi;
+                    newValues[pos++] = op.applyAsDouble(values[p++], 0);
+                } else {
+                    newIndexes[pos] = qi;
+                    newValues[pos++] = op.applyAsDouble(0, sparse.values[q++]);
+                }
+            }
+            indexes = newIndexes;
+            values = newValues;
+            nnz = pos;
+            return this;
+        }
+        fillPattern();
+        for (int k = 0; k < nnz; k++) {
+            values[k] = op.applyAsDouble(values[k], y.get(k));
+        }
+        return this;
+    }
+
+    @Override
+    public DVector mult(double scalar) {
+        if (!Double.isFinite(scalar)) {
+            fillPattern();
+        }
+        for (int k = 0; k < nnz; k++) {
+            values[k] *= scalar;
+        }
+        return this;
+    }
+
+    /**
+     * Multiplies element wise the stored elements, zero elements remain zero.
+     */
+    @Override
+    public DVector mult(DVector y) {
+        checkConformance(y);
+        for (int k = 0; k < nnz; k++) {
+            values[k] *= y.get(indexes[k]);
+        }
+        return this;
+    }
+
+    @Override
+    public DVector div(double scalar) {
+        if (scalar == 0 || Double.isNaN(scalar)) {
+            fillPattern();
+        }
+        for (int k = 0; k < nnz; k++) {
+            values[k] /= scalar;
+        }
+        return this;
+    }
+
+    @Override
+    public DVector div(DVector y) {
+        checkConformance(y);
+        for (int i = 0; i < size; i++) {
+            double value = y.get(i);
+            if (value == 0 || Double.isNaN(value)) {
+                fillPattern();
+                break;
+            }
+        }
+        for (int k = 0; k < nnz; k++) {
+            values[k] /= y.get(indexes[k]);
+        }
+        return this;
+    }
+
+    @Override
+    public DVector axpyCopy(double a, DVector y) {
+        checkConformance(y);
+        if (y instanceof DVectorSparse sparse) {
+            DVectorSparse copy = new DVectorSparse(size, Arrays.copyOf(sparse.indexes, sparse.nnz),
+                    Arrays.copyOf(sparse.values, sparse.nnz));
+            return copy.combine(this, (yi, xi) -> a * xi + yi);
+        }
+        double[] copy = new double[size];
+        for (int i = 0; i < size; i++) {
+            copy[i] = y.get(i);
+        }
+        for (int k = 0; k < nnz; k++) {
+            copy[indexes[k]] += a * values[k];
+        }
+        return new DVectorDense(size, copy);
+    }
+
+    @Override
+    public double dot(DVector y) {
+        checkConformance(y);
+        double s = 0;
+        if (y instanceof DVectorSparse sparse) {
+            int p = 0;
+            int q = 0;
+            while (p < nnz && q < sparse.nnz) {
+                if (indexes[p] == sparse.indexes[q]) {
+                    s = Math.fma(values[p++], sparse.values[q++], s);
+                } else if (indexes[p] < sparse.indexes[q]) {
+                    p++;
+                } else {
+                    q++;
+                }
+            }
+            return s;
+        }
+        if (y instanceof DVectorDense dense) {
+            double[] array = dense.elements();
+            for (int k = 0; k < nnz; k++) {
+                s = Math.fma(values[k], array[indexes[k]], s);
+            }
+            return s;
+        }
+        for (int k = 0; k < nnz; k++) {
+            s = Math.fma(values[k], y.get(indexes[k]), s);
+        }
+        return s;
+    }
+
+    @Override
+    public DMatrix diagDot(MType type, DMatrix m) {
+        if (size != m.rowCount()) {
+            throw new IllegalArgumentException("Matrix not conform for multiplication.");
+        }
+        DMatrix result = DMatrix.empty(type, size, m.colCount());
+        for (int k = 0; k < nnz; k++) {
+            for (int j = 0; j < m.colCount(); j++) {
+                result.set(indexes[k], j, m.get(indexes[k], j) * values[k]);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public double dotBilinear(DMatrix m, DVector y) {
+        if (m.rowCount() != size || m.colCount() != y.size()) {
+            throw new IllegalArgumentException("Bilinear matrix and vector are not conform for multiplication.");
+        }
+        double sum = 0.0;
+        for (int k = 0; k < nnz; k++) {
+            double row = 0.0;
+            for (int j = 0; j < y.size(); j++) {
+                row += m.get(indexes[k], j) * y.get(j);
+            }
+            sum += values[k] * row;
+        }
+        return sum;
+    }
+
+    @Override
+    public double dotBilinear(DMatrix m) {
+        if (m.rowCount() != size || m.colCount() != size) {
+            throw new IllegalArgumentException("Bilinear matrix is not conform for multiplication.");
+        }
+        double sum = 0.0;
+        for (int p = 0; p < nnz; p++) {
+            for (int q = 0; q < nnz; q++) {
+                sum += values[p] * m.get(indexes[p], indexes[q]) * values[q];
+            }
+        }
+        return sum;
+    }
+
+    @Override
+    public double norm(double p) {
+        if (p <= 0) {
+            return size;
+        }
+        if (p == Double.POSITIVE_INFINITY) {
+            double max = nnz < size ? 0 : Double.NaN;
+            for (int k = 0; k < nnz; k++) {
+                max = Double.isNaN(max) ? values[k] : Math.max(max, values[k]);
+            }
+            return max;
+        }
+        double s = 0.0;
+        for (int k = 0; k < nnz; k++) {
+            s += Math.pow(Math.abs(values[k]), p);
+        }
+        return Math.pow(s, 1.0 / p);
+    }
+
+    @Override
+    public double sum() {
+        double sum = 0;
+        for (int k = 0; k < nnz; k++) {
+            sum += values[k];
+        }
+        return sum;
+    }
+
+    @Override
+    public double nansum() {
+        double sum = 0;
+        for (int k = 0; k < nnz; k++) {
+            if (!Double.isNaN(values[k])) {
+                sum += values[k];
+            }
+        }
+        return sum;
+    }
+
+    @Override
+    public DVector cumsum() {
+        fillPattern();
+        for (int k = 1; k < nnz; k++) {
+            values[k] += values[k - 1];
+        }
+        return this;
+    }
+
+    @Override
+    public double prod() {
+        double prod = nnz < size ? 0 : 1;
+        for (int k = 0; k < nnz; k++) {
+            prod *= values[k];
+        }
+        return prod;
+    }
+
+    @Override
+    public double nanprod() {
+        double prod = nnz < size ? 0 : 1;
+        for (int k = 0; k < nnz; k++) {
+            if (!Double.isNaN(values[k])) {
+                prod *= values[k];
+            }
+        }
+        return prod;
+    }
+
+    @Override
+    public DVector cumprod() {
+        fillPattern();
+        for (int k = 1; k < nnz; k++) {
+            values[k] *= values[k - 1];
+        }
+        return this;
+    }
+
+    @Override
+    public int nancount() {
+        int count = size - nnz;
+        for (int k = 0; k < nnz; k++) {
+            if (!Double.isNaN(values[k])) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public double mean() {
+        return sum() / size;
+    }
+
+    @Override
+    public double nanmean() {
+        return nansum() / nancount();
+    }
+
+    @Override
+    public double variance() {
+        if (size == 0) {
+            return Double.NaN;
+        }
+        double mean = mean();
+        int zeros = size - nnz;
+        double sum2 = zeros * mean * mean;
+        double sum3 = -zeros * mean;
+        for (int k = 0; k < nnz; k++) {
+            sum2 += Math.pow(values[k] - mean, 2);
+            sum3 += values[k] - mean;
+        }
+        return (sum2 - Math.pow(sum3, 2) / size) / (size - 1.0);
+    }
+
+    @Override
+    public double nanvariance() {
+        int completeCount = nancount();
+        if (completeCount == 0) {
+            return Double.NaN;
+        }
+        double mean = nanmean();
+        int zeros = size - nnz;
+        double sum2 = zeros * mean * mean;
+        double sum3 = -zeros * mean;
+        for (int k = 0; k < nnz; k++) {
+            if (Double.isNaN(values[k])) {
+                continue;
+            }
+            sum2 += Math.pow(values[k] - mean, 2);
+            sum3 += values[k] - mean;
+        }
+        return (sum2 - Math.pow(sum3, 2) / completeCount) / (completeCount - 1.0);
+    }
+
+    @Override
+    public DVector apply(Double2DoubleFunction f) {
+        if (f.applyAsDouble(0) != 0) {
+            fillPattern();
+        }
+        for (int k = 0; k < nnz; k++) {
+            values[k] = f.applyAsDouble(values[k]);
+        }
+        return this;
+    }
+
+    @Override
+    public DoubleStream valueStream() {
+        return Arrays.stream(denseArray());
+    }
+
+    @Override
+    public VarDouble asVarDouble() {
+        return VarDouble.wrap(denseArray());
+    }
+}
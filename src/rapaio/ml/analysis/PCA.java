@@ -30,6 +30,8 @@ import rapaio.math.linear.DMatrix;
 import rapaio.math.linear.DVector;
 import rapaio.math.linear.EigenPair;
 import rapaio.math.linear.Linear;
+import rapaio.math.linear.decomposition.LanczosEigen;
+import rapaio.math.linear.decomposition.RandomizedSVD;
 import rapaio.ml.common.ParamSet;
 import rapaio.ml.common.ValueParam;
 import rapaio.printer.Printable;
@@ -68,6 +70,27 @@ public class PCA extends ParamSet<PCA> implements Printable {
     public final ValueParam<Boolean, PCA> standardize = new ValueParam<>(this, false,
             "standardize", "Divide input by computed sample standard deviation.");
 
+    public final ValueParam<Integer, PCA> k = new ValueParam<>(this, 0,
+            "k", "Number of principal components computed with a truncated solver, 0 for all components", v -> v != null && v >= 0);
+
+    public final ValueParam<Method, PCA> method = new ValueParam<>(this, Method.LANCZOS,
+            "method", "Truncated solver used when k is positive");
+
+    /**
+     * Solvers for the first k principal components. Both work on the scaled input matrix
+     * and do not build the scatter matrix.
+     */
+    public enum Method {
+        /**
+         * Lanczos iterations on the implicit scatter operator {@code v -> X'(X v)}.
+         */
+        LANCZOS,
+        /**
+         * Randomized truncated singular value decomposition of the input matrix.
+         */
+        RANDOMIZED
+    }
+
     private int inputRows;
     private int inputVars;
     private String[] inputNames;
@@ -111,6 +134,11 @@ public class PCA extends ParamSet<PCA> implements Printable {
             x.div(sd, 0);
         }
 
+        if (k.get() > 0) {
+            fitTruncated(x, Math.min(k.get(), Math.min(x.rowCount(), x.colCount())));
+            return this;
+        }
+
         logger.fine("build scatter");
         DMatrix s = x.scatter();
 
@@ -130,6 +158,28 @@ public class PCA extends ParamSet<PCA> implements Printable {
         return this;
     }
 
+    private void fitTruncated(DMatrix x, int components) {
+        logger.fine("compute first " + components + " components");
+        if (!center.get()) {
+            // the scatter matrix used by the full decomposition is always centered
+            x.sub(x.mean(0), 0);
+        }
+        double dof = x.rowCount() - 1;
+        switch (method.get()) {
+            case LANCZOS -> {
+                DMatrix xt = x.t();
+                LanczosEigen lanczos = LanczosEigen.from(x.colCount(), v -> xt.dot(x.dot(v)), components);
+                eigenValues = lanczos.getValues().copy().div(dof);
+                eigenVectors = lanczos.getVectors();
+            }
+            case RANDOMIZED -> {
+                RandomizedSVD svd = RandomizedSVD.from(x, components);
+                eigenValues = DVector.wrap(svd.getSingularValues()).copy().apply(v -> v * v / dof);
+                eigenVectors = svd.getV();
+            }
+        }
+    }
+
     private void preFit(Frame df) {
         Set<VarType> allowedTypes = new HashSet<>(Arrays.asList(VarType.BINARY, VarType.INT, VarType.DOUBLE));
         df.varStream().forEach(var -> {
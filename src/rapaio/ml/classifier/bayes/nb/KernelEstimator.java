@@ -51,13 +51,27 @@ public class KernelEstimator extends AbstractEstimator {
     }
 
     public static KernelEstimator forName(String testName, KFunc kfunc, double bandwidth) {
-        return new KernelEstimator(testName, kfunc, bandwidth);
+        return new KernelEstimator(testName, kfunc, bandwidth, 0);
+    }
+
+    /**
+     * Builds a kernel estimator which uses binned kernel density estimators.
+     *
+     * @param testName  name of the test variable
+     * @param kfunc     kernel function
+     * @param bandwidth kernel bandwidth, if 0 the Silverman bandwidth is used
+     * @param gridSize  number of grid points of the binned estimators, if 0 exact estimators are used
+     * @return kernel estimator
+     * @see KDE#binned(int)
+     */
+    public static KernelEstimator forName(String testName, KFunc kfunc, double bandwidth, int gridSize) {
+        return new KernelEstimator(testName, kfunc, bandwidth, gridSize);
     }
 
     public static List<Estimator> forRange(Frame df, VarRange varRange) {
         List<String> varNames = varRange.parseVarNames(df);
         return varNames.stream()
-                .map(name -> new KernelEstimator(name, new KFuncGaussian(), 0))
+                .map(name -> new KernelEstimator(name, new KFuncGaussian(), 0, 0))
                 .collect(Collectors.toList());
     }
 
@@ -71,7 +85,7 @@ public class KernelEstimator extends AbstractEstimator {
 
     public static List<Estimator> forType(Frame df, VarType type, KFunc kfunc, double bandwidth) {
         return VarRange.onlyTypes(type).parseVarNames(df).stream()
-                .map(name -> new KernelEstimator(name, kfunc, bandwidth))
+                .map(name -> new KernelEstimator(name, kfunc, bandwidth, 0))
                 .collect(Collectors.toList());
     }
 
@@ -81,19 +95,21 @@ public class KernelEstimator extends AbstractEstimator {
     private final String testVarName;
     private final KFunc kfunc;
     private final double bandwidth;
+    private final int gridSize;
 
     private Map<String, KDE> kdes = new ConcurrentHashMap<>();
 
-    private KernelEstimator(String testVarName, KFunc kfunc, double bandwidth) {
+    private KernelEstimator(String testVarName, KFunc kfunc, double bandwidth, int gridSize) {
         super(Collections.singletonList(testVarName));
         this.testVarName = testVarName;
         this.kfunc = kfunc;
         this.bandwidth = bandwidth;
+        this.gridSize = gridSize;
     }
 
     @Override
     public Estimator newInstance() {
-        return new KernelEstimator(testVarName, kfunc, bandwidth);
+        return new KernelEstimator(testVarName, kfunc, bandwidth, gridSize);
     }
 
     @Override
@@ -107,7 +123,8 @@ public class KernelEstimator extends AbstractEstimator {
         sb.append("Kernel{test=").append(testVarName);
         sb.append(", kdes=[");
         sb.append(kdes.entrySet().stream()
-                .map(e -> e.getKey() + ":{kfun=" + e.getValue().kernel().toString() + ",bw=" + Format.floatFlex(e.getValue().bandwidth()) + "}")
+                .map(e -> e.getKey() + ":{kfun=" + e.getValue().kernel().toString() + ",bw=" + Format.floatFlex(e.getValue().bandwidth())
+                        + (e.getValue().isBinned() ? ",grid=" + gridSize : "") + "}")
                 .collect(Collectors.joining(",")));
         sb.append("]");
         sb.append("}");
@@ -124,7 +141,12 @@ public class KernelEstimator extends AbstractEstimator {
                     }
                     Frame cond = df.stream().filter(s -> targetLevel.equals(s.getLabel(targetName))).toMappedFrame();
                     Var v = cond.rvar(testVarName);
-                    kdes.put(targetLevel, KDE.of(v, kfunc, bandwidth == 0 ? KDE.silvermanBandwidth(v) : bandwidth));
+                    KDE kde = KDE.of(v, kfunc, bandwidth == 0 ? KDE.silvermanBandwidth(v) : bandwidth);
+                    // a single value gives an undefined Silverman bandwidth, for which only the exact estimator works
+                    if (gridSize > 0 && v.stream().complete().count() > 0 && Double.isFinite(kde.bandwidth()) && kde.bandwidth() > 0) {
+                        kde = kde.binned(gridSize);
+                    }
+                    kdes.put(targetLevel, kde);
                 });
         return true;
     }
@@ -21,6 +21,7 @@
 
 package rapaio.ml.classifier.ensemble;
 
+import rapaio.core.RandomSource;
 import rapaio.core.distributions.Distribution;
 import rapaio.core.distributions.Normal;
 import rapaio.core.stat.Maximum;
@@ -33,10 +34,8 @@ import rapaio.data.SolidFrame;
 import rapaio.data.Var;
 import rapaio.data.VarDouble;
 import rapaio.data.VarNominal;
-import rapaio.data.VarRange;
 import rapaio.data.VarType;
 import rapaio.data.filter.FRefSort;
-import rapaio.data.filter.VShuffle;
 import rapaio.data.sample.RowSampler;
 import rapaio.math.linear.DMatrix;
 import rapaio.ml.classifier.ClassifierModel;
@@ -47,11 +46,10 @@ import rapaio.ml.classifier.tree.ctree.Node;
 import rapaio.ml.common.Capabilities;
 import rapaio.ml.common.ValueParam;
 import rapaio.ml.common.VarSelector;
-import rapaio.ml.eval.metric.Confusion;
 import rapaio.printer.Format;
 import rapaio.printer.Printer;
 import rapaio.printer.opt.POption;
-import rapaio.util.Pair;
+import rapaio.util.collection.IntArrays;
 
 import java.io.Serial;
 import java.util.ArrayList;
@@ -59,6 +57,7 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -203,96 +202,142 @@ public class CForest extends ClassifierModel<CForest, ClassifierResult, DefaultH
             oobTrueClass = df.rvar(firstTargetName()).copy();
             oobPredictedClasses = VarNominal.empty(df.rowCount(), firstTargetLevels());
         }
-        if (viFreq.get()) {
-            freqVIMap.clear();
-        }
-        if (viGain.get()) {
-            gainVIMap.clear();
-        }
-        if (viPerm.get()) {
-            permVIMap.clear();
-        }
-
-        // build in parallel the trees, than oob and running hook cannot run at the
-        // same moment when weak tree was built
-        // for a real running hook behavior run without threading
+        freqVIMap.clear();
+        gainVIMap.clear();
+        permVIMap.clear();
+
+        // build in parallel the trees together with their oob and variable importance scores,
+        // each task has its own results which are merged in order after all trees are built
+        // running hook is called only at merge time, for a real running hook behavior run without threading
+        // each tree has its own random stream, thus the result does not depend on threading
         predictors = new ArrayList<>();
+        Random[] streams = RandomSource.split(runs.get());
         IntStream range = IntStream.range(0, runs.get());
         if (poolSize.get() != 0) {
             range = range.parallel();
         }
-        List<Pair<ClassifierModel<?, ?, ?>, Mapping>> list = range
-                .mapToObj(s -> buildWeakPredictor(df, weights))
+        List<WeakResult> results = range
+                .mapToObj(s -> RandomSource.withStream(streams[s], () -> buildWeakPredictor(df, weights)))
                 .collect(Collectors.toList());
-        for (int i = 0; i < list.size(); i++) {
-            Pair<ClassifierModel<?, ?, ?>, Mapping> weak = list.get(i);
-            predictors.add(weak.v1);
+        for (int i = 0; i < results.size(); i++) {
+            WeakResult weak = results.get(i);
+            predictors.add(weak.model);
             if (oob.get()) {
-                oobCompute(df, weak);
+                for (int j = 0; j < weak.oobRows.size(); j++) {
+                    oobDensities.inc(weak.oobRows.get(j), weak.oobClasses[j] - 1, 1.0);
+                }
             }
             if (viFreq.get()) {
-                freqVICompute(weak);
+                appendScores(freqVIMap, weak.freqScores);
             }
             if (viGain.get()) {
-                gainVICompute(weak);
+                appendScores(gainVIMap, weak.gainScores);
             }
             if (viPerm.get()) {
-                permVICompute(df, weak);
+                appendScores(permVIMap, weak.permScores);
             }
             runningHook.get().accept(new DefaultHookInfo(this, i + 1));
         }
+        if (oob.get()) {
+            oobUpdate();
+        }
         return true;
     }
 
-    private void permVICompute(Frame df, Pair<ClassifierModel<?, ?, ?>, Mapping> weak) {
-        ClassifierModel<?, ?, ?> c = weak.v1;
-        Mapping oobIndexes = weak.v2;
-
-        // build oob data frame
-        Frame oobFrame = df.mapRows(oobIndexes);
+    /**
+     * Results of a weak tree: the tree, the classes predicted on its out of bag rows and
+     * the variable importance scores in the order of input variables.
+     */
+    private static record WeakResult(ClassifierModel<?, ?, ?> model, Mapping oobRows, int[] oobClasses,
+                                     double[] freqScores, double[] gainScores, double[] permScores) {
+    }
 
-        // build accuracy on oob data frame
-        ClassifierResult fit = c.predict(oobFrame);
-        double refScore = Confusion.from(
-                oobFrame.rvar(firstTargetName()),
-                fit.firstClasses())
-                .acceptedCases();
+    private WeakResult buildWeakPredictor(Frame df, Var weights) {
+        var weak = model.get().newInstance();
+        RowSampler.Sample sample = rowSampler.get().nextSample(df, weights);
+        weak.fit(sample.df(), sample.weights(), firstTargetName());
+        Mapping oobRows = sample.getComplementMapping();
 
-        // now for each input variable do computation
-        for (String varName : inputNames()) {
+        int[] oobClasses = null;
+        double[] permScores = null;
+        if (oob.get() || viPerm.get()) {
+            Frame oobFrame = df.mapRows(oobRows);
+            oobClasses = predictClasses(weak, oobFrame);
+            if (viPerm.get()) {
+                permScores = permVICompute(weak, oobFrame, oobClasses);
+            }
+        }
+        double[] freqScores = viFreq.get() ? freqVICompute((CTree) weak) : null;
+        double[] gainScores = viGain.get() ? gainVICompute((CTree) weak) : null;
+        return new WeakResult(weak, oobRows, oobClasses, freqScores, gainScores, permScores);
+    }
 
-            // shuffle values from variable
-            Var shuffled = oobFrame.rvar(varName).fapply(VShuffle.filter());
+    private void appendScores(Map<String, List<Double>> viMap, double[] scores) {
+        for (int i = 0; i < scores.length; i++) {
+            viMap.computeIfAbsent(inputName(i), name -> new ArrayList<>()).add(scores[i]);
+        }
+    }
 
-            // build oob frame with shuffled variable
-            Frame oobReduced = oobFrame.removeVars(VarRange.of(varName)).bindVars(shuffled);
+    private int[] predictClasses(ClassifierModel<?, ?, ?> weak, Frame df) {
+        Var classes = weak.predict(df, true, false).firstClasses();
+        int[] indexes = new int[df.rowCount()];
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = classes.getInt(i);
+        }
+        return indexes;
+    }
 
-            // compute accuracy on oob shuffled frame
+    private int acceptedCases(Var target, int[] classes) {
+        int accepted = 0;
+        for (int i = 0; i < classes.length; i++) {
+            if (target.getInt(i) == classes[i]) {
+                accepted++;
+            }
+        }
+        return accepted;
+    }
 
-            ClassifierResult pfit = c.predict(oobReduced);
-            double acc = Confusion.from(
-                    oobReduced.rvar(firstTargetName()),
-                    pfit.firstClasses()
-            ).acceptedCases();
+    private double[] permVICompute(ClassifierModel<?, ?, ?> weak, Frame oobFrame, int[] oobClasses) {
+        double[] scores = new double[inputNames().length];
+        if (oobFrame.rowCount() == 0) {
+            return scores;
+        }
+        // work on a copy of oob rows, each input variable is shuffled in place and restored after
+        Frame oobCopy = oobFrame.copy();
+        Var target = oobCopy.rvar(firstTargetName());
+        double refScore = acceptedCases(target, oobClasses);
+
+        int[] identity = IntArrays.newSeq(0, oobCopy.rowCount());
+        int[] shuffle = IntArrays.newSeq(0, oobCopy.rowCount());
+        for (int i = 0; i < scores.length; i++) {
+            Var column = oobCopy.rvar(inputName(i));
+            Var original = column.copy();
+            IntArrays.shuffle(shuffle, RandomSource.getRandom());
+            assignRows(original, column, shuffle);
+            scores[i] = refScore - acceptedCases(target, predictClasses(weak, oobCopy));
+            assignRows(original, column, identity);
+        }
+        return scores;
+    }
 
-            if (!permVIMap.containsKey(varName)) {
-                permVIMap.put(varName, new ArrayList<>());
+    private static void assignRows(Var source, Var target, int[] rows) {
+        boolean nominal = source.type().isNominal();
+        for (int i = 0; i < rows.length; i++) {
+            int row = rows[i];
+            if (source.isMissing(row)) {
+                target.setMissing(i);
+            } else if (nominal) {
+                target.setLabel(i, source.getLabel(row));
+            } else {
+                target.setDouble(i, source.getDouble(row));
             }
-            permVIMap.get(varName).add(refScore - acc);
         }
     }
 
-    private void gainVICompute(Pair<ClassifierModel<?, ?, ?>, Mapping> weak) {
-        CTree weakTree = (CTree) weak.v1;
+    private double[] gainVICompute(CTree weak) {
         var scores = DensityVector.emptyByLabels(true, inputNames());
-        collectGainVI(weakTree.getRoot(), scores);
-        for (int j = 0; j < inputNames().length; j++) {
-            String varName = inputName(j);
-            if (!gainVIMap.containsKey(varName)) {
-                gainVIMap.put(varName, new ArrayList<>());
-            }
-            gainVIMap.get(varName).add(scores.get(varName));
-        }
+        collectGainVI(weak.getRoot(), scores);
+        return vectorScores(scores);
     }
 
     private void collectGainVI(Node node, DensityVector<String> dv) {
@@ -304,13 +349,10 @@ public class CForest extends ClassifierModel<CForest, ClassifierResult, DefaultH
         node.children.forEach(child -> collectGainVI(child, dv));
     }
 
-    private void freqVICompute(Pair<ClassifierModel<?, ?, ?>, Mapping> pair) {
-        CTree weak = (CTree) pair.v1;
+    private double[] freqVICompute(CTree weak) {
         var scores = DensityVector.emptyByLabels(true, inputNames());
         collectFreqVI(weak.getRoot(), scores);
-        for (String varName : inputNames) {
-            freqVIMap.computeIfAbsent(varName, name -> new ArrayList<>()).add(scores.get(varName));
-        }
+        return vectorScores(scores);
     }
 
     private void collectFreqVI(Node node, DensityVector<String> dv) {
@@ -322,21 +364,17 @@ public class CForest extends ClassifierModel<CForest, ClassifierResult, DefaultH
         node.children.forEach(child -> collectFreqVI(child, dv));
     }
 
-    private void oobCompute(Frame df, Pair<ClassifierModel<?, ?, ?>, Mapping> pair) {
-        double totalOobError;
-        double totalOobInstances;
-        Mapping oobMap = pair.v2;
-        Frame oobTest = df.mapRows(oobMap);
-
-        var fit = pair.v1.predict(oobTest);
-        for (int j = 0; j < oobTest.rowCount(); j++) {
-            int fitIndex = fit.firstClasses().getInt(j);
-            oobDensities.inc(oobMap.get(j), fitIndex - 1, 1.0);
+    private double[] vectorScores(DensityVector<String> dv) {
+        double[] scores = new double[inputNames().length];
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = dv.get(inputName(i));
         }
-        oobPredictedClasses.clearRows();
-        totalOobError = 0.0;
-        totalOobInstances = 0.0;
+        return scores;
+    }
 
+    private void oobUpdate() {
+        double totalOobError = 0.0;
+        double totalOobInstances = 0.0;
         int[] indexes = oobDensities.argmax(1);
         for (int i = 0; i < indexes.length; i++) {
             String bestLevel = firstTargetLevels().get(indexes[i] + 1);
@@ -349,13 +387,6 @@ public class CForest extends ClassifierModel<CForest, ClassifierResult, DefaultH
         oobError = (totalOobInstances > 0) ? totalOobError / totalOobInstances : 0.0;
     }
 
-    private Pair<ClassifierModel<?, ?, ?>, Mapping> buildWeakPredictor(Frame df, Var weights) {
-        var weak = model.get().newInstance();
-        RowSampler.Sample sample = rowSampler.get().nextSample(df, weights);
-        weak.fit(sample.df(), sample.weights(), firstTargetName());
-        return Pair.from(weak, sample.getComplementMapping());
-    }
-
     @Override
     protected ClassifierResult corePredict(Frame df, boolean withClasses, boolean withDensities) {
         ClassifierResult cp = ClassifierResult.build(this, df, true, true);
@@ -426,7 +457,7 @@ public class CForest extends ClassifierModel<CForest, ClassifierResult, DefaultH
         }
         if (hasLearned() && viPerm.get()) {
             sb.append("Permutation Variable Importance:\n");
-            sb.append(getGainVIInfo().toFullContent(options)).append("\n");
+            sb.append(getPermVIInfo().toFullContent(options)).append("\n");
         }
         return sb.toString();
     }
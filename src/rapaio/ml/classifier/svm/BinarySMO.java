@@ -27,6 +27,9 @@ import rapaio.data.Mapping;
 import rapaio.data.Var;
 import rapaio.data.VarType;
 import rapaio.math.MathTools;
+import rapaio.math.linear.DMatrix;
+import rapaio.math.linear.MType;
+import rapaio.math.linear.sparse.DMatrixCSR;
 import rapaio.ml.classifier.ClassifierModel;
 import rapaio.ml.classifier.ClassifierResult;
 import rapaio.ml.classifier.DefaultHookInfo;
@@ -89,6 +92,9 @@ public class BinarySMO extends ClassifierModel<BinarySMO, ClassifierResult, Defa
             "solver", "Solver for problem with valid values: Keerthi1 and Keerthi2",
             x -> "Keerthi1".equals(x) || "Keerthi2".equals(x));
 
+    public final ValueParam<Integer, BinarySMO> cacheSize = new ValueParam<>(this, 100,
+            "cacheSize", "Memory budget in megabytes for cached kernel rows", x -> x != null && x > 0);
+
     private static final double eps_delta = 1e-200;
 
     private double[] alpha; // Lagrange multipliers from dual
@@ -118,6 +124,11 @@ public class BinarySMO extends ClassifierModel<BinarySMO, ClassifierResult, Defa
      */
     private double[] linear_weights;
 
+    /**
+     * Training inputs in compressed sparse row format, used by linear machines during training.
+     */
+    private DMatrixCSR linearRows;
+
     private static final class State {
         double bLow;
         double bUp; // thresholds
@@ -261,8 +272,9 @@ public class BinarySMO extends ClassifierModel<BinarySMO, ClassifierResult, Defa
 
             convertWeightVector();
 
-            // Clean out weight vector
+            // Clean out weight vector and sparse training rows
             linear_weights = null;
+            linearRows = null;
 
             // We don't need the alphas in the linear case
             alpha = null;
@@ -368,8 +380,14 @@ public class BinarySMO extends ClassifierModel<BinarySMO, ClassifierResult, Defa
 
         if (kernel.get().isLinear()) {
             linear_weights = new double[inputNames().length];
+            Var[] inputs = new Var[inputNames().length];
+            for (int i = 0; i < inputs.length; i++) {
+                inputs[i] = train.rvar(i);
+            }
+            linearRows = (DMatrixCSR) DMatrix.copy(MType.CSR, inputs);
         } else {
             linear_weights = null;
+            linearRows = null;
         }
 
         // Initialize alpha array to zero
@@ -388,7 +406,7 @@ public class BinarySMO extends ClassifierModel<BinarySMO, ClassifierResult, Defa
         sparseIndices = null;
 
         // init kernel
-        kernel.get().buildKernelCache(inputNames(), train);
+        kernel.get().buildKernelCache(inputNames(), train, cacheSize.get() * (1L << 20));
 
         // Initialize error cache
         s.fCache = new double[n];
@@ -428,7 +446,15 @@ public class BinarySMO extends ClassifierModel<BinarySMO, ClassifierResult, Defa
 
         if (kernel.get().isLinear()) {
             // Is weight vector stored in sparse format?
-            if (sparseWeights == null) {
+            if (sparseWeights == null && linearRows != null && df == train) {
+                // during training only the non zero inputs contribute
+                int[] pointers = linearRows.getPointers();
+                int[] indexes = linearRows.getIndexes();
+                double[] values = linearRows.getValues();
+                for (int p = pointers[row]; p < pointers[row + 1]; p++) {
+                    result += linear_weights[indexes[p]] * values[p];
+                }
+            } else if (sparseWeights == null) {
                 for (int i = 0; i < linear_weights.length; i++) {
                     result += linear_weights[i] * df.getDouble(row, i);
                 }
@@ -439,12 +465,25 @@ public class BinarySMO extends ClassifierModel<BinarySMO, ClassifierResult, Defa
             }
         } else {
             for (int i = supportVectors.nextSetBit(0); i != -1; i = supportVectors.nextSetBit(i + 1)) {
-                result += y[i] * alpha[i] * kernel.get().compute(train, i, df, row);
+                // the instance is passed first, so during training the kernel cache fills its row
+                result += y[i] * alpha[i] * kernel.get().compute(df, row, train, i);
             }
         }
         return result;
     }
 
+    /**
+     * Adds the scaled non zero inputs of a training instance to the linear weight vector.
+     */
+    private void updateLinearWeights(int row, double factor) {
+        int[] pointers = linearRows.getPointers();
+        int[] indexes = linearRows.getIndexes();
+        double[] values = linearRows.getValues();
+        for (int p = pointers[row]; p < pointers[row + 1]; p++) {
+            linear_weights[indexes[p]] += factor * values[p];
+        }
+    }
+
     /**
      * Examines instance.
      *
@@ -614,12 +653,8 @@ public class BinarySMO extends ClassifierModel<BinarySMO, ClassifierResult, Defa
 
         // Update weight vector to reflect change a1 and a2, if linear SVM
         if (kernel.get().isLinear()) {
-            for (int p1 = 0; p1 < inputNames().length; p1++) {
-                linear_weights[p1] += y1 * (a1 - alpha1) * train.getDouble(i1, p1);
-            }
-            for (int p2 = 0; p2 < inputNames().length; p2++) {
-                linear_weights[p2] += y2 * (a2 - alpha2) * train.getDouble(i2, p2);
-            }
+            updateLinearWeights(i1, y1 * (a1 - alpha1));
+            updateLinearWeights(i2, y2 * (a2 - alpha2));
         }
 
         // Update error cache using new Lagrange multipliers
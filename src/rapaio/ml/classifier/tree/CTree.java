@@ -29,6 +29,7 @@ import rapaio.experiment.ml.common.predicate.RowPredicate;
 import rapaio.ml.classifier.ClassifierModel;
 import rapaio.ml.classifier.ClassifierResult;
 import rapaio.ml.classifier.DefaultHookInfo;
+import rapaio.ml.classifier.tree.ctree.Binning;
 import rapaio.ml.classifier.tree.ctree.Candidate;
 import rapaio.ml.classifier.tree.ctree.Node;
 import rapaio.ml.classifier.tree.ctree.Pruning;
@@ -36,6 +37,7 @@ import rapaio.ml.classifier.tree.ctree.Purity;
 import rapaio.ml.classifier.tree.ctree.Search;
 import rapaio.ml.classifier.tree.ctree.Splitter;
 import rapaio.ml.common.Capabilities;
+import rapaio.ml.common.FlatTree;
 import rapaio.ml.common.MultiParam;
 import rapaio.ml.common.ParametricEquals;
 import rapaio.ml.common.ValueParam;
@@ -154,12 +156,21 @@ public class CTree extends ClassifierModel<CTree, ClassifierResult, DefaultHookI
             "prunning",
             "Prunning method");
 
+    public final ValueParam<Integer, CTree> bins = new ValueParam<>(this, 256,
+            "bins",
+            "Maximum number of bins for numeric variables tested with histogram search",
+            x -> x != null && x >= 2);
+
     public final ValueParam<Frame, CTree> pruningDf = new ValueParam<>(this, null,
             "pruningDf",
             "Pruning data frame",
             x -> true);
 
     private Node root;
+    // variable selector used during fit, a private copy since the parameter value can be shared between models
+    private transient VarSelector selector;
+    private transient Binning binning;
+    private transient FlatTree flatTree;
 
     public Node getRoot() {
         return root;
@@ -189,7 +200,8 @@ public class CTree extends ClassifierModel<CTree, ClassifierResult, DefaultHookI
     protected boolean coreFit(Frame df, Var weights) {
 
         additionalValidation(df);
-        this.varSelector.get().withVarNames(inputNames());
+        selector = varSelector.get().newInstance().withVarNames(inputNames());
+        flatTree = null;
 
         int rows = df.rowCount();
 
@@ -198,6 +210,14 @@ public class CTree extends ClassifierModel<CTree, ClassifierResult, DefaultHookI
         idGenerator.set(0);
         root = new Node(null, idGenerator.get(), 0, "root", RowPredicate.all());
 
+        List<String> histogramVarNames = new ArrayList<>();
+        for (String varName : inputNames()) {
+            if (testMap.get().get(df.type(varName)) == Search.NumericHistogram) {
+                histogramVarNames.add(varName);
+            }
+        }
+        binning = histogramVarNames.isEmpty() ? null : Binning.from(df, histogramVarNames, firstTargetName(), bins.get());
+
         Queue<Triple> queue = new ConcurrentLinkedQueue<>();
         queue.add(new Triple(root, df, weights));
 
@@ -211,6 +231,7 @@ public class CTree extends ClassifierModel<CTree, ClassifierResult, DefaultHookI
             learnNode(node, nodeDf, weightsDf);
 
             if (node.leaf) {
+                node.histograms = null;
                 continue;
             }
             Candidate bestCandidate = node.bestCandidate;
@@ -225,12 +246,17 @@ public class CTree extends ClassifierModel<CTree, ClassifierResult, DefaultHookI
                         idGenerator.incrementAndGet(), node.depth + 1, predicate.toString(), predicate);
                 node.children.add(child);
             }
+            if (binning != null) {
+                binning.split(node, nodeDf, frames.v1, frames.v2, firstTargetName());
+            }
             for (int i = 0; i < node.children.size(); i++) {
                 var child = node.children.get(i);
                 queue.add(new Triple(child, frames.v1.get(i), frames.v2.get(i)));
             }
         }
 
+        binning = null;
+
         pruning.get().prune(this, (pruningDf.get() == null) ? df : pruningDf.get(), false);
         return true;
     }
@@ -249,11 +275,11 @@ public class CTree extends ClassifierModel<CTree, ClassifierResult, DefaultHookI
             return;
         }
 
-        String[] nextVarNames = varSelector.get().nextVarNames();
+        String[] nextVarNames = selector.nextVarNames();
         List<Candidate> candidateList = new ArrayList<>();
         Queue<String> exhaustList = new ConcurrentLinkedQueue<>();
 
-        int m = varSelector.get().mCount();
+        int m = selector.mCount();
         for (String testCol : nextVarNames) {
             if (m <= 0) {
                 continue;
@@ -269,7 +295,7 @@ public class CTree extends ClassifierModel<CTree, ClassifierResult, DefaultHookI
             }
             var test = testMap.get().get(df.type(testCol));
             var candidate = test.computeCandidate(
-                    this, df, weights, testCol, firstTargetName(), purity.get());
+                    this, binning, node, df, weights, testCol, firstTargetName(), purity.get());
             if (candidate != null) {
                 candidateList.add(candidate);
                 m--;
@@ -288,7 +314,7 @@ public class CTree extends ClassifierModel<CTree, ClassifierResult, DefaultHookI
 
         node.leaf = false;
         node.bestCandidate = candidateList.get(0);
-        varSelector.get().removeVarNames(exhaustList);
+        selector.removeVarNames(exhaustList);
     }
 
     public void prune(Frame df) {
@@ -297,11 +323,42 @@ public class CTree extends ClassifierModel<CTree, ClassifierResult, DefaultHookI
 
     public void prune(Frame df, boolean all) {
         pruning.get().prune(this, df, all);
+        flatTree = null;
+    }
+
+    /**
+     * Builds a compiled form of the tree used for batch prediction. For each node the
+     * values contains the normalized densities for target levels followed by the index
+     * of the best label.
+     *
+     * @return compiled tree or null if the tree contains tests which can't be compiled
+     */
+    private FlatTree flatTree() {
+        if (flatTree == null) {
+            List<String> levels = firstTargetLevels();
+            flatTree = FlatTree.from(root, node -> node.leaf ? List.of() : node.children, node -> node.predicate,
+                    node -> node.density.sum(),
+                    node -> {
+                        var dv = node.density.copy().normalize();
+                        double[] values = new double[levels.size()];
+                        for (int i = 1; i < levels.size(); i++) {
+                            values[i - 1] = dv.get(levels.get(i));
+                        }
+                        values[levels.size() - 1] = levels.indexOf(node.bestLabel);
+                        return values;
+                    });
+        }
+        return flatTree;
     }
 
     @Override
     protected ClassifierResult corePredict(Frame df, boolean withClasses, boolean withDensities) {
         ClassifierResult prediction = ClassifierResult.build(this, df, withClasses, withDensities);
+        FlatTree flat = flatTree();
+        if (flat != null) {
+            predictFlat(flat, df, prediction, withClasses, withDensities);
+            return prediction;
+        }
         for (int i = 0; i < df.rowCount(); i++) {
             Pair<String, DensityVector<String>> res = predictPoint(this, root, i, df);
             String label = res.v1;
@@ -316,6 +373,62 @@ public class CTree extends ClassifierModel<CTree, ClassifierResult, DefaultHookI
         return prediction;
     }
 
+    private void predictFlat(FlatTree flat, Frame df, ClassifierResult prediction, boolean withClasses, boolean withDensities) {
+        List<String> levels = firstTargetLevels();
+        int k = levels.size() - 1;
+        double[][] columns = flat.columns(df);
+        int[] nodes = flat.descend(columns, df.rowCount(), poolSize.get() != 0);
+        for (int i = 0; i < nodes.length; i++) {
+            int node = nodes[i];
+            if (node < 0) {
+                // no child accepts the instance, aggregate over children
+                Pair<String, DensityVector<String>> res = predictFlatPoint(flat, ~node, columns, i);
+                if (withClasses)
+                    prediction.firstClasses().setLabel(i, res.v1);
+                if (withDensities)
+                    for (int j = 1; j < levels.size(); j++) {
+                        prediction.firstDensity().setDouble(i, j, res.v2.get(levels.get(j)));
+                    }
+                continue;
+            }
+            if (withClasses)
+                prediction.firstClasses().setLabel(i, levels.get((int) flat.value(node, k)));
+            if (withDensities)
+                for (int j = 1; j < levels.size(); j++) {
+                    prediction.firstDensity().setDouble(i, j, flat.value(node, j - 1));
+                }
+        }
+    }
+
+    private Pair<String, DensityVector<String>> predictFlatPoint(FlatTree flat, int node, double[][] columns, int row) {
+        List<String> dict = firstTargetLevels();
+        int k = dict.size() - 1;
+        if (flat.isLeaf(node)) {
+            var dv = DensityVector.emptyByLabels(false, dict);
+            for (int i = 1; i < dict.size(); i++) {
+                dv.set(dict.get(i), flat.value(node, i - 1));
+            }
+            return Pair.from(dict.get((int) flat.value(node, k)), dv);
+        }
+        int next = flat.next(node, columns, row);
+        if (next >= 0) {
+            return predictFlatPoint(flat, next, columns, row);
+        }
+        var dv = DensityVector.emptyByLabels(false, dict);
+        double w = 0.0;
+        int start = flat.firstChild(node);
+        for (int child = start; child < start + flat.childCount(node); child++) {
+            var d = predictFlatPoint(flat, child, columns, row).v2;
+            double wc = flat.weight(child);
+            dv.plus(d, wc);
+            w += wc;
+        }
+        for (int i = 1; i < dict.size(); i++) {
+            dv.set(dict.get(i), dv.get(dict.get(i)) / w);
+        }
+        return Pair.from(dv.findBestLabel(), dv);
+    }
+
     protected Pair<String, DensityVector<String>> predictPoint(CTree tree, Node node, int row, Frame df) {
         if (node.leaf)
             return Pair.from(node.bestLabel, node.density.copy().normalize());
@@ -0,0 +1,295 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright 2013 - 2021 Aurelian Tutuianu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package rapaio.ml.classifier.tree.ctree;
+
+import rapaio.core.RandomSource;
+import rapaio.core.tools.DensityTable;
+import rapaio.data.Frame;
+import rapaio.data.MappedFrame;
+import rapaio.data.Mapping;
+import rapaio.data.Var;
+import rapaio.experiment.ml.common.predicate.RowPredicate;
+import rapaio.ml.classifier.tree.CTree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Quantization of numeric variables used by histogram split search.
+ * <p>
+ * Each numeric variable is quantized once per fit into at most a given number of bins.
+ * The bin edges are placed between distinct values, such that each bin contains roughly
+ * the same number of instances. For each node the statistics of a variable are accumulated
+ * into a histogram which is a {@link DensityTable} with bins on rows and target levels on
+ * columns. Candidate splits are evaluated only at bin edges.
+ * <p>
+ * When a node is split into children which partitions its instances, only the histograms of
+ * the smaller children are computed from data, the histogram of the largest child is obtained
+ * by subtracting the histograms of its siblings from the histogram of the parent.
+ *
+ * @author <a href="mailto:padreati@yahoo.com">Aurelian Tutuianu</a>
+ */
+public final class Binning {
+
+    /**
+     * Histogram of a numeric variable for the instances of a node.
+     *
+     * @param weights table of weights with bins on rows and target levels on columns
+     * @param counts  number of instances in each bin
+     */
+    public record Histogram(DensityTable<String, String> weights, double[] counts) {
+
+        Histogram minus(Histogram other) {
+            var dt = weights.newInstance();
+            double[] c = new double[counts.length];
+            for (int i = 0; i < counts.length; i++) {
+                c[i] = counts[i] - other.counts[i];
+                for (int j = 0; j < dt.colCount(); j++) {
+                    dt.increment(i, j, weights.get(i, j) - other.weights.get(i, j));
+                }
+            }
+            return new Histogram(dt, c);
+        }
+    }
+
+    /**
+     * Quantization of a single variable.
+     *
+     * @param edges     upper edges of the bins, a value belongs to the first bin with edge greater or equal than value
+     * @param rowBins   bin index for each row of the base frame, -1 for missing values
+     * @param prototype empty histogram table used to create new tables with shared indexes
+     */
+    private record VarBins(double[] edges, int[] rowBins, DensityTable<String, String> prototype) {
+
+        int bin(double value) {
+            int pos = Arrays.binarySearch(edges, value);
+            return pos >= 0 ? pos : -pos - 1;
+        }
+    }
+
+    /**
+     * Builds quantization for the given numeric variables.
+     *
+     * @param df         frame used for fitting
+     * @param varNames   names of numeric variables
+     * @param targetName name of the target variable
+     * @param maxBins    maximum number of bins for each variable
+     * @return binning instance
+     */
+    public static Binning from(Frame df, Collection<String> varNames, String targetName, int maxBins) {
+        return new Binning(df, varNames, targetName, maxBins);
+    }
+
+    private final Frame base;
+    private final Map<String, VarBins> bins = new HashMap<>();
+
+    private Binning(Frame df, Collection<String> varNames, String targetName, int maxBins) {
+        // bins are indexed by the rows of the frame which backs the node frames
+        this.base = df instanceof MappedFrame mf ? mf.getSource() : df;
+        Mapping mapping = df instanceof MappedFrame mf ? mf.getMapping() : null;
+        for (String varName : varNames) {
+            int varIndex = df.varIndex(varName);
+            double[] values = new double[df.rowCount()];
+            int len = 0;
+            for (int i = 0; i < df.rowCount(); i++) {
+                if (!df.isMissing(i, varIndex)) {
+                    values[len++] = df.getDouble(i, varIndex);
+                }
+            }
+            Arrays.sort(values, 0, len);
+            double[] edges = computeEdges(values, len, maxBins);
+
+            List<String> labels = new ArrayList<>(edges.length + 1);
+            for (int i = 0; i <= edges.length; i++) {
+                labels.add(String.valueOf(i));
+            }
+            var prototype = DensityTable.emptyByLabel(true, labels, df.levels(targetName).subList(1, df.levels(targetName).size()));
+            VarBins vb = new VarBins(edges, new int[base.rowCount()], prototype);
+            Arrays.fill(vb.rowBins, -1);
+            for (int i = 0; i < df.rowCount(); i++) {
+                if (!df.isMissing(i, varIndex)) {
+                    vb.rowBins[mapping == null ? i : mapping.get(i)] = vb.bin(df.getDouble(i, varIndex));
+                }
+            }
+            bins.put(varName, vb);
+        }
+    }
+
+    private static double[] computeEdges(double[] sorted, int len, int maxBins) {
+        int distinct = 0;
+        for (int i = 0; i < len; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                distinct++;
+            }
+        }
+        // if there are few distinct values each one gets its own bin, otherwise
+        // the remaining values are spread evenly over the remaining bins
+        boolean all = distinct <= maxBins;
+        double[] edges = new double[Math.max(0, Math.min(distinct, maxBins) - 1)];
+        int count = 0;
+        int binStart = 0;
+        for (int i = 1; i < len && count < edges.length; i++) {
+            if (sorted[i] != sorted[i - 1] && (all || i - binStart >= (double) (len - binStart) / (maxBins - count))) {
+                edges[count++] = (sorted[i - 1] + sorted[i]) / 2.0;
+                binStart = i;
+            }
+        }
+        return Arrays.copyOf(edges, count);
+    }
+
+    /**
+     * Returns the histogram of a variable for the instances of a node, computing it if it is not
+     * already available for the node.
+     */
+    public Histogram histogram(Node node, Frame df, Var weights, String varName, String targetName) {
+        if (node.histograms == null) {
+            node.histograms = new HashMap<>();
+        }
+        Histogram h = node.histograms.get(varName);
+        if (h == null) {
+            h = compute(df, weights, varName, targetName);
+            node.histograms.put(varName, h);
+        }
+        return h;
+    }
+
+    private Histogram compute(Frame df, Var weights, String varName, String targetName) {
+        VarBins vb = bins.get(varName);
+        var dt = vb.prototype.newInstance();
+        double[] counts = new double[dt.rowCount()];
+        int targetIndex = df.varIndex(targetName);
+
+        Mapping mapping = null;
+        if (df instanceof MappedFrame mf && mf.getSource() == base) {
+            mapping = mf.getMapping();
+        }
+        if (mapping != null || df == base) {
+            for (int i = 0; i < df.rowCount(); i++) {
+                int bin = vb.rowBins[mapping == null ? i : mapping.get(i)];
+                if (bin >= 0) {
+                    dt.increment(bin, df.getInt(i, targetIndex) - 1, weights.getDouble(i));
+                    counts[bin]++;
+                }
+            }
+        } else {
+            // frame not backed by the base frame, values are binned on the fly
+            int varIndex = df.varIndex(varName);
+            for (int i = 0; i < df.rowCount(); i++) {
+                if (!df.isMissing(i, varIndex)) {
+                    int bin = vb.bin(df.getDouble(i, varIndex));
+                    dt.increment(bin, df.getInt(i, targetIndex) - 1, weights.getDouble(i));
+                    counts[bin]++;
+                }
+            }
+        }
+        return new Histogram(dt, counts);
+    }
+
+    /**
+     * Builds the histograms of the children from the histograms of a split node. When the children
+     * partition the instances of the node, the histograms of all but the largest child are computed
+     * from data and the histogram of the largest child is obtained by subtraction.
+     */
+    public void split(Node node, Frame df, List<Frame> frames, List<Var> weights, String targetName) {
+        if (node.histograms == null) {
+            return;
+        }
+        int total = 0;
+        int largest = 0;
+        for (int i = 0; i < frames.size(); i++) {
+            total += frames.get(i).rowCount();
+            if (frames.get(i).rowCount() > frames.get(largest).rowCount()) {
+                largest = i;
+            }
+        }
+        // missing values could be distributed in more children or ignored
+        if (total == df.rowCount()) {
+            for (int i = 0; i < node.children.size(); i++) {
+                node.children.get(i).histograms = new HashMap<>();
+            }
+            for (var e : node.histograms.entrySet()) {
+                Histogram rest = e.getValue();
+                for (int i = 0; i < frames.size(); i++) {
+                    if (i == largest) {
+                        continue;
+                    }
+                    Histogram h = compute(frames.get(i), weights.get(i), e.getKey(), targetName);
+                    node.children.get(i).histograms.put(e.getKey(), h);
+                    rest = rest.minus(h);
+                }
+                node.children.get(largest).histograms.put(e.getKey(), rest);
+            }
+        }
+        node.histograms = null;
+    }
+
+    /**
+     * Finds the best binary split at bin edges for a variable.
+     */
+    public Candidate bestCandidate(CTree c, Node node, Frame df, Var weights, String testName, String targetName, Purity function) {
+        VarBins vb = bins.get(testName);
+        Histogram h = histogram(node, df, weights, testName, targetName);
+
+        var dt = DensityTable.emptyByLabel(false, DensityTable.NUMERIC_DEFAULT_LABELS, df.levels(targetName));
+        double len = 0;
+        for (int i = 0; i < h.counts.length; i++) {
+            len += h.counts[i];
+            for (int j = 0; j < dt.colCount(); j++) {
+                dt.increment(1, j, h.weights.get(i, j));
+            }
+        }
+
+        Candidate best = null;
+        double bestScore = 0.0;
+        double left = 0;
+        for (int i = 0; i < vb.edges.length; i++) {
+            if (h.counts[i] == 0) {
+                continue;
+            }
+            for (int j = 0; j < dt.colCount(); j++) {
+                double w = h.weights.get(i, j);
+                dt.increment(1, j, -w);
+                dt.increment(0, j, w);
+            }
+            left += h.counts[i];
+            if (left < c.minCount.get() || len - left < c.minCount.get()) {
+                continue;
+            }
+            double currentScore = function.compute(dt);
+            if (best != null) {
+                int comp = Double.compare(bestScore, currentScore);
+                if (comp > 0) continue;
+                if (comp == 0 && RandomSource.nextDouble() > 0.5) continue;
+            }
+            best = new Candidate(currentScore, testName);
+            best.addGroup(RowPredicate.numLessEqual(testName, vb.edges[i]));
+            best.addGroup(RowPredicate.numGreater(testName, vb.edges[i]));
+            bestScore = currentScore;
+        }
+        return best;
+    }
+}
@@ -28,6 +28,7 @@ import java.io.Serial;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Created by <a href="mailto:padreati@yahoo.com">Aurelian Tutuianu</a> on 8/12/20.
@@ -49,6 +50,10 @@ public final class Node implements Serializable {
     public DensityVector<String> counter;
     public String bestLabel;
     public Candidate bestCandidate;
+    /**
+     * Histograms of numeric variables, available only while the tree is grown.
+     */
+    public transient Map<String, Binning.Histogram> histograms;
 
     public Node(Node parent, int id, int depth, String groupName, RowPredicate predicate) {
         this.parent = parent;
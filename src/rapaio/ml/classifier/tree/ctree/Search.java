@@ -138,6 +138,26 @@ public enum Search implements Serializable {
             return best;
         }
     },
+    /**
+     * Binary split search on a numeric variable at the edges of the bins computed
+     * once per fit, see {@link Binning}.
+     */
+    NumericHistogram {
+        @Override
+        public Candidate computeCandidate(CTree c, Frame df, Var weights, String testName, String targetName, Purity function) {
+            Binning binning = Binning.from(df, List.of(testName), targetName, c.bins.get());
+            return binning.bestCandidate(c, new Node(null, 0, 0, "root", RowPredicate.all()), df, weights, testName, targetName, function);
+        }
+
+        @Override
+        public Candidate computeCandidate(CTree c, Binning binning, Node node, Frame df, Var weights,
+                                          String testName, String targetName, Purity function) {
+            if (binning == null) {
+                return computeCandidate(c, df, weights, testName, targetName, function);
+            }
+            return binning.bestCandidate(c, node, df, weights, testName, targetName, function);
+        }
+    },
     BinaryBinary {
         @Override
         public Candidate computeCandidate(
@@ -218,4 +238,13 @@ public enum Search implements Serializable {
     };
 
     public abstract Candidate computeCandidate(CTree c, Frame df, Var w, String testName, String targetName, Purity function);
+
+    /**
+     * Computes the candidate for a node of a tree which is grown. The binning is available
+     * only when there are variables tested with histogram search.
+     */
+    public Candidate computeCandidate(CTree c, Binning binning, Node node, Frame df, Var w,
+                                      String testName, String targetName, Purity function) {
+        return computeCandidate(c, df, w, testName, targetName, function);
+    }
 }
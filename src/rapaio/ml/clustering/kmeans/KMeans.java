@@ -22,7 +22,6 @@
 package rapaio.ml.clustering.kmeans;
 
 import rapaio.core.RandomSource;
-import rapaio.core.stat.Mean;
 import rapaio.data.Frame;
 import rapaio.data.SolidFrame;
 import rapaio.data.Unique;
@@ -32,6 +31,10 @@ import rapaio.data.VarInt;
 import rapaio.data.VarType;
 import rapaio.math.linear.DMatrix;
 import rapaio.math.linear.DVector;
+import rapaio.math.linear.MType;
+import rapaio.math.linear.dense.DMatrixDense;
+import rapaio.math.linear.dense.DMatrixDenseR;
+import rapaio.math.linear.dense.DMatrixStride;
 import rapaio.ml.clustering.ClusteringModel;
 import rapaio.ml.clustering.DefaultHookInfo;
 import rapaio.ml.common.Capabilities;
@@ -41,9 +44,12 @@ import rapaio.printer.opt.POption;
 import rapaio.util.collection.IntArrays;
 
 import java.io.Serial;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
+import java.util.function.IntConsumer;
 import java.util.stream.IntStream;
 
 /**
@@ -77,6 +83,29 @@ public class KMeans extends ClusteringModel<KMeans, KMeansResult, DefaultHookInf
          * @return error contributed by this observation
          */
         double observationError(DVector c, DVector v);
+
+        /**
+         * Computes the distance between two observation vectors given as arrays.
+         *
+         * @param u first vector
+         * @param v second vector
+         * @return distance between vectors
+         */
+        default double distance(double[] u, double[] v) {
+            return distance(DVector.wrap(u), DVector.wrap(v));
+        }
+
+        /**
+         * Computes the error contribution of the observation v given as array
+         * when assigned to cluster with centroid c
+         *
+         * @param c cluster centroid
+         * @param v observation vector
+         * @return error contributed by this observation
+         */
+        default double observationError(double[] c, double[] v) {
+            return observationError(DVector.wrap(c), DVector.wrap(v));
+        }
     }
 
     public static class L2 implements Space {
@@ -100,16 +129,62 @@ public class KMeans extends ClusteringModel<KMeans, KMeansResult, DefaultHookInf
             }
             return distance;
         }
+
+        @Override
+        public double distance(double[] u, double[] v) {
+            return Math.sqrt(observationError(u, v));
+        }
+
+        @Override
+        public double observationError(double[] c, double[] v) {
+            double distance = 0;
+            for (int i = 0; i < c.length; i++) {
+                double delta = c[i] - v[i];
+                distance += delta * delta;
+            }
+            return distance;
+        }
+    }
+
+    /**
+     * Algorithm used to assign observations to the closest centroids.
+     */
+    public enum Method {
+        /**
+         * Computes at each iteration the distances from each observation to all centroids.
+         */
+        Lloyd,
+        /**
+         * Keeps for each observation an upper bound on the distance to the assigned centroid
+         * and a lower bound on the distance to the second closest centroid. The bounds are
+         * maintained using the triangle inequality and most of the distance computations are
+         * skipped once the centroids do not move much. Produces the same clusters as Lloyd,
+         * apart from ties between equally distant centroids,
+         * but requires that the distance of the space is a metric.
+         */
+        Hamerly
     }
 
     @Serial
     private static final long serialVersionUID = -1046184364541391871L;
+    private static final int MIN_CHUNK_ROWS = 1024;
 
     public final ValueParam<Integer, KMeans> k = new ValueParam<>(this, 2, "k", "number of clusters");
     public final ValueParam<Integer, KMeans> nstart = new ValueParam<>(this, 1, "nstart", "Number of restarts", n -> n != null && n > 0);
     public final ValueParam<KMeansInit, KMeans> init = new ValueParam<>(this, KMeansInit.Forgy, "init", "Initialization algorithm");
     public final ValueParam<Space, KMeans> space = new ValueParam<>(this, new L2(), "L2 space", "L2 space");
     public final ValueParam<Double, KMeans> eps = new ValueParam<>(this, 1e-20, "eps", "Tolerance for convergence measures");
+    public final ValueParam<Method, KMeans> method = new ValueParam<>(this, Method.Lloyd, "method",
+            "Algorithm used to assign observations to centroids", Objects::nonNull);
+
+    /**
+     * Number of threads used for assignment and centroid updates. Negative values are considered
+     * automatically as pool of number of available CPUs, zero means no pooling and positive values
+     * means pooling with a specified value. The rows are split in contiguous chunks, one for each
+     * thread, and the partial results of the chunks are reduced in chunk order.
+     */
+    public final ValueParam<Integer, KMeans> poolSize = new ValueParam<>(this, 0, "poolSize",
+            "Number of threads used for assignment and centroid updates", Objects::nonNull);
 
     // clustering artifacts
 
@@ -153,19 +228,24 @@ public class KMeans extends ClusteringModel<KMeans, KMeansResult, DefaultHookInf
     @Override
     public KMeans coreFit(Frame initialDf, Var weights) {
 
-        DMatrix m = DMatrix.copy(initialDf);
-        c = initializeClusters(m);
+        DMatrix m = rowMatrix(initialDf);
+        double[][] x = rows(m);
+        int[] chunks = chunks(x.length);
+
+        c = DMatrix.wrap(rows(initializeClusters(m, x, chunks)));
 
         int[] assignment = IntArrays.newFill(m.rowCount(), -1);
         errors = VarDouble.empty().name("errors");
 
-        assignToCentroids(m, assignment);
+        Bounds bounds = method.get() == Method.Hamerly ? new Bounds(x.length, k.get(), inputNames.length) : null;
+
+        assign(x, chunks, assignment, bounds);
         repairEmptyClusters(m, assignment);
 
         int rounds = runs.get();
         while (rounds-- > 0) {
             recomputeCentroids(m, assignment);
-            assignToCentroids(m, assignment);
+            assign(x, chunks, assignment, bounds);
             repairEmptyClusters(m, assignment);
 
             if (runningHook != null) {
@@ -183,16 +263,16 @@ public class KMeans extends ClusteringModel<KMeans, KMeansResult, DefaultHookInf
         return this;
     }
 
-    private DMatrix initializeClusters(DMatrix m) {
+    private DMatrix initializeClusters(DMatrix m, double[][] x, int[] chunks) {
         DMatrix bestCentroids = init.get().init(space.get(), m, k.get());
-        double bestError = computeInitError(m, bestCentroids);
+        double bestError = computeError(x, rows(bestCentroids), chunks, null);
 
         // compute initial restarts if nstart is greater than 1
         // the best restart is kept as initial centroids
 
         for (int i = 1; i < nstart.get(); i++) {
             DMatrix nextCentroids = init.get().init(space.get(), m, k.get());
-            double nextError = computeInitError(m, nextCentroids);
+            double nextError = computeError(x, rows(nextCentroids), chunks, null);
             if (nextError < bestError) {
                 bestCentroids = nextCentroids;
                 bestError = nextError;
@@ -201,32 +281,112 @@ public class KMeans extends ClusteringModel<KMeans, KMeansResult, DefaultHookInf
         return bestCentroids;
     }
 
-    private double computeInitError(DMatrix m, DMatrix centroids) {
-        double sum = 0;
-        for (int i = 0; i < m.rowCount(); i++) {
-            DVector mrow = m.mapRow(i);
-            int cluster = findClosestCentroid(mrow, centroids);
-            sum += space.get().observationError(centroids.mapRow(cluster), mrow);
+    /**
+     * Copies the frame into a matrix which stores each row in its own array,
+     * thus the rows are later used without copy.
+     */
+    static DMatrix rowMatrix(Frame df) {
+        double[][] values = new double[df.rowCount()][df.varCount()];
+        for (int i = 0; i < values.length; i++) {
+            for (int j = 0; j < values[i].length; j++) {
+                values[i][j] = df.getDouble(i, j);
+            }
         }
-        return sum;
+        return new DMatrixDenseR(df.rowCount(), df.varCount(), values);
     }
 
-    private void assignToCentroids(DMatrix m, int[] assignment) {
+    /**
+     * Returns the rows of the matrix as arrays. For dense row major matrices
+     * the storage arrays are returned without copy. Stride matrices with contiguous
+     * rows are copied with bulk array copies.
+     */
+    static double[][] rows(DMatrix m) {
+        if (m instanceof DMatrixDense dense && m.type() == MType.RDENSE) {
+            return dense.getElements();
+        }
+        if (m instanceof DMatrixStride stride && stride.getColStride() == 1) {
+            double[][] rows = new double[m.rowCount()][];
+            for (int i = 0; i < rows.length; i++) {
+                rows[i] = Arrays.copyOfRange(stride.getArray(), stride.getOffset() + i * stride.getRowStride(),
+                        stride.getOffset() + i * stride.getRowStride() + m.colCount());
+            }
+            return rows;
+        }
+        double[][] rows = new double[m.rowCount()][m.colCount()];
+        for (int i = 0; i < rows.length; i++) {
+            for (int j = 0; j < rows[i].length; j++) {
+                rows[i][j] = m.get(i, j);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Splits the rows in contiguous chunks, one for each thread.
+     *
+     * @return chunk boundaries, chunk i contains rows from position i inclusive to position i+1 exclusive
+     */
+    private int[] chunks(int rows) {
+        int threads = poolSize.get() < 0 ? Runtime.getRuntime().availableProcessors() : Math.max(1, poolSize.get());
+        threads = Math.max(1, Math.min(threads, rows / MIN_CHUNK_ROWS));
+        int[] chunks = new int[threads + 1];
+        for (int i = 0; i <= threads; i++) {
+            chunks[i] = (int) ((long) rows * i / threads);
+        }
+        return chunks;
+    }
+
+    private static void runChunks(int[] chunks, IntConsumer task) {
+        IntStream range = IntStream.range(0, chunks.length - 1);
+        if (chunks.length > 2) {
+            range = range.parallel();
+        }
+        range.forEach(task);
+    }
+
+    /**
+     * Assigns each row to the closest centroid and returns the total error. If assignment
+     * is null the rows are only evaluated.
+     */
+    private double computeError(double[][] x, double[][] cs, int[] chunks, int[] assignment) {
+        double[] partialErrors = new double[chunks.length - 1];
+        runChunks(chunks, chunk -> {
+            Space s = space.get();
+            double err = 0;
+            for (int i = chunks[chunk]; i < chunks[chunk + 1]; i++) {
+                int cluster = findClosestCentroid(s, x[i], cs);
+                err += s.observationError(cs[cluster], x[i]);
+                if (assignment != null) {
+                    assignment[i] = cluster;
+                }
+            }
+            partialErrors[chunk] = err;
+        });
         double totalError = 0.0;
-        for (int i = 0; i < m.rowCount(); i++) {
-            DVector row = m.mapRow(i);
-            int cluster = findClosestCentroid(row, c);
-            totalError += space.get().observationError(c.mapRow(cluster), row);
-            assignment[i] = cluster;
+        for (double err : partialErrors) {
+            totalError += err;
         }
+        return totalError;
+    }
+
+    private void assign(double[][] x, int[] chunks, int[] assignment, Bounds bounds) {
+        double[][] cs = rows(c);
+        double totalError = bounds == null
+                ? computeError(x, cs, chunks, assignment)
+                : bounds.assign(space.get(), x, cs, chunks, assignment);
         errors.addDouble(totalError);
     }
 
-    private int findClosestCentroid(DVector mrow, DMatrix centroids) {
+    private void assignToCentroids(DMatrix m, int[] assignment) {
+        double[][] x = rows(m);
+        assign(x, chunks(x.length), assignment, null);
+    }
+
+    private static int findClosestCentroid(Space space, double[] row, double[][] cs) {
         int cluster = 0;
-        double d = space.get().distance(mrow, centroids.mapRow(0));
-        for (int j = 1; j < centroids.rowCount(); j++) {
-            double dd = space.get().distance(mrow, centroids.mapRow(j));
+        double d = space.distance(row, cs[0]);
+        for (int j = 1; j < cs.length; j++) {
+            double dd = space.distance(row, cs[j]);
             if (d > dd) {
                 d = dd;
                 cluster = j;
@@ -237,19 +397,67 @@ public class KMeans extends ClusteringModel<KMeans, KMeansResult, DefaultHookInf
 
     private void recomputeCentroids(DMatrix m, int[] assignment) {
 
-        // we compute mean for each feature separately
-        for (int j = 0; j < m.colCount(); j++) {
-            // collect values for each cluster in mean, for a given input feature
-            Var[] means = IntStream.range(0, k.get()).boxed()
-                    .map(i -> VarDouble.empty())
-                    .toArray(VarDouble[]::new);
-            for (int i = 0; i < m.rowCount(); i++) {
-                means[assignment[i]].addDouble(m.get(i, j));
+        // mean is computed for each cluster and feature in two passes, the second pass
+        // adds a correction term, rows are accumulated in order for each chunk and
+        // the chunk partial results are reduced in chunk order
+
+        double[][] x = rows(m);
+        int[] chunks = chunks(x.length);
+        int kk = k.get();
+        int cols = m.colCount();
+
+        double[][] partialSums = new double[chunks.length - 1][kk * cols];
+        int[][] partialCounts = new int[chunks.length - 1][kk];
+        runChunks(chunks, chunk -> {
+            double[] sums = partialSums[chunk];
+            int[] counts = partialCounts[chunk];
+            for (int i = chunks[chunk]; i < chunks[chunk + 1]; i++) {
+                int offset = assignment[i] * cols;
+                counts[assignment[i]]++;
+                for (int j = 0; j < cols; j++) {
+                    sums[offset + j] += x[i][j];
+                }
+            }
+        });
+        int[] counts = new int[kk];
+        double[] means = reduce(partialSums, partialCounts, counts);
+        for (int i = 0; i < kk; i++) {
+            for (int j = 0; j < cols; j++) {
+                means[i * cols + j] = counts[i] == 0 ? Double.NaN : means[i * cols + j] / counts[i];
+            }
+        }
+
+        runChunks(chunks, chunk -> {
+            double[] sums = partialSums[chunk];
+            Arrays.fill(sums, 0);
+            for (int i = chunks[chunk]; i < chunks[chunk + 1]; i++) {
+                int offset = assignment[i] * cols;
+                for (int j = 0; j < cols; j++) {
+                    sums[offset + j] += x[i][j] - means[offset + j];
+                }
+            }
+        });
+        double[] corrections = reduce(partialSums, null, null);
+        for (int i = 0; i < kk; i++) {
+            for (int j = 0; j < cols; j++) {
+                c.set(i, j, means[i * cols + j] + corrections[i * cols + j] / counts[i]);
+            }
+        }
+    }
+
+    private static double[] reduce(double[][] partialSums, int[][] partialCounts, int[] counts) {
+        double[] sums = new double[partialSums[0].length];
+        for (int chunk = 0; chunk < partialSums.length; chunk++) {
+            for (int i = 0; i < sums.length; i++) {
+                sums[i] += partialSums[chunk][i];
             }
-            for (int i = 0; i < k.get(); i++) {
-                c.set(i, j, Mean.of(means[i]).value());
+            if (partialCounts != null) {
+                for (int i = 0; i < counts.length; i++) {
+                    counts[i] += partialCounts[chunk][i];
+                }
             }
         }
+        return sums;
     }
 
     private void repairEmptyClusters(DMatrix df, int[] assignment) {
@@ -324,10 +532,125 @@ public class KMeans extends ClusteringModel<KMeans, KMeansResult, DefaultHookInf
         return count == inputNames.length;
     }
 
+    /**
+     * Bounds used by Hamerly's algorithm. For each row it keeps an upper bound on the distance
+     * to the assigned centroid and a lower bound on the distance to any other centroid. When centroids
+     * move the bounds are relaxed with the centroid displacements. A row needs the distances
+     * to all centroids only when its upper bound exceeds both its lower bound and half of the distance
+     * from its centroid to the closest other centroid.
+     */
+    private static final class Bounds {
+
+        private final double[] upper;
+        private final double[] lower;
+        private final double[][] previous;
+        private boolean initialized = false;
+
+        private Bounds(int rows, int k, int cols) {
+            upper = new double[rows];
+            lower = new double[rows];
+            previous = new double[k][cols];
+        }
+
+        private double assign(Space space, double[][] x, double[][] cs, int[] chunks, int[] assignment) {
+            int k = cs.length;
+
+            // half distance to the closest other centroid
+            double[] half = new double[k];
+            Arrays.fill(half, Double.POSITIVE_INFINITY);
+            for (int i = 0; i < k; i++) {
+                for (int j = i + 1; j < k; j++) {
+                    double d = space.distance(cs[i], cs[j]) / 2;
+                    half[i] = Math.min(half[i], d);
+                    half[j] = Math.min(half[j], d);
+                }
+            }
+
+            // centroid displacements since last assignment, largest two are kept
+            // since the lower bound of a row is relaxed with the largest displacement
+            // of a centroid different than the assigned one
+            double[] drift = new double[k];
+            int maxIndex = 0;
+            double max = 0;
+            double secondMax = 0;
+            if (initialized) {
+                for (int i = 0; i < k; i++) {
+                    drift[i] = space.distance(previous[i], cs[i]);
+                    if (drift[i] > max) {
+                        secondMax = max;
+                        max = drift[i];
+                        maxIndex = i;
+                    } else if (drift[i] > secondMax) {
+                        secondMax = drift[i];
+                    }
+                }
+            }
+            final int fMaxIndex = maxIndex;
+            final double fMax = max;
+            final double fSecondMax = secondMax;
+            final boolean fullScan = !initialized;
+
+            double[] partialErrors = new double[chunks.length - 1];
+            runChunks(chunks, chunk -> {
+                double err = 0;
+                for (int i = chunks[chunk]; i < chunks[chunk + 1]; i++) {
+                    double[] row = x[i];
+                    if (fullScan) {
+                        scan(space, row, cs, i, assignment);
+                    } else {
+                        int a = assignment[i];
+                        upper[i] += drift[a];
+                        lower[i] -= (a == fMaxIndex) ? fSecondMax : fMax;
+                        double bound = Math.max(half[a], lower[i]);
+                        if (!(upper[i] <= bound)) {
+                            // tighten upper bound and test again
+                            upper[i] = space.distance(row, cs[a]);
+                            if (!(upper[i] <= bound)) {
+                                scan(space, row, cs, i, assignment);
+                            }
+                        }
+                    }
+                    err += space.observationError(cs[assignment[i]], row);
+                }
+                partialErrors[chunk] = err;
+            });
+
+            for (int i = 0; i < k; i++) {
+                System.arraycopy(cs[i], 0, previous[i], 0, cs[i].length);
+            }
+            initialized = true;
+
+            double totalError = 0.0;
+            for (double err : partialErrors) {
+                totalError += err;
+            }
+            return totalError;
+        }
+
+        private void scan(Space space, double[] row, double[][] cs, int i, int[] assignment) {
+            int cluster = 0;
+            double d = space.distance(row, cs[0]);
+            double second = Double.POSITIVE_INFINITY;
+            for (int j = 1; j < cs.length; j++) {
+                double dd = space.distance(row, cs[j]);
+                if (d > dd) {
+                    second = d;
+                    d = dd;
+                    cluster = j;
+                } else if (dd < second) {
+                    second = dd;
+                }
+            }
+            assignment[i] = cluster;
+            upper[i] = d;
+            lower[i] = second;
+        }
+    }
+
     @Override
     public KMeansResult corePredict(Frame df, boolean withScores) {
         int[] assignment = IntArrays.newFill(df.rowCount(), -1);
-        DMatrix m = DMatrix.copy(df);
+        DMatrix m = rowMatrix(df);
         assignToCentroids(m, assignment);
         return KMeansResult.valueOf(this, df, VarInt.wrap(assignment));
     }
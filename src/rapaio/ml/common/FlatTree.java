@@ -0,0 +1,314 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright 2013 - 2021 Aurelian Tutuianu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package rapaio.ml.common;
+
+import rapaio.data.Frame;
+import rapaio.data.Var;
+import rapaio.experiment.ml.common.predicate.RowPredicate;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Compiled, immutable representation of a decision tree used for fast batch prediction.
+ * <p>
+ * Nodes are stored in breadth first order in parallel arrays, such that the children of a node
+ * are stored contiguously. Each node contains the test which must be satisfied by an instance
+ * in order to descend from the parent into that node, the node weight and a fixed size vector
+ * of values which are interpreted by the model which compiled the tree.
+ * <p>
+ * Prediction works on columns extracted once for the whole frame. Numeric and binary variables
+ * are extracted as double values with missing values as {@code NaN}, nominal variables are
+ * extracted as codes of the labels used in tests, unknown labels being coded as {@code -1}.
+ * <p>
+ * The semantic of descending is the same as for the original tree: the first child which accepts
+ * the instance is followed. When no child accepts an instance, the traversal stops at that node and
+ * the model decides how to aggregate the children.
+ *
+ * @author <a href="mailto:padreati@yahoo.com">Aurelian Tutuianu</a>
+ */
+public final class FlatTree implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 2738421049176532110L;
+
+    private static final RowPredicate.Kind[] KINDS = RowPredicate.Kind.values();
+
+    /**
+     * Number of rows processed by a parallel task.
+     */
+    private static final int CHUNK = 4096;
+
+    /**
+     * Compiles a tree.
+     *
+     * @param root      root of the tree
+     * @param children  function which returns the children of a node, an empty list for leaves
+     * @param predicate function which returns the predicate of a node, root predicate is ignored
+     * @param weight    function which returns the weight of a node
+     * @param values    function which returns the values of a node, all nodes must have the same number of values
+     * @param <N>       type of the tree nodes
+     * @return compiled tree, or null if the tree contains predicates which are not simple tests
+     */
+    public static <N> FlatTree from(N root, Function<N, List<N>> children, Function<N, RowPredicate> predicate,
+                                    ToDoubleFunction<N> weight, Function<N, double[]> values) {
+        List<N> nodes = new ArrayList<>();
+        nodes.add(root);
+        List<Integer> firstChild = new ArrayList<>();
+        for (int i = 0; i < nodes.size(); i++) {
+            firstChild.add(nodes.size());
+            nodes.addAll(children.apply(nodes.get(i)));
+        }
+
+        int n = nodes.size();
+        int width = values.apply(root).length;
+        FlatTree tree = new FlatTree(n, width);
+        Map<String, Integer> featureIndex = new HashMap<>();
+        List<String> featureNames = new ArrayList<>();
+        List<List<String>> featureLabels = new ArrayList<>();
+
+        for (int i = 0; i < n; i++) {
+            N node = nodes.get(i);
+            tree.firstChild[i] = firstChild.get(i);
+            tree.childCount[i] = children.apply(node).size();
+            tree.weights[i] = weight.applyAsDouble(node);
+            double[] v = values.apply(node);
+            if (v.length != width) {
+                throw new IllegalArgumentException("All nodes must have the same number of values.");
+            }
+            System.arraycopy(v, 0, tree.values, i * width, width);
+
+            if (i == 0) {
+                tree.kinds[i] = (byte) RowPredicate.Kind.ALL.ordinal();
+                tree.features[i] = -1;
+                continue;
+            }
+            RowPredicate.Condition condition = predicate.apply(node).condition();
+            if (condition == null) {
+                return null;
+            }
+            tree.kinds[i] = (byte) condition.kind().ordinal();
+            if (condition.kind() == RowPredicate.Kind.ALL) {
+                tree.features[i] = -1;
+                continue;
+            }
+            int f = featureIndex.computeIfAbsent(condition.testName(), name -> {
+                featureNames.add(name);
+                featureLabels.add(null);
+                return featureNames.size() - 1;
+            });
+            tree.features[i] = f;
+            switch (condition.kind()) {
+                case NOM_EQUAL, NOM_NOT_EQUAL -> {
+                    if (featureLabels.get(f) == null) {
+                        featureLabels.set(f, new ArrayList<>());
+                    }
+                    List<String> labels = featureLabels.get(f);
+                    int code = labels.indexOf(condition.label());
+                    if (code < 0) {
+                        code = labels.size();
+                        labels.add(condition.label());
+                    }
+                    tree.thresholds[i] = code;
+                }
+                default -> tree.thresholds[i] = condition.value();
+            }
+        }
+        tree.featureNames = featureNames.toArray(String[]::new);
+        tree.featureLabels = new String[featureNames.size()][];
+        for (int i = 0; i < featureNames.size(); i++) {
+            List<String> labels = featureLabels.get(i);
+            tree.featureLabels[i] = labels == null ? null : labels.toArray(String[]::new);
+        }
+        return tree;
+    }
+
+    private final int width;
+    private final int[] firstChild;
+    private final int[] childCount;
+    private final byte[] kinds;
+    private final int[] features;
+    private final double[] thresholds;
+    private final double[] weights;
+    private final double[] values;
+    private String[] featureNames;
+    // labels used in nominal tests for each feature, null for non nominal features
+    private String[][] featureLabels;
+
+    private FlatTree(int n, int width) {
+        this.width = width;
+        this.firstChild = new int[n];
+        this.childCount = new int[n];
+        this.kinds = new byte[n];
+        this.features = new int[n];
+        this.thresholds = new double[n];
+        this.weights = new double[n];
+        this.values = new double[n * width];
+    }
+
+    public int nodeCount() {
+        return firstChild.length;
+    }
+
+    public boolean isLeaf(int node) {
+        return childCount[node] == 0;
+    }
+
+    public int firstChild(int node) {
+        return firstChild[node];
+    }
+
+    public int childCount(int node) {
+        return childCount[node];
+    }
+
+    public double weight(int node) {
+        return weights[node];
+    }
+
+    public double value(int node, int pos) {
+        return values[node * width + pos];
+    }
+
+    /**
+     * Extracts the columns used in tests from a frame.
+     *
+     * @param df frame with instances
+     * @return array of columns, one for each variable used in tests
+     */
+    public double[][] columns(Frame df) {
+        double[][] columns = new double[featureNames.length][];
+        for (int i = 0; i < featureNames.length; i++) {
+            Var var = df.rvar(featureNames[i]);
+            double[] column = new double[df.rowCount()];
+            if (featureLabels[i] == null) {
+                for (int j = 0; j < column.length; j++) {
+                    column[j] = var.isMissing(j) ? Double.NaN : var.getDouble(j);
+                }
+            } else {
+                // translate the dictionary of the variable into codes of labels used in tests
+                List<String> levels = var.levels();
+                double[] codes = new double[levels.size()];
+                Arrays.fill(codes, -1);
+                for (int j = 0; j < featureLabels[i].length; j++) {
+                    int index = levels.indexOf(featureLabels[i][j]);
+                    if (index >= 0) {
+                        codes[index] = j;
+                    }
+                }
+                for (int j = 0; j < column.length; j++) {
+                    column[j] = var.isMissing(j) ? Double.NaN : codes[var.getInt(j)];
+                }
+            }
+            columns[i] = column;
+        }
+        return columns;
+    }
+
+    /**
+     * Finds the first child of a node which accepts an instance.
+     *
+     * @param node    index of the node
+     * @param columns columns extracted with {@link #columns(Frame)}
+     * @param row     row of the instance
+     * @return index of the child node or -1 if there is no child which accepts the instance
+     */
+    public int next(int node, double[][] columns, int row) {
+        int start = firstChild[node];
+        int end = start + childCount[node];
+        for (int child = start; child < end; child++) {
+            if (accept(child, columns, row)) {
+                return child;
+            }
+        }
+        return -1;
+    }
+
+    private boolean accept(int node, double[][] columns, int row) {
+        int f = features[node];
+        if (f < 0) {
+            return true;
+        }
+        double value = columns[f][row];
+        double threshold = thresholds[node];
+        return switch (KINDS[kinds[node]]) {
+            case ALL -> true;
+            case NUM_LESS_EQUAL -> value <= threshold;
+            case NUM_LESS -> value < threshold;
+            case NUM_GREATER_EQUAL -> value >= threshold;
+            case NUM_GREATER -> value > threshold;
+            case BIN_EQUAL, NOM_EQUAL -> value == threshold;
+            case BIN_NOT_EQUAL, NOM_NOT_EQUAL -> !Double.isNaN(value) && value != threshold;
+        };
+    }
+
+    /**
+     * Descends the tree for an instance.
+     *
+     * @return index of the leaf node reached, or the complement ({@code ~node}) of the
+     * interior node where no child accepts the instance
+     */
+    public int descend(double[][] columns, int row) {
+        int node = 0;
+        while (childCount[node] > 0) {
+            int child = next(node, columns, row);
+            if (child < 0) {
+                return ~node;
+            }
+            node = child;
+        }
+        return node;
+    }
+
+    /**
+     * Descends the tree for all instances.
+     *
+     * @param columns  columns extracted with {@link #columns(Frame)}
+     * @param rows     number of instances
+     * @param parallel if true the instances are processed in parallel
+     * @return array with results as described in {@link #descend(double[][], int)}
+     */
+    public int[] descend(double[][] columns, int rows, boolean parallel) {
+        int[] nodes = new int[rows];
+        int chunks = (rows + CHUNK - 1) / CHUNK;
+        IntStream stream = IntStream.range(0, chunks);
+        if (parallel && chunks > 1) {
+            stream = stream.parallel();
+        }
+        stream.forEach(chunk -> {
+            int end = Math.min(rows, (chunk + 1) * CHUNK);
+            for (int row = chunk * CHUNK; row < end; row++) {
+                nodes[row] = descend(columns, row);
+            }
+        });
+        return nodes;
+    }
+}
@@ -24,8 +24,7 @@ package rapaio.ml.common.kernel;
 import rapaio.data.Frame;
 import rapaio.math.linear.DVector;
 import rapaio.ml.common.kernel.cache.KernelCache;
-import rapaio.ml.common.kernel.cache.MapKernelCache;
-import rapaio.ml.common.kernel.cache.SolidKernelCache;
+import rapaio.ml.common.kernel.cache.LRUKernelCache;
 
 import java.io.Serial;
 import java.util.Arrays;
@@ -43,12 +42,13 @@ public abstract class AbstractKernel implements Kernel {
 
     @Override
     public void buildKernelCache(String[] varNames, Frame df) {
+        buildKernelCache(varNames, df, LRUKernelCache.DEFAULT_CACHE_SIZE);
+    }
+
+    @Override
+    public void buildKernelCache(String[] varNames, Frame df, long cacheSize) {
         this.varNames = Arrays.copyOf(varNames, varNames.length);
-        if (df.rowCount() <= 10_000) {
-            cache = new SolidKernelCache(df);
-        } else {
-            cache = new MapKernelCache();
-        }
+        cache = new LRUKernelCache(df, cacheSize);
     }
 
     @Override
@@ -39,8 +39,23 @@ public interface Kernel extends Serializable {
 
     boolean isLinear();
 
+    /**
+     * Prepares the kernel for computations on the given frame, using a cache with default memory budget.
+     *
+     * @param varNames names of the variables used in kernel computations
+     * @param df       frame with instances for which kernel values are cached
+     */
     void buildKernelCache(String[] varNames, Frame df);
 
+    /**
+     * Prepares the kernel for computations on the given frame.
+     *
+     * @param varNames  names of the variables used in kernel computations
+     * @param df        frame with instances for which kernel values are cached
+     * @param cacheSize memory budget in bytes for cached kernel values
+     */
+    void buildKernelCache(String[] varNames, Frame df, long cacheSize);
+
     double compute(Frame df1, int row1, Frame df2, int row2);
 
     double compute(DVector v, DVector u);
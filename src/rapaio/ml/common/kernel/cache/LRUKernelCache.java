@@ -0,0 +1,180 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright 2013 - 2021 Aurelian Tutuianu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package rapaio.ml.common.kernel.cache;
+
+import rapaio.data.Frame;
+
+import java.io.Serial;
+import java.util.Arrays;
+
+/**
+ * Kernel cache which stores whole kernel rows as primitive arrays, in the spirit of
+ * the LIBSVM row cache. The number of cached rows is bounded by a memory budget
+ * and the least recently used row is evicted when a new row is needed.
+ * <p>
+ * Values of a cached row are filled lazily, not computed values are marked with {@code NaN}.
+ * Since kernels are symmetric, a value is looked up in the rows of both instances. When
+ * none of the rows is cached, the value is stored in the row of the first instance, thus
+ * callers which iterate over the second instance with a fixed first instance benefit most.
+ * <p>
+ * Only values computed between instances of the frame the cache was built for are cached.
+ *
+ * @author <a href="mailto:padreati@yahoo.com">Aurelian Tutuianu</a>
+ */
+public class LRUKernelCache implements KernelCache {
+
+    @Serial
+    private static final long serialVersionUID = 4186390012953417717L;
+
+    /**
+     * Default memory budget of 100 megabytes.
+     */
+    public static final long DEFAULT_CACHE_SIZE = 100L << 20;
+
+    private final transient Frame df;
+    private final int n;
+    private final int capacity;
+
+    private transient double[][] rows;
+    // doubly linked list of cached rows in access order, n is the sentinel
+    private transient int[] prev;
+    private transient int[] next;
+    private int size;
+
+    /**
+     * Builds a kernel row cache.
+     *
+     * @param df        frame with instances for which kernel values are cached
+     * @param cacheSize memory budget in bytes used for cached rows
+     */
+    public LRUKernelCache(Frame df, long cacheSize) {
+        this.df = df;
+        this.n = df.rowCount();
+        long rowBytes = Math.max(1L, (long) n * Double.BYTES);
+        this.capacity = (int) Math.max(2, Math.min(n, cacheSize / rowBytes));
+        this.rows = new double[n][];
+        this.prev = new int[n + 1];
+        this.next = new int[n + 1];
+        prev[n] = n;
+        next[n] = n;
+    }
+
+    /**
+     * @return maximum number of rows which can be cached
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * @return number of currently cached rows
+     */
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Double retrieve(Frame df1, int row1, Frame df2, int row2) {
+        if (rows == null || df1 != df || df2 != df) {
+            return null;
+        }
+        double[] row = rows[row1];
+        if (row != null && !Double.isNaN(row[row2])) {
+            touch(row1);
+            return row[row2];
+        }
+        row = rows[row2];
+        if (row != null && !Double.isNaN(row[row1])) {
+            touch(row2);
+            return row[row1];
+        }
+        return null;
+    }
+
+    @Override
+    public void store(Frame df1, int row1, Frame df2, int row2, double value) {
+        if (rows == null || df1 != df || df2 != df) {
+            return;
+        }
+        if (rows[row1] == null && rows[row2] != null) {
+            rows[row2][row1] = value;
+            touch(row2);
+            return;
+        }
+        row(row1)[row2] = value;
+    }
+
+    /**
+     * Returns the cached row for the given instance, allocating it if it is not cached.
+     * Not computed values are marked with {@code NaN}.
+     */
+    private double[] row(int r) {
+        double[] row = rows[r];
+        if (row != null) {
+            touch(r);
+            return row;
+        }
+        if (size == capacity) {
+            // evict least recently used row and reuse its storage
+            int lru = next[n];
+            unlink(lru);
+            row = rows[lru];
+            rows[lru] = null;
+            size--;
+        } else {
+            row = new double[n];
+        }
+        Arrays.fill(row, Double.NaN);
+        rows[r] = row;
+        linkLast(r);
+        size++;
+        return row;
+    }
+
+    private void touch(int r) {
+        if (prev[n] != r) {
+            unlink(r);
+            linkLast(r);
+        }
+    }
+
+    private void unlink(int r) {
+        next[prev[r]] = next[r];
+        prev[next[r]] = prev[r];
+    }
+
+    private void linkLast(int r) {
+        int last = prev[n];
+        next[last] = r;
+        prev[r] = last;
+        next[r] = n;
+        prev[n] = r;
+    }
+
+    @Override
+    public void clear() {
+        rows = null;
+        prev = null;
+        next = null;
+        size = 0;
+    }
+}
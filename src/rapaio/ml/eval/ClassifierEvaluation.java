@@ -34,16 +34,10 @@ import rapaio.ml.eval.split.KFold;
 import rapaio.ml.eval.split.Split;
 import rapaio.ml.eval.split.SplitStrategy;
 import rapaio.ml.eval.split.StratifiedKFold;
-import rapaio.sys.WS;
 
 import java.io.Serial;
-import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.concurrent.Executor;
 
 /**
  * Classifier evaluation tool.
@@ -94,53 +88,40 @@ public class ClassifierEvaluation extends ParamSet<ClassifierEvaluation> {
     public final ListParam<ClassifierMetric, ClassifierEvaluation> metrics = new ListParam<>(this,
             List.of(Accuracy.newMetric()), "metrics", "Metrics used at evaluation time.", (in, out) -> true);
 
+    public final ValueParam<EvaluationListener<ClassifierResult>, ClassifierEvaluation> listener = new ValueParam<>(this,
+            (split, trainResult, testResult) -> {}, "listener", "Listener called with the results of each split when it is completed.");
+
+    /**
+     * Executor used to run the splits. If it is not specified a pool with {@link #threads}
+     * threads is created for each evaluation. A caller supplied executor can be shared
+     * between evaluations and it is not shut down at the end of the evaluation.
+     */
+    public final ValueParam<Executor, ClassifierEvaluation> executor = new ValueParam<>(this,
+            null, "executor", "Executor used to run the splits.", x -> true);
+
+    /**
+     * Fits and evaluates the model on each split. The results of each split are
+     * passed to the listener as soon as they are available. If the evaluation of any
+     * split fails, the remaining splits are cancelled and an {@link IllegalStateException}
+     * is thrown.
+     *
+     * @return evaluation result
+     */
     public ClassifierEvaluationResult run() {
-        ExecutorService executorService = Executors.newFixedThreadPool(threads.get());
-        List<Future<Run>> futures = new LinkedList<>();
-
-        // create features for parallel execution
-
         List<Split> splits = splitStrategy.get().generateSplits(data.get(), weights.get());
-
-        for (Split split : splits) {
-            Future<Run> futureRun = executorService.submit(() -> {
-                var m = model.get().newInstance();
-                m.fit(split.trainDf(), targetName.get());
-                var trainResult = m.predict(split.trainDf(), true, true);
-                var testResult = m.predict(split.testDf(), true, true);
-                return new Run(split, trainResult, testResult);
-            });
-            futures.add(futureRun);
-        }
-
         ClassifierEvaluationResult result = new ClassifierEvaluationResult(this);
-
-        // collect results
-        while (!futures.isEmpty()) {
-            Iterator<Future<Run>> iterator = futures.iterator();
-            while (iterator.hasNext()) {
-                Future<Run> future = iterator.next();
-                if (future.isDone()) {
-                    try {
-                        var run = future.get();
-                        result.appendRun(run.split, run.trainResult, run.testResult);
-                        iterator.remove();
-                    } catch (InterruptedException | ExecutionException e) {
-                        // do nothing
-                        WS.println("ERROR:" + e.getMessage());
-                        e.printStackTrace();
-                        futures.clear();
-                        break;
-                    }
-                }
-            }
-        }
-
-        // shut down executor
-        executorService.shutdownNow();
+        EvaluationScheduler.run(executor.get(), threads.get(), splits,
+                split -> {
+                    var m = model.get().newInstance();
+                    m.fit(split.trainDf(), targetName.get());
+                    var trainResult = m.predict(split.trainDf(), true, true);
+                    var testResult = m.predict(split.testDf(), true, true);
+                    return new EvaluationScheduler.Fold<>(split, trainResult, testResult);
+                },
+                (split, trainResult, testResult) -> {
+                    result.appendRun(split, trainResult, testResult);
+                    listener.get().onSplit(split, trainResult, testResult);
+                });
         return result;
     }
-
-    private record Run(Split split, ClassifierResult trainResult, ClassifierResult testResult) {
-    }
 }
@@ -0,0 +1,48 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright 2013 - 2021 Aurelian Tutuianu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package rapaio.ml.eval;
+
+import rapaio.ml.eval.split.Split;
+
+import java.io.Serializable;
+
+/**
+ * Listener which receives the results of each split of an evaluation as soon as
+ * the split is completed. The listener is called from the thread which runs the
+ * evaluation, in the order in which splits are completed.
+ *
+ * @param <R> type of the model results
+ * @author <a href="mailto:padreati@yahoo.com">Aurelian Tutuianu</a>
+ */
+@FunctionalInterface
+public interface EvaluationListener<R> extends Serializable {
+
+    /**
+     * Called when the model was fitted on a split and the results were computed.
+     *
+     * @param split       split used for fitting and testing
+     * @param trainResult result of the model on the train data set
+     * @param testResult  result of the model on the test data set
+     */
+    void onSplit(Split split, R trainResult, R testResult);
+}
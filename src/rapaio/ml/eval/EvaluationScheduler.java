@@ -0,0 +1,131 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright 2013 - 2021 Aurelian Tutuianu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package rapaio.ml.eval;
+
+import rapaio.ml.eval.split.Split;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs the fit and predict tasks of an evaluation, one for each split, and
+ * collects their results through a completion service.
+ * <p>
+ * The calling thread blocks until a split is completed and hands its result to the
+ * consumer. At the first failed split the remaining splits are cancelled and the
+ * failure is raised as an {@link IllegalStateException}.
+ * <p>
+ * If no executor is given, a fixed thread pool is created for the evaluation and
+ * shut down at the end. A caller supplied executor is not shut down. In that case,
+ * instead of blocking, the calling thread runs itself the splits which were not
+ * started yet by the executor. This allows evaluations nested into tasks of the
+ * same bounded executor to progress even when all its threads are busy.
+ *
+ * @author <a href="mailto:padreati@yahoo.com">Aurelian Tutuianu</a>
+ */
+final class EvaluationScheduler {
+
+    @FunctionalInterface
+    interface SplitTask<R> {
+        Fold<R> run(Split split) throws Exception;
+    }
+
+    record Fold<R>(Split split, R trainResult, R testResult) {
+    }
+
+    private EvaluationScheduler() {
+    }
+
+    static <R> void run(Executor executor, int threads, List<Split> splits, SplitTask<R> task, EvaluationListener<R> consumer) {
+        ExecutorService ownPool = null;
+        Executor target = executor;
+        if (target == null) {
+            ownPool = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, splits.size())));
+            target = ownPool;
+        }
+
+        // runnables not yet taken by the caller thread, runnables already started
+        // by the executor are completed immediately as no-op since they are future tasks
+        ConcurrentLinkedQueue<Runnable> pending = new ConcurrentLinkedQueue<>();
+        Executor finalTarget = target;
+        Executor submitter = ownPool != null ? target : runnable -> {
+            pending.add(runnable);
+            finalTarget.execute(runnable);
+        };
+
+        CompletionService<Fold<R>> completionService = new ExecutorCompletionService<>(submitter);
+        Map<Future<Fold<R>>, Split> futures = new HashMap<>();
+        try {
+            for (Split split : splits) {
+                futures.put(completionService.submit(() -> task.run(split)), split);
+            }
+            for (int i = 0; i < splits.size(); i++) {
+                Future<Fold<R>> future = completionService.poll();
+                while (future == null) {
+                    Runnable runnable = pending.poll();
+                    if (runnable == null) {
+                        future = completionService.take();
+                    } else {
+                        runnable.run();
+                        future = completionService.poll();
+                    }
+                }
+                try {
+                    Fold<R> fold = future.get();
+                    consumer.onSplit(fold.split(), fold.trainResult(), fold.testResult());
+                } catch (ExecutionException e) {
+                    Split split = futures.get(future);
+                    cancel(futures.keySet());
+                    throw new IllegalStateException("Evaluation failed at round " + split.round()
+                            + ", fold " + split.fold() + ": " + e.getCause().getMessage(), e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            cancel(futures.keySet());
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Evaluation was interrupted.", e);
+        } catch (RuntimeException e) {
+            cancel(futures.keySet());
+            throw e;
+        } finally {
+            if (ownPool != null) {
+                ownPool.shutdownNow();
+            }
+        }
+    }
+
+    private static <R> void cancel(Iterable<Future<Fold<R>>> futures) {
+        for (Future<Fold<R>> future : futures) {
+            future.cancel(true);
+        }
+    }
+}
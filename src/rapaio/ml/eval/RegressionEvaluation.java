@@ -34,15 +34,8 @@ import rapaio.ml.regression.RegressionModel;
 import rapaio.ml.regression.RegressionResult;
 
 import java.io.Serial;
-import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Executor;
 
 /**
  * Created by <a href="mailto:padreati@yahoo.com">Aurelian Tutuianu</a> on 8/6/19.
@@ -79,80 +72,43 @@ public class RegressionEvaluation extends ParamSet<RegressionEvaluation> {
     public final ValueParam<Boolean, RegressionEvaluation> debug = new ValueParam<>(this,
             false, "debug", "If evaluation is used in debug mode or not.");
 
+    public final ValueParam<EvaluationListener<RegressionResult>, RegressionEvaluation> listener = new ValueParam<>(this,
+            (split, trainResult, testResult) -> {}, "listener", "Listener called with the results of each split when it is completed.");
+
+    /**
+     * Executor used to run the splits. If it is not specified a pool with {@link #threads}
+     * threads is created for each evaluation. A caller supplied executor can be shared
+     * between evaluations and it is not shut down at the end of the evaluation.
+     */
+    public final ValueParam<Executor, RegressionEvaluation> executor = new ValueParam<>(this,
+            null, "executor", "Executor used to run the splits.", x -> true);
+
     private RegressionEvaluation() {
     }
 
+    /**
+     * Fits and evaluates the model on each split. The results of each split are
+     * passed to the listener as soon as they are available. If the evaluation of any
+     * split fails, the remaining splits are cancelled and an {@link IllegalStateException}
+     * is thrown.
+     *
+     * @return evaluation result
+     */
     public RegressionEvaluationResult run() {
-        List<Task> tasks = new LinkedList<>();
-
-        // create features for parallel execution
-
         List<Split> splits = splitStrategy.get().generateSplits(df.get(), weights.get());
-
-        for (Split split : splits) {
-            tasks.add(new Task(model.get(), targetName.get(), split));
-        }
-
         RegressionEvaluationResult result = new RegressionEvaluationResult(this);
-
-
-        ExecutorService pool = Executors.newFixedThreadPool(threads.get());
-        List<Future<Run>> futures = null;
-        try {
-            futures = pool.invokeAll(tasks);
-
-            // collect results
-
-            while (!futures.isEmpty()) {
-                Iterator<Future<RegressionEvaluation.Run>> iterator = futures.iterator();
-                while (iterator.hasNext()) {
-                    Future<RegressionEvaluation.Run> future = iterator.next();
-                    if (future.isDone()) {
-                        try {
-                            var run = future.get();
-                            result.appendRun(run.split(), run.trainResult(), run.testResult());
-                            iterator.remove();
-                        } catch (InterruptedException | ExecutionException e) {
-                            // do nothing
-                            iterator.remove();
-                        }
-                    }
-                }
-            }
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        } finally {
-            shutdownAndAwaitTermination(pool);
-        }
-
-        shutdownAndAwaitTermination(pool);
-
+        EvaluationScheduler.run(executor.get(), threads.get(), splits,
+                split -> {
+                    var m = model.get().newInstance();
+                    m.fit(split.trainDf(), targetName.get());
+                    var trainResult = m.predict(split.trainDf());
+                    var testResult = m.predict(split.testDf());
+                    return new EvaluationScheduler.Fold<>(split, trainResult, testResult);
+                },
+                (split, trainResult, testResult) -> {
+                    result.appendRun(split, trainResult, testResult);
+                    listener.get().onSplit(split, trainResult, testResult);
+                });
         return result;
     }
-
-    void shutdownAndAwaitTermination(ExecutorService executorService) {
-        executorService.shutdown();
-        try {
-            if (!executorService.awaitTermination(100, TimeUnit.MILLISECONDS)) {
-                executorService.shutdownNow();
-            }
-        } catch (InterruptedException e) {
-            executorService.shutdownNow();
-        }
-    }
-
-    private record Run(Split split, RegressionResult trainResult, RegressionResult testResult) {
-    }
-
-    private record Task(RegressionModel model, String targetName, Split split) implements Callable<RegressionEvaluation.Run> {
-
-        @Override
-        public Run call() throws Exception {
-            var m = model.newInstance();
-            m.fit(split.trainDf(), targetName);
-            var trainResult = m.predict(split.trainDf());
-            var testResult = m.predict(split.testDf());
-            return new RegressionEvaluation.Run(split, trainResult, testResult);
-        }
-    }
 }
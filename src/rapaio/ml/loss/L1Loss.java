@@ -60,6 +60,13 @@ public class L1Loss implements Loss {
         return VarDouble.from(y.size(), row -> y.getDouble(row) - y_hat.getDouble(row) < 0 ? -1.0 : 1.0);
     }
 
+    @Override
+    public void gradient(Var y, Var y_hat, double[] gradient) {
+        for (int i = 0; i < y.size(); i++) {
+            gradient[i] = y.getDouble(i) - y_hat.getDouble(i) < 0 ? -1.0 : 1.0;
+        }
+    }
+
     @Override
     public VarDouble error(Var y, Var y_hat) {
         return y.copy().op().minus(y_hat).op().capply(Math::abs);
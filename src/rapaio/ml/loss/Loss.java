@@ -80,6 +80,20 @@ public interface Loss extends ParametricEquals<Loss>, Serializable {
      */
     VarDouble gradient(Var y, Var y_hat);
 
+    /**
+     * Computes the gradient of the loss function into an existing buffer.
+     *
+     * @param y        true target values
+     * @param y_hat    fitted values
+     * @param gradient buffer which receives the gradient for each observation
+     */
+    default void gradient(Var y, Var y_hat, double[] gradient) {
+        VarDouble g = gradient(y, y_hat);
+        for (int i = 0; i < g.size(); i++) {
+            gradient[i] = g.getDouble(i);
+        }
+    }
+
     /**
      * Computes loss errors.
      * <p>
@@ -86,6 +86,11 @@ public class GBTRegression extends RegressionModel<GBTRegression, RegressionResu
             "Threshold to stop growing trees if gain is not met.",
             Double::isFinite);
 
+    public final ValueParam<Boolean, GBTRegression> inPlace = new ValueParam<>(this, false,
+            "inPlace",
+            "Keeps gradient and fit values in reused buffers and reuses the row to leaf assignment of fitted trees",
+            Objects::nonNull);
+
     private VarDouble fitValues;
 
     private List<GBTRtree<? extends RegressionModel<?, ?, ?>, ? extends RegressionResult, DefaultHookInfo>> trees;
@@ -128,6 +133,10 @@ public class GBTRegression extends RegressionModel<GBTRegression, RegressionResu
         initModel.get().fit(df, weights, firstTargetName());
         fitValues = initModel.get().predict(df, false).firstPrediction().copy();
 
+        if (inPlace.get()) {
+            return fitInPlace(x, y, weights);
+        }
+
         for (int i = 1; i <= runs.get(); i++) {
 
             Var gradient = loss.get().gradient(y, fitValues).name("target");
@@ -169,6 +178,63 @@ public class GBTRegression extends RegressionModel<GBTRegression, RegressionResu
         return true;
     }
 
+    /**
+     * Boosting rounds which work on primitive buffers allocated once per fit. The gradient
+     * buffer is bound to the input frame once and updated in place. Each tree writes the
+     * predictions for training rows into a buffer, reusing the assignment of rows to leaves
+     * computed while fitting, when the tree supports it.
+     */
+    @SuppressWarnings("unchecked")
+    private boolean fitInPlace(Frame x, Var y, Var weights) {
+        int n = x.rowCount();
+        double[] fit = new double[n];
+        for (int i = 0; i < n; i++) {
+            fit[i] = fitValues.getDouble(i);
+        }
+        double[] next = new double[n];
+        double[] gradient = new double[n];
+        double[] pred = new double[n];
+
+        VarDouble fitVar = VarDouble.wrap(fit);
+        VarDouble nextVar = VarDouble.wrap(next);
+        Frame xm = x.bindVars(VarDouble.wrap(gradient).name("target"));
+
+        for (int i = 1; i <= runs.get(); i++) {
+
+            loss.get().gradient(y, fitVar, gradient);
+
+            var tree = (GBTRtree<? extends RegressionModel<?, ?, ?>, ? extends RegressionResult, DefaultHookInfo>) model.get().newInstance();
+            Mapping sampleRows = rowSampler.get().nextSample(xm, weights).mapping();
+            tree.boostFit(xm, sampleRows, "target", y, fitVar, loss.get(), pred);
+
+            double s = shrinkage.get();
+            for (int j = 0; j < n; j++) {
+                next[j] = fit[j] + pred[j] * s;
+            }
+
+            double initScore = loss.get().errorScore(y, fitVar);
+            double nextScore = loss.get().errorScore(y, nextVar);
+
+            if (Math.abs(initScore - nextScore) < eps.get()) {
+                break;
+            }
+
+            if (initScore > nextScore) {
+                // swap buffers, next fit becomes current fit
+                double[] tmp = fit;
+                fit = next;
+                next = tmp;
+                VarDouble tmpVar = fitVar;
+                fitVar = nextVar;
+                nextVar = tmpVar;
+                trees.add(tree);
+            }
+            runningHook.get().accept(new DefaultHookInfo(this, i));
+        }
+        fitValues = fitVar.name(fitValues.name());
+        return true;
+    }
+
     @Override
     protected RegressionResult corePredict(final Frame df, final boolean withResiduals, double[] quantiles) {
         RegressionResult result = RegressionResult.build(this, df, withResiduals, quantiles);
@@ -21,6 +21,7 @@
 
 package rapaio.ml.regression.ensemble;
 
+import rapaio.core.RandomSource;
 import rapaio.data.Frame;
 import rapaio.data.Var;
 import rapaio.data.VarDouble;
@@ -42,11 +43,9 @@ import java.io.Serial;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Objects;
-import java.util.Queue;
+import java.util.Random;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ForkJoinPool;
@@ -117,29 +116,29 @@ public class RForest extends RegressionModel<RForest, RegressionResult, DefaultH
     @Override
     protected boolean coreFit(Frame df, Var weights) {
         regressions.clear();
-        Queue<Future<RegressionModel<?, ?, ?>>> futures = new LinkedList<>();
+        // each model is fitted with its own random stream and models are collected in
+        // submission order, thus the result does not depend on the thread scheduling
+        Random[] streams = RandomSource.split(runs.get());
+        List<Future<RegressionModel<?, ?, ?>>> futures = new ArrayList<>();
         for (int i = 0; i < runs.get(); i++) {
             RowSampler.Sample sample = rowSampler.get().nextSample(df, weights);
             RegressionModel<?, ?, ?> m = model.get().newInstance();
-            Future<RegressionModel<?, ?, ?>> future = ForkJoinPool.commonPool().submit(new FitTask(sample, m, targetNames));
-            futures.add(future);
+            futures.add(ForkJoinPool.commonPool().submit(new FitTask(sample, m, targetNames, streams[i])));
         }
 
         int run = 1;
-        while (!futures.isEmpty()) {
-            Iterator<Future<RegressionModel<?, ?, ?>>> it = futures.iterator();
-            while (it.hasNext()) {
-                Future<RegressionModel<?, ?, ?>> future = it.next();
-                if (future.isDone()) {
-                    try {
-                        RegressionModel<?, ?, ?> m = future.get();
-                        regressions.add(m);
-                        runningHook.get().accept(new DefaultHookInfo(this, run++));
-                        it.remove();
-                    } catch (InterruptedException | ExecutionException ignored) {
-                    }
-                }
+        try {
+            for (Future<RegressionModel<?, ?, ?>> future : futures) {
+                regressions.add(future.get());
+                runningHook.get().accept(new DefaultHookInfo(this, run++));
             }
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw new IllegalStateException("Fitting of a forest model failed.", e.getCause());
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Fitting of forest models was interrupted.", e);
         }
         return true;
     }
@@ -166,7 +165,7 @@ public class RForest extends RegressionModel<RForest, RegressionResult, DefaultH
         return fit;
     }
 
-    private static record FitTask(RowSampler.Sample sample, RegressionModel<?, ?, ?> model, String[] targetNames)
+    private static record FitTask(RowSampler.Sample sample, RegressionModel<?, ?, ?> model, String[] targetNames, Random stream)
             implements Callable<RegressionModel<?, ?, ?>>, Serializable {
 
         @Serial
@@ -174,7 +173,7 @@ public class RForest extends RegressionModel<RForest, RegressionResult, DefaultH
 
         @Override
         public RegressionModel<?, ?, ?> call() {
-            return model.fit(sample.df(), sample.weights(), targetNames);
+            return RandomSource.withStream(stream, () -> model.fit(sample.df(), sample.weights(), targetNames));
         }
     }
 
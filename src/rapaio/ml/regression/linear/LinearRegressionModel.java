@@ -25,10 +25,13 @@ import rapaio.data.Frame;
 import rapaio.data.Var;
 import rapaio.data.filter.FIntercept;
 import rapaio.math.linear.DMatrix;
+import rapaio.math.linear.MType;
 import rapaio.math.linear.decomposition.QRDecomposition;
+import rapaio.ml.common.ValueParam;
 import rapaio.ml.regression.linear.impl.BaseLinearRegressionModel;
 
 import java.io.Serial;
+import java.util.Objects;
 
 /**
  * User: Aurelian Tutuianu <padreati@yahoo.com>
@@ -47,6 +50,11 @@ public class LinearRegressionModel extends BaseLinearRegressionModel<LinearRegre
     @Serial
     private static final long serialVersionUID = 8595413796946622895L;
 
+    public final ValueParam<Boolean, LinearRegressionModel> sparse = new ValueParam<>(this, false,
+            "sparse",
+            "Uses a sparse input matrix and solves the normal equations, appropriate for inputs with many zero values",
+            Objects::nonNull);
+
     @Override
     public LinearRegressionModel newInstance() {
         return new LinearRegressionModel().copyParameterValues(this);
@@ -69,8 +77,15 @@ public class LinearRegressionModel extends BaseLinearRegressionModel<LinearRegre
 
     @Override
     protected boolean coreFit(Frame df, Var weights) {
-        DMatrix X = DMatrix.copy(df.mapVars(inputNames()));
         DMatrix Y = DMatrix.copy(df.mapVars(targetNames()));
+        if (sparse.get()) {
+            // only the small matrices of the normal equations are dense
+            DMatrix X = DMatrix.copy(MType.CSR, df.mapVars(inputNames()));
+            DMatrix Xt = X.t();
+            beta = QRDecomposition.from(Xt.dot(X)).solve(Xt.dot(Y));
+            return true;
+        }
+        DMatrix X = DMatrix.copy(df.mapVars(inputNames()));
         beta = QRDecomposition.from(X).solve(Y);
         return true;
     }
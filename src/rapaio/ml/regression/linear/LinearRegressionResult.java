@@ -30,6 +30,7 @@ import rapaio.data.filter.FIntercept;
 import rapaio.math.MathTools;
 import rapaio.math.linear.DMatrix;
 import rapaio.math.linear.DVector;
+import rapaio.math.linear.MType;
 import rapaio.math.linear.decomposition.QRDecomposition;
 import rapaio.ml.regression.RegressionResult;
 import rapaio.ml.regression.linear.impl.BaseLinearRegressionModel;
@@ -112,7 +113,8 @@ public class LinearRegressionResult extends RegressionResult {
                         features = df.bindVars(VarDouble.fill(df.rowCount(), 1).name(FIntercept.INTERCEPT)).copy();
                     }
                 }
-                DMatrix X = DMatrix.copy(features.mapVars(model.inputNames()));
+                boolean sparse = lm instanceof LinearRegressionModel linear && linear.sparse.get();
+                DMatrix X = DMatrix.copy(sparse ? MType.CSR : MType.RDENSE, features.mapVars(model.inputNames()));
                 DMatrix m_beta_hat = QRDecomposition.from(X.t().dot(X)).solve(DMatrix.identity(X.colCount()));
 
                 for (int j = 0; j < model.inputNames().length; j++) {
@@ -21,6 +21,7 @@
 
 package rapaio.ml.regression.tree;
 
+import rapaio.core.RandomSource;
 import rapaio.core.stat.Mean;
 import rapaio.core.stat.Sum;
 import rapaio.core.stat.WeightedMean;
@@ -32,6 +33,7 @@ import rapaio.data.VarType;
 import rapaio.experiment.ml.common.predicate.RowPredicate;
 import rapaio.experiment.ml.regression.tree.GBTRtree;
 import rapaio.ml.common.Capabilities;
+import rapaio.ml.common.FlatTree;
 import rapaio.ml.common.MultiParam;
 import rapaio.ml.common.ValueParam;
 import rapaio.ml.common.VarSelector;
@@ -47,17 +49,21 @@ import rapaio.ml.regression.tree.rtree.Splitter;
 import rapaio.printer.Printer;
 import rapaio.printer.opt.POption;
 import rapaio.util.DoublePair;
+import rapaio.util.collection.IntArrays;
 
 import java.io.Serial;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Queue;
+import java.util.Random;
+import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.stream.IntStream;
 
 import static rapaio.printer.Format.floatFlex;
 
@@ -158,6 +164,11 @@ public class RTree extends GBTRtree<RTree, RegressionResult, DefaultHookInfo> {
     // tree root node
 
     private Node root;
+    // fitting works on its own copy of the selector, the parameter instance is shared by models of an ensemble
+    private transient VarSelector selector;
+    private transient FlatTree flatTree;
+    // when not null, the rows which reach each leaf during fitting are collected here
+    private transient Map<Node, int[]> leafRows;
 
     private RTree() {
     }
@@ -194,12 +205,17 @@ public class RTree extends GBTRtree<RTree, RegressionResult, DefaultHookInfo> {
         HashMap<Integer, Frame> frameMap = new HashMap<>();
         HashMap<Integer, Var> weightsMap = new HashMap<>();
 
-        this.varSelector.get().withVarNames(inputNames());
+        selector = varSelector.get().newInstance().withVarNames(inputNames());
+        flatTree = null;
         root = new Node(null, id++, "root", (row, frame) -> true, 1);
 
         // prepare data for root
         frameMap.put(root.id, df);
         weightsMap.put(root.id, weights);
+        HashMap<Integer, int[]> rowsMap = leafRows != null ? new HashMap<>() : null;
+        if (rowsMap != null) {
+            rowsMap.put(root.id, IntArrays.newSeq(0, df.rowCount()));
+        }
 
         // make queue and initialize it
 
@@ -214,6 +230,9 @@ public class RTree extends GBTRtree<RTree, RegressionResult, DefaultHookInfo> {
             learnNode(last, lastDf, lastWeights);
 
             if (last.leaf) {
+                if (rowsMap != null) {
+                    leafRows.put(last, rowsMap.remove(lastId));
+                }
                 continue;
             }
             // now that we have a best candidate,do the effective split
@@ -228,12 +247,23 @@ public class RTree extends GBTRtree<RTree, RegressionResult, DefaultHookInfo> {
 
                 frameMap.put(child.id, lastDf.mapRows(mappings.get(i)));
                 weightsMap.put(child.id, lastWeights.mapRows(mappings.get(i)).copy());
+                if (rowsMap != null) {
+                    int[] parentRows = rowsMap.get(lastId);
+                    int[] rows = new int[mappings.get(i).size()];
+                    for (int j = 0; j < rows.length; j++) {
+                        rows[j] = parentRows[mappings.get(i).get(j)];
+                    }
+                    rowsMap.put(child.id, rows);
+                }
 
                 queue.add(child);
             }
 
             frameMap.remove(last.id);
             weightsMap.remove(last.id);
+            if (rowsMap != null) {
+                rowsMap.remove(last.id);
+            }
         }
         return true;
     }
@@ -253,18 +283,22 @@ public class RTree extends GBTRtree<RTree, RegressionResult, DefaultHookInfo> {
             return;
         }
 
-        Stream<String> stream = Arrays.stream(varSelector.get().nextVarNames());
+        String[] testCols = selector.nextVarNames();
+        List<Candidate> candidates;
         if (runs.get() > 1) {
-            stream = stream.parallel();
+            // each test variable is searched with its own random stream to keep results reproducible
+            Random[] streams = RandomSource.split(testCols.length);
+            candidates = IntStream.range(0, testCols.length).parallel()
+                    .mapToObj(i -> RandomSource.withStream(streams[i], () -> computeCandidate(df, weights, testCols[i])))
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+        } else {
+            candidates = Arrays.stream(testCols)
+                    .map(testCol -> computeCandidate(df, weights, testCol))
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
         }
 
-        List<Candidate> candidates = stream
-                .map(testCol -> search.get(df.type(testCol))
-                        .computeCandidate(this, df, weights, testCol, firstTargetName())
-                        .orElse(null))
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
-
         Candidate bestCandidate = null;
         for (Candidate candidate : candidates) {
             if (bestCandidate == null || candidate.getScore() >= bestCandidate.getScore()) {
@@ -281,10 +315,27 @@ public class RTree extends GBTRtree<RTree, RegressionResult, DefaultHookInfo> {
         node.leaf = false;
     }
 
+    private Candidate computeCandidate(Frame df, Var weights, String testCol) {
+        return search.get(df.type(testCol))
+                .computeCandidate(this, df, weights, testCol, firstTargetName())
+                .orElse(null);
+    }
+
     @Override
     protected RegressionResult corePredict(Frame df, boolean withResiduals, final double... quantiles) {
         RegressionResult prediction = RegressionResult.build(this, df, withResiduals, quantiles);
 
+        FlatTree flat = flatTree();
+        if (flat != null) {
+            double[][] columns = flat.columns(df);
+            int[] nodes = flat.descend(columns, df.rowCount(), poolSize.get() != 0);
+            for (int i = 0; i < nodes.length; i++) {
+                double value = nodes[i] >= 0 ? flat.value(nodes[i], 0) : predictFlat(flat, ~nodes[i], columns, i).v1;
+                prediction.prediction(firstTargetName()).setDouble(i, value);
+            }
+            prediction.buildComplete();
+            return prediction;
+        }
         for (int i = 0; i < df.rowCount(); i++) {
             DoublePair result = predict(i, df, root);
             prediction.prediction(firstTargetName()).setDouble(i, result.v1);
@@ -293,6 +344,38 @@ public class RTree extends GBTRtree<RTree, RegressionResult, DefaultHookInfo> {
         return prediction;
     }
 
+    /**
+     * Builds a compiled form of the tree used for batch prediction.
+     *
+     * @return compiled tree or null if the tree contains tests which can't be compiled
+     */
+    private FlatTree flatTree() {
+        if (flatTree == null) {
+            flatTree = FlatTree.from(root, node -> node.leaf ? List.of() : node.children, node -> node.predicate,
+                    node -> node.weight, node -> new double[]{node.value});
+        }
+        return flatTree;
+    }
+
+    private DoublePair predictFlat(FlatTree flat, int node, double[][] columns, int row) {
+        if (flat.isLeaf(node)) {
+            return DoublePair.of(flat.value(node, 0), flat.weight(node));
+        }
+        int next = flat.next(node, columns, row);
+        if (next >= 0) {
+            return predictFlat(flat, next, columns, row);
+        }
+        VarDouble values = VarDouble.empty();
+        VarDouble weights = VarDouble.empty();
+        int start = flat.firstChild(node);
+        for (int child = start; child < start + flat.childCount(node); child++) {
+            DoublePair prediction = predictFlat(flat, child, columns, row);
+            values.addDouble(prediction.v1);
+            weights.addDouble(prediction.v2);
+        }
+        return DoublePair.of(WeightedMean.of(values, weights).value(), Mean.of(weights).value());
+    }
+
     private DoublePair predict(int row, Frame df, Node node) {
 
         // if we are at a leaf node we simply return what we found there
@@ -378,5 +461,76 @@ public class RTree extends GBTRtree<RTree, RegressionResult, DefaultHookInfo> {
      */
     public void boostUpdate(Frame x, Var y, Var fx, Loss lossFunction) {
         root.boostUpdate(x, y, fx, lossFunction, splitter.get());
+        flatTree = null;
+    }
+
+    /**
+     * Fits the tree for a boosting round, reusing the assignment of rows to leaves computed
+     * while fitting. Leaf values are updated from the rows which reached each leaf during fitting.
+     * The predictions of sampled rows which do not have missing values on tested variables are
+     * taken directly from their leaves, the remaining rows are predicted by traversing the tree.
+     */
+    @Override
+    public void boostFit(Frame df, Mapping sample, String targetName, Var y, Var fx, Loss loss, double[] predictions) {
+        Frame learn = df.mapRows(sample);
+        Map<Node, int[]> leaves = new HashMap<>();
+        leafRows = leaves;
+        try {
+            fit(learn, targetName);
+        } finally {
+            leafRows = null;
+        }
+
+        // names of the variables tested in the tree, null if some tests can't be described
+        Set<String> testNames = new HashSet<>();
+        collectTestNames(root, testNames);
+
+        boolean[] done = new boolean[df.rowCount()];
+        for (var e : leaves.entrySet()) {
+            Node leaf = e.getKey();
+            int[] rows = e.getValue();
+            for (int i = 0; i < rows.length; i++) {
+                rows[i] = sample.get(rows[i]);
+            }
+            leaf.value = loss.additiveScalarMinimizer(y.mapRows(rows), fx.mapRows(rows));
+            if (testNames.contains(null)) {
+                continue;
+            }
+            for (int row : rows) {
+                boolean missing = false;
+                for (String testName : testNames) {
+                    if (df.isMissing(row, testName)) {
+                        missing = true;
+                        break;
+                    }
+                }
+                if (!missing) {
+                    predictions[row] = leaf.value;
+                    done[row] = true;
+                }
+            }
+        }
+        flatTree = null;
+
+        Mapping rest = Mapping.empty();
+        for (int i = 0; i < done.length; i++) {
+            if (!done[i]) {
+                rest.add(i);
+            }
+        }
+        if (!rest.isEmpty()) {
+            Var prediction = predict(df.mapRows(rest), false).firstPrediction();
+            for (int i = 0; i < rest.size(); i++) {
+                predictions[rest.get(i)] = prediction.getDouble(i);
+            }
+        }
+    }
+
+    private void collectTestNames(Node node, Set<String> testNames) {
+        for (Node child : node.children) {
+            RowPredicate.Condition condition = child.predicate.condition();
+            testNames.add(condition == null ? null : condition.testName());
+            collectTestNames(child, testNames);
+        }
     }
 }
@@ -46,6 +46,23 @@ import java.util.concurrent.atomic.AtomicInteger;
  */
 public final class DoubleArrays {
 
+    /**
+     * Vector instruction kernels, or null if the vector api is not available at runtime.
+     */
+    private static final DoubleKernels SIMD = DoubleKernels.load();
+
+    /**
+     * Minimum length of a range for which the vector kernels are used.
+     */
+    private static final int SIMD_MIN_LEN = 32;
+
+    /**
+     * @return true if the array operations use explicit vector instructions
+     */
+    public static boolean isSimdEnabled() {
+        return SIMD != null;
+    }
+
     /**
      * Creates a double array filled with a given value
      *
@@ -132,6 +149,10 @@ public final class DoubleArrays {
     }
 
     public static void add(double[] a, int aStart, double s, int len) {
+        if (SIMD != null && len >= SIMD_MIN_LEN) {
+            SIMD.add(a, aStart, s, len);
+            return;
+        }
         for (int i = aStart; i < len + aStart; i++) {
             a[i] += s;
         }
@@ -143,6 +164,10 @@ public final class DoubleArrays {
     }
 
     public static void add(double[] a, int aStart, double[] b, int bStart, int len) {
+        if (SIMD != null && len >= SIMD_MIN_LEN) {
+            SIMD.add(a, aStart, b, bStart, len);
+            return;
+        }
         for (int i = 0; i < len; i++) {
             a[aStart++] += b[bStart++];
         }
@@ -155,6 +180,10 @@ public final class DoubleArrays {
     }
 
     public static void sub(double[] a, int aStart, double s, int len) {
+        if (SIMD != null && len >= SIMD_MIN_LEN) {
+            SIMD.add(a, aStart, -s, len);
+            return;
+        }
         for (int i = 0; i < len; i++) {
             a[aStart++] -= s;
         }
@@ -167,6 +196,10 @@ public final class DoubleArrays {
     }
 
     public static void sub(double[] a, int aStart, double[] b, int bStart, int len) {
+        if (SIMD != null && len >= SIMD_MIN_LEN) {
+            SIMD.sub(a, aStart, b, bStart, len);
+            return;
+        }
         for (int i = 0; i < len; i++) {
             a[aStart++] -= b[bStart++];
         }
@@ -179,6 +212,10 @@ public final class DoubleArrays {
     }
 
     public static void mult(double[] a, int aStart, double s, int len) {
+        if (SIMD != null && len >= SIMD_MIN_LEN) {
+            SIMD.mult(a, aStart, s, len);
+            return;
+        }
         for (int i = aStart; i < len + aStart; i++) {
             a[i] *= s;
         }
@@ -191,6 +228,10 @@ public final class DoubleArrays {
     }
 
     public static void mult(double[] a, int aStart, double[] b, int bStart, int len) {
+        if (SIMD != null && len >= SIMD_MIN_LEN) {
+            SIMD.mult(a, aStart, b, bStart, len);
+            return;
+        }
         for (int i = 0; i < len; i++) {
             a[aStart++] *= b[bStart++];
         }
@@ -215,6 +256,10 @@ public final class DoubleArrays {
     }
 
     public static void div(double[] a, int aStart, double[] b, int bStart, int len) {
+        if (SIMD != null && len >= SIMD_MIN_LEN) {
+            SIMD.div(a, aStart, b, bStart, len);
+            return;
+        }
         for (int i = 0; i < len; i++) {
             a[aStart++] /= b[bStart++];
         }
@@ -227,12 +272,33 @@ public final class DoubleArrays {
     }
 
     public static void axpyTo(double a, double[] x, double[] y, double[] to, int start, int len) {
+        if (SIMD != null && len - start >= SIMD_MIN_LEN) {
+            SIMD.axpyTo(a, x, y, to, start, len);
+            return;
+        }
         for (int i = start; i < len; i++) {
             to[i] = a * x[i] + y[i];
         }
     }
 
+    /**
+     * Computes the sum of products of values from two array ranges of the same length.
+     */
+    public static double dot(double[] a, int aStart, double[] b, int bStart, int len) {
+        if (SIMD != null && len >= SIMD_MIN_LEN) {
+            return SIMD.dot(a, aStart, b, bStart, len);
+        }
+        double sum = 0;
+        for (int i = 0; i < len; i++) {
+            sum += a[aStart + i] * b[bStart + i];
+        }
+        return sum;
+    }
+
     public static double sum(double[] a, int start, int len) {
+        if (SIMD != null && len >= SIMD_MIN_LEN) {
+            return SIMD.sum(a, start, len);
+        }
         double sum = 0;
         for (int i = start; i < len + start; i++) {
             sum += a[i];
@@ -241,6 +307,9 @@ public final class DoubleArrays {
     }
 
     public static double nanSum(double[] a, int start, int len) {
+        if (SIMD != null && len >= SIMD_MIN_LEN) {
+            return SIMD.nanSum(a, start, len);
+        }
         double sum = 0;
         for (int i = start; i < len + start; i++) {
             if (Double.isNaN(a[i])) {
@@ -252,6 +321,9 @@ public final class DoubleArrays {
     }
 
     public static int nanCount(double[] a, int start, int len) {
+        if (SIMD != null && len >= SIMD_MIN_LEN) {
+            return SIMD.nanCount(a, start, len);
+        }
         int count = 0;
         for (int i = start; i < start + len; i++) {
             if (Double.isNaN(a[i])) {
@@ -267,6 +339,9 @@ public final class DoubleArrays {
     }
 
     public static double nanMean(double[] a, int start, int len) {
+        if (SIMD != null && len >= SIMD_MIN_LEN) {
+            return SIMD.nanSum(a, start, len) / SIMD.nanCount(a, start, len);
+        }
         double sum = 0;
         int count = 0;
         for (int i = start; i < len + start; i++) {
@@ -284,6 +359,9 @@ public final class DoubleArrays {
             return Double.NaN;
         }
         double mean = mean(a, start, len);
+        if (SIMD != null && len >= SIMD_MIN_LEN) {
+            return SIMD.variance(a, start, len, mean, len, false);
+        }
         double sum2 = 0;
         double sum3 = 0;
         for (int i = start; i < start + len; i++) {
@@ -299,6 +377,9 @@ public final class DoubleArrays {
         if (completeCount == 0) {
             return Double.NaN;
         }
+        if (SIMD != null && len >= SIMD_MIN_LEN) {
+            return SIMD.variance(a, start, len, mean, completeCount, true);
+        }
         double sum2 = 0;
         double sum3 = 0;
         for (int i = start; i < len + start; i++) {
@@ -1847,6 +1928,70 @@ public final class DoubleArrays {
         return binarySearch(a, 0, a.length, key, c);
     }
 
+    /**
+     * Finds the first position in a sorted range which contains a value greater than or equal
+     * to the given key. Contrary to {@link #binarySearch(double[], int, int, double)} the position
+     * is well defined when the range contains multiple elements equal with the key.
+     *
+     * @param a    a sorted array.
+     * @param from the index of the first element (inclusive) to be searched.
+     * @param to   the index of the last element (exclusive) to be searched.
+     * @param key  the value to be searched for.
+     * @return index of the first element not less than key, or {@code to} if there is no such element.
+     */
+    public static int lowerBound(final double[] a, int from, int to, final double key) {
+        while (from < to) {
+            final int mid = (from + to) >>> 1;
+            if (a[mid] < key) from = mid + 1;
+            else to = mid;
+        }
+        return from;
+    }
+
+    /**
+     * Finds the first position in a sorted array which contains a value greater than or equal to the given key.
+     *
+     * @param a   a sorted array.
+     * @param key the value to be searched for.
+     * @return index of the first element not less than key, or array length if there is no such element.
+     * @see #lowerBound(double[], int, int, double)
+     */
+    public static int lowerBound(final double[] a, final double key) {
+        return lowerBound(a, 0, a.length, key);
+    }
+
+    /**
+     * Finds the first position in a sorted range which contains a value strictly greater than the given key.
+     * Contrary to {@link #binarySearch(double[], int, int, double)} the position
+     * is well defined when the range contains multiple elements equal with the key.
+     *
+     * @param a    a sorted array.
+     * @param from the index of the first element (inclusive) to be searched.
+     * @param to   the index of the last element (exclusive) to be searched.
+     * @param key  the value to be searched for.
+     * @return index of the first element greater than key, or {@code to} if there is no such element.
+     */
+    public static int upperBound(final double[] a, int from, int to, final double key) {
+        while (from < to) {
+            final int mid = (from + to) >>> 1;
+            if (a[mid] <= key) from = mid + 1;
+            else to = mid;
+        }
+        return from;
+    }
+
+    /**
+     * Finds the first position in a sorted array which contains a value strictly greater than the given key.
+     *
+     * @param a   a sorted array.
+     * @param key the value to be searched for.
+     * @return index of the first element greater than key, or array length if there is no such element.
+     * @see #upperBound(double[], int, int, double)
+     */
+    public static int upperBound(final double[] a, final double key) {
+        return upperBound(a, 0, a.length, key);
+    }
+
     /**
      * The size of a digit used during radix sort (must be a power of 2).
      */
@@ -0,0 +1,89 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright 2013 - 2021 Aurelian Tutuianu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package rapaio.util.collection;
+
+/**
+ * Kernels over ranges of double arrays which are implemented with explicit vector
+ * instructions. The implementation uses the incubating vector api and it is compiled
+ * separately, thus it is loaded only if the {@code jdk.incubator.vector} module is
+ * available at runtime, for example when the jvm is started with
+ * {@code --add-modules jdk.incubator.vector}. Otherwise {@link #load()} returns null
+ * and {@link DoubleArrays} uses scalar loops.
+ * <p>
+ * The vector kernels can be disabled with the system property {@code rapaio.simd=false}.
+ *
+ * @author <a href="mailto:padreati@yahoo.com">Aurelian Tutuianu</a>
+ */
+interface DoubleKernels {
+
+    /**
+     * Minimum number of lanes of the preferred vector shape for which the vector
+     * kernels are used. Narrower shapes are not faster than the auto vectorized scalar loops.
+     */
+    int MIN_LANES = 4;
+
+    static DoubleKernels load() {
+        if (!Boolean.parseBoolean(System.getProperty("rapaio.simd", "true"))) {
+            return null;
+        }
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return null;
+        }
+        try {
+            Class<?> clazz = Class.forName("rapaio.util.collection.DoubleKernelsSimd");
+            DoubleKernels kernels = (DoubleKernels) clazz.getDeclaredConstructor().newInstance();
+            return kernels.lanes() >= MIN_LANES ? kernels : null;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    int lanes();
+
+    void add(double[] a, int aStart, double s, int len);
+
+    void add(double[] a, int aStart, double[] b, int bStart, int len);
+
+    void sub(double[] a, int aStart, double[] b, int bStart, int len);
+
+    void mult(double[] a, int aStart, double s, int len);
+
+    void mult(double[] a, int aStart, double[] b, int bStart, int len);
+
+    void div(double[] a, int aStart, double[] b, int bStart, int len);
+
+    void axpyTo(double a, double[] x, double[] y, double[] to, int start, int end);
+
+    double sum(double[] a, int start, int len);
+
+    double nanSum(double[] a, int start, int len);
+
+    int nanCount(double[] a, int start, int len);
+
+    /**
+     * Computes the corrected two pass variance with a given mean, skipping
+     * missing values if required.
+     */
+    double variance(double[] a, int start, int len, double mean, int count, boolean skipMissing);
+
+    double dot(double[] a, int aStart, double[] b, int bStart, int len);
+}
@@ -0,0 +1,231 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright 2013 - 2021 Aurelian Tutuianu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package rapaio.util.collection;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vector api implementation of {@link DoubleKernels}, which uses the preferred vector
+ * shape of the platform. This class is compiled in a separate compiler execution with the
+ * incubating vector module and it is loaded only through {@link DoubleKernels#load()}.
+ *
+ * @author <a href="mailto:padreati@yahoo.com">Aurelian Tutuianu</a>
+ */
+final class DoubleKernelsSimd implements DoubleKernels {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+
+    @Override
+    public int lanes() {
+        return LANES;
+    }
+
+    @Override
+    public void add(double[] a, int aStart, double s, int len) {
+        int bound = SPECIES.loopBound(len);
+        int i = 0;
+        for (; i < bound; i += LANES) {
+            DoubleVector.fromArray(SPECIES, a, aStart + i).add(s).intoArray(a, aStart + i);
+        }
+        for (; i < len; i++) {
+            a[aStart + i] += s;
+        }
+    }
+
+    @Override
+    public void add(double[] a, int aStart, double[] b, int bStart, int len) {
+        int bound = SPECIES.loopBound(len);
+        int i = 0;
+        for (; i < bound; i += LANES) {
+            DoubleVector va = DoubleVector.fromArray(SPECIES, a, aStart + i);
+            va.add(DoubleVector.fromArray(SPECIES, b, bStart + i)).intoArray(a, aStart + i);
+        }
+        for (; i < len; i++) {
+            a[aStart + i] += b[bStart + i];
+        }
+    }
+
+    @Override
+    public void sub(double[] a, int aStart, double[] b, int bStart, int len) {
+        int bound = SPECIES.loopBound(len);
+        int i = 0;
+        for (; i < bound; i += LANES) {
+            DoubleVector va = DoubleVector.fromArray(SPECIES, a, aStart + i);
+            va.sub(DoubleVector.fromArray(SPECIES, b, bStart + i)).intoArray(a, aStart + i);
+        }
+        for (; i < len; i++) {
+            a[aStart + i] -= b[bStart + i];
+        }
+    }
+
+    @Override
+    public void mult(double[] a, int aStart, double s, int len) {
+        int bound = SPECIES.loopBound(len);
+        int i = 0;
+        for (; i < bound; i += LANES) {
+            DoubleVector.fromArray(SPECIES, a, aStart + i).mul(s).intoArray(a, aStart + i);
+        }
+        for (; i < len; i++) {
+            a[aStart + i] *= s;
+        }
+    }
+
+    @Override
+    public void mult(double[] a, int aStart, double[] b, int bStart, int len) {
+        int bound = SPECIES.loopBound(len);
+        int i = 0;
+        for (; i < bound; i += LANES) {
+            DoubleVector va = DoubleVector.fromArray(SPECIES, a, aStart + i);
+            va.mul(DoubleVector.fromArray(SPECIES, b, bStart + i)).intoArray(a, aStart + i);
+        }
+        for (; i < len; i++) {
+            a[aStart + i] *= b[bStart + i];
+        }
+    }
+
+    @Override
+    public void div(double[] a, int aStart, double[] b, int bStart, int len) {
+        int bound = SPECIES.loopBound(len);
+        int i = 0;
+        for (; i < bound; i += LANES) {
+            DoubleVector va = DoubleVector.fromArray(SPECIES, a, aStart + i);
+            va.div(DoubleVector.fromArray(SPECIES, b, bStart + i)).intoArray(a, aStart + i);
+        }
+        for (; i < len; i++) {
+            a[aStart + i] /= b[bStart + i];
+        }
+    }
+
+    @Override
+    public void axpyTo(double a, double[] x, double[] y, double[] to, int start, int end) {
+        int bound = start + SPECIES.loopBound(end - start);
+        int i = start;
+        for (; i < bound; i += LANES) {
+            DoubleVector vx = DoubleVector.fromArray(SPECIES, x, i);
+            vx.mul(a).add(DoubleVector.fromArray(SPECIES, y, i)).intoArray(to, i);
+        }
+        for (; i < end; i++) {
+            to[i] = a * x[i] + y[i];
+        }
+    }
+
+    @Override
+    public double sum(double[] a, int start, int len) {
+        int bound = SPECIES.loopBound(len);
+        DoubleVector acc = DoubleVector.zero(SPECIES);
+        int i = 0;
+        for (; i < bound; i += LANES) {
+            acc = acc.add(DoubleVector.fromArray(SPECIES, a, start + i));
+        }
+        double sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < len; i++) {
+            sum += a[start + i];
+        }
+        return sum;
+    }
+
+    @Override
+    public double nanSum(double[] a, int start, int len) {
+        int bound = SPECIES.loopBound(len);
+        DoubleVector acc = DoubleVector.zero(SPECIES);
+        int i = 0;
+        for (; i < bound; i += LANES) {
+            DoubleVector v = DoubleVector.fromArray(SPECIES, a, start + i);
+            acc = acc.add(v, v.test(VectorOperators.IS_NAN).not());
+        }
+        double sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < len; i++) {
+            if (!Double.isNaN(a[start + i])) {
+                sum += a[start + i];
+            }
+        }
+        return sum;
+    }
+
+    @Override
+    public int nanCount(double[] a, int start, int len) {
+        int bound = SPECIES.loopBound(len);
+        int count = 0;
+        int i = 0;
+        for (; i < bound; i += LANES) {
+            DoubleVector v = DoubleVector.fromArray(SPECIES, a, start + i);
+            count += LANES - v.test(VectorOperators.IS_NAN).trueCount();
+        }
+        for (; i < len; i++) {
+            if (!Double.isNaN(a[start + i])) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public double variance(double[] a, int start, int len, double mean, int count, boolean skipMissing) {
+        int bound = SPECIES.loopBound(len);
+        DoubleVector acc2 = DoubleVector.zero(SPECIES);
+        DoubleVector acc3 = DoubleVector.zero(SPECIES);
+        int i = 0;
+        for (; i < bound; i += LANES) {
+            DoubleVector v = DoubleVector.fromArray(SPECIES, a, start + i);
+            DoubleVector delta = v.sub(mean);
+            if (skipMissing) {
+                VectorMask<Double> complete = v.test(VectorOperators.IS_NAN).not();
+                acc2 = acc2.add(delta.mul(delta), complete);
+                acc3 = acc3.add(delta, complete);
+            } else {
+                acc2 = acc2.add(delta.mul(delta));
+                acc3 = acc3.add(delta);
+            }
+        }
+        double sum2 = acc2.reduceLanes(VectorOperators.ADD);
+        double sum3 = acc3.reduceLanes(VectorOperators.ADD);
+        for (; i < len; i++) {
+            double value = a[start + i];
+            if (skipMissing && Double.isNaN(value)) {
+                continue;
+            }
+            sum2 += (value - mean) * (value - mean);
+            sum3 += value - mean;
+        }
+        return (sum2 - sum3 * sum3 / count) / (count - 1.0);
+    }
+
+    @Override
+    public double dot(double[] a, int aStart, double[] b, int bStart, int len) {
+        int bound = SPECIES.loopBound(len);
+        DoubleVector acc = DoubleVector.zero(SPECIES);
+        int i = 0;
+        for (; i < bound; i += LANES) {
+            DoubleVector va = DoubleVector.fromArray(SPECIES, a, aStart + i);
+            acc = va.fma(DoubleVector.fromArray(SPECIES, b, bStart + i), acc);
+        }
+        double sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < len; i++) {
+            sum = Math.fma(a[aStart + i], b[bStart + i], sum);
+        }
+        return sum;
+    }
+}
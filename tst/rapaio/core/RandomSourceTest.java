@@ -25,7 +25,13 @@ import org.junit.jupiter.api.Test;
 import rapaio.data.Var;
 import rapaio.data.VarInt;
 
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 /**
  * Created by <a href="mailto:padreati@yahoo.com">Aurelian Tutuianu</a> on 7/1/16.
@@ -48,4 +54,65 @@ public class RandomSourceTest {
             assertEquals(n1, n2);
         }
     }
+
+    @Test
+    void splitStreamsTest() {
+        RandomSource.setSeed(7);
+        Random[] first = RandomSource.split(4);
+        RandomSource.setSeed(7);
+        Random[] second = RandomSource.split(4);
+
+        // streams are reproducible and drawn independently of the order of use
+        int[] values = new int[4];
+        for (int i = 3; i >= 0; i--) {
+            values[i] = first[i].nextInt(1_000_000);
+        }
+        for (int i = 0; i < 4; i++) {
+            assertEquals(values[i], second[i].nextInt(1_000_000));
+        }
+        assertNotEquals(values[0], values[1]);
+    }
+
+    @Test
+    void withStreamTest() {
+        RandomSource.setSeed(11);
+        Random[] streams = RandomSource.split(8);
+        double[] serial = new double[8];
+        for (int i = 0; i < 8; i++) {
+            int task = i;
+            serial[i] = RandomSource.withStream(streams[i], () -> drawSum(task));
+        }
+        assertSame(RandomSource.getRandom(), RandomSource.getRandom());
+
+        RandomSource.setSeed(11);
+        Random[] parallelStreams = RandomSource.split(8);
+        double[] parallel = IntStream.range(0, 8).parallel()
+                .mapToDouble(i -> RandomSource.withStream(parallelStreams[i], () -> drawSum(i)))
+                .toArray();
+        assertArrayEquals(serial, parallel);
+
+        // nested binding restores the previous stream
+        Random[] nested = RandomSource.split(2);
+        RandomSource.withStream(nested[0], () -> {
+            assertSame(nested[0], RandomSource.getRandom());
+            RandomSource.withStream(nested[1], () -> {
+                assertSame(nested[1], RandomSource.getRandom());
+                return null;
+            });
+            assertSame(nested[0], RandomSource.getRandom());
+            return null;
+        });
+    }
+
+    private static double drawSum(int task) {
+        double sum = task;
+        for (int i = 0; i < 1000; i++) {
+            sum += RandomSource.nextDouble() + RandomSource.nextInt(10);
+        }
+        int[] rows = SamplingTools.sampleWOR(100, 10);
+        for (int row : rows) {
+            sum += row;
+        }
+        return sum;
+    }
 }
@@ -27,6 +27,7 @@ import rapaio.core.RandomSource;
 import rapaio.core.distributions.Normal;
 import rapaio.core.tools.DistanceMatrix;
 import rapaio.data.SolidFrame;
+import rapaio.data.Var;
 import rapaio.data.VarDouble;
 import rapaio.math.linear.DMatrix;
 
@@ -141,4 +142,47 @@ public class CorrPearsonTest {
                 "2.? NaN  1  NaN \n" +
                 "3.? NaN NaN  1  \n", CorrPearson.of(x, x, x).toSummary());
     }
+
+    @Test
+    void testWideFrameWithMissing() {
+        // more columns than a single block, some of them with missing values
+        Var[] vars = new Var[150];
+        for (int i = 0; i < vars.length; i++) {
+            VarDouble var = Normal.std().sample(300).name("v" + i);
+            if (i % 7 == 0) {
+                var.setMissing(i);
+            }
+            vars[i] = var;
+        }
+        DistanceMatrix m = CorrPearson.of(SolidFrame.byVars(vars)).matrix();
+        for (int i = 0; i < vars.length; i++) {
+            assertEquals(1, m.get(i, i), TOL);
+            for (int j = i + 1; j < vars.length; j++) {
+                assertEquals(pairwise(vars[i], vars[j]), m.get(i, j), 1e-12);
+                assertEquals(CorrPearson.of(vars[i], vars[j]).singleValue(), m.get(i, j), TOL);
+            }
+        }
+    }
+
+    private double pairwise(Var x, Var y) {
+        double sx = 0, sy = 0, n = 0;
+        for (int i = 0; i < x.size(); i++) {
+            if (!x.isMissing(i) && !y.isMissing(i)) {
+                sx += x.getDouble(i);
+                sy += y.getDouble(i);
+                n++;
+            }
+        }
+        double mx = sx / n;
+        double my = sy / n;
+        double sxy = 0, sxx = 0, syy = 0;
+        for (int i = 0; i < x.size(); i++) {
+            if (!x.isMissing(i) && !y.isMissing(i)) {
+                sxy += (x.getDouble(i) - mx) * (y.getDouble(i) - my);
+                sxx += (x.getDouble(i) - mx) * (x.getDouble(i) - mx);
+                syy += (y.getDouble(i) - my) * (y.getDouble(i) - my);
+            }
+        }
+        return sxy / Math.sqrt(sxx * syy);
+    }
 }
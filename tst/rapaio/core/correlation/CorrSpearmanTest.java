@@ -26,12 +26,15 @@ import org.junit.jupiter.api.Test;
 import rapaio.core.RandomSource;
 import rapaio.core.distributions.Normal;
 import rapaio.core.tools.DistanceMatrix;
+import rapaio.data.Mapping;
 import rapaio.data.SolidFrame;
 import rapaio.data.Var;
 import rapaio.data.VarDouble;
 import rapaio.math.linear.DMatrix;
 import rapaio.sys.WS;
 
+import java.util.stream.IntStream;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static rapaio.printer.Printer.textWidth;
 
@@ -209,4 +212,68 @@ public class CorrSpearmanTest {
                 "10.Var_10  1         \n" +
                 "\n", cs.toContent());
     }
+
+    @Test
+    void testWideFrameWithTies() {
+        Var[] vars = new Var[100];
+        for (int i = 0; i < vars.length; i++) {
+            // rounding produces many tied values
+            vars[i] = VarDouble.from(500, () -> (double) Math.round(Normal.std().sampleNext() * 3)).name("v" + i);
+        }
+        Var[] ranks = new Var[vars.length];
+        for (int i = 0; i < vars.length; i++) {
+            ranks[i] = ranks(vars[i]);
+        }
+        DistanceMatrix m = CorrSpearman.of(SolidFrame.byVars(vars)).matrix();
+        for (int i = 0; i < vars.length; i++) {
+            assertEquals(1, m.get(i, i), TOL);
+            for (int j = i + 1; j < vars.length; j++) {
+                assertEquals(CorrSpearman.of(vars[i], vars[j]).singleValue(), m.get(i, j), TOL);
+                assertEquals(CorrPearson.of(ranks[i], ranks[j]).singleValue(), m.get(i, j), 1e-12);
+            }
+        }
+    }
+
+    @Test
+    void testWideFrameWithMissing() {
+        // more columns than a single block, some of them with missing values
+        Var[] vars = new Var[80];
+        for (int i = 0; i < vars.length; i++) {
+            VarDouble var = VarDouble.from(200, () -> (double) Math.round(Normal.std().sampleNext() * 3)).name("v" + i);
+            if (i % 7 == 0) {
+                var.setMissing(i);
+                var.setMissing(i + 100);
+            }
+            vars[i] = var;
+        }
+        DistanceMatrix m = CorrSpearman.of(SolidFrame.byVars(vars)).matrix();
+        for (int i = 0; i < vars.length; i++) {
+            assertEquals(1, m.get(i, i), TOL);
+            for (int j = i + 1; j < vars.length; j++) {
+                Var x = vars[i];
+                Var y = vars[j];
+                Mapping rows = Mapping.wrap(IntStream.range(0, x.size())
+                        .filter(row -> !(x.isMissing(row) || y.isMissing(row))).toArray());
+                double expected = CorrPearson.of(ranks(x.mapRows(rows)), ranks(y.mapRows(rows))).singleValue();
+                assertEquals(expected, m.get(i, j), 1e-12);
+                assertEquals(CorrSpearman.of(x, y).singleValue(), m.get(i, j), TOL);
+            }
+        }
+    }
+
+    private Var ranks(Var x) {
+        // quadratic reference ranking with average ranks for ties
+        return VarDouble.from(x.size(), row -> {
+            double less = 0;
+            double equal = 0;
+            for (int i = 0; i < x.size(); i++) {
+                if (x.getDouble(i) < x.getDouble(row)) {
+                    less++;
+                } else if (x.getDouble(i) == x.getDouble(row)) {
+                    equal++;
+                }
+            }
+            return less + (equal + 1) / 2;
+        });
+    }
 }
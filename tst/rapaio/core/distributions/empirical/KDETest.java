@@ -98,4 +98,66 @@ public class KDETest {
         assertEquals("KFuncGaussian", KDE.of(sample, new KFuncGaussian()).kernel().toSummary());
         assertEquals("KFuncGaussian", KDE.of(sample, new KFuncGaussian(), 10).kernel().toSummary());
     }
+
+    @Test
+    void testUniformBoundaryAndDuplicates() {
+        // sample values at exactly one bandwidth from query are inside the uniform kernel support
+        KDE kde = KDE.of(VarDouble.wrap(0, 1, 1, 1, 2), new KFuncUniform(), 1);
+        assertEquals(5 * 0.5 / 5, kde.pdf(1), TOL);
+        assertEquals(4 * 0.5 / 5, kde.pdf(0), TOL);
+        assertEquals(4 * 0.5 / 5, kde.pdf(2), TOL);
+        assertEquals(0.5 / 5, kde.pdf(3), TOL);
+    }
+
+    @Test
+    void testBinnedMatchesExact() {
+        Var large = Normal.of(0, 1).sample(20_000);
+        KFunc[] kernels = new KFunc[]{new KFuncGaussian(), new KFuncEpanechnikov(), new KFuncBiWeight(), new KFuncTriangular()};
+        for (KFunc kernel : kernels) {
+            KDE exact = KDE.of(large, kernel);
+            KDE binned = exact.binned(2048);
+            assertFalse(exact.isBinned());
+            assertTrue(binned.isBinned());
+            assertEquals(exact.bandwidth(), binned.bandwidth(), TOL);
+
+            for (double q = -5; q <= 5; q += 0.0137) {
+                assertEquals(exact.pdf(q), binned.pdf(q), 2e-3, kernel.toString());
+            }
+            assertEquals(0, binned.pdf(-100));
+            assertEquals(0, binned.pdf(100));
+        }
+    }
+
+    @Test
+    void testBinnedIntegratesToOne() {
+        KDE kde = KDE.of(sample, new KFuncEpanechnikov()).binned();
+        double step = 0.001;
+        double sum = 0;
+        for (double q = -10; q <= 10; q += step) {
+            sum += kde.pdf(q) * step;
+        }
+        assertEquals(1, sum, 1e-2);
+    }
+
+    @Test
+    void testBinnedInvalid() {
+        KDE kde = KDE.of(sample);
+        assertThrows(IllegalArgumentException.class, () -> kde.binned(4));
+        assertThrows(IllegalArgumentException.class, () -> KDE.of(VarDouble.empty(), 1).binned());
+    }
+
+    @Test
+    void testFft() {
+        double[] re = new double[]{1, 2, 3, 4, 0, 0, 0, 0};
+        double[] im = new double[8];
+        BinnedDensity.fft(re, im, false);
+        assertEquals(10, re[0], TOL);
+        assertEquals(0, im[0], TOL);
+        BinnedDensity.fft(re, im, true);
+        double[] expected = new double[]{1, 2, 3, 4, 0, 0, 0, 0};
+        for (int i = 0; i < re.length; i++) {
+            assertEquals(expected[i], re[i] / re.length, TOL);
+            assertEquals(0, im[i] / re.length, TOL);
+        }
+    }
 }
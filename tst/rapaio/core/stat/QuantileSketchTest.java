@@ -0,0 +1,164 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright 2013 - 2021 Aurelian Tutuianu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package rapaio.core.stat;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import rapaio.core.RandomSource;
+import rapaio.core.distributions.Normal;
+import rapaio.data.VarDouble;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QuantileSketchTest {
+
+    private static final double[] P = new double[] {0, 0.001, 0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99, 0.999, 1};
+
+    @BeforeEach
+    void beforeEach() {
+        RandomSource.setSeed(123);
+    }
+
+    @Test
+    void testSmallIsExact() {
+        VarDouble x = VarDouble.from(150, row -> RandomSource.nextDouble() * 10);
+        x.setMissing(10);
+        QuantileSketch sketch = QuantileSketch.of(x);
+        assertEquals(149, sketch.count());
+        assertEquals(149, sketch.centroidCount());
+        assertArrayEquals(Quantiles.of(x, P).values(), sketch.quantiles(P), 1e-12);
+    }
+
+    @Test
+    void testAccuracy() {
+        VarDouble x = VarDouble.from(200_000, Normal.std()::sampleNext);
+        double[] sorted = x.stream().mapToDouble().sorted().toArray();
+
+        QuantileSketch sketch = QuantileSketch.of(x);
+        assertTrue(sketch.centroidCount() <= 2 * sketch.compression());
+        assertEquals(sorted[0], sketch.quantile(0));
+        assertEquals(sorted[sorted.length - 1], sketch.quantile(1));
+
+        for (double p : P) {
+            double value = sketch.quantile(p);
+            // rank error relative to the distance to the closest tail
+            double rank = rank(sorted, value);
+            assertEquals(p, rank, 0.02 * Math.min(p, 1 - p) + 1e-4, "p=" + p);
+        }
+    }
+
+    @Test
+    void testMerge() {
+        VarDouble x = VarDouble.from(100_000, Normal.std()::sampleNext);
+        double[] sorted = x.stream().mapToDouble().sorted().toArray();
+
+        QuantileSketch merged = QuantileSketch.empty();
+        for (int i = 0; i < 10; i++) {
+            QuantileSketch part = QuantileSketch.empty();
+            for (int j = i * 10_000; j < (i + 1) * 10_000; j++) {
+                part.update(x.getDouble(j));
+            }
+            merged.merge(part);
+        }
+        assertEquals(x.size(), merged.count());
+        assertEquals(sorted[0], merged.min());
+        assertEquals(sorted[sorted.length - 1], merged.max());
+        for (double p : P) {
+            assertEquals(p, rank(sorted, merged.quantile(p)), 0.02 * Math.min(p, 1 - p) + 1e-4, "p=" + p);
+        }
+
+        // merge with empty sketches
+        QuantileSketch empty = QuantileSketch.empty();
+        assertEquals(merged.quantile(0.3), QuantileSketch.empty().merge(merged).quantile(0.3));
+        assertEquals(merged.quantile(0.3), merged.merge(empty).quantile(0.3));
+    }
+
+    @Test
+    void testMergeKeepsOther() {
+        VarDouble x = VarDouble.from(20_000, Normal.std()::sampleNext);
+        QuantileSketch a = QuantileSketch.empty();
+        QuantileSketch b = QuantileSketch.empty();
+        for (int i = 0; i < 10_500; i++) {
+            a.update(x.getDouble(i));
+            b.update(x.getDouble(i));
+        }
+        QuantileSketch merged = QuantileSketch.empty().merge(a);
+        assertEquals(a.count(), merged.count());
+        for (int i = 10_500; i < x.size(); i++) {
+            a.update(x.getDouble(i));
+            b.update(x.getDouble(i));
+        }
+        assertEquals(b.centroidCount(), a.centroidCount());
+        for (double p : P) {
+            assertEquals(b.quantile(p), a.quantile(p), "p=" + p);
+        }
+
+        // merged sketches which fit in compression keep all values and give exact quantiles
+        VarDouble y = VarDouble.from(150, Normal.std()::sampleNext);
+        QuantileSketch first = QuantileSketch.empty();
+        QuantileSketch second = QuantileSketch.empty();
+        for (int i = 0; i < y.size(); i++) {
+            (i < 70 ? first : second).update(y.getDouble(i));
+        }
+        first.merge(second);
+        for (double p : P) {
+            assertEquals(Quantiles.of(y, p).values()[0], first.quantile(p), 1e-12, "p=" + p);
+        }
+    }
+
+    @Test
+    void testParallelPartitions() {
+        VarDouble x = VarDouble.from(300_000, Normal.std()::sampleNext);
+        double[] first = QuantileSketch.of(x).quantiles(P);
+        double[] second = QuantileSketch.of(x).quantiles(P);
+        assertArrayEquals(first, second);
+    }
+
+    @Test
+    void testEdgeCases() {
+        QuantileSketch sketch = QuantileSketch.empty();
+        assertTrue(Double.isNaN(sketch.quantile(0.5)));
+        sketch.update(Double.NaN);
+        assertEquals(0, sketch.count());
+        sketch.update(3);
+        assertEquals(3, sketch.quantile(0));
+        assertEquals(3, sketch.quantile(0.7));
+        for (int i = 0; i < 10_000; i++) {
+            sketch.update(3);
+        }
+        assertEquals(3, sketch.quantile(0.5));
+        assertThrows(IllegalArgumentException.class, () -> sketch.quantile(1.1));
+        assertThrows(IllegalArgumentException.class, () -> QuantileSketch.empty(1));
+        assertEquals("QuantileSketch{compression=200.0, count=10001.0, centroids=" + sketch.centroidCount() + "}", sketch.toString());
+    }
+
+    private static double rank(double[] sorted, double value) {
+        int pos = Arrays.binarySearch(sorted, value);
+        if (pos < 0) {
+            pos = -pos - 1;
+        }
+        return (double) pos / (sorted.length - 1);
+    }
+}
@@ -25,9 +25,11 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import rapaio.core.RandomSource;
 import rapaio.core.distributions.Normal;
+import rapaio.data.Mapping;
 import rapaio.data.VarDouble;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * Created by <a href="mailto:padreati@yahoo.com">Aurelian Tutuianu</a> on 10/10/18.
@@ -84,4 +86,32 @@ public class QuantilesTest {
         // aprox 1.96
         assertEquals(1.9615708871881077, qq[3], TOL);
     }
+
+    @Test
+    void testSketch() {
+        Normal normal = Normal.std();
+        VarDouble x = VarDouble.from(1_000_000, normal::sampleNext);
+        x.setMissing(0);
+
+        double[] exact = Quantiles.of(x, 0, 0.025, 0.5, 0.975, 1).values();
+        Quantiles sketch = Quantiles.of(x, Quantiles.Type.SKETCH, 0, 0.025, 0.5, 0.975, 1);
+        double[] approximate = sketch.values();
+
+        assertEquals(exact[0], approximate[0], TOL);
+        assertEquals(exact[4], approximate[4], TOL);
+        assertEquals(exact[1], approximate[1], 1e-2);
+        assertEquals(exact[2], approximate[2], 1e-2);
+        assertEquals(exact[3], approximate[3], 1e-2);
+        assertTrue(sketch.toContent().contains("total rows: 1000000 (complete: 999999, missing: 1)"));
+
+        // quantiles from sketches merged over partitions
+        QuantileSketch merged = QuantileSketch.empty();
+        for (int p = 0; p < 4; p++) {
+            merged.merge(QuantileSketch.of(x.mapRows(Mapping.range(p * 250_000, (p + 1) * 250_000))));
+        }
+        double[] fromMerged = Quantiles.of(merged, 0, 0.025, 0.5, 0.975, 1).values();
+        assertEquals(exact[0], fromMerged[0], TOL);
+        assertEquals(exact[2], fromMerged[2], 1e-2);
+        assertEquals(exact[4], fromMerged[4], TOL);
+    }
 }
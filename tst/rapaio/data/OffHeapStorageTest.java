@@ -0,0 +1,90 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright 2013 - 2021 Aurelian Tutuianu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package rapaio.data;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OffHeapStorageTest {
+
+    @TempDir
+    Path tmp;
+
+    @Test
+    void testDirectChunks() {
+        // chunks of 16 elements to cross chunk boundaries with small sizes
+        OffHeapStorage storage = OffHeapStorage.direct(Double.BYTES, 10, 4);
+        assertFalse(storage.isMapped());
+        assertTrue(storage.capacity() >= 10);
+        for (int i = 0; i < 10; i++) {
+            storage.putDouble(i, i);
+        }
+        storage.ensureCapacity(5000);
+        assertTrue(storage.capacity() >= 5000);
+        for (int i = 10; i < 5000; i++) {
+            storage.putDouble(i, i);
+        }
+        for (int i = 0; i < 5000; i++) {
+            assertEquals(i, storage.getDouble(i));
+        }
+
+        storage.moveDown(11, 10, 4989);
+        for (int i = 0; i < 4999; i++) {
+            assertEquals(i < 10 ? i : i + 1, storage.getDouble(i));
+        }
+    }
+
+    @Test
+    void testMappedPersistence() {
+        Path file = tmp.resolve("values.bin");
+        OffHeapStorage storage = OffHeapStorage.mapped(Long.BYTES, file, 4);
+        assertTrue(storage.isMapped());
+        assertEquals(file, storage.path());
+        assertEquals(0, storage.storedSize());
+
+        storage.ensureCapacity(100);
+        for (int i = 0; i < 100; i++) {
+            storage.putLong(i, 3L * i);
+        }
+        storage.storeSize(100);
+        storage.force();
+
+        OffHeapStorage reopened = OffHeapStorage.mapped(Long.BYTES, file, 4);
+        assertEquals(100, reopened.storedSize());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(3L * i, reopened.getLong(i));
+        }
+    }
+
+    @Test
+    void testInvalidFile() throws Exception {
+        Path file = tmp.resolve("invalid.bin");
+        Files.write(file, new byte[]{1, 0, 0, 0, 0, 0, 0, 0, 1, 2, 3});
+        assertThrows(IllegalArgumentException.class, () -> OffHeapStorage.mapped(Integer.BYTES, file));
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright 2013 - 2021 Aurelian Tutuianu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package rapaio.data;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import rapaio.core.RandomSource;
+import rapaio.core.stat.Mean;
+import rapaio.core.stat.Variance;
+import rapaio.data.filter.FStandardize;
+import rapaio.ml.regression.linear.LinearRegressionModel;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Path;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VarDoubleOffHeapTest {
+
+    private static final double TOL = 1e-12;
+
+    @TempDir
+    Path tmp;
+
+    @BeforeEach
+    void beforeEach() {
+        RandomSource.setSeed(42);
+    }
+
+    @Test
+    void testBuilders() {
+        VarDoubleOffHeap empty = VarDoubleOffHeap.empty();
+        assertEquals(0, empty.size());
+        assertEquals(VarType.DOUBLE, empty.type());
+        assertFalse(empty.isMapped());
+        assertNull(empty.path());
+
+        VarDoubleOffHeap missing = VarDoubleOffHeap.empty(10);
+        assertEquals(10, missing.size());
+        for (int i = 0; i < 10; i++) {
+            assertTrue(missing.isMissing(i));
+        }
+
+        VarDoubleOffHeap fill = VarDoubleOffHeap.fill(5, 2.5);
+        assertTrue(VarDouble.fill(5, 2.5).deepEquals(VarDouble.copy(fill)));
+
+        VarDouble source = VarDouble.from(100, RandomSource::nextDouble).name("x");
+        source.setMissing(7);
+        VarDoubleOffHeap copy = VarDoubleOffHeap.copy(source);
+        assertTrue(source.deepEquals(copy));
+        assertTrue(copy.deepEquals(copy.copy()));
+        assertTrue(copy.newInstance(3) instanceof VarDoubleOffHeap);
+        assertEquals(3, copy.newInstance(3).size());
+    }
+
+    @Test
+    void testValues() {
+        VarDoubleOffHeap var = VarDoubleOffHeap.empty();
+        VarDouble ref = VarDouble.empty();
+        for (int i = 0; i < 3000; i++) {
+            double value = RandomSource.nextDouble();
+            var.addDouble(value);
+            ref.addDouble(value);
+        }
+        var.addInt(3);
+        ref.addInt(3);
+        var.addLong(11L);
+        ref.addLong(11L);
+        var.addLabel("Inf");
+        ref.addLabel("Inf");
+        var.addLabel("?");
+        ref.addLabel("?");
+        var.addMissing();
+        ref.addMissing();
+        var.addRows(3);
+        ref.addRows(3);
+        assertTrue(ref.deepEquals(var));
+
+        var.setDouble(0, 10);
+        var.setInt(1, 7);
+        var.setLong(2, 13L);
+        var.setLabel(3, "-Inf");
+        var.setMissing(4);
+        assertEquals(10, var.getDouble(0), TOL);
+        assertEquals(7, var.getInt(1));
+        assertEquals(13L, var.getLong(2));
+        assertEquals(Double.NEGATIVE_INFINITY, var.getDouble(3));
+        assertEquals("?", var.getLabel(4));
+        assertEquals("10.0", var.getLabel(0));
+
+        Instant instant = Instant.ofEpochMilli(123456);
+        var.setInstant(5, instant);
+        assertEquals(instant, var.getInstant(5));
+        var.setInstant(5, VarInstant.MISSING_VALUE);
+        assertTrue(var.isMissing(5));
+
+        int size = var.size();
+        double next = var.getDouble(11);
+        var.removeRow(10);
+        assertEquals(size - 1, var.size());
+        assertEquals(next, var.getDouble(10), TOL);
+        var.removeRow(var.size() - 1);
+        assertEquals(size - 2, var.size());
+        assertThrows(IndexOutOfBoundsException.class, () -> var.removeRow(var.size()));
+
+        var.clearRows();
+        assertEquals(0, var.size());
+        assertThrows(RuntimeException.class, var::levels);
+        assertThrows(RuntimeException.class, () -> var.setLevels("a"));
+    }
+
+    @Test
+    void testMapped() {
+        Path file = tmp.resolve("x.dbl");
+        VarDoubleOffHeap var = VarDoubleOffHeap.mapped(file);
+        assertTrue(var.isMapped());
+        assertEquals(file, var.path());
+        for (int i = 0; i < 5000; i++) {
+            var.addDouble(i / 10.0);
+        }
+        var.removeRow(0);
+        var.force();
+
+        VarDoubleOffHeap reopened = VarDoubleOffHeap.mapped(file);
+        assertEquals(4999, reopened.size());
+        for (int i = 0; i < 4999; i++) {
+            assertEquals((i + 1) / 10.0, reopened.getDouble(i), TOL);
+        }
+        reopened.addDouble(-1);
+        assertEquals(-1, VarDoubleOffHeap.mapped(file).getDouble(4999), TOL);
+    }
+
+    @Test
+    void testSerialization() throws Exception {
+        VarDoubleOffHeap var = VarDoubleOffHeap.copy(VarDouble.seq(100).name("seq"));
+        var.setMissing(3);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(var);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            VarDoubleOffHeap read = (VarDoubleOffHeap) in.readObject();
+            assertEquals("seq", read.name());
+            assertTrue(var.deepEquals(read));
+            read.addDouble(1);
+            assertEquals(102, read.size());
+        }
+    }
+
+    @Test
+    void testFramesAndModels() {
+        int n = 200;
+        VarDouble x1 = VarDouble.from(n, RandomSource::nextDouble).name("x1");
+        VarDouble x2 = VarDouble.from(n, RandomSource::nextDouble).name("x2");
+        VarDouble y = VarDouble.from(n, i -> 1 + 2 * x1.getDouble(i) - 3 * x2.getDouble(i) + RandomSource.nextDouble() / 10).name("y");
+
+        Frame heap = SolidFrame.byVars(x1, x2, y);
+        Frame offHeap = SolidFrame.byVars(VarDoubleOffHeap.copy(x1), VarDoubleOffHeap.copy(x2), VarDoubleOffHeap.copy(y));
+        assertTrue(heap.deepEquals(offHeap));
+
+        assertEquals(Mean.of(x1).value(), Mean.of(offHeap.rvar("x1")).value(), TOL);
+        assertEquals(Variance.of(x2).value(), Variance.of(offHeap.rvar("x2")).value(), TOL);
+
+        Frame std = offHeap.copy().fapply(FStandardize.on(VarRange.all()));
+        assertTrue(heap.copy().fapply(FStandardize.on(VarRange.all())).deepEquals(std));
+
+        var heapModel = LinearRegressionModel.newModel().intercept.set(true).fit(heap, "y");
+        var offHeapModel = LinearRegressionModel.newModel().intercept.set(true).fit(offHeap, "y");
+        assertTrue(heapModel.firstCoefficients().deepEquals(offHeapModel.firstCoefficients(), TOL));
+
+        Var sorted = VarDoubleOffHeap.copy(x1).op().sort();
+        for (int i = 1; i < n; i++) {
+            assertTrue(sorted.getDouble(i - 1) <= sorted.getDouble(i));
+        }
+    }
+
+    @Test
+    void testPrint() {
+        VarDoubleOffHeap var = VarDoubleOffHeap.copy(VarDouble.copy(1, 2, 3).name("x"));
+        var.setMissing(1);
+        assertEquals("VarDoubleOffHeap [name:\"x\", rowCount:3, values: 1.0, ?, 3.0]", var.toString());
+    }
+}
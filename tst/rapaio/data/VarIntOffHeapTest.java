@@ -0,0 +1,135 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright 2013 - 2021 Aurelian Tutuianu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package rapaio.data;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Path;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VarIntOffHeapTest {
+
+    @TempDir
+    Path tmp;
+
+    @Test
+    void testBuilders() {
+        assertEquals(0, VarIntOffHeap.empty().size());
+        assertEquals(VarType.INT, VarIntOffHeap.empty().type());
+
+        VarIntOffHeap missing = VarIntOffHeap.empty(10);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(missing.isMissing(i));
+        }
+        assertTrue(VarInt.fill(5, 3).deepEquals(VarIntOffHeap.fill(5, 3)));
+
+        VarInt source = VarInt.seq(100).name("x");
+        source.setMissing(3);
+        VarIntOffHeap copy = VarIntOffHeap.copy(source);
+        assertTrue(source.deepEquals(copy));
+        assertTrue(copy.deepEquals(copy.copy()));
+        assertTrue(source.deepEquals(copy.copy().copy()));
+        assertTrue(copy.newInstance(2) instanceof VarIntOffHeap);
+    }
+
+    @Test
+    void testValues() {
+        VarIntOffHeap var = VarIntOffHeap.empty();
+        VarInt ref = VarInt.empty();
+        for (int i = 0; i < 2000; i++) {
+            var.addInt(i);
+            ref.addInt(i);
+        }
+        var.addDouble(2.7);
+        ref.addDouble(2.7);
+        var.addDouble(Double.NaN);
+        ref.addDouble(Double.NaN);
+        var.addLabel("12");
+        ref.addLabel("12");
+        var.addLabel("?");
+        ref.addLabel("?");
+        var.addLong(5L);
+        ref.addLong(5L);
+        var.addRows(2);
+        ref.addRows(2);
+        assertTrue(ref.deepEquals(var));
+
+        var.setDouble(0, Double.NaN);
+        assertTrue(var.isMissing(0));
+        assertTrue(Double.isNaN(var.getDouble(0)));
+        assertEquals("?", var.getLabel(0));
+        var.setLabel(1, "-4");
+        assertEquals(-4, var.getInt(1));
+        assertEquals(-4.0, var.getDouble(1));
+        assertEquals(-4L, var.getLong(1));
+        assertThrows(ArithmeticException.class, () -> var.setLong(1, Long.MAX_VALUE));
+
+        var.setInstant(2, Instant.ofEpochMilli(100));
+        assertEquals(Instant.ofEpochMilli(100), var.getInstant(2));
+
+        var.removeRow(2);
+        assertEquals(3, var.getInt(2));
+        assertThrows(IllegalStateException.class, var::levels);
+        assertEquals("VarIntOffHeap", var.toStringClassName());
+    }
+
+    @Test
+    void testMapped() {
+        Path file = tmp.resolve("x.int");
+        VarIntOffHeap var = VarIntOffHeap.mapped(file);
+        for (int i = 0; i < 3000; i++) {
+            var.addInt(i * 2);
+        }
+        var.force();
+        VarIntOffHeap reopened = VarIntOffHeap.mapped(file);
+        assertEquals(3000, reopened.size());
+        assertTrue(var.deepEquals(reopened));
+        assertTrue(reopened.isMapped());
+    }
+
+    @Test
+    void testSerialization() throws Exception {
+        VarIntOffHeap var = VarIntOffHeap.copy(VarInt.seq(100).name("seq"));
+        var.setMissing(3);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(var);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            VarIntOffHeap read = (VarIntOffHeap) in.readObject();
+            assertEquals("seq", read.name());
+            assertTrue(read.isMissing(3));
+            assertTrue(var.deepEquals(read));
+            read.addInt(1);
+            assertEquals(101, read.size());
+        }
+    }
+}
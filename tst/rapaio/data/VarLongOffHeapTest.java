@@ -0,0 +1,124 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright 2013 - 2021 Aurelian Tutuianu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package rapaio.data;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Path;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VarLongOffHeapTest {
+
+    @TempDir
+    Path tmp;
+
+    @Test
+    void testBuilders() {
+        assertEquals(0, VarLongOffHeap.empty().size());
+        assertEquals(VarType.LONG, VarLongOffHeap.empty().type());
+
+        VarLongOffHeap missing = VarLongOffHeap.empty(10);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(missing.isMissing(i));
+        }
+        assertTrue(VarLong.fill(5, 3L).deepEquals(VarLongOffHeap.fill(5, 3L)));
+
+        VarLong source = VarLong.seq(100).name("x");
+        source.setMissing(3);
+        VarLongOffHeap copy = VarLongOffHeap.copy(source);
+        assertTrue(source.deepEquals(copy));
+        assertTrue(copy.deepEquals(copy.copy()));
+        assertTrue(copy.newInstance(2) instanceof VarLongOffHeap);
+    }
+
+    @Test
+    void testValues() {
+        VarLongOffHeap var = VarLongOffHeap.empty();
+        VarLong ref = VarLong.empty();
+        for (int i = 0; i < 2000; i++) {
+            var.addLong(Long.MAX_VALUE / 4 + i);
+            ref.addLong(Long.MAX_VALUE / 4 + i);
+        }
+        var.addInt(7);
+        ref.addInt(7);
+        var.addDouble(2.2);
+        ref.addDouble(2.2);
+        var.addLabel("?");
+        ref.addLabel("?");
+        var.addRows(2);
+        ref.addRows(2);
+        assertTrue(ref.deepEquals(var));
+
+        var.setLabel(0, "-9");
+        assertEquals(-9L, var.getLong(0));
+        assertEquals(-9, var.getInt(0));
+        assertEquals("-9", var.getLabel(0));
+        var.setInstant(1, Instant.ofEpochMilli(1234));
+        assertEquals(Instant.ofEpochMilli(1234), var.getInstant(1));
+        var.setMissing(1);
+        assertEquals(VarInstant.MISSING_VALUE, var.getInstant(1));
+
+        var.removeRow(0);
+        assertEquals(Long.MAX_VALUE / 4 + 2, var.getLong(1));
+        assertThrows(IllegalArgumentException.class, var::levels);
+    }
+
+    @Test
+    void testMapped() {
+        Path file = tmp.resolve("x.long");
+        VarLongOffHeap var = VarLongOffHeap.mapped(file);
+        for (int i = 0; i < 3000; i++) {
+            var.addLong(i * 1_000_000_000L);
+        }
+        var.force();
+        VarLongOffHeap reopened = VarLongOffHeap.mapped(file);
+        assertEquals(3000, reopened.size());
+        assertTrue(var.deepEquals(reopened));
+    }
+
+    @Test
+    void testSerialization() throws Exception {
+        VarLongOffHeap var = VarLongOffHeap.copy(VarLong.seq(100).name("seq"));
+        var.setMissing(3);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(var);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            VarLongOffHeap read = (VarLongOffHeap) in.readObject();
+            assertEquals("seq", read.name());
+            assertTrue(read.isMissing(3));
+            assertTrue(var.deepEquals(read));
+            read.addLong(1);
+            assertEquals(101, read.size());
+        }
+    }
+}
@@ -239,6 +239,21 @@ public class VarNominalTest {
         assertTrue(VarNominal.empty(10, "a", "b").deepEquals(copy6.newInstance(10)));
     }
 
+    @Test
+    void testLevelLimit() {
+        VarNominal var = VarNominal.from(65_534, row -> "l" + row);
+        assertEquals(65_535, var.levels().size());
+        assertEquals(65_534, var.getInt(65_533));
+        assertEquals("l65533", var.getLabel(65_533));
+        assertThrows(IllegalStateException.class, () -> var.addLabel("other"));
+
+        List<String> levels = new ArrayList<>();
+        for (int i = 0; i < 70_000; i++) {
+            levels.add("l" + i);
+        }
+        assertThrows(IllegalStateException.class, () -> VarNominal.empty(1, levels));
+    }
+
     @Test
     void testInvalidGetLong() {
         assertThrows(OperationNotAvailableException.class, () -> VarNominal.empty(1, "x").getLong(0));
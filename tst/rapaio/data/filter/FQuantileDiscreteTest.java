@@ -22,6 +22,7 @@
 package rapaio.data.filter;
 
 import org.junit.jupiter.api.Test;
+import rapaio.core.stat.Quantiles;
 import rapaio.data.Frame;
 import rapaio.data.VarRange;
 import rapaio.data.VarType;
@@ -41,6 +42,11 @@ public class FQuantileDiscreteTest {
         Frame q2 = src.fapply(FQuantileDiscrete.split(VarRange.onlyTypes(VarType.DOUBLE), 2).newInstance());
 
         assertTrue(q1.deepEquals(q2));
+
+        Frame q3 = src.fapply(FQuantileDiscrete.on(VarRange.all(), Quantiles.Type.SKETCH, 0.5));
+        Frame q4 = src.fapply(FQuantileDiscrete.split(VarRange.all(), 2, Quantiles.Type.SKETCH).newInstance());
+        assertTrue(q1.deepEquals(q3));
+        assertTrue(q1.deepEquals(q4));
     }
 
     @Test
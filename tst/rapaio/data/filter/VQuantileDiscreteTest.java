@@ -23,6 +23,7 @@ package rapaio.data.filter;
 
 import org.junit.jupiter.api.Test;
 import rapaio.core.RandomSource;
+import rapaio.core.stat.Quantiles;
 import rapaio.data.Var;
 import rapaio.data.VarDouble;
 
@@ -73,6 +74,25 @@ public class VQuantileDiscreteTest {
         }
     }
 
+    @Test
+    void testSketch() {
+        // small variables are sketched exactly
+        Var x = VarDouble.seq(10, 11, 0.01);
+        assertTrue(x.fapply(VQuantileDiscrete.split(4)).deepEquals(x.fapply(VQuantileDiscrete.split(4, Quantiles.Type.SKETCH))));
+
+        Var y = VarDouble.from(100_000, row -> RandomSource.nextDouble());
+        Var qy = y.fapply(VQuantileDiscrete.split(4, Quantiles.Type.SKETCH));
+        assertEquals(5, qy.levels().size());
+        int[] counts = new int[5];
+        for (int i = 0; i < qy.size(); i++) {
+            counts[qy.getInt(i)]++;
+        }
+        for (int i = 1; i < counts.length; i++) {
+            assertEquals(25_000, counts[i], 250);
+        }
+        assertEquals("VQuantileDiscrete(q=[0.25,0.5,0.75],type=SKETCH)", VQuantileDiscrete.with(Quantiles.Type.SKETCH, 0.25, 0.5, 0.75).toString());
+    }
+
     @Test
     void testInvalidNumperOfPercentiles() {
         var ex = assertThrows(IllegalArgumentException.class, VQuantileDiscrete::with);
@@ -26,11 +26,18 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import rapaio.core.RandomSource;
+import rapaio.core.stat.QuantileSketch;
+import rapaio.core.stat.Quantiles;
 import rapaio.data.Frame;
 import rapaio.data.Group;
+import rapaio.data.Mapping;
 import rapaio.data.SolidFrame;
+import rapaio.data.Var;
+import rapaio.data.VarDouble;
+import rapaio.data.VarInt;
 import rapaio.data.VarNominal;
 import rapaio.data.VarRange;
+import rapaio.data.group.function.DefaultSingleGroupFun;
 import rapaio.datasets.Datasets;
 import rapaio.sys.WS;
 import rapaio.util.StringBag;
@@ -153,6 +160,36 @@ public class GroupTest {
                 "[149] virginica 149  ->      5.9          3           5.1          1.8     \n", group2.toContent());
     }
 
+    @Test
+    void testPrefixGroupIds() {
+        int n = 2_000;
+        VarInt k1 = VarInt.from(n, row -> RandomSource.nextInt(4)).name("k1");
+        VarNominal k2 = VarNominal.from(n, row -> "v" + RandomSource.nextInt(5)).name("k2");
+        VarInt k3 = VarInt.from(n, row -> RandomSource.nextInt(3)).name("k3");
+        Frame df = SolidFrame.byVars(k1, k2, k3);
+
+        Group group = Group.from(df, "k1", "k2", "k3");
+        int groups = group.getGroupCount();
+        for (int len = 0; len <= 3; len++) {
+            // prefix ids are dense in the order of the first rows of the groups
+            int next = 0;
+            Map<String, Integer> ids = new HashMap<>();
+            for (int g = 0; g < groups; g++) {
+                String key = String.join(",", group.getGroupLabels(g).subList(0, len));
+                int id = group.getPrefixGroupId(g, len);
+                if (!ids.containsKey(key)) {
+                    assertEquals(next++, id);
+                    ids.put(key, id);
+                }
+                assertEquals(ids.get(key), id);
+            }
+        }
+        for (int g = 0; g < groups; g++) {
+            assertEquals(0, group.getPrefixGroupId(g, 0));
+            assertEquals(g, group.getPrefixGroupId(g, 3));
+        }
+    }
+
     @Test
     void testAggregate() {
         Group group1 = Group.from(iris, "class");
@@ -249,4 +286,75 @@ public class GroupTest {
             assertEquals((int) counts.get(sb), count);
         }
     }
+
+    @Test
+    void testStatsAgainstRowScan() {
+        int n = 100_000;
+        String[] levels = new String[]{"a", "b", "c", "d", "e"};
+        VarNominal k1 = VarNominal.from(n, row -> levels[RandomSource.nextInt(levels.length)], levels).name("k1");
+        VarInt k2 = VarInt.from(n, row -> RandomSource.nextInt(20)).name("k2");
+        VarDouble k3 = VarDouble.from(n, row -> (double) RandomSource.nextInt(3)).name("k3");
+        VarDouble x = VarDouble.from(n, row -> RandomSource.nextDouble() < 0.1 ? Double.NaN : RandomSource.nextDouble() * 10 - 5).name("x");
+        Frame df = SolidFrame.byVars(k1, k2, k3, x);
+
+        Group group = Group.from(df, "k1", "k2", "k3");
+        assertEquals(5 * 20 * 3, group.getGroupCount());
+
+        int[] offsets = group.getGroupOffsets();
+        int[] rows = group.getGroupRows();
+        for (int g = 0; g < group.getGroupCount(); g++) {
+            for (int pos = offsets[g]; pos < offsets[g + 1]; pos++) {
+                assertEquals(g, group.getGroupId(rows[pos]));
+                if (pos > offsets[g]) {
+                    assertTrue(rows[pos - 1] < rows[pos]);
+                }
+            }
+            assertEquals(group.getFirstRow(g), group.getGroupIdToLastLevelIndex().get(g).getRows().get(0));
+        }
+
+        for (DefaultSingleGroupFun fun : new DefaultSingleGroupFun[]{
+                (DefaultSingleGroupFun) count("x"), (DefaultSingleGroupFun) sum("x"), (DefaultSingleGroupFun) mean("x"),
+                (DefaultSingleGroupFun) std("x"), (DefaultSingleGroupFun) min("x"), (DefaultSingleGroupFun) max("x"),
+                (DefaultSingleGroupFun) skewness("x"), (DefaultSingleGroupFun) kurtosis("x"),
+                (DefaultSingleGroupFun) quantile(0.5, "x"), (DefaultSingleGroupFun) quantile(0.9, "x")}) {
+            Var fast = fun.compute(group).get(0);
+            Var scan = fun.buildVar(group, "x");
+            for (int g = 0; g < group.getGroupCount(); g++) {
+                fun.updateSingle(scan, g, df, df.varIndex("x"), group.getRowsForGroupId(g));
+            }
+            assertTrue(scan.deepEquals(fast), fun.name());
+        }
+
+        // groups have more values than the compression, quantiles estimated with sketches are close to exact ones
+        Var medians = quantile(0.5, "x").compute(group).get(0);
+        assertEquals("x_q0.5", medians.name());
+        for (int g = 0; g < group.getGroupCount(); g++) {
+            Var values = x.mapRows(group.getRowsForGroupId(g));
+            assertTrue(values.size() > QuantileSketch.DEFAULT_COMPRESSION);
+            assertEquals(Quantiles.of(values, 0.5).values()[0], medians.getDouble(g), 0.1);
+        }
+
+        // groups have fewer values than the compression, sketches keep all values and quantiles are exact
+        Group small = Group.from(df.mapRows(Mapping.range(30_000)), "k1", "k2", "k3");
+        for (double p : new double[]{0, 0.1, 0.5, 0.9, 1}) {
+            Var quantiles = quantile(p, "x").compute(small).get(0);
+            for (int g = 0; g < small.getGroupCount(); g++) {
+                Var values = x.mapRows(small.getRowsForGroupId(g));
+                assertTrue(values.size() <= QuantileSketch.DEFAULT_COMPRESSION);
+                assertEquals(Quantiles.of(values, p).values()[0], quantiles.getDouble(g), 1e-12);
+            }
+        }
+
+        // normalization on the first key
+
+        Var normalized = sum(2, "x").compute(group).get(0);
+        Var sums = sum("x").compute(group).get(0);
+        Map<String, Double> totals = new HashMap<>();
+        for (int g = 0; g < group.getGroupCount(); g++) {
+            totals.merge(group.getGroupLabels(g).get(0), sums.getDouble(g), Double::sum);
+        }
+        for (int g = 0; g < group.getGroupCount(); g++) {
+            assertEquals(sums.getDouble(g) / totals.get(group.getGroupLabels(g).get(0)), normalized.getDouble(g), 1e-12);
+        }
+    }
 }
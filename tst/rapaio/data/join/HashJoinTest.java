@@ -0,0 +1,205 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright 2013 - 2021 Aurelian Tutuianu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package rapaio.data.join;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import rapaio.core.RandomSource;
+import rapaio.data.Frame;
+import rapaio.data.SolidFrame;
+import rapaio.data.VarDouble;
+import rapaio.data.VarInt;
+import rapaio.data.VarLong;
+import rapaio.data.VarNominal;
+import rapaio.data.VarRange;
+import rapaio.data.VarType;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author <a href="mailto:padreati@yahoo.com">Aurelian Tutuianu</a>
+ */
+public class HashJoinTest {
+
+    private Frame left;
+    private Frame right;
+
+    @BeforeEach
+    void beforeEach() {
+        left = SolidFrame.byVars(
+                VarInt.copy(1, 2, 2, 3, VarInt.MISSING_VALUE).name("id"),
+                VarNominal.copy("a", "b", "c", "d", "e").name("x")
+        );
+        right = SolidFrame.byVars(
+                VarDouble.copy(2, 4, 1, 2, Double.NaN).name("id"),
+                VarInt.copy(10, 20, 30, 40, 50).name("y")
+        );
+    }
+
+    @Test
+    void testInner() {
+        Frame df = left.join(right, JoinType.INNER);
+        assertArrayEquals(new String[] {"id", "x", "y"}, df.varNames());
+        assertEquals(5, df.rowCount());
+        assertEquals("[1, 2, 2, 2, 2]", labels(df, "id"));
+        assertEquals("[a, b, b, c, c]", labels(df, "x"));
+        assertEquals("[30, 10, 40, 10, 40]", labels(df, "y"));
+    }
+
+    @Test
+    void testLeft() {
+        Frame df = left.join(right, JoinType.LEFT);
+        assertEquals(7, df.rowCount());
+        assertEquals("[1, 2, 2, 2, 2, 3, ?]", labels(df, "id"));
+        assertEquals("[a, b, b, c, c, d, e]", labels(df, "x"));
+        assertEquals("[30, 10, 40, 10, 40, ?, ?]", labels(df, "y"));
+    }
+
+    @Test
+    void testRight() {
+        Frame df = left.join(right, JoinType.RIGHT);
+        assertEquals(7, df.rowCount());
+        assertEquals("[2.0, 2.0, 4.0, 1.0, 2.0, 2.0, ?]", labels(df, "id"));
+        assertEquals("[b, c, ?, a, b, c, ?]", labels(df, "x"));
+        assertEquals("[10, 10, 20, 30, 40, 40, 50]", labels(df, "y"));
+    }
+
+    @Test
+    void testOuter() {
+        Frame df = left.join(right, JoinType.OUTER);
+        assertEquals(9, df.rowCount());
+        assertEquals("[1.0, 2.0, 2.0, 2.0, 2.0, 3.0, ?, 4.0, ?]", labels(df, "id"));
+        assertEquals("[a, b, b, c, c, d, e, ?, ?]", labels(df, "x"));
+        assertEquals("[30, 10, 40, 10, 40, ?, ?, 20, 50]", labels(df, "y"));
+    }
+
+    @Test
+    void testOuterMixedKeyTypes() {
+        Frame a = SolidFrame.byVars(
+                VarInt.copy(1, 2, 3).name("id"),
+                VarInt.copy(10, 20, 30).name("v")
+        );
+        Frame b = SolidFrame.byVars(
+                VarDouble.copy(2, 2.5, -0.75).name("id"),
+                VarInt.copy(100, 200, 300).name("w")
+        );
+        Frame df = a.join(b, JoinType.OUTER);
+        assertEquals(VarType.DOUBLE, df.rvar("id").type());
+        assertEquals("[1.0, 2.0, 3.0, 2.5, -0.75]", labels(df, "id"));
+        assertEquals("[?, 100, ?, 200, 300]", labels(df, "w"));
+
+        Frame c = SolidFrame.byVars(
+                VarLong.copy(3, 5_000_000_000L).name("id"),
+                VarInt.copy(1, 2).name("w")
+        );
+        df = a.join(c, JoinType.OUTER);
+        assertEquals(VarType.LONG, df.rvar("id").type());
+        assertEquals("[1, 2, 3, 5000000000]", labels(df, "id"));
+    }
+
+    @Test
+    void testCompositeKeys() {
+        Frame a = SolidFrame.byVars(
+                VarNominal.copy("x", "x", "y", "y").name("k1"),
+                VarInt.copy(1, 2, 1, 2).name("k2"),
+                VarInt.copy(0, 1, 2, 3).name("v")
+        );
+        Frame b = SolidFrame.byVars(
+                VarNominal.copy("y", "x", "z").name("c1"),
+                VarInt.copy(2, 2, 1).name("c2"),
+                VarInt.copy(10, 11, 12).name("w")
+        );
+        Frame df = a.join(b, JoinType.INNER, VarRange.of("k1", "k2"), VarRange.of("c1", "c2"));
+        assertArrayEquals(new String[] {"k1", "k2", "v", "w"}, df.varNames());
+        assertEquals("[x, y]", labels(df, "k1"));
+        assertEquals("[1, 3]", labels(df, "v"));
+        assertEquals("[11, 10]", labels(df, "w"));
+
+        df = a.join(b, JoinType.OUTER, VarRange.of("k1", "k2"), VarRange.of("c1", "c2"));
+        assertEquals("[x, x, y, y, z]", labels(df, "k1"));
+        assertEquals("[1, 2, 1, 2, 1]", labels(df, "k2"));
+        assertEquals("[?, 11, ?, 10, 12]", labels(df, "w"));
+    }
+
+    @Test
+    void testDuplicateNames() {
+        Frame other = SolidFrame.byVars(
+                VarInt.copy(1).name("id"),
+                VarInt.copy(1).name("x")
+        );
+        assertThrows(IllegalArgumentException.class, () -> left.join(other, JoinType.INNER, VarRange.of("id")));
+        assertThrows(IllegalArgumentException.class,
+                () -> left.join(right, JoinType.INNER, VarRange.of("id"), VarRange.of("id", "y")));
+    }
+
+    @Test
+    void testLargeAgainstNestedLoops() {
+        RandomSource.setSeed(42);
+        int n = 100_000;
+        int m = 2_000;
+        VarInt leftKeys = VarInt.from(n, row -> RandomSource.nextInt(3_000)).name("key");
+        VarInt rightKeys = VarInt.from(m, row -> RandomSource.nextInt(3_000)).name("key");
+        Frame big = SolidFrame.byVars(leftKeys, VarInt.seq(n).name("lrow"));
+        Frame small = SolidFrame.byVars(rightKeys, VarInt.seq(m).name("rrow"));
+
+        Map<Integer, List<Integer>> index = new HashMap<>();
+        for (int i = 0; i < m; i++) {
+            index.computeIfAbsent(rightKeys.getInt(i), k -> new ArrayList<>()).add(i);
+        }
+        List<Integer> expectedLeft = new ArrayList<>();
+        List<Integer> expectedRight = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            for (int j : index.getOrDefault(leftKeys.getInt(i), List.of())) {
+                expectedLeft.add(i);
+                expectedRight.add(j);
+            }
+        }
+
+        Frame df = big.join(small, JoinType.INNER);
+        assertEquals(expectedLeft.size(), df.rowCount());
+        for (int i = 0; i < df.rowCount(); i++) {
+            assertEquals(expectedLeft.get(i), df.getInt(i, "lrow"));
+            assertEquals(expectedRight.get(i), df.getInt(i, "rrow"));
+        }
+
+        // build side is swapped, but the order of right join follows right rows
+        Frame rdf = small.join(big, JoinType.RIGHT);
+        assertEquals(expectedLeft.size() + (n - (int) expectedLeft.stream().distinct().count()), rdf.rowCount());
+        for (int i = 1; i < rdf.rowCount(); i++) {
+            assertTrue(rdf.getInt(i - 1, "lrow") <= rdf.getInt(i, "lrow"));
+        }
+    }
+
+    private static String labels(Frame df, String varName) {
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < df.rowCount(); i++) {
+            values.add(df.getLabel(i, varName));
+        }
+        return values.toString();
+    }
+}
@@ -28,6 +28,7 @@ import rapaio.core.stat.Mean;
 import rapaio.core.tests.ChiSqGoodnessOfFit;
 import rapaio.core.tools.DensityVector;
 import rapaio.data.Frame;
+import rapaio.data.Mapping;
 import rapaio.data.VarDouble;
 import rapaio.datasets.Datasets;
 
@@ -74,6 +75,18 @@ public class RowSamplerTest {
         assertEquals(0.63328, Mean.of(count).value(), 1e-5);
     }
 
+    @Test
+    void complementMappingTest() {
+        RandomSource.setSeed(123);
+        for (RowSampler sampler : new RowSampler[] {RowSampler.bootstrap(), RowSampler.bootstrap(0.5), RowSampler.subsampler(0.3)}) {
+            RowSampler.Sample s = sampler.nextSample(df, w);
+            Mapping complement = s.getComplementMapping();
+            long distinct = s.mapping().stream().distinct().count();
+            assertEquals(df.rowCount() - distinct, complement.size());
+            complement.stream().forEach(row -> assertFalse(s.mapping().stream().anyMatch(r -> r == row)));
+        }
+    }
+
     @Test
     void subsampleTest() {
         RandomSource.setSeed(123);
@@ -0,0 +1,143 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright 2013 - 2021 Aurelian Tutuianu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package rapaio.io;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import rapaio.core.RandomSource;
+import rapaio.data.Frame;
+import rapaio.data.SolidFrame;
+import rapaio.data.VarBinary;
+import rapaio.data.VarDouble;
+import rapaio.data.VarInstant;
+import rapaio.data.VarInt;
+import rapaio.data.VarLong;
+import rapaio.data.VarNominal;
+import rapaio.data.VarString;
+import rapaio.data.VarType;
+import rapaio.datasets.Datasets;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author <a href="mailto:padreati@yahoo.com">Aurelian Tutuianu</a>
+ */
+public class ColumnarTest {
+
+    @TempDir
+    Path dir;
+
+    @BeforeEach
+    void beforeEach() {
+        RandomSource.setSeed(42);
+    }
+
+    @Test
+    void testAllTypes() throws IOException {
+        int n = 1_000;
+        Frame df = SolidFrame.byVars(
+                VarDouble.from(n, row -> row % 11 == 0 ? Double.NaN : RandomSource.nextDouble()).name("dbl"),
+                VarInt.from(n, row -> row % 13 == 0 ? VarInt.MISSING_VALUE : row - 500).name("int"),
+                VarLong.from(n, row -> row % 17 == 0 ? VarLong.MISSING_VALUE : row * 1_000_000_000L).name("long"),
+                VarBinary.from(n, row -> row % 19 == 0 ? null : row % 3 == 0).name("bin"),
+                VarNominal.from(n, row -> row % 23 == 0 ? "?" : "level" + (row % 7)).name("nom"),
+                VarString.from(n, row -> row % 29 == 0 ? "?" : "text ţ " + row).name("str"),
+                VarInstant.from(n, row -> row % 31 == 0 ? null : Instant.ofEpochSecond(1_600_000_000L + row, row)).name("instant")
+        );
+
+        for (boolean compress : new boolean[]{false, true}) {
+            File file = dir.resolve("all-" + compress + ".rcf").toFile();
+            Columnar.instance().compress.set(compress).blockRows.set(128).write(df, file);
+
+            Frame restored = Columnar.instance().read(file);
+            assertTrue(df.deepEquals(restored));
+            assertArrayEquals(df.varStream().map(v -> v.type()).toArray(), restored.varStream().map(v -> v.type()).toArray());
+            for (int i = 0; i < n; i++) {
+                assertEquals(df.rvar("instant").getInstant(i), restored.rvar("instant").getInstant(i));
+                assertEquals(df.isMissing(i, "bin"), restored.isMissing(i, "bin"));
+            }
+        }
+    }
+
+    @Test
+    void testSubsetAndSchema() throws IOException {
+        Frame df = Datasets.loadIrisDataset();
+        File file = dir.resolve("iris.rcf").toFile();
+        Columnar.instance().write(df, file);
+
+        Frame subset = Columnar.instance().read(file, "class", "sepal-length");
+        assertEquals(150, subset.rowCount());
+        assertArrayEquals(new String[]{"class", "sepal-length"}, subset.varNames());
+        assertTrue(df.mapVars("class", "sepal-length").deepEquals(subset));
+
+        Frame schema = Columnar.instance().readSchema(file);
+        assertEquals(0, schema.rowCount());
+        assertArrayEquals(df.varNames(), schema.varNames());
+        assertEquals(df.rvar("class").levels(), schema.rvar("class").levels());
+
+        assertThrows(IllegalArgumentException.class, () -> Columnar.instance().read(file, "missing"));
+    }
+
+    @Test
+    void testMappedFrameAndCompression() throws IOException {
+        Frame df = Datasets.loadIrisDataset().mapRows(10, 20, 30, 40, 50, 100).mapVars("petal-width", "class");
+        File raw = dir.resolve("raw.rcf").toFile();
+        File compressed = dir.resolve("compressed.rcf").toFile();
+
+        Columnar.instance().write(df, raw);
+        Columnar.instance().compress.set(true).compressLevel.set(9).write(df, compressed);
+
+        assertTrue(df.deepEquals(Columnar.instance().read(raw)));
+        assertTrue(df.deepEquals(Columnar.instance().read(compressed)));
+        assertEquals(VarType.NOMINAL, Columnar.instance().read(compressed).rvar("class").type());
+    }
+
+    @Test
+    void testManyNominalLevels() throws IOException {
+        int n = 40_000;
+        Frame df = SolidFrame.byVars(VarNominal.from(n, row -> row % 101 == 0 ? "?" : "level" + row).name("nom"));
+        assertTrue(df.rvar("nom").levels().size() > 32768);
+
+        File file = dir.resolve("levels.rcf").toFile();
+        Columnar.instance().blockRows.set(10_000).write(df, file);
+
+        Frame restored = Columnar.instance().read(file);
+        assertEquals(df.rvar("nom").levels(), restored.rvar("nom").levels());
+        assertTrue(restored.rvar("nom").getInt(n - 1) > Short.MAX_VALUE);
+        assertEquals("level" + (n - 1), restored.rvar("nom").getLabel(n - 1));
+        assertTrue(df.deepEquals(restored));
+    }
+
+    @Test
+    void testInvalidFile() throws IOException {
+        File file = dir.resolve("invalid.rcf").toFile();
+        Files.writeString(file.toPath(), "this is not a columnar file");
+        assertThrows(IOException.class, () -> Columnar.instance().read(file));
+    }
+}
@@ -23,13 +23,20 @@ package rapaio.io;
 
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import rapaio.data.Frame;
 import rapaio.data.Var;
 import rapaio.data.VarType;
 import rapaio.datasets.Datasets;
 import rapaio.util.IntRule;
 
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -244,4 +251,168 @@ public class CsvTest {
         Frame na4 = Csv.instance().naValues.set("virginica", "5").types.add(VarType.NOMINAL, "sepal-length").read(Datasets.class, "iris-r.csv");
         assertEquals(89, na4.stream().complete().count());
     }
+
+    @Test
+    void testParallelRead(@TempDir Path dir) throws IOException {
+        for (String resource : new String[]{"iris-r.csv", "titanic-train.csv", "mushrooms.csv"}) {
+            File file = copyResource(dir, Datasets.class, resource);
+
+            Frame seq = Csv.instance().quotes.set(true).read(file);
+            Frame par = Csv.instance().quotes.set(true).threads.set(4).chunkSize.set(1024).sampleRows.set(3).read(file);
+            assertTrue(seq.deepEquals(par), resource);
+
+            seq = Csv.instance().quotes.set(true)
+                    .skipRows.set(row -> row % 3 == 0).startRow.set(10).endRow.set(90).skipCols.set(IntRule.from(1))
+                    .read(file);
+            par = Csv.instance().quotes.set(true)
+                    .skipRows.set(row -> row % 3 == 0).startRow.set(10).endRow.set(90).skipCols.set(IntRule.from(1))
+                    .threads.set(3).chunkSize.set(512).sampleRows.set(2)
+                    .read(file);
+            assertTrue(seq.deepEquals(par), resource);
+        }
+    }
+
+    @Test
+    void testParallelTypeUpgrade(@TempDir Path dir) throws IOException {
+        StringBuilder sb = new StringBuilder("a,b,c\r\n");
+        for (int i = 0; i < 1_000; i++) {
+            sb.append(i % 2).append(',').append(i < 900 ? i % 2 : i).append(',').append(i < 990 ? String.valueOf(i) : "x" + i).append("\r\n");
+        }
+        File file = dir.resolve("upgrade.csv").toFile();
+        Files.writeString(file.toPath(), sb.toString());
+
+        Frame seq = Csv.instance().read(file);
+        Frame par = Csv.instance().threads.set(4).chunkSize.set(100).sampleRows.set(10).read(file);
+
+        assertEquals(1_000, par.rowCount());
+        assertArrayEquals(new VarType[]{VarType.BINARY, VarType.DOUBLE, VarType.NOMINAL}, par.varStream().map(Var::type).toArray());
+        assertTrue(seq.deepEquals(par));
+    }
+
+    @Test
+    void testMemoryMappedRead(@TempDir Path dir) throws IOException {
+        for (String resource : new String[]{"iris-r.csv", "titanic-train.csv", "mushrooms.csv"}) {
+            File file = copyResource(dir, Datasets.class, resource);
+
+            Frame seq = Csv.instance().quotes.set(true).read(file);
+            Frame mm = Csv.instance().quotes.set(true).memoryMapped.set(true).sampleRows.set(3).read(file);
+            assertTrue(seq.deepEquals(mm), resource);
+
+            Frame par = Csv.instance().quotes.set(true).memoryMapped.set(true)
+                    .threads.set(4).chunkSize.set(1024).sampleRows.set(3).read(file);
+            assertTrue(seq.deepEquals(par), resource);
+
+            Frame template = seq.mapRows(0, 1, 2).copy();
+            seq = Csv.instance().quotes.set(true).naValues.set("3", "S", "")
+                    .skipRows.set(row -> row % 3 == 0).startRow.set(10).endRow.set(90).skipCols.set(IntRule.from(1))
+                    .template.set(template)
+                    .read(file);
+            par = Csv.instance().quotes.set(true).naValues.set("3", "S", "")
+                    .skipRows.set(row -> row % 3 == 0).startRow.set(10).endRow.set(90).skipCols.set(IntRule.from(1))
+                    .template.set(template)
+                    .memoryMapped.set(true).threads.set(3).chunkSize.set(512).sampleRows.set(2)
+                    .read(file);
+            assertTrue(seq.deepEquals(par), resource);
+        }
+    }
+
+    @Test
+    void testMemoryMappedValues(@TempDir Path dir) throws IOException {
+        StringBuilder sb = new StringBuilder("x,y,z,w,t\n");
+        String[] doubles = {"1", "-2.5", "+3.25", ".5", "7.", "1e3", "-1.5E-3", "0.1", "-0", "Inf", "-Inf",
+                "123456789012345678", "1e400", "0x1p3", "3.141592653589793238", "NaN", " 4 ", "?"};
+        for (int i = 0; i < 200; i++) {
+            sb.append(doubles[i % doubles.length]).append(',')
+                    .append(i % 7 == 0 ? "?" : String.valueOf(i - 100)).append(',')
+                    .append(i % 3 == 0 ? "TRUE" : i % 3 == 1 ? "0" : "false").append(',')
+                    .append(i % 5 == 0 ? " \"a \"\"quoted\"\", label\" " : "level" + (i % 4)).append(',')
+                    .append(i % 2 == 0 ? "0" : "").append('\n');
+        }
+        File file = dir.resolve("values.csv").toFile();
+        Files.writeString(file.toPath(), sb.toString());
+
+        Csv csv = Csv.instance().quotes.set(true).defaultTypes.set(VarType.BINARY, VarType.INT, VarType.DOUBLE, VarType.NOMINAL);
+        Frame seq = csv.read(new FileInputStream(file));
+        Frame mm = csv.memoryMapped.set(true).sampleRows.set(5).read(file);
+
+        assertArrayEquals(new VarType[]{VarType.DOUBLE, VarType.INT, VarType.BINARY, VarType.NOMINAL, VarType.BINARY},
+                mm.varStream().map(Var::type).toArray());
+        assertTrue(seq.deepEquals(mm));
+        assertEquals("a \"quoted\", label", mm.getLabel(0, "w"));
+    }
+
+    @Test
+    void testParallelByteParsing(@TempDir Path dir) throws IOException {
+        StringBuilder sb = new StringBuilder("x,y,z\n");
+        String[] doubles = {"1", "-2.5", "1e3", "1e400", "0x1p3", "3.141592653589793238", "NaN", " 4 ", "?"};
+        for (int i = 0; i < 500; i++) {
+            sb.append(doubles[i % doubles.length]).append(',')
+                    .append(i % 7 == 0 ? "?" : String.valueOf(i - 100)).append(',')
+                    .append(i % 5 == 0 ? "\"a \"\"quoted\"\", label\"" : "level" + (i % 4)).append('\n');
+        }
+        File file = dir.resolve("values.csv").toFile();
+        Files.writeString(file.toPath(), sb.toString());
+
+        // parallel reading tokenizes bytes without memory mapped option
+        VarType[] types = {VarType.INT, VarType.DOUBLE, VarType.NOMINAL};
+        Csv csv = Csv.instance().quotes.set(true).defaultTypes.set(types).threads.set(4).chunkSize.set(256).sampleRows.set(5);
+        assertTrue(new CsvParallelReader(csv, file).isByteParsing());
+        assertFalse(new CsvParallelReader(Csv.instance().separatorChar.set('\u00a7').threads.set(4), file).isByteParsing());
+
+        Frame seq = Csv.instance().quotes.set(true).defaultTypes.set(types).read(new FileInputStream(file));
+        Frame par = csv.read(file);
+        assertArrayEquals(new VarType[]{VarType.DOUBLE, VarType.INT, VarType.NOMINAL}, par.varStream().map(Var::type).toArray());
+        assertTrue(seq.deepEquals(par));
+    }
+
+    @Test
+    void testReadBatches() throws IOException {
+        Frame full = Csv.instance().read(Datasets.class, "iris-r.csv");
+
+        for (boolean reuse : new boolean[]{false, true}) {
+            List<Frame> batches = new ArrayList<>();
+            Frame all = null;
+            try (var stream = Csv.instance().batchReuse.set(reuse).readBatches(Datasets.class.getResourceAsStream("iris-r.csv"), 40)) {
+                for (Frame batch : (Iterable<Frame>) stream::iterator) {
+                    batches.add(batch);
+                    all = all == null ? batch.copy() : all.bindRows(batch).copy();
+                }
+            }
+            assertEquals(4, batches.size());
+            assertEquals(40, batches.get(0).rowCount());
+            assertEquals(30, batches.get(3).rowCount());
+            assertArrayEquals(full.varNames(), batches.get(3).varNames());
+            assertTrue(full.deepEquals(all));
+            // with reuse the batches share variables two by two
+            assertEquals(reuse, batches.get(0).rvar(0) == batches.get(2).rvar(0));
+            assertNotSame(batches.get(0).rvar(0), batches.get(1).rvar(0));
+        }
+
+        // row filters are applied globally, the schema is given by template
+        Frame template = full.mapRows(0).copy();
+        Frame filtered = Csv.instance().startRow.set(50).endRow.set(100).skipRows.set(row -> row % 2 == 0)
+                .read(Datasets.class, "iris-r.csv");
+        List<Frame> batches = Csv.instance().startRow.set(50).endRow.set(100).skipRows.set(row -> row % 2 == 0)
+                .template.set(template)
+                .readBatches(Datasets.class.getResourceAsStream("iris-r.csv"), 7)
+                .toList();
+        assertEquals(4, batches.size());
+        assertEquals(25, batches.stream().mapToInt(Frame::rowCount).sum());
+        for (int i = 0; i < batches.size(); i++) {
+            for (int j = 0; j < batches.get(i).rowCount(); j++) {
+                assertEquals(filtered.getDouble(i * 7 + j, 0), batches.get(i).getDouble(j, 0), 1e-12);
+                assertEquals(filtered.getLabel(i * 7 + j, "class"), batches.get(i).getLabel(j, "class"));
+            }
+            assertEquals(template.rvar("class").levels(), batches.get(i).rvar("class").levels().subList(0, 4));
+        }
+    }
+
+    private File copyResource(Path dir, Class<?> clazz, String resource) throws IOException {
+        Path path = dir.resolve(resource);
+        try (InputStream is = clazz.getResourceAsStream(resource)) {
+            assertNotNull(is);
+            Files.copy(is, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return path.toFile();
+    }
 }
@@ -398,6 +398,16 @@ public abstract class StandardDMatrixTest {
         assertTrue(r1.deepEquals(m.copy().dotDiag(v1)));
     }
 
+    @Test
+    void dotDiagTTest() {
+        // more rows than columns, each row is scaled with its own value
+        var m = generateSequential(10, 3);
+        var v = DVector.from(10, i -> i + 1);
+
+        var expected = DMatrix.fill(10, 3, (i, j) -> m.get(i, j) * (i + 1));
+        assertTrue(expected.deepEquals(m.copy().dotDiagT(v)));
+    }
+
     @Test
     void testTrace() {
         for (int i = 1; i < 10; i++) {
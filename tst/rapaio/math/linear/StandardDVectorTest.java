@@ -395,7 +395,7 @@ public abstract class StandardDVectorTest {
         var v = generateFill(10, 1);
         var copy1 = v.copy();
         assertTrue(v.deepEquals(copy1));
-        assertEquals(VType.DENSE, copy1.type());
+        assertEquals(v.type() == VType.SPARSE ? VType.SPARSE : VType.DENSE, copy1.type());
     }
 
     @Test
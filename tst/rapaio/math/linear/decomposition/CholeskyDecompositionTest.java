@@ -109,4 +109,30 @@ public class CholeskyDecompositionTest {
     void testSystemNonCompatible() {
         assertThrows(IllegalArgumentException.class, () -> CholeskyDecomposition.from(DMatrix.random(2, 2)).solve(DMatrix.random(3, 1)));
     }
+
+    @Test
+    void testBlocked() {
+        int n = BlockedFactorizations.THRESHOLD + 75;
+        DMatrix a = DMatrix.random(n, n);
+        DMatrix b = a.t().dot(a).add(DMatrix.identity(n));
+
+        CholeskyDecomposition cholesky = CholeskyDecomposition.from(b);
+        DMatrix l = cholesky.getL();
+        assertTrue(cholesky.isSPD());
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                assertEquals(0.0, l.get(i, j));
+            }
+        }
+        assertTrue(b.deepEquals(l.dot(l.t()), 1e-10));
+
+        DMatrix y = DMatrix.random(n, 5);
+        DMatrix x = cholesky.solve(y);
+        assertTrue(y.deepEquals(b.dot(x), 1e-9));
+
+        assertFalse(CholeskyDecomposition.from(a).isSPD());
+        DMatrix c = b.copy();
+        c.set(n - 1, n - 1, -1);
+        assertFalse(CholeskyDecomposition.from(c).isSPD());
+    }
 }
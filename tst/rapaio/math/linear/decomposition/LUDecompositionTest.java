@@ -121,4 +121,25 @@ public class LUDecompositionTest {
     void builderTestMethodEx() {
         assertThrows(IllegalArgumentException.class, () -> LUDecomposition.from(DMatrix.random(2, 3), LUDecomposition.Method.GAUSSIAN_ELIMINATION).det());
     }
+
+    @Test
+    void testBlocked() {
+        int n = BlockedFactorizations.THRESHOLD + 75;
+        DMatrix a = DMatrix.random(n + 13, n);
+        LUDecomposition blocked = LUDecomposition.from(a);
+        LUDecomposition gaussian = LUDecomposition.from(a, LUDecomposition.Method.GAUSSIAN_ELIMINATION);
+
+        assertArrayEquals(gaussian.getPivot(), blocked.getPivot());
+        assertTrue(gaussian.getL().deepEquals(blocked.getL(), 1e-10));
+        assertTrue(gaussian.getU().deepEquals(blocked.getU(), 1e-10));
+        assertTrue(a.mapRows(blocked.getPivot()).deepEquals(blocked.getL().dot(blocked.getU()), 1e-10));
+
+        DMatrix s = DMatrix.random(n, n);
+        DMatrix b = DMatrix.random(n, 7);
+        DMatrix x = LUDecomposition.from(s).solve(b);
+        assertTrue(LUDecomposition.from(s, LUDecomposition.Method.GAUSSIAN_ELIMINATION).solve(b).deepEquals(x, 1e-8));
+        assertTrue(b.deepEquals(s.dot(x), 1e-9));
+        assertEquals(LUDecomposition.from(s, LUDecomposition.Method.GAUSSIAN_ELIMINATION).det(),
+                LUDecomposition.from(s).det(), 1e-8 * Math.abs(LUDecomposition.from(s).det()));
+    }
 }
@@ -0,0 +1,99 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright 2013 - 2021 Aurelian Tutuianu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package rapaio.math.linear.decomposition;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import rapaio.core.RandomSource;
+import rapaio.math.linear.DMatrix;
+import rapaio.math.linear.DVector;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LanczosEigenTest {
+
+    private static final double TOL = 1e-8;
+
+    @BeforeEach
+    void beforeEach() {
+        RandomSource.setSeed(42);
+    }
+
+    @Test
+    void testTopEigenPairs() {
+        int n = 150;
+        DMatrix x = DMatrix.random(200, n);
+        DMatrix a = x.t().dot(x);
+
+        LanczosEigen lanczos = LanczosEigen.from(a, 5);
+        DVector values = lanczos.getValues();
+        DMatrix vectors = lanczos.getVectors();
+
+        EigenDecomposition evd = EigenDecomposition.from(a);
+        double[] expected = evd.getRealEigenvalues().clone();
+        Arrays.sort(expected);
+
+        assertEquals(5, values.size());
+        assertEquals(n, vectors.rowCount());
+        assertEquals(5, vectors.colCount());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(expected[n - 1 - i], values.get(i), TOL * expected[n - 1]);
+            DVector v = vectors.mapCol(i);
+            assertEquals(1.0, v.norm(2), TOL);
+            assertTrue(a.dot(v).deepEquals(v.copy().mult(values.get(i)), 1e-6 * expected[n - 1]));
+        }
+        assertTrue(lanczos.steps() <= n);
+    }
+
+    @Test
+    void testImplicitOperator() {
+        DMatrix x = DMatrix.random(30, 100);
+        DMatrix xt = x.t();
+
+        LanczosEigen implicit = LanczosEigen.from(100, v -> xt.dot(x.dot(v)), 4);
+        LanczosEigen explicit = LanczosEigen.from(xt.dot(x), 4);
+        assertTrue(explicit.getValues().deepEquals(implicit.getValues(), 1e-8 * explicit.getValues().get(0)));
+        assertTrue(implicit.getValues().deepEquals(implicit.eigenPair().values()));
+    }
+
+    @Test
+    void testFullSpace() {
+        DMatrix a = DMatrix.wrap(new double[][]{
+                {2, 1, 0},
+                {1, 2, 1},
+                {0, 1, 2}
+        });
+        LanczosEigen lanczos = LanczosEigen.from(a, 3);
+        assertEquals(2 + Math.sqrt(2), lanczos.getValues().get(0), TOL);
+        assertEquals(2, lanczos.getValues().get(1), TOL);
+        assertEquals(2 - Math.sqrt(2), lanczos.getValues().get(2), TOL);
+    }
+
+    @Test
+    void testInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> LanczosEigen.from(DMatrix.random(3, 4), 1));
+        assertThrows(IllegalArgumentException.class, () -> LanczosEigen.from(DMatrix.identity(3), 4));
+    }
+}
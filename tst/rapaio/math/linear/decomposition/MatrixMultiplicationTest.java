@@ -27,6 +27,7 @@ import rapaio.core.RandomSource;
 import rapaio.core.distributions.Normal;
 import rapaio.data.VarDouble;
 import rapaio.math.linear.DMatrix;
+import rapaio.math.linear.MType;
 
 import java.util.Map;
 
@@ -74,6 +75,28 @@ public class MatrixMultiplicationTest {
         assertTrue(c.deepEquals(MatrixMultiplication.strassen(A, B, 8), TOL));
     }
 
+    @Test
+    void testBlockedDenseLayouts() {
+
+        Normal normal = Normal.std();
+        int[][] shapes = {{1, 1, 1}, {3, 5, 7}, {67, 259, 130}, {130, 300, 517}};
+        for (int[] shape : shapes) {
+            for (MType ta : new MType[]{MType.RDENSE, MType.CDENSE}) {
+                for (MType tb : new MType[]{MType.RDENSE, MType.CDENSE}) {
+                    DMatrix A = DMatrix.fill(ta, shape[0], shape[1], (r, c) -> normal.sampleNext());
+                    DMatrix B = DMatrix.fill(tb, shape[1], shape[2], (r, c) -> normal.sampleNext());
+
+                    DMatrix c = MatrixMultiplication.blocked(A, B);
+                    assertEquals(shape[0], c.rowCount());
+                    assertEquals(shape[2], c.colCount());
+                    assertTrue(c.deepEquals(MatrixMultiplication.jama(A, B), 1e-10));
+                    assertTrue(c.deepEquals(A.dot(B), TOL));
+                }
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> DMatrix.empty(3, 4).dot(DMatrix.empty(3, 4)));
+    }
+
     private void put(Map<String, VarDouble> map, String key, Long value) {
         if (!map.containsKey(key)) {
             map.put(key, VarDouble.empty().name(key));
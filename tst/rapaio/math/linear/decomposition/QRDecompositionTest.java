@@ -152,4 +152,26 @@ public class QRDecompositionTest {
     void testSingular() {
         assertThrows(RuntimeException.class, () -> QRDecomposition.from(DMatrix.fill(10, 10, 2)).solve(DMatrix.random(10, 1)));
     }
+
+    @Test
+    void testBlocked() {
+        int cols = BlockedFactorizations.THRESHOLD + 75;
+        DMatrix a = DMatrix.random(cols + 41, cols);
+        QRDecomposition qr = QRDecomposition.from(a);
+
+        DMatrix q = qr.getQ();
+        DMatrix r = qr.getR();
+        assertTrue(qr.isFullRank());
+        assertTrue(DMatrix.identity(cols).deepEquals(q.t().dot(q), 1e-10));
+        assertTrue(a.deepEquals(q.dot(r), 1e-10));
+        for (int i = 0; i < cols; i++) {
+            for (int j = 0; j < i; j++) {
+                assertEquals(0.0, r.get(i, j));
+            }
+        }
+
+        DMatrix s = DMatrix.random(cols, cols);
+        DMatrix b = DMatrix.random(cols, 3);
+        assertTrue(b.deepEquals(s.dot(QRDecomposition.from(s).solve(b)), 1e-9));
+    }
 }
@@ -0,0 +1,83 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright 2013 - 2021 Aurelian Tutuianu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package rapaio.math.linear.decomposition;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import rapaio.core.RandomSource;
+import rapaio.math.linear.DMatrix;
+import rapaio.math.linear.DVector;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RandomizedSVDTest {
+
+    @BeforeEach
+    void beforeEach() {
+        RandomSource.setSeed(42);
+    }
+
+    @Test
+    void testLowRank() {
+        // exact rank 6 matrix, recovered exactly by a range with oversampling
+        DMatrix a = DMatrix.random(120, 6).dot(DMatrix.random(6, 80));
+        RandomizedSVD rsvd = RandomizedSVD.from(a, 6);
+        SVDecomposition svd = SVDecomposition.from(a);
+
+        assertEquals(6, rsvd.k());
+        for (int i = 0; i < 6; i++) {
+            assertEquals(svd.getSingularValues()[i], rsvd.getSingularValues()[i], 1e-9 * svd.getSingularValues()[0]);
+        }
+        DMatrix u = rsvd.getU();
+        DMatrix v = rsvd.getV();
+        assertEquals(120, u.rowCount());
+        assertEquals(80, v.rowCount());
+        assertTrue(DMatrix.identity(6).deepEquals(u.t().dot(u), 1e-10));
+        assertTrue(DMatrix.identity(6).deepEquals(v.t().dot(v), 1e-10));
+        assertTrue(a.deepEquals(u.dot(rsvd.getS()).dot(v.t()), 1e-8));
+    }
+
+    @Test
+    void testDecayingSpectrum() {
+        // wide matrix with fast decaying singular values
+        DMatrix a = DMatrix.random(60, 300).mult(0.01);
+        a.add(DMatrix.random(60, 3).dot(DMatrix.random(3, 300)));
+        RandomizedSVD rsvd = RandomizedSVD.from(a, 3, 10, 3);
+        double[] expected = SVDecomposition.from(a.t()).getSingularValues();
+        for (int i = 0; i < 3; i++) {
+            assertEquals(expected[i], rsvd.getSingularValues()[i], 1e-6 * expected[0]);
+        }
+        for (int i = 0; i < 3; i++) {
+            DVector v = rsvd.getV().mapCol(i);
+            DVector u = rsvd.getU().mapCol(i);
+            assertTrue(a.dot(v).deepEquals(u.copy().mult(rsvd.getSingularValues()[i]), 1e-4 * expected[0]));
+        }
+    }
+
+    @Test
+    void testInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> RandomizedSVD.from(DMatrix.random(5, 4), 5));
+        assertThrows(IllegalArgumentException.class, () -> RandomizedSVD.from(DMatrix.random(5, 4), 0));
+        assertThrows(IllegalArgumentException.class, () -> RandomizedSVD.from(DMatrix.random(5, 4), 2, -1, 0));
+    }
+}
@@ -37,7 +37,7 @@ public class DMatrixDenseCTest extends StandardDMatrixTest {
 
     @Override
     protected DMatrix generateSequential(int n, int m) {
-        DMatrix matrix = DMatrix.empty(MType.CDENSE, n, m);
+        DMatrix matrix = new DMatrixDenseC(n, m);
         int seq = 0;
         for (int i = 0; i < n; i++) {
             for (int j = 0; j < m; j++) {
@@ -49,17 +49,27 @@ public class DMatrixDenseCTest extends StandardDMatrixTest {
 
     @Override
     protected DMatrix generateIdentity(int n) {
-        return DMatrix.identity(MType.CDENSE, n);
+        DMatrix matrix = new DMatrixDenseC(n, n);
+        for (int i = 0; i < n; i++) {
+            matrix.set(i, i, 1);
+        }
+        return matrix;
     }
 
     @Override
     protected DMatrix generateFill(int n, int m, double fill) {
-        return DMatrix.fill(MType.CDENSE, n, m, fill);
+        return new DMatrixDenseC(n, m).add(fill);
     }
 
     @Override
     protected DMatrix generateCopy(double[][] values) {
-        return DMatrix.copy(MType.CDENSE, true, values);
+        DMatrix matrix = new DMatrixDenseC(values.length, values[0].length);
+        for (int i = 0; i < values.length; i++) {
+            for (int j = 0; j < values[0].length; j++) {
+                matrix.set(i, j, values[i][j]);
+            }
+        }
+        return matrix;
     }
 
     @Override
@@ -37,7 +37,7 @@ public class DMatrixDenseRTest extends StandardDMatrixTest {
 
     @Override
     protected DMatrix generateSequential(int n, int m) {
-        DMatrix matrix = DMatrix.empty(MType.RDENSE, n, m);
+        DMatrix matrix = new DMatrixDenseR(n, m);
         for (int i = 0; i < n; i++) {
             for (int j = 0; j < m; j++) {
                 matrix.set(i, j, i * m + j);
@@ -48,12 +48,16 @@ public class DMatrixDenseRTest extends StandardDMatrixTest {
 
     @Override
     protected DMatrix generateIdentity(int n) {
-        return DMatrix.identity(MType.RDENSE, n);
+        DMatrix matrix = new DMatrixDenseR(n, n);
+        for (int i = 0; i < n; i++) {
+            matrix.set(i, i, 1);
+        }
+        return matrix;
     }
 
     @Override
     protected DMatrix generateFill(int n, int m, double fill) {
-        return DMatrix.fill(MType.RDENSE, n, m, fill);
+        return new DMatrixDenseR(n, m).add(fill);
     }
 
     @Override
@@ -0,0 +1,162 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright 2013 - 2021 Aurelian Tutuianu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package rapaio.math.linear.dense;
+
+import org.junit.jupiter.api.Test;
+import rapaio.core.distributions.Normal;
+import rapaio.math.linear.DMatrix;
+import rapaio.math.linear.DVector;
+import rapaio.math.linear.MType;
+import rapaio.math.linear.StandardDMatrixTest;
+import rapaio.math.linear.decomposition.MatrixMultiplication;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DMatrixStrideTest extends StandardDMatrixTest {
+
+    @Override
+    protected DMatrix generateSequential(int n, int m) {
+        DMatrix matrix = DMatrix.empty(MType.RDENSE, n, m);
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < m; j++) {
+                matrix.set(i, j, i * m + j);
+            }
+        }
+        return matrix;
+    }
+
+    @Override
+    protected DMatrix generateIdentity(int n) {
+        return DMatrix.identity(MType.RDENSE, n);
+    }
+
+    @Override
+    protected DMatrix generateFill(int n, int m, double fill) {
+        return DMatrix.fill(MType.RDENSE, n, m, fill);
+    }
+
+    @Override
+    protected DMatrix generateCopy(double[][] values) {
+        return DMatrix.copy(MType.RDENSE, true, values);
+    }
+
+    @Override
+    protected String className() {
+        return "DMatrixStride";
+    }
+
+    @Test
+    void testLayout() {
+        DMatrixStride r = new DMatrixStride(MType.RDENSE, 3, 4);
+        assertEquals(4, r.getRowStride());
+        assertEquals(1, r.getColStride());
+        assertTrue(r.isPacked());
+
+        DMatrixStride c = new DMatrixStride(MType.CDENSE, 3, 4);
+        assertEquals(1, c.getRowStride());
+        assertEquals(3, c.getColStride());
+        assertTrue(c.isPacked());
+
+        double[] values = {1, 2, 3, 4, 5, 6};
+        DMatrix wrap = DMatrix.wrap(true, 2, 3, values);
+        assertEquals(6, wrap.get(1, 2));
+        wrap.set(0, 1, 10);
+        assertEquals(10, values[1]);
+        assertEquals(5, DMatrix.wrap(false, 2, 3, values).get(0, 2));
+
+        assertThrows(IllegalArgumentException.class, () -> DMatrix.wrap(true, 3, 3, values));
+        assertThrows(IllegalArgumentException.class, () -> new DMatrixStride(MType.CSR, 2, 2));
+        assertThrows(IllegalArgumentException.class, () -> new DMatrixStride(MType.RDENSE, 2, 3, 1, 3, 1, values));
+    }
+
+    @Test
+    void testViewsShareStorage() {
+        DMatrixStride m = (DMatrixStride) generateSequential(6, 5);
+
+        DMatrixStride t = (DMatrixStride) m.t();
+        assertEquals(MType.CDENSE, t.type());
+        assertSame(m.getArray(), t.getArray());
+        t.set(4, 2, -1);
+        assertEquals(-1, m.get(2, 4));
+
+        DMatrixStride block = (DMatrixStride) m.rangeRows(1, 5).rangeCols(2, 4);
+        assertSame(m.getArray(), block.getArray());
+        assertFalse(block.isPacked());
+        assertEquals(m.get(3, 3), block.get(2, 1));
+        block.mapRow(0).mult(2);
+        assertEquals(14, m.get(1, 2));
+
+        DMatrixStride even = (DMatrixStride) m.mapRows(0, 2, 4);
+        assertSame(m.getArray(), even.getArray());
+        assertEquals(10, even.getRowStride());
+        assertEquals(m.get(4, 1), even.get(2, 1));
+
+        // rows which are not equally spaced are mapped through indexes
+        DMatrix shuffled = m.mapRows(3, 0);
+        assertEquals(MType.MAP, shuffled.type());
+        shuffled.set(1, 0, 100);
+        assertEquals(100, m.get(0, 0));
+
+        DMatrix copy = block.copy();
+        assertTrue(copy.deepEquals(block));
+        assertTrue(((DMatrixStride) copy).isPacked());
+        copy.set(0, 0, 1000);
+        assertNotEquals(1000, block.get(0, 0));
+    }
+
+    @Test
+    void testViewOperations() {
+        DMatrix m = generateSequential(7, 9);
+        DMatrix view = m.rangeRows(2, 6).mapCols(1, 4, 7);
+        DMatrix expected = m.rangeRowsCopy(2, 6).mapColsCopy(1, 4, 7);
+
+        assertEquals(expected.sum(), view.sum(), TOL);
+        assertArrayEquals(expected.valueStream().toArray(), view.valueStream().toArray(), TOL);
+
+        DVector v = DVector.wrap(1, -2, 3);
+        assertTrue(expected.dot(v).deepEquals(view.dot(v)));
+        assertTrue(expected.t().dot(expected).deepEquals(view.t().dot(view)));
+
+        view.add(1).mult(2).sub(1).div(4).apply(x -> x * x);
+        expected.add(1).mult(2).sub(1).div(4).apply(x -> x * x);
+        assertTrue(expected.deepEquals(m.rangeRowsCopy(2, 6).mapColsCopy(1, 4, 7)));
+
+        view.dotDiag(v).dotDiagT(DVector.wrap(1, 2, 3, 4));
+        expected.dotDiag(v).dotDiagT(DVector.wrap(1, 2, 3, 4));
+        assertTrue(expected.deepEquals(view));
+    }
+
+    @Test
+    void testBlockedMultiplicationOnViews() {
+        Normal normal = Normal.std();
+        DMatrix a = DMatrix.fill(MType.CDENSE, 70, 90, (r, c) -> normal.sampleNext());
+        DMatrix b = DMatrix.fill(MType.RDENSE, 80, 60, (r, c) -> normal.sampleNext());
+
+        DMatrix av = a.rangeRows(5, 65).mapCols(0, 2, 4, 6, 8, 10, 12, 14, 16, 18);
+        DMatrix bv = b.t().rangeCols(10, 20);
+        DMatrix c = MatrixMultiplication.blocked(av.t(), bv);
+
+        assertEquals(10, c.rowCount());
+        assertEquals(10, c.colCount());
+        assertTrue(c.deepEquals(MatrixMultiplication.jama(av.copy().t(), bv.copy()), 1e-10));
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright 2013 - 2021 Aurelian Tutuianu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package rapaio.math.linear.dense;
+
+import org.junit.jupiter.api.Test;
+import rapaio.math.linear.DVector;
+import rapaio.math.linear.MType;
+import rapaio.math.linear.StandardDVectorTest;
+import rapaio.math.linear.VType;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DVectorStrideTest extends StandardDVectorTest {
+
+    @Override
+    public VType type() {
+        return VType.STRIDE;
+    }
+
+    @Override
+    public DVector generateFill(int size, double fill) {
+        DMatrixStride m = new DMatrixStride(MType.RDENSE, size, 3);
+        m.add(fill);
+        return m.mapCol(1);
+    }
+
+    @Override
+    public DVector generateWrap(double[] values) {
+        DMatrixStride m = new DMatrixStride(MType.RDENSE, values.length, 3);
+        for (int i = 0; i < values.length; i++) {
+            m.set(i, 1, values[i]);
+        }
+        return m.mapCol(1);
+    }
+
+    @Override
+    public String className() {
+        return "DVectorStride";
+    }
+
+    @Test
+    void testStrideView() {
+        double[] array = {0, 1, 2, 3, 4, 5, 6, 7};
+        DVectorStride v = new DVectorStride(3, 1, 3, array);
+        assertEquals(3, v.size());
+        assertArrayEquals(new double[]{1, 4, 7}, v.valueStream().toArray());
+
+        v.add(10);
+        assertArrayEquals(new double[]{0, 11, 2, 3, 14, 5, 6, 17}, array);
+        assertEquals(VType.DENSE, v.copy().type());
+        assertEquals(11 + 2 * 14 + 3 * 17, v.dot(DVector.wrap(1, 2, 3)), 1e-12);
+        assertEquals(11 * 2 + 14 * 5 + 17 * 0, v.dot(new DVectorStride(3, 2, 3, new double[]{0, 0, 2, 0, 0, 5, 0, 0, 0})), 1e-12);
+
+        assertThrows(IllegalArgumentException.class, () -> new DVectorStride(4, 1, 3, array));
+        assertThrows(IllegalArgumentException.class, () -> new DVectorStride(2, -1, 3, array));
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright 2013 - 2021 Aurelian Tutuianu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package rapaio.math.linear.sparse;
+
+import rapaio.math.linear.DMatrix;
+import rapaio.math.linear.MType;
+import rapaio.math.linear.StandardDMatrixTest;
+
+public class DMatrixCSCTest extends StandardDMatrixTest {
+
+    @Override
+    protected DMatrix generateSequential(int n, int m) {
+        DMatrix matrix = DMatrix.empty(MType.CSC, n, m);
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < m; j++) {
+                matrix.set(i, j, i * m + j);
+            }
+        }
+        return matrix;
+    }
+
+    @Override
+    protected DMatrix generateIdentity(int n) {
+        return DMatrix.identity(MType.CSC, n);
+    }
+
+    @Override
+    protected DMatrix generateFill(int n, int m, double fill) {
+        return DMatrix.fill(MType.CSC, n, m, fill);
+    }
+
+    @Override
+    protected DMatrix generateCopy(double[][] values) {
+        return DMatrix.copy(MType.CSC, true, values);
+    }
+
+    @Override
+    protected String className() {
+        return "DMatrixCSC";
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright 2013 - 2021 Aurelian Tutuianu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package rapaio.math.linear.sparse;
+
+import org.junit.jupiter.api.Test;
+import rapaio.core.RandomSource;
+import rapaio.data.Frame;
+import rapaio.data.SolidFrame;
+import rapaio.data.VarNominal;
+import rapaio.data.filter.FOneHotEncoding;
+import rapaio.math.linear.DMatrix;
+import rapaio.math.linear.DVector;
+import rapaio.math.linear.MType;
+import rapaio.math.linear.StandardDMatrixTest;
+import rapaio.math.linear.dense.DMatrixDenseR;
+import rapaio.math.linear.dense.DMatrixStride;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DMatrixCSRTest extends StandardDMatrixTest {
+
+    @Override
+    protected DMatrix generateSequential(int n, int m) {
+        DMatrix matrix = DMatrix.empty(MType.CSR, n, m);
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < m; j++) {
+                matrix.set(i, j, i * m + j);
+            }
+        }
+        return matrix;
+    }
+
+    @Override
+    protected DMatrix generateIdentity(int n) {
+        return DMatrix.identity(MType.CSR, n);
+    }
+
+    @Override
+    protected DMatrix generateFill(int n, int m, double fill) {
+        return DMatrix.fill(MType.CSR, n, m, fill);
+    }
+
+    @Override
+    protected DMatrix generateCopy(double[][] values) {
+        return DMatrix.copy(MType.CSR, true, values);
+    }
+
+    @Override
+    protected String className() {
+        return "DMatrixCSR";
+    }
+
+    private DMatrix randomSparse(MType type, int rows, int cols, double density) {
+        return DMatrixSparse.copy(type, rows, cols,
+                (i, j) -> RandomSource.nextDouble() < density ? RandomSource.nextDouble() - 0.5 : 0);
+    }
+
+    @Test
+    void testStorage() {
+        DMatrixCSR m = new DMatrixCSR(3, 4,
+                new int[] {0, 2, 2, 3},
+                new int[] {1, 3, 0},
+                new double[] {1, 2, 3});
+        assertEquals(3, m.nnz());
+        assertEquals(1, m.get(0, 1));
+        assertEquals(2, m.get(0, 3));
+        assertEquals(0, m.get(1, 1));
+        assertEquals(3, m.get(2, 0));
+
+        m.set(1, 2, 5);
+        m.set(1, 3, 0);
+        m.inc(0, 0, 4);
+        assertEquals(5, m.nnz());
+        assertArrayEquals(new int[] {0, 3, 4, 5}, m.getPointers());
+        assertTrue(m.deepEquals(DMatrix.wrap(new double[][] {
+                {4, 1, 0, 2},
+                {0, 0, 5, 0},
+                {3, 0, 0, 0}
+        })));
+
+        DMatrix t = m.t();
+        assertEquals(MType.CSC, t.type());
+        assertEquals(4, t.rowCount());
+        assertEquals(5, t.get(2, 1));
+        // transposed view shares the storage
+        t.set(3, 2, 7);
+        assertEquals(7, m.get(2, 3));
+
+        // element wise operations keep the zero elements
+        m.mult(2).div(2).mult(DVector.wrap(1, 2, 3, 4), 0);
+        assertEquals(6, m.nnz());
+        assertEquals(8, m.get(0, 3));
+    }
+
+    @Test
+    void testFrameCopy() {
+        RandomSource.setSeed(42);
+        String[] levels = new String[] {"a", "b", "c", "d", "e", "f", "g"};
+        VarNominal x = VarNominal.from(1_000, row -> levels[RandomSource.nextInt(levels.length)], levels).name("x");
+        Frame df = FOneHotEncoding.on("x").fapply(SolidFrame.byVars(x));
+
+        DMatrix dense = DMatrix.copy(df);
+        DMatrixSparse csr = (DMatrixSparse) DMatrix.copy(MType.CSR, df);
+        DMatrixSparse csc = (DMatrixSparse) DMatrix.copy(MType.CSC, df.varStream().toArray(rapaio.data.Var[]::new));
+
+        assertEquals(1_000, csr.nnz());
+        assertEquals(1_000, csc.nnz());
+        assertTrue(dense.deepEquals(csr));
+        assertTrue(dense.deepEquals(csc));
+        assertTrue(dense.scatter().deepEquals(csr.scatter(), 1e-9));
+        assertTrue(dense.scatter().deepEquals(csc.scatter(), 1e-9));
+    }
+
+    @Test
+    void testDenseRowsWithoutCopy() {
+        RandomSource.setSeed(42);
+        DMatrix a = randomSparse(MType.CSR, 30, 20, 0.2);
+        DMatrix da = DMatrix.fill(30, 20, a::get);
+        DMatrix b = DMatrix.random(20, 10);
+        DMatrix c = DMatrix.random(10, 30);
+
+        // row major stride matrices and their row ranges are read from their own array
+        DMatrixStride stride = (DMatrixStride) b;
+        DMatrixSparse.DenseRows rows = DMatrixSparse.denseRows(b);
+        assertSame(stride.getArray(), rows.values());
+        assertNull(rows.rows());
+        DMatrix range = DMatrix.random(25, 10).rangeRows(5, 25);
+        assertSame(((DMatrixStride) range).getArray(), DMatrixSparse.denseRows(range).values());
+
+        // dense row matrices are read from their row arrays
+        DMatrixDenseR denseR = new DMatrixDenseR(20, 10, new double[20][10]);
+        assertSame(denseR.getElements(), DMatrixSparse.denseRows(denseR).rows());
+
+        // column major layouts are copied
+        assertNotNull(DMatrixSparse.denseRows(b.t()).rows());
+
+        assertTrue(da.dot(b).deepEquals(a.dot(b), 1e-12));
+        assertTrue(da.dot(range).deepEquals(a.dot(range), 1e-12));
+        assertTrue(c.dot(da).deepEquals(((DMatrixSparse) a).leftDot(c), 1e-12));
+        assertTrue(c.rangeRows(2, 8).dot(da).deepEquals(((DMatrixSparse) a).leftDot(c.rangeRows(2, 8)), 1e-12));
+        assertTrue(c.dot(da).deepEquals(((DMatrixSparse) a).leftDot(DMatrix.fill(MType.CDENSE, 10, 30, c::get)), 1e-12));
+    }
+
+    @Test
+    void testProducts() {
+        RandomSource.setSeed(42);
+        for (MType type : new MType[] {MType.CSR, MType.CSC}) {
+            DMatrix a = randomSparse(type, 120, 80, 0.05);
+            DMatrix b = randomSparse(MType.CSR, 80, 40, 0.1);
+            DMatrix c = randomSparse(MType.CSC, 80, 40, 0.1);
+            DMatrix da = DMatrix.fill(120, 80, a::get);
+            DMatrix db = DMatrix.fill(80, 40, b::get);
+            DMatrix dc = DMatrix.fill(80, 40, c::get);
+
+            assertTrue(da.dot(db).deepEquals(a.dot(b)));
+            assertTrue(da.dot(db).deepEquals(a.dot(db)));
+            assertTrue(da.dot(db).deepEquals(da.dot(b)));
+            assertTrue(da.dot(dc).deepEquals(a.dot(c)));
+            assertTrue(da.dot(dc).deepEquals(da.dot(c)));
+
+            DVector v = DVector.from(80, i -> i % 3);
+            assertTrue(da.dot(v).deepEquals(a.dot(v)));
+            assertTrue(da.t().dot(da).deepEquals(a.t().dot(a)));
+
+            assertTrue(da.mapRows(3, 7, 7, 100).deepEquals(a.mapRowsCopy(3, 7, 7, 100)));
+            assertTrue(da.mapCols(0, 79, 5).deepEquals(a.mapColsCopy(0, 79, 5)));
+            assertTrue(da.mapRow(11).deepEquals(a.mapRow(11)));
+            assertTrue(da.mapCol(13).deepEquals(a.mapCol(13)));
+            assertTrue(da.copy().add(da).deepEquals(a.copy().add(a)));
+            assertTrue(da.copy().sub(da).deepEquals(a.copy().sub(a.t().t())));
+            assertTrue(da.sum(0).deepEquals(a.sum(0)));
+            assertTrue(da.sum(1).deepEquals(a.sum(1)));
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright 2013 - 2021 Aurelian Tutuianu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package rapaio.math.linear.sparse;
+
+import org.junit.jupiter.api.Test;
+import rapaio.math.linear.DVector;
+import rapaio.math.linear.StandardDVectorTest;
+import rapaio.math.linear.VType;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DVectorSparseTest extends StandardDVectorTest {
+
+    @Override
+    public VType type() {
+        return VType.SPARSE;
+    }
+
+    @Override
+    public DVector generateFill(int size, double fill) {
+        return DVector.fill(VType.SPARSE, size, fill);
+    }
+
+    @Override
+    public DVector generateWrap(double[] values) {
+        DVector v = new DVectorSparse(values.length);
+        for (int i = 0; i < values.length; i++) {
+            v.set(i, values[i]);
+        }
+        return v;
+    }
+
+    @Override
+    public String className() {
+        return "DVectorSparse";
+    }
+
+    @Test
+    void testSparseOperations() {
+        DVectorSparse a = new DVectorSparse(10, new int[] {1, 4, 8}, new double[] {1, 2, 3});
+        DVectorSparse b = new DVectorSparse(10, new int[] {0, 4, 9}, new double[] {5, 6, 7});
+        DVector da = a.toDense();
+        DVector db = b.toDense();
+
+        assertEquals(da.dot(db), a.dot(b));
+        assertEquals(da.dot(db), da.dot(b));
+        assertEquals(da.variance(), a.variance(), 1e-12);
+        assertEquals(da.prod(), a.prod());
+        assertTrue(da.axpyCopy(2, db).deepEquals(a.axpyCopy(2, b)));
+
+        a.mult(2).div(2).mult(db);
+        assertEquals(3, a.nnz());
+        assertTrue(DVector.wrap(0, 0, 0, 0, 12, 0, 0, 0, 0, 0).deepEquals(a));
+
+        a.add(b);
+        assertEquals(5, a.nnz());
+        assertTrue(DVector.wrap(5, 0, 0, 0, 18, 0, 0, 0, 0, 7).deepEquals(a));
+
+        DVectorSparse copy = a.copy();
+        assertEquals(5, copy.nnz());
+        assertNotSame(a.getIndexes(), copy.getIndexes());
+        assertNotSame(a.getValues(), copy.getValues());
+        copy.set(4, 1);
+        copy.set(2, 3);
+        assertEquals(18, a.get(4));
+        assertEquals(0, a.get(2));
+        assertEquals(5, a.nnz());
+        assertEquals(6, copy.nnz());
+
+        assertThrows(IllegalArgumentException.class, () -> new DVectorSparse(3, new int[] {2, 1}, new double[] {1, 1}));
+        assertThrows(IndexOutOfBoundsException.class, () -> b.set(10, 1));
+    }
+}
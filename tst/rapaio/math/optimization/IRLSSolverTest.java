@@ -69,7 +69,10 @@ public class IRLSSolverTest {
             IRLSSolver m1 = IRLSSolver.newMinimizer().method.set(IRLSSolver.Method.IRLS1M).m.set(A).b.set(b).p.set(p).k.set(k)
                     .maxIt.set(500).eps.set(1e-20).compute();
 //            WS.draw(lines(m0.errors(), color('r')).lines(m1.errors(), color('g')));
-            assertTrue(m0.errors().getDouble(m0.errors().size() - 1) >= m1.errors().getDouble(m1.errors().size() - 1),
+            // both methods converge to the same optimum, errors are compared up to rounding
+            double e0 = m0.errors().getDouble(m0.errors().size() - 1);
+            double e1 = m1.errors().getDouble(m1.errors().size() - 1);
+            assertTrue(e0 >= e1 - 1e-12 * Math.abs(e1),
                     MessageFormat.format("error at p={0}, k={1}, sol.m0={2}", p, k, m0.solution().toString()));
         }
     }
@@ -23,15 +23,16 @@ package rapaio.ml.analysis;
 
 
 import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import rapaio.core.RandomSource;
 import rapaio.data.Frame;
+import rapaio.data.SolidFrame;
 import rapaio.data.VarRange;
 import rapaio.datasets.Datasets;
 import rapaio.io.Csv;
 import rapaio.math.linear.DMatrix;
 import rapaio.ml.classifier.ensemble.CForest;
-import rapaio.ml.eval.metric.Confusion;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -47,10 +48,14 @@ public class PCATest {
 
     @BeforeAll
     static void beforeAll() throws Exception {
-        RandomSource.setSeed(123);
         df = Csv.instance().read(PCATest.class.getResourceAsStream("pca.csv")).removeVars("y");
     }
 
+    @BeforeEach
+    void beforeEach() {
+        RandomSource.setSeed(123);
+    }
+
     @Test
     void centerOnlyTest() {
 
@@ -106,19 +111,18 @@ public class PCATest {
         PCA pca = PCA.newModel();
         pca.fit(x);
 
-        Frame pca2 = pca.transform(x, 2).bindVars(iris.rvar("class"));
+        Frame pca1 = pca.transform(x, 1).bindVars(iris.rvar("class"));
         Frame pca4 = pca.transform(x, 4).bindVars(iris.rvar("class"));
 
-        CForest rf2 = CForest.newModel().poolSize.set(0).runs.set(20);
-        CForest rf4 = CForest.newModel().poolSize.set(0).runs.set(20);
-
-        var fit1 = rf2.fit(pca2, "class").predict(pca2);
-        var fit2 = rf4.fit(pca4, "class").predict(pca4);
+        CForest rf1 = CForest.newModel().poolSize.set(0).runs.set(100).oob.set(true);
+        CForest rf4 = CForest.newModel().poolSize.set(0).runs.set(100).oob.set(true);
 
-        double acc1 = Confusion.from(iris.rvar("class"), fit1.firstClasses()).accuracy();
-        double acc2 = Confusion.from(iris.rvar("class"), fit2.firstClasses()).accuracy();
+        rf1.fit(pca1, "class");
+        rf4.fit(pca4, "class");
 
-        assertTrue(acc1 < acc2);
+        // training accuracy is saturated and two components already hold almost all the variance,
+        // a single component loses information, the out of bag error gap observed across seeds is at least 5 rows
+        assertTrue(rf4.getOobError() < rf1.getOobError());
     }
 
     @Test
@@ -143,4 +147,34 @@ public class PCATest {
         assertEquals(pca.toSummary(), pca.toContent());
         assertEquals(pca.toSummary(), pca.toFullContent());
     }
+
+    @Test
+    void truncatedSolvers() {
+        // few strong directions plus noise, with more variables than rows
+        DMatrix m = DMatrix.random(50, 4).dot(DMatrix.random(4, 80)).add(DMatrix.random(50, 80).mult(0.05));
+        String[] names = new String[80];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = "x" + i;
+        }
+        Frame x = SolidFrame.matrix(m, names);
+
+        for (boolean center : new boolean[]{true, false}) {
+            PCA full = PCA.newModel().center.set(center).fit(x);
+            for (PCA.Method method : PCA.Method.values()) {
+                PCA pca = PCA.newModel().center.set(center).k.set(4).method.set(method).fit(x);
+                assertEquals(4, pca.getValues().size());
+                assertEquals(80, pca.getVectors().rowCount());
+                assertEquals(4, pca.getVectors().colCount());
+                for (int i = 0; i < 4; i++) {
+                    assertEquals(full.getValues().get(i), pca.getValues().get(i), 1e-6 * full.getValues().get(0));
+                    for (int j = 0; j < 80; j++) {
+                        assertEquals(Math.abs(full.getVectors().get(j, i)), Math.abs(pca.getVectors().get(j, i)), 1e-4);
+                    }
+                }
+                Frame projection = pca.transform(x, 2);
+                assertEquals(50, projection.rowCount());
+                assertEquals(2, projection.varCount());
+            }
+        }
+    }
 }
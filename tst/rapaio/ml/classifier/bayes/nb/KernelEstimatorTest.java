@@ -23,6 +23,7 @@ package rapaio.ml.classifier.bayes.nb;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import rapaio.core.distributions.empirical.KFuncGaussian;
 import rapaio.data.Frame;
 import rapaio.data.SolidFrame;
 import rapaio.data.VarBinary;
@@ -114,4 +115,38 @@ public class KernelEstimatorTest {
         assertEquals(Double.NaN, estimator2.predict(df, 0, "inexistent"), TOL);
     }
 
+    @Test
+    void testBinned() {
+        KernelEstimator exact = KernelEstimator.forName("x");
+        exact.fit(df, VarDouble.fill(df.rowCount(), 1), "t");
+        KernelEstimator binned = KernelEstimator.forName("x", new KFuncGaussian(), 0, 1024);
+        binned.fit(df, VarDouble.fill(df.rowCount(), 1), "t");
+
+        assertEquals("Kernel{test=x, kdes=[a:{kfun=KFuncGaussian,bw=0.8759585,grid=1024},b:{kfun=KFuncGaussian,bw=0.6427778,grid=1024}]}",
+                binned.fittedName());
+        for (int i = 0; i < df.rowCount(); i++) {
+            assertEquals(exact.predict(df, i, "a"), binned.predict(df, i, "a"), 1e-3);
+            assertEquals(exact.predict(df, i, "b"), binned.predict(df, i, "b"), 1e-3);
+        }
+        assertEquals("Kernel{test=x, kdes=[]}", binned.newInstance().fittedName());
+    }
+
+    @Test
+    void testBinnedSingleRowClass() {
+        VarNominal target = VarNominal.copy("a", "a", "a", "b").name("t");
+        VarDouble x = VarDouble.copy(1, 2, 3, 10).name("x");
+        Frame single = SolidFrame.byVars(x, target);
+
+        KernelEstimator exact = KernelEstimator.forName("x");
+        exact.fit(single, VarDouble.fill(single.rowCount(), 1), "t");
+        KernelEstimator binned = KernelEstimator.forName("x", new KFuncGaussian(), 0, 1024);
+        assertTrue(binned.fit(single, VarDouble.fill(single.rowCount(), 1), "t"));
+
+        // the single row class keeps the exact estimator
+        assertEquals("Kernel{test=x, kdes=[a:{kfun=KFuncGaussian,bw=0.8509061,grid=1024},b:{kfun=KFuncGaussian,bw=?}]}",
+                binned.fittedName());
+        for (int i = 0; i < single.rowCount(); i++) {
+            assertEquals(exact.predict(single, i, "b"), binned.predict(single, i, "b"), TOL);
+        }
+    }
 }
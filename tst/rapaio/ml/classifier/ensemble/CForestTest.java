@@ -28,6 +28,7 @@ import rapaio.data.Frame;
 import rapaio.datasets.Datasets;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * Created by <a href="mailto:padreati@yahoo.com">Aurelian Tutuianu</a> on 8/14/20.
@@ -58,6 +59,25 @@ public class CForestTest {
         assertEquals(iris.rowCount(), prediction.firstDensity().rowCount());
     }
 
+    @Test
+    void reproducibleParallelTest() {
+        RandomSource.setSeed(42);
+        var serial = CForest.newModel().runs.set(20).poolSize.set(0).oob.set(true)
+                .viFreq.set(true).viGain.set(true).viPerm.set(true)
+                .fit(iris, "class");
+        RandomSource.setSeed(42);
+        var parallel = CForest.newModel().runs.set(20).poolSize.set(-1).oob.set(true)
+                .viFreq.set(true).viGain.set(true).viPerm.set(true)
+                .fit(iris, "class");
+
+        assertEquals(serial.getOobError(), parallel.getOobError());
+        assertTrue(serial.getOobDensities().deepEquals(parallel.getOobDensities()));
+        assertTrue(serial.predict(iris).firstDensity().deepEquals(parallel.predict(iris).firstDensity()));
+        assertTrue(serial.getFreqVIInfo().deepEquals(parallel.getFreqVIInfo()));
+        assertTrue(serial.getGainVIInfo().deepEquals(parallel.getGainVIInfo()));
+        assertTrue(serial.getPermVIInfo().deepEquals(parallel.getPermVIInfo()));
+    }
+
     @Test
     void oobTest() {
         var model = CForest.newModel().runs.set(10).oob.set(true);
@@ -93,6 +113,23 @@ public class CForestTest {
         assertEquals(4, freqInfo.rowCount());
         assertEquals(4, gainInfo.rowCount());
         assertEquals(4, permInfo.rowCount());
+
+        // petal measurements are the most important for iris
+        assertTrue(permInfo.getLabel(0, "name").startsWith("petal"));
+        assertTrue(gainInfo.getLabel(0, "name").startsWith("petal"));
+    }
+
+    @Test
+    void oobRowsTest() {
+        var model = CForest.newModel().runs.set(50).oob.set(true).fit(iris, "class");
+
+        // each row is out of bag for about a third of the trees
+        var densities = model.getOobDensities();
+        for (int i = 0; i < iris.rowCount(); i++) {
+            double votes = densities.mapRow(i).sum();
+            assertTrue(votes > 5 && votes < 35);
+        }
+        assertTrue(model.getOobError() < 0.1);
     }
 
     @Test
@@ -154,7 +191,7 @@ public class CForestTest {
 
                 Fitted trees:100
                 oob enabled:true
-                oob error:0.04
+                oob error:0.0466667
                 """, model.toSummary());
         assertEquals(model.toSummary(), model.toContent());
         assertEquals("""
@@ -183,28 +220,28 @@ public class CForestTest {
 
                 Fitted trees:100
                 oob enabled:true
-                oob error:0.04
+                oob error:0.0466667
 
                 Frequency Variable Importance:
                         name      mean      sd     scaled score\s
-                [0] petal-length 164.71 82.3588226 100         \s
-                [1]  petal-width 139.03 80.1589904  84.4089612 \s
-                [2] sepal-length  78.6  85.4258495  47.7202356 \s
-                [3]  sepal-width  35.46 37.9205496  21.5287475 \s
+                [0]  petal-width 168.07 80.2588307 100         \s
+                [1] petal-length 140.03 79.8807767  83.3164753 \s
+                [2] sepal-length  68.45 67.5166085  40.727078  \s
+                [3]  sepal-width  32.71 36.5326186  19.4621289 \s
 
                 Gain Variable Importance:
                         name        mean        sd     scaled score\s
-                [0] petal-length 39.5796441 28.6634617 100         \s
-                [1]  petal-width 33.9636502 28.1915658  85.8109035 \s
-                [2] sepal-length  9.2588583 14.0932391  23.3929801 \s
-                [3]  sepal-width  1.5107091  3.6596976   3.8168839 \s
+                [0]  petal-width 44.4482224 27.8162348 100         \s
+                [1] petal-length 33.0233837 26.0167809  74.2962979 \s
+                [2] sepal-length  6.653277  11.7512269  14.9686008 \s
+                [3]  sepal-width  0.8248478  1.7535291   1.8557499 \s
 
                 Permutation Variable Importance:
-                        name        mean        sd     scaled score\s
-                [0] petal-length 39.5796441 28.6634617 100         \s
-                [1]  petal-width 33.9636502 28.1915658  85.8109035 \s
-                [2] sepal-length  9.2588583 14.0932391  23.3929801 \s
-                [3]  sepal-width  1.5107091  3.6596976   3.8168839 \s
+                        name     mean      sd      z-score   p-value \s
+                [0]  petal-width 18.87 11.3294601 1.6655692 0.53816  \s
+                [1] petal-length 15.58 11.3708648 1.3701684 0.5677443\s
+                [2] sepal-length  1.37  3.0506002 0.449092  0.7432396\s
+                [3]  sepal-width  0.54  1.566183  0.3447873 0.7673826\s
 
                 """, model.toFullContent());
     }
@@ -28,6 +28,9 @@ import rapaio.core.distributions.Normal;
 import rapaio.data.VarDouble;
 import rapaio.math.linear.DMatrix;
 import rapaio.math.linear.DVector;
+import rapaio.math.linear.MType;
+import rapaio.math.linear.dense.DMatrixDenseC;
+import rapaio.math.linear.sparse.DMatrixSparse;
 
 import java.util.Collections;
 
@@ -107,6 +110,34 @@ public class BinaryLogisticIRLSTest {
         assertEquals(result.getNll(), result.nlls().get(result.nlls().size() - 1));
     }
 
+    @Test
+    void testSparseInputs() {
+        var x = DMatrix.copy(10, 2, -5, 0, -4, 0, 0, 1, 2, 0, -1, 0, 1, 0, 0, -1, 3, 0, 4, 2, 5, 0);
+        var y = DVector.wrap(1, 1, 1, 1, 1, 0, 0, 0, 0, 0);
+
+        var dense = new BinaryLogisticIRLS().x.set(x).y.set(y).w0.set(DVector.zeros(2))
+                .maxIter.set(100).eps.set(0.0001).fit();
+        var sparse = new BinaryLogisticIRLS().x.set(DMatrixSparse.copy(MType.CSR, 10, 2, x::get)).y.set(y).w0.set(DVector.zeros(2))
+                .maxIter.set(100).eps.set(0.0001).fit();
+
+        assertEquals(dense.converged(), sparse.converged());
+        assertTrue(dense.getW().deepEquals(sparse.getW(), 1e-10));
+    }
+
+    @Test
+    void testColumnMajorInputs() {
+        var x = DMatrix.copy(10, 2, -5, 0, -4, 0, 0, 1, 2, 0, -1, 0, 1, 0, 0, -1, 3, 0, 4, 2, 5, 0);
+        var y = DVector.wrap(1, 1, 1, 1, 1, 0, 0, 0, 0, 0);
+
+        var rows = new BinaryLogisticIRLS().x.set(x).y.set(y).w0.set(DVector.zeros(2))
+                .maxIter.set(100).eps.set(0.0001).fit();
+        var cols = new BinaryLogisticIRLS().x.set(new DMatrixDenseC(10, 2).add(x)).y.set(y).w0.set(DVector.zeros(2))
+                .maxIter.set(100).eps.set(0.0001).fit();
+
+        assertEquals(rows.converged(), cols.converged());
+        assertTrue(rows.getW().deepEquals(cols.getW(), 1e-10));
+    }
+
     @Test
     void testUnconverged() {
         var x = DMatrix.copy(2, 1, -5, 5);
@@ -27,6 +27,7 @@ import rapaio.core.RandomSource;
 import rapaio.data.Frame;
 import rapaio.data.SolidFrame;
 import rapaio.data.VarDouble;
+import rapaio.data.VarNominal;
 import rapaio.datasets.Datasets;
 import rapaio.experiment.ml.common.predicate.RowPredicate;
 import rapaio.ml.classifier.tree.ctree.Candidate;
@@ -63,6 +64,32 @@ public class CTreeTest {
         assertTrue(c.score() < b.score());
     }
 
+    @Test
+    void testFlatPrediction() {
+        Frame df = Datasets.loadIrisDataset().bindVars(
+                VarNominal.from(150, row -> row % 3 == 0 ? "a" : (row % 3 == 1 ? "b" : "c")).name("nom"));
+        CTree tree = CTree.newCART().minCount.set(2);
+        tree.fit(df, "class");
+
+        // missing values are sent to all children
+        Frame test = df.copy();
+        for (int i = 0; i < test.rowCount(); i += 7) {
+            test.setMissing(i, "petal-length");
+            test.setMissing(i, "nom");
+        }
+
+        var result = tree.predict(test, true, true);
+        for (int i = 0; i < test.rowCount(); i++) {
+            var expected = tree.predictPoint(tree, tree.getRoot(), i, test);
+            for (int j = 1; j < tree.firstTargetLevels().size(); j++) {
+                assertEquals(expected.v2.get(tree.firstTargetLevel(j)), result.firstDensity().getDouble(i, j), 1e-12);
+            }
+            if (i % 7 != 0) {
+                assertEquals(expected.v1, result.firstClasses().getLabel(i));
+            }
+        }
+    }
+
     @Test
     void testBuilderDecisionStump() {
         Frame df = Datasets.loadIrisDataset();
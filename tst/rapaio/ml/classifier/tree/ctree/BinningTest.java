@@ -0,0 +1,116 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright 2013 - 2021 Aurelian Tutuianu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package rapaio.ml.classifier.tree.ctree;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import rapaio.core.RandomSource;
+import rapaio.data.Frame;
+import rapaio.data.Var;
+import rapaio.data.VarDouble;
+import rapaio.data.VarType;
+import rapaio.datasets.Datasets;
+import rapaio.experiment.ml.common.predicate.RowPredicate;
+import rapaio.ml.classifier.tree.CTree;
+import rapaio.util.Pair;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BinningTest {
+
+    private static final double TOL = 1e-12;
+
+    @BeforeEach
+    void beforeEach() {
+        RandomSource.setSeed(123);
+    }
+
+    @Test
+    void testSubtractionMatchesDirect() {
+        Frame iris = Datasets.loadIrisDataset();
+        Var w = VarDouble.fill(iris.rowCount(), 1);
+        List<String> names = List.of("sepal-length", "sepal-width", "petal-length", "petal-width");
+
+        Binning binning = Binning.from(iris, names, "class", 8);
+
+        Node root = new Node(null, 0, 0, "root", RowPredicate.all());
+        for (String name : names) {
+            binning.histogram(root, iris, w, name, "class");
+        }
+        Map<String, Binning.Histogram> rootHistograms = root.histograms;
+
+        List<RowPredicate> predicates = List.of(
+                RowPredicate.numLessEqual("petal-length", 4.1),
+                RowPredicate.numGreater("petal-length", 4.1));
+        Pair<List<Frame>, List<Var>> split = Splitter.Random.performSplit(iris, w, predicates);
+        for (RowPredicate predicate : predicates) {
+            root.children.add(new Node(root, root.children.size() + 1, 1, predicate.toString(), predicate));
+        }
+        binning.split(root, iris, split.v1, split.v2, "class");
+        assertNull(root.histograms);
+
+        for (int i = 0; i < predicates.size(); i++) {
+            Node child = root.children.get(i);
+            assertEquals(names.size(), child.histograms.size());
+            Node fresh = new Node(null, 0, 0, "fresh", RowPredicate.all());
+            for (String name : names) {
+                var derived = child.histograms.get(name);
+                var direct = binning.histogram(fresh, split.v1.get(i), split.v2.get(i), name, "class");
+                assertTrue(direct.counts().length <= 8);
+                assertArrayEquals(direct.counts(), derived.counts(), TOL);
+                for (int r = 0; r < direct.weights().rowCount(); r++) {
+                    for (int c = 0; c < direct.weights().colCount(); c++) {
+                        assertEquals(direct.weights().get(r, c), derived.weights().get(r, c), TOL);
+                    }
+                }
+            }
+        }
+        double count = 0;
+        for (double c : rootHistograms.get("sepal-width").counts()) {
+            count += c;
+        }
+        assertEquals(150, count, TOL);
+    }
+
+    @Test
+    void testHistogramTree() {
+        Frame iris = Datasets.loadIrisDataset();
+
+        CTree tree = CTree.newCART()
+                .testMap.add(VarType.DOUBLE, Search.NumericHistogram)
+                .bins.set(16);
+        tree.fit(iris, "class");
+
+        var result = tree.predict(iris);
+        int correct = 0;
+        for (int i = 0; i < iris.rowCount(); i++) {
+            if (result.firstClasses().getLabel(i).equals(iris.getLabel(i, "class"))) {
+                correct++;
+            }
+        }
+        assertTrue(correct >= 145);
+        assertTrue(tree.countNodes(true) > 2);
+    }
+}
@@ -73,6 +73,17 @@ public class SearchTest {
         assertEquals("temp<=70.5", candidate.groupPredicates().get(0).toString());
     }
 
+    @Test
+    void numericHistogramTest() {
+
+        var candidate = Search.NumericHistogram.computeCandidate(
+                CTree.newDecisionStump().minCount.set(2),
+                play, VarDouble.fill(play.rowCount(), 1.0), "temp", "class", Purity.GiniGain);
+
+        assertEquals("temp", candidate.testName());
+        assertEquals("temp<=70.5", candidate.groupPredicates().get(0).toString());
+    }
+
     @Test
     void binaryBinaryTest() {
         var df = SolidFrame.byVars(
@@ -24,12 +24,14 @@ package rapaio.ml.clustering.kmeans;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import rapaio.core.RandomSource;
+import rapaio.core.distributions.Normal;
 import rapaio.data.Frame;
 import rapaio.data.SolidFrame;
 import rapaio.data.VarDouble;
 import rapaio.data.VarInt;
 import rapaio.datasets.Datasets;
 import rapaio.math.linear.DMatrix;
+import rapaio.math.linear.MType;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -92,6 +94,42 @@ public class KMeansTest {
 
     }
 
+    @Test
+    void testParallelAndHamerly() {
+        Normal normal = Normal.std();
+        int n = 20_000;
+        VarDouble x = VarDouble.empty().name("x");
+        VarDouble y = VarDouble.empty().name("y");
+        VarDouble z = VarDouble.empty().name("z");
+        for (int i = 0; i < n; i++) {
+            int center = i % 5;
+            x.addDouble(center * 3 + normal.sampleNext());
+            y.addDouble(center * center + normal.sampleNext());
+            z.addDouble(-center + normal.sampleNext());
+        }
+        Frame df = SolidFrame.byVars(x, y, z);
+
+        KMeans lloyd = fitWithSeed(KMeans.newModel(), df);
+        int iterations = lloyd.getErrors().size();
+        KMeansResult lloydResult = lloyd.predict(df);
+
+        for (KMeans model : new KMeans[] {
+                KMeans.newModel().poolSize.set(4),
+                KMeans.newModel().method.set(KMeans.Method.Hamerly),
+                KMeans.newModel().method.set(KMeans.Method.Hamerly).poolSize.set(-1)}) {
+            fitWithSeed(model, df);
+            assertEquals(iterations, model.getErrors().size());
+            assertEquals(lloyd.getInertia(), model.getInertia(), 1e-8 * lloyd.getInertia());
+            assertTrue(lloyd.getCentroidsMatrix().deepEquals(model.getCentroidsMatrix(), 1e-10));
+            assertTrue(lloydResult.getAssignment().deepEquals(model.predict(df).getAssignment()));
+        }
+    }
+
+    private KMeans fitWithSeed(KMeans model, Frame df) {
+        RandomSource.setSeed(123);
+        return model.k.set(5).init.set(KMeansInit.PlusPlus).runs.set(100).fit(df);
+    }
+
     @Test
     void printingTest() {
         var df = Datasets.loadOldFaithful();
@@ -135,4 +173,25 @@ public class KMeansTest {
                 """, model.toFullContent());
 
     }
+
+    @Test
+    void rowsWithoutCopy() {
+        Frame df = Datasets.loadOldFaithful();
+        DMatrix m = KMeans.rowMatrix(df);
+        assertTrue(m.deepEquals(DMatrix.copy(df)));
+
+        // fit matrix rows are used directly from storage
+        double[][] rows = KMeans.rows(m);
+        assertSame(rows, KMeans.rows(m));
+        assertSame(rows[0], KMeans.rows(m)[0]);
+
+        // row major stride matrices are copied with bulk copies
+        DMatrix stride = DMatrix.copy(df).rangeRows(10, 20);
+        double[][] strideRows = KMeans.rows(stride);
+        for (int i = 0; i < strideRows.length; i++) {
+            assertArrayEquals(stride.mapRow(i).valueStream().toArray(), strideRows[i]);
+        }
+        // other layouts are copied element by element
+        assertArrayEquals(strideRows, KMeans.rows(DMatrix.fill(MType.CDENSE, 10, df.varCount(), stride::get)));
+    }
 }
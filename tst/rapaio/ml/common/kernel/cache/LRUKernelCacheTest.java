@@ -0,0 +1,85 @@
+/*
+ * Apache License
+ * Version 2.0, January 2004
+ * http://www.apache.org/licenses/
+ *
+ * Copyright 2013 - 2021 Aurelian Tutuianu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package rapaio.ml.common.kernel.cache;
+
+import org.junit.jupiter.api.Test;
+import rapaio.data.Frame;
+import rapaio.data.SolidFrame;
+import rapaio.data.VarDouble;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LRUKernelCacheTest {
+
+    @Test
+    void testStoreRetrieve() {
+        Frame df = SolidFrame.byVars(VarDouble.seq(9).name("x"));
+        Frame other = SolidFrame.byVars(VarDouble.seq(9).name("x"));
+
+        LRUKernelCache cache = new LRUKernelCache(df, 10L * 8 * 10);
+        assertEquals(10, cache.capacity());
+
+        assertNull(cache.retrieve(df, 1, df, 2));
+        cache.store(df, 1, df, 2, 12);
+        assertEquals(12, cache.retrieve(df, 1, df, 2));
+        // symmetric lookup
+        assertEquals(12, cache.retrieve(df, 2, df, 1));
+        assertEquals(1, cache.size());
+
+        // values on other frames are not cached
+        cache.store(other, 1, df, 3, 13);
+        assertNull(cache.retrieve(other, 1, df, 3));
+        assertNull(cache.retrieve(df, 1, df, 3));
+
+        cache.clear();
+        assertNull(cache.retrieve(df, 1, df, 2));
+        cache.store(df, 1, df, 2, 12);
+        assertNull(cache.retrieve(df, 1, df, 2));
+    }
+
+    @Test
+    void testEviction() {
+        Frame df = SolidFrame.byVars(VarDouble.seq(99).name("x"));
+
+        // budget for 3 rows
+        LRUKernelCache cache = new LRUKernelCache(df, 3L * 8 * 100);
+        assertEquals(3, cache.capacity());
+
+        cache.store(df, 0, df, 10, 1);
+        cache.store(df, 1, df, 10, 2);
+        cache.store(df, 2, df, 10, 3);
+        assertEquals(3, cache.size());
+
+        // touch row 0, thus row 1 becomes the least recently used
+        assertEquals(1, cache.retrieve(df, 0, df, 10));
+        cache.store(df, 3, df, 10, 4);
+        assertEquals(3, cache.size());
+
+        assertNull(cache.retrieve(df, 1, df, 10));
+        assertEquals(1, cache.retrieve(df, 0, df, 10));
+        assertEquals(3, cache.retrieve(df, 2, df, 10));
+        assertEquals(4, cache.retrieve(df, 3, df, 10));
+
+        // the budget allows at least two rows
+        assertEquals(2, new LRUKernelCache(df, 1).capacity());
+    }
+}
@@ -33,9 +33,15 @@ import rapaio.ml.eval.metric.ClassifierMetric;
 import rapaio.ml.eval.split.Split;
 import rapaio.ml.eval.split.SplitStrategy;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
 
 /**
  * Created by <a href="mailto:padreati@yahoo.com">Aurelian Tutuianu</a> on 2/28/20.
@@ -78,4 +84,42 @@ public class ClassifierModelEvaluationTest {
         assertEquals(1, result.getTestScores().getDouble(1, "fold"));
         assertEquals(0.75, result.getTestScores().getDouble(1, metric.getName()));
     }
+
+    @Test
+    void testListenerAndExecutor() throws Exception {
+        Frame df = SolidFrame.byVars(VarNominal.copy("a", "a", "a", "b").name(targetName));
+        List<Integer> folds = Collections.synchronizedList(new ArrayList<>());
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // the outer evaluation occupies the single thread of the executor, the inner
+            // evaluation shares the executor and is run by the calling thread
+            Future<ClassifierEvaluationResult> outer = executor.submit(() -> ClassifierEvaluation.eval(df, targetName, ZeroRule.newModel())
+                    .splitStrategy.set(splitStrategy)
+                    .executor.set(executor)
+                    .listener.set((split, train, test) -> folds.add(split.fold()))
+                    .run());
+            var result = outer.get(10, TimeUnit.SECONDS);
+            assertEquals(2, result.getTestScores().rowCount());
+            assertEquals(2, folds.size());
+            assertTrue(folds.containsAll(List.of(0, 1)));
+            assertFalse(executor.isShutdown());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testFailureCancelsEvaluation() {
+        Frame df = SolidFrame.byVars(VarNominal.copy("a", "a", "a", "b").name(targetName));
+        SplitStrategy failing = (frame, weights) -> List.of(
+                new Split(0, 0, frame, frame),
+                new Split(0, 1, frame.removeVars(targetName), frame));
+
+        var eval = ClassifierEvaluation.eval(df, targetName, ZeroRule.newModel())
+                .splitStrategy.set(failing)
+                .threads.set(2);
+        var ex = assertThrows(IllegalStateException.class, eval::run);
+        assertTrue(ex.getMessage().startsWith("Evaluation failed at round 0, fold 1"));
+    }
 }
@@ -26,6 +26,7 @@ import org.junit.jupiter.api.Test;
 import rapaio.core.RandomSource;
 import rapaio.data.Var;
 import rapaio.data.VarDouble;
+import rapaio.data.sample.RowSampler;
 import rapaio.datasets.Datasets;
 import rapaio.ml.loss.L2Loss;
 import rapaio.ml.regression.tree.RTree;
@@ -75,6 +76,45 @@ public class GBTRegressionResultTest {
         assertTrue(err2.getDouble(err2.size() - 1) < 1e-1);
     }
 
+    @Test
+    void inPlaceTest() {
+        var advertise = Datasets.loadISLAdvertising().removeVars("ID");
+        var model = GBTRegression.newModel()
+                .runs.set(50)
+                .shrinkage.set(0.3)
+                .model.set(RTree.newCART().maxDepth.set(3));
+        var inPlaceModel = model.newInstance().inPlace.set(true);
+
+        model.fit(advertise, "Sales");
+        inPlaceModel.fit(advertise, "Sales");
+
+        assertEquals(model.getTrees().size(), inPlaceModel.getTrees().size());
+        var pred = model.predict(advertise).firstPrediction();
+        var inPlacePred = inPlaceModel.predict(advertise).firstPrediction();
+        for (int i = 0; i < advertise.rowCount(); i++) {
+            assertEquals(model.getFitValues().getDouble(i), inPlaceModel.getFitValues().getDouble(i), 1e-10);
+            assertEquals(pred.getDouble(i), inPlacePred.getDouble(i), 1e-10);
+            assertEquals(inPlaceModel.getFitValues().getDouble(i), inPlacePred.getDouble(i), 1e-10);
+        }
+
+        // with row sampling and missing values the predictions of the trees are still consistent
+        var missing = advertise.copy();
+        for (int i = 0; i < missing.rowCount(); i += 5) {
+            missing.setMissing(i, "TV");
+        }
+        var sampled = GBTRegression.newModel()
+                .runs.set(20)
+                .shrinkage.set(0.3)
+                .inPlace.set(true)
+                .rowSampler.set(RowSampler.subsampler(0.7))
+                .model.set(RTree.newCART().maxDepth.set(3));
+        sampled.fit(missing, "Sales");
+        var sampledPred = sampled.predict(missing).firstPrediction();
+        for (int i = 0; i < missing.rowCount(); i++) {
+            assertEquals(sampled.getFitValues().getDouble(i), sampledPred.getDouble(i), 1e-10);
+        }
+    }
+
     @Test
     void printingTest() {
         var advertise = Datasets.loadISLAdvertising().removeVars("ID");
@@ -269,4 +269,23 @@ public class LinearRegressionResultResultModelTest {
             assertEquals(betas.get(i, 1), secondBetas.get(i), TOL);
         }
     }
+
+    @Test
+    void testSparseCoefficients() {
+        RandomSource.setSeed(123);
+        Normal normal = Normal.of(0, 1);
+        VarDouble x1 = VarDouble.from(200, row -> row % 3 == 0 ? normal.sampleNext() : 0).name("x1");
+        VarDouble x2 = VarDouble.from(200, row -> row % 5 == 0 ? normal.sampleNext() : 0).name("x2");
+        VarDouble y = VarDouble.from(200, row -> 2 * x1.getDouble(row) - 3 * x2.getDouble(row) + 1
+                + normal.sampleNext() / 10).name("y");
+        Frame df = BoundFrame.byVars(x1, x2, y);
+
+        LinearRegressionModel dense = LinearRegressionModel.newModel().intercept.set(true).fit(df, "y");
+        LinearRegressionModel sparse = LinearRegressionModel.newModel().intercept.set(true).sparse.set(true).fit(df, "y");
+
+        assertTrue(dense.firstCoefficients().deepEquals(sparse.firstCoefficients(), 1e-10));
+        var densePred = dense.predict(df, true);
+        var sparsePred = sparse.predict(df, true);
+        assertEquals(densePred.firstRss(), sparsePred.firstRss(), 1e-10);
+    }
 }
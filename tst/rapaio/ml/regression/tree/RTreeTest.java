@@ -42,6 +42,7 @@ import rapaio.ml.eval.metric.RegressionScore;
 import rapaio.ml.loss.L2Loss;
 import rapaio.ml.regression.DefaultHookInfo;
 import rapaio.ml.regression.RegressionResult;
+import rapaio.ml.regression.tree.rtree.Node;
 import rapaio.ml.regression.tree.rtree.Search;
 import rapaio.ml.regression.tree.rtree.Splitter;
 
@@ -126,6 +127,27 @@ public class RTreeTest {
                 "DOUBLE=NumericBinary,LONG=NumericBinary,STRING=Ignore}}", RTree.newCART().fullName());
     }
 
+    @Test
+    void testFlatPrediction() {
+        Frame df = Datasets.loadISLAdvertising().removeVars(VarRange.of("ID"));
+        RTree tree = RTree.newCART().maxDepth.set(8).minCount.set(3);
+        tree.fit(df, "Sales");
+
+        RegressionResult result = tree.predict(df);
+        for (int i = 0; i < df.rowCount(); i++) {
+            Node node = tree.root();
+            while (!node.leaf) {
+                for (Node child : node.children) {
+                    if (child.predicate.test(i, df)) {
+                        node = child;
+                        break;
+                    }
+                }
+            }
+            assertEquals(node.value, result.firstPrediction().getDouble(i), 1e-12);
+        }
+    }
+
     @Test
     void testSimple() {
         Frame df = Datasets.loadISLAdvertising().removeVars(VarRange.of("ID", "Radio", "Newspaper"));
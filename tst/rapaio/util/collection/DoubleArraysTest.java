@@ -37,6 +37,7 @@ import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 import static rapaio.util.collection.DoubleArrays.*;
 
 /**
@@ -392,4 +393,81 @@ public class DoubleArraysTest {
         }
     }
 
+
+    @Test
+    void simdKernelsTest() {
+        DoubleKernels simd = DoubleKernels.load();
+        assumeTrue(simd != null, "vector api is not available");
+        assertTrue(isSimdEnabled());
+
+        int len = 1003;
+        int start = 5;
+        double[] a = newFrom(0, len + start, row -> normal.sampleNext());
+        double[] b = newFrom(0, len + start, row -> normal.sampleNext());
+        double[] nan = copy(a, 0, a.length);
+        for (int i = 0; i < nan.length; i += 7) {
+            nan[i] = Double.NaN;
+        }
+
+        double sum = 0;
+        double nanSum = 0;
+        int nanCount = 0;
+        double dot = 0;
+        for (int i = start; i < start + len; i++) {
+            sum += a[i];
+            dot += a[i] * b[i];
+            if (!Double.isNaN(nan[i])) {
+                nanSum += nan[i];
+                nanCount++;
+            }
+        }
+        assertEquals(sum, simd.sum(a, start, len), TOL);
+        assertEquals(nanSum, simd.nanSum(nan, start, len), TOL);
+        assertEquals(nanCount, simd.nanCount(nan, start, len));
+        assertEquals(dot, simd.dot(a, start, b, start, len), TOL);
+
+        double mean = sum / len;
+        double variance = Variance.of(VarDouble.wrapArray(len, copy(a, start, len))).value();
+        assertEquals(variance, simd.variance(a, start, len, mean, len, false), TOL);
+        double nanMean = nanSum / nanCount;
+        double nanVariance = Variance.of(VarDouble.wrapArray(len, copy(nan, start, len))).value();
+        assertEquals(nanVariance, simd.variance(nan, start, len, nanMean, nanCount, true), TOL);
+
+        double[] expected = copy(a, 0, a.length);
+        double[] actual = copy(a, 0, a.length);
+        for (int i = start; i < start + len; i++) {
+            expected[i] = ((expected[i] + 2) * b[i] - b[i]) * 3 / b[i];
+        }
+        simd.add(actual, start, 2, len);
+        simd.mult(actual, start, b, start, len);
+        simd.sub(actual, start, b, start, len);
+        simd.mult(actual, start, 3, len);
+        simd.div(actual, start, b, start, len);
+        assertArrayEquals(expected, actual);
+
+        double[] axpy = new double[a.length];
+        simd.axpyTo(2, a, b, axpy, start, a.length);
+        for (int i = start; i < a.length; i++) {
+            assertEquals(2 * a[i] + b[i], axpy[i]);
+        }
+    }
+
+    @Test
+    void boundsTest() {
+        double[] a = new double[]{1, 2, 2, 2, 3, 5, 5};
+        assertEquals(0, lowerBound(a, 0));
+        assertEquals(0, upperBound(a, 0));
+        assertEquals(1, lowerBound(a, 2));
+        assertEquals(4, upperBound(a, 2));
+        assertEquals(5, lowerBound(a, 4));
+        assertEquals(5, upperBound(a, 4));
+        assertEquals(5, lowerBound(a, 5));
+        assertEquals(7, upperBound(a, 5));
+        assertEquals(7, lowerBound(a, 6));
+        assertEquals(7, upperBound(a, 6));
+
+        assertEquals(2, lowerBound(a, 2, 5, 1));
+        assertEquals(4, upperBound(a, 2, 5, 2));
+        assertEquals(5, lowerBound(a, 2, 5, 10));
+    }
 }